@@ -2,12 +2,14 @@ package com.upv.examcalendar;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Main application class for the UPV Exam Calendar
  * BIND-MOUNT TEST - This comment was added to test bind-mount functionality
  */
 @SpringBootApplication
+@EnableScheduling
 public class ExamCalendarApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,51 @@
+package com.upv.examcalendar.config;
+
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.IntegerType;
+import org.hibernate.type.LocalDateType;
+import org.hibernate.type.LocalTimeType;
+import org.hibernate.type.LongType;
+
+/**
+ * PostgreSQL functions made available to JPQL and Criteria queries.
+ * Registered through hibernate.metadata_builder_contributor so they work
+ * whichever PostgreSQL dialect is configured.
+ */
+public class ExamSqlFunctions implements MetadataBuilderContributor {
+
+    /**
+     * Day of (day + hour) moved by a number of days and hours
+     */
+    public static final String SHIFTED_DAY = "exam_shifted_day";
+
+    /**
+     * Time of (day + hour) moved by a number of days and hours
+     */
+    public static final String SHIFTED_HOUR = "exam_shifted_hour";
+
+    /**
+     * Next row version, for statements that change rows without going through Hibernate's own updates
+     */
+    public static final String NEXT_VERSION = "exam_next_version";
+
+    /**
+     * Academic year of a day, the exam_academic_year function of schema.sql
+     */
+    public static final String ACADEMIC_YEAR = "exam_academic_year";
+
+    private static final String SHIFTED = "(?1 + ?2 + make_interval(0, 0, 0, ?3, ?4))";
+
+    @Override
+    public void contribute(MetadataBuilder metadataBuilder) {
+        metadataBuilder.applySqlFunction(SHIFTED_DAY,
+                new SQLFunctionTemplate(LocalDateType.INSTANCE, "cast(" + SHIFTED + " as date)"));
+        metadataBuilder.applySqlFunction(SHIFTED_HOUR,
+                new SQLFunctionTemplate(LocalTimeType.INSTANCE, "cast(" + SHIFTED + " as time)"));
+        metadataBuilder.applySqlFunction(NEXT_VERSION,
+                new SQLFunctionTemplate(LongType.INSTANCE, "nextval('etsinf_exams_version_seq')"));
+        metadataBuilder.applySqlFunction(ACADEMIC_YEAR,
+                new SQLFunctionTemplate(IntegerType.INSTANCE, "exam_academic_year(?1)"));
+    }
+}
@@ -0,0 +1,101 @@
+package com.upv.examcalendar.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas of the exam database, enabled by listing their JDBC URLs.
+ * Replaces the auto-configured DataSource with a {@link ReplicaRoutingDataSource}
+ * over a primary pool, configured from the usual spring.datasource properties,
+ * and one read-only pool per replica. Replicas use the primary credentials
+ * unless their own are set, and a replica that is down at startup does not
+ * stop the application: its reads go to the primary until it is back.
+ */
+@Configuration
+@ConditionalOnExpression("!'${exam.datasource.replica.urls:}'.trim().isEmpty()")
+@Slf4j
+public class ReadReplicaConfig {
+
+    @Value("${exam.datasource.replica.urls}")
+    private String[] replicaUrls;
+
+    @Value("${exam.datasource.replica.username:}")
+    private String replicaUsername;
+
+    @Value("${exam.datasource.replica.password:}")
+    private String replicaPassword;
+
+    @Value("${exam.datasource.replica.selection:round-robin}")
+    private String selection;
+
+    @Value("${exam.datasource.replica.maximum-pool-size:10}")
+    private int replicaPoolSize;
+
+    @Value("${exam.datasource.replica.connection-timeout-ms:2000}")
+    private long replicaConnectionTimeoutMs;
+
+    @Value("${exam.datasource.replica.pin-after-write-ms:5000}")
+    private long pinAfterWriteMs;
+
+    @Bean
+    public ReplicaLagGuard replicaLagGuard() {
+        return new ReplicaLagGuard(pinAfterWriteMs);
+    }
+
+    @Bean
+    @Primary
+    public ReplicaRoutingDataSource dataSource(DataSourceProperties properties, Environment environment,
+            ReplicaLagGuard replicaLagGuard, MeterRegistry meterRegistry) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) {
+            primary.setPoolName("exam-primary");
+        }
+        primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        replicaLagGuard.bindPrimary(primary);
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            if (!StringUtils.hasText(url)) {
+                continue;
+            }
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("exam-replica-" + (replicas.size() + 1));
+            config.setJdbcUrl(url.trim());
+            config.setUsername(StringUtils.hasText(replicaUsername) ? replicaUsername : properties.determineUsername());
+            config.setPassword(StringUtils.hasText(replicaPassword) ? replicaPassword : properties.determinePassword());
+            config.setDriverClassName(properties.determineDriverClassName());
+            config.setReadOnly(true);
+            config.setMaximumPoolSize(replicaPoolSize);
+            config.setConnectionTimeout(replicaConnectionTimeoutMs);
+            // Start the pool without a connection rather than fail when the replica is down
+            config.setInitializationFailTimeout(-1);
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(new HikariDataSource(config));
+        }
+
+        ReplicaRoutingDataSource.Selection replicaSelection = ReplicaRoutingDataSource.Selection.of(selection);
+        log.info("Routing read-only transactions to {} replicas ({}), pinning writers to the primary for {} ms",
+                replicas.size(), replicaSelection, pinAfterWriteMs);
+        ReplicaRoutingDataSource dataSource =
+                new ReplicaRoutingDataSource(primary, replicas, replicaSelection, replicaLagGuard);
+        dataSource.bindMetrics(meterRegistry);
+        return dataSource;
+    }
+}
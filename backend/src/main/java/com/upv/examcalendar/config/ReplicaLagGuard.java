@@ -0,0 +1,146 @@
+package com.upv.examcalendar.config;
+
+import com.upv.examcalendar.events.ExamChangeEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Consistency of reads from the replicas of a replicated database.
+ * A replica only serves reads once it has replayed the primary's WAL up to the
+ * position recorded after the last write this instance committed or saw
+ * (see {@link #catchUpWithPrimary()}). The dataset version is read before that
+ * position, so data read from a replica is never older than the version
+ * tagging it, and ETags and the calendar cache never describe stale data.
+ * On top of that, a client that has just written is pinned to the primary for
+ * a while, so its next reads skip the replicas altogether. Clients are told
+ * apart by the address of the request as forwarded by the proxy; work outside
+ * a request is never pinned. A client can at most pin itself, so trusting the
+ * forwarding headers costs nothing.
+ */
+@Slf4j
+public class ReplicaLagGuard {
+
+    private static final String CURRENT_LSN_SQL = "SELECT (pg_current_wal_lsn() - '0/0'::pg_lsn)::bigint";
+
+    private final long pinNanos;
+
+    // WAL position every replica read must have replayed, in bytes
+    private final AtomicLong requiredLsn = new AtomicLong();
+    private volatile JdbcTemplate primary;
+
+    // Client -> System.nanoTime() until which it reads from the primary
+    private final Map<String, Long> pinnedUntil = new ConcurrentHashMap<>();
+
+    public ReplicaLagGuard(long pinMillis) {
+        this.pinNanos = TimeUnit.MILLISECONDS.toNanos(pinMillis);
+    }
+
+    /**
+     * Read the WAL position from the primary pool, bypassing the routing
+     */
+    void bindPrimary(DataSource primaryPool) {
+        this.primary = new JdbcTemplate(primaryPool);
+    }
+
+    /**
+     * Make replicas replay the primary's current WAL position before serving
+     * another read, so every write committed so far is visible on them
+     */
+    public void catchUpWithPrimary() {
+        JdbcTemplate template = primary;
+        if (template == null) {
+            return;
+        }
+        Long lsn = template.queryForObject(CURRENT_LSN_SQL, Long.class);
+        if (lsn != null) {
+            requiredLsn.accumulateAndGet(lsn, Math::max);
+        }
+    }
+
+    /**
+     * WAL position a replica must have replayed to serve a read
+     */
+    public long requiredLsn() {
+        return requiredLsn.get();
+    }
+
+    /**
+     * Whether the client of the current request wrote within the pin window
+     */
+    public boolean isCurrentClientPinned() {
+        if (pinnedUntil.isEmpty()) {
+            return false;
+        }
+        String client = currentClient();
+        if (client == null) {
+            return false;
+        }
+        Long until = pinnedUntil.get(client);
+        if (until == null) {
+            return false;
+        }
+        if (until - System.nanoTime() > 0) {
+            return true;
+        }
+        pinnedUntil.remove(client, until);
+        return false;
+    }
+
+    /**
+     * Number of clients currently pinned, including expired ones not yet purged
+     */
+    public int pinnedClients() {
+        return pinnedUntil.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(ExamChangeEvent.REPLICA_ORDER)
+    public void onExamChange(ExamChangeEvent event) {
+        try {
+            catchUpWithPrimary();
+        } catch (DataAccessException e) {
+            // Committed already; the dataset version catches up when it is next read
+            log.warn("Could not read the WAL position of the primary: {}", e.getMessage());
+        }
+        // Committed, and still on the thread of the request that wrote
+        String client = currentClient();
+        if (client == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        // Writes are rare, so purging on every one keeps the map small at no real cost
+        pinnedUntil.values().removeIf(until -> until - now <= 0);
+        pinnedUntil.put(client, now + pinNanos);
+    }
+
+    private static String currentClient() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+        String realIp = request.getHeader("X-Real-IP");
+        if (StringUtils.hasText(realIp)) {
+            return realIp.trim();
+        }
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        if (StringUtils.hasText(forwardedFor)) {
+            return forwardedFor.split(",", 2)[0].trim();
+        }
+        return request.getRemoteAddr();
+    }
+}
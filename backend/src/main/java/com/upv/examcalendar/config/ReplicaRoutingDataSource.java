@@ -0,0 +1,246 @@
+package com.upv.examcalendar.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DataSource that sends read-only transactions to replicas of the primary database.
+ * The transaction manager takes a connection as soon as a transaction begins,
+ * before Spring marks it read-only, so the physical connection is only taken
+ * at the first statement, through {@link LazyConnectionDataSourceProxy}, when
+ * the route is known. Read-only transactions, including the read-only SUPPORTS
+ * methods of the exam service that run without an actual transaction, go to a
+ * replica chosen round-robin or by fewest active connections; everything else
+ * goes to the primary. So does a read of a client that has just written, a read
+ * for which the chosen replica has not yet replayed the last write seen (both
+ * see {@link ReplicaLagGuard}), and a read for which the chosen replica has no
+ * connection within its timeout. A replica's replay position is only asked for
+ * when it was behind the last time, so it costs a query per replica and write.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    public enum Selection {
+        ROUND_ROBIN,
+        LEAST_CONNECTIONS;
+
+        /**
+         * Parse a property value such as "round-robin"
+         */
+        public static Selection of(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    private final Router router;
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas,
+            Selection selection, ReplicaLagGuard lagGuard) {
+        this(new Router(primary, replicas, selection, lagGuard));
+    }
+
+    private ReplicaRoutingDataSource(Router router) {
+        super(router);
+        this.router = router;
+    }
+
+    /**
+     * Publish the connections handed out per route and reason, and the pinned clients.
+     * Pool usage per route is published by HikariCP under the pool names.
+     */
+    public void bindMetrics(MeterRegistry meterRegistry) {
+        Route primary = router.primary;
+        registerCounter(meterRegistry, primary, Reason.READ_WRITE);
+        registerCounter(meterRegistry, primary, Reason.PINNED);
+        registerCounter(meterRegistry, primary, Reason.FALLBACK);
+        registerCounter(meterRegistry, primary, Reason.LAGGING);
+        for (Route replica : router.replicas) {
+            registerCounter(meterRegistry, replica, Reason.READ_ONLY);
+        }
+        Gauge.builder("exam.datasource.pinned.clients", router.lagGuard, ReplicaLagGuard::pinnedClients)
+                .register(meterRegistry);
+    }
+
+    private static void registerCounter(MeterRegistry meterRegistry, Route route, Reason reason) {
+        FunctionCounter.builder("exam.datasource.connections", route.counts[reason.ordinal()], LongAdder::sum)
+                .tags("route", route.name, "reason", reason.tag).register(meterRegistry);
+    }
+
+    @Override
+    public void close() {
+        for (Route replica : router.replicas) {
+            replica.dataSource.close();
+        }
+        router.primary.dataSource.close();
+    }
+
+    private enum Reason {
+        READ_WRITE("read-write"),
+        PINNED("pinned"),
+        FALLBACK("fallback"),
+        LAGGING("lagging"),
+        READ_ONLY("read-only");
+
+        private final String tag;
+
+        Reason(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * One pool and the connections it handed out per reason
+     */
+    private static final class Route {
+
+        private static final String REPLAYED_LSN_SQL = "SELECT (pg_last_wal_replay_lsn() - '0/0'::pg_lsn)::bigint";
+
+        private final String name;
+        private final HikariDataSource dataSource;
+        private final LongAdder[] counts = new LongAdder[Reason.values().length];
+        // Highest WAL position seen replayed; replay only moves forward
+        private final AtomicLong replayedLsn = new AtomicLong();
+
+        Route(String name, HikariDataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = new LongAdder();
+            }
+        }
+
+        Connection connect(Reason reason) throws SQLException {
+            Connection connection = dataSource.getConnection();
+            counted(reason);
+            return connection;
+        }
+
+        void counted(Reason reason) {
+            counts[reason.ordinal()].increment();
+        }
+
+        /**
+         * Whether the replica has replayed the WAL up to the position, asking it
+         * on the connection only when it was behind the last time
+         */
+        boolean hasReplayed(long lsn, Connection connection) throws SQLException {
+            if (replayedLsn.get() >= lsn) {
+                return true;
+            }
+            long replayed;
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(REPLAYED_LSN_SQL)) {
+                resultSet.next();
+                replayed = resultSet.getLong(1);
+                // Null when the database is not a standby, which is never behind
+                if (resultSet.wasNull()) {
+                    replayed = Long.MAX_VALUE;
+                }
+            }
+            return replayedLsn.accumulateAndGet(replayed, Math::max) >= lsn;
+        }
+
+        int activeConnections() {
+            // Null until the pool has started
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            return pool != null ? pool.getActiveConnections() : 0;
+        }
+    }
+
+    /**
+     * Chooses the pool when the lazy proxy needs a physical connection
+     */
+    private static final class Router extends AbstractDataSource {
+
+        private final Route primary;
+        private final List<Route> replicas = new ArrayList<>();
+        private final Selection selection;
+        private final ReplicaLagGuard lagGuard;
+        private final AtomicInteger next = new AtomicInteger();
+
+        Router(HikariDataSource primary, List<HikariDataSource> replicas, Selection selection,
+                ReplicaLagGuard lagGuard) {
+            this.primary = new Route(primary.getPoolName(), primary);
+            for (HikariDataSource replica : replicas) {
+                this.replicas.add(new Route(replica.getPoolName(), replica));
+            }
+            this.selection = selection;
+            this.lagGuard = lagGuard;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || replicas.isEmpty()) {
+                return primary.connect(Reason.READ_WRITE);
+            }
+            if (lagGuard.isCurrentClientPinned()) {
+                return primary.connect(Reason.PINNED);
+            }
+            Route replica = choose();
+            Connection connection;
+            try {
+                connection = replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                log.warn("No connection from replica {}, reading from the primary: {}", replica.name, e.getMessage());
+                return primary.connect(Reason.FALLBACK);
+            }
+            try {
+                if (replica.hasReplayed(lagGuard.requiredLsn(), connection)) {
+                    replica.counted(Reason.READ_ONLY);
+                    return connection;
+                }
+                connection.close();
+                return primary.connect(Reason.LAGGING);
+            } catch (SQLException e) {
+                connection.close();
+                log.warn("No replay position from replica {}, reading from the primary: {}",
+                        replica.name, e.getMessage());
+                return primary.connect(Reason.FALLBACK);
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            // The pools hold their own credentials
+            throw new SQLException("Routed connections use the credentials of their pool");
+        }
+
+        private Route choose() {
+            // Least connections scans from the round-robin position so ties still rotate
+            int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+            if (selection == Selection.ROUND_ROBIN) {
+                return replicas.get(start);
+            }
+            Route best = null;
+            int bestActive = Integer.MAX_VALUE;
+            for (int i = 0; i < replicas.size(); i++) {
+                Route replica = replicas.get((start + i) % replicas.size());
+                int active = replica.activeConnections();
+                if (active < bestActive) {
+                    best = replica;
+                    bestActive = active;
+                }
+            }
+            return best;
+        }
+    }
+}
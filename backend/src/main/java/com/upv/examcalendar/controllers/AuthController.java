@@ -4,6 +4,7 @@ import com.upv.examcalendar.models.User;
 import com.upv.examcalendar.repositories.UserRepository;
 import com.upv.examcalendar.security.JwtTokenProvider;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -27,6 +28,16 @@ public class AuthController {
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider tokenProvider;
 
+    @Value("${jwt.header}")
+    private String jwtHeader;
+
+    @Value("${jwt.prefix}")
+    private String jwtPrefix;
+
+    /**
+     * Sign in a registered user or the exam administrator. The token to send
+     * on later requests comes back in the Authorization header.
+     */
     @PostMapping("/login")
     public ResponseEntity<?> authenticateUser(@Valid @RequestBody Map<String, String> loginRequest) {
         Authentication authentication = authenticationManager.authenticate(
@@ -37,10 +48,20 @@ public class AuthController {
         SecurityContextHolder.getContext().setAuthentication(authentication);
         String jwt = tokenProvider.generateJwtToken(authentication);
 
+        // The administrator is configured, not registered
         User user = userRepository.findByEmail(loginRequest.get("email"))
-                .orElseThrow(() -> new RuntimeException("User not found"));
+                .orElseGet(() -> accountOnly(authentication.getName()));
 
-        return ResponseEntity.ok(user);
+        return ResponseEntity.ok()
+                .header(jwtHeader, jwtPrefix + " " + jwt)
+                .body(user);
+    }
+
+    private static User accountOnly(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name);
+        return user;
     }
 
     @PostMapping("/register")
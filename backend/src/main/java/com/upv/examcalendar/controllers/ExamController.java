@@ -1,18 +1,60 @@
 package com.upv.examcalendar.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.upv.examcalendar.dtos.BootstrapDTO;
+import com.upv.examcalendar.dtos.BulkResultDTO;
+import com.upv.examcalendar.dtos.CalendarMonthDTO;
+import com.upv.examcalendar.dtos.ExamConflictDTO;
+import com.upv.examcalendar.dtos.ExamCursor;
 import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.dtos.ExamDeltaDTO;
+import com.upv.examcalendar.dtos.ExamFilter;
+import com.upv.examcalendar.dtos.ExamPage;
+import com.upv.examcalendar.dtos.FacetCountsDTO;
+import com.upv.examcalendar.dtos.ImportResultDTO;
+import com.upv.examcalendar.dtos.RoomConflictDTO;
+import com.upv.examcalendar.dtos.RoomDTO;
+import com.upv.examcalendar.dtos.ScheduleAnalysisDTO;
+import com.upv.examcalendar.dtos.ScheduleRequestDTO;
 import com.upv.examcalendar.dtos.SubjectDTO;
+import com.upv.examcalendar.dtos.SuggestionDTO;
+import com.upv.examcalendar.dtos.TimetableRequestDTO;
+import com.upv.examcalendar.dtos.TimetableResultDTO;
+import com.upv.examcalendar.exceptions.BadRequestException;
+import com.upv.examcalendar.services.ExamCalendarExport;
+import com.upv.examcalendar.services.ExamChangeFeed;
+import com.upv.examcalendar.services.ExamDayIndex;
+import com.upv.examcalendar.services.ExamDeltaSync;
+import com.upv.examcalendar.services.ExamImportService;
+import com.upv.examcalendar.services.ExamRoomOccupancy;
+import com.upv.examcalendar.services.ExamScheduleAnalyzer;
 import com.upv.examcalendar.services.ExamService;
+import com.upv.examcalendar.services.ExamTimetableService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * REST controller for exam operations
@@ -21,24 +63,150 @@ import java.util.List;
 @RequestMapping("/api/exams")
 @CrossOrigin(origins = "${cors.allowed-origins}")
 @RequiredArgsConstructor
+@Slf4j
 public class ExamController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String CONFLICTS_HEADER = "X-Exam-Conflicts";
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    static final String TEXT_CALENDAR_VALUE = "text/calendar";
+    static final String TEXT_CSV_VALUE = "text/csv";
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_SUGGESTIONS = 20;
+
     private final ExamService examService;
+    private final ObjectMapper objectMapper;
+    private final ExamCalendarExport calendarExport;
+    private final ExamImportService importService;
+    private final ExamChangeFeed changeFeed;
+    private final ExamDeltaSync deltaSync;
+    private final ExamDayIndex dayIndex;
+    private final ExamScheduleAnalyzer scheduleAnalyzer;
+    private final ExamRoomOccupancy roomOccupancy;
+    private final ExamTimetableService timetableService;
 
     /**
      * Get all exams
+     * Every list endpoint accepts optional keyset pagination: pass limit (and
+     * the X-Next-Cursor of the previous page as after) to get one page at a time.
      */
     @GetMapping
-    public ResponseEntity<List<ExamDTO>> getAllExams() {
-        return ResponseEntity.ok(examService.getAllExams());
+    public ResponseEntity<List<ExamDTO>> getAllExams(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after) {
+        return list(new ExamFilter(), limit, after, examService::getAllExams);
+    }
+
+    /**
+     * Stream every exam matching the filters (same parameters as /filter) as
+     * newline-delimited JSON.
+     * Rows are written as they are read from a database cursor, so memory per
+     * request stays constant whatever the result size.
+     */
+    @GetMapping(value = "/stream", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamExams(ExamFilter filter) {
+        ObjectWriter writer = objectMapper.writerFor(ExamDTO.class);
+        StreamingResponseBody body = out -> examService.streamExams(filter, exam -> {
+            try {
+                out.write(writer.writeValueAsBytes(exam));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
+    }
+
+    /**
+     * iCalendar feed of every exam matching the filters (same parameters as /filter).
+     * Calendar apps can subscribe to the URL: repeated polls are answered from
+     * a cache keyed by the filters and the dataset version, or with 304 when
+     * they send the previous ETag.
+     */
+    @GetMapping(value = "/calendar.ics", produces = TEXT_CALENDAR_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportCalendar(ExamFilter filter) {
+        StreamingResponseBody body = out -> calendarExport.export(filter, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(TEXT_CALENDAR_VALUE + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.inline().filename("upv-exams.ics").build().toString())
+                .body(body);
+    }
+
+    /**
+     * Month grid (Monday first, whole weeks) with the number of exams and a
+     * summary of each exam on every day, optionally filtered (same parameters
+     * as /filter)
+     */
+    @GetMapping("/calendar/{year}/{month}")
+    public ResponseEntity<CalendarMonthDTO> getCalendarMonth(
+            @PathVariable int year, @PathVariable int month, ExamFilter filter) {
+        if (month < 1 || month > 12 || year < 1 || year > 9999) {
+            throw new BadRequestException("Invalid month: " + year + "/" + month);
+        }
+        return ResponseEntity.ok(dayIndex.getMonth(YearMonth.of(year, month), filter));
+    }
+
+    /**
+     * Exams inserted, updated and deleted since the version returned by the
+     * previous call; since=0 (or a version too old to serve) returns every exam
+     * with resync set
+     */
+    @GetMapping("/delta")
+    public ResponseEntity<ExamDeltaDTO> getDelta(@RequestParam(defaultValue = "0") long since) {
+        return ResponseEntity.ok(deltaSync.getDelta(since));
+    }
+
+    /**
+     * Server-Sent Events feed of committed exam changes, optionally limited to a
+     * school, degree or subject. Sends "change" events with the new exam state
+     * and "resync" when the client missed changes and should reload.
+     */
+    @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @RequestParam(required = false) String school,
+            @RequestParam(required = false) String degree,
+            @RequestParam(required = false) String subject,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        ExamFilter filter = ExamFilter.builder().school(school).degree(degree).subject(subject).build();
+        return changeFeed.subscribe(filter, parseEventId(lastEventId));
+    }
+
+    /**
+     * Get all filter facets (schools, degrees, semesters, course years, subjects)
+     * and the school to degree hierarchy in one response
+     */
+    @GetMapping("/bootstrap")
+    public ResponseEntity<BootstrapDTO> getBootstrap() {
+        return ResponseEntity.ok(examService.getBootstrap());
+    }
+
+    /**
+     * Number of exams matching the filters (same parameters as /filter) and,
+     * for every school, degree, course year, semester and subject, the number
+     * of exams selecting it instead would give
+     */
+    @GetMapping("/facets/counts")
+    public ResponseEntity<FacetCountsDTO> countFacets(ExamFilter filter) {
+        return ResponseEntity.ok(examService.countFacets(filter));
     }
 
     /**
      * Get exam by ID
+     * The ETag is the row version; send it back as If-Match to update or delete
+     * the exam only if nobody changed it in between.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ExamDTO> getExamById(@PathVariable Long id) {
-        return ResponseEntity.ok(examService.getExamById(id));
+    public ResponseEntity<ExamDTO> getExamById(@PathVariable Long id, WebRequest request) {
+        ExamDTO exam = examService.getExamById(id);
+        if (exam.getVersion() != null && request.checkNotModified(versionTag(exam))) {
+            return null;
+        }
+        return withVersionTag(ResponseEntity.ok(), exam).body(exam);
     }
 
     /**
@@ -46,49 +214,235 @@ public class ExamController {
      */
     @PostMapping
     public ResponseEntity<ExamDTO> createExam(@Valid @RequestBody ExamDTO examDTO) {
-        return new ResponseEntity<>(examService.createExam(examDTO), HttpStatus.CREATED);
+        ExamDTO created = examService.createExam(examDTO);
+        return withConflicts(ResponseEntity.status(HttpStatus.CREATED), created).body(created);
     }
 
     /**
-     * Update an existing exam
+     * Bulk import from a CSV with a header row (comma or semicolon separated).
+     * All or nothing: any invalid row rejects the import with 400 and per-row errors.
+     * With replace=true the existing exams are deleted in the same transaction.
+     */
+    @PostMapping(value = "/import", consumes = TEXT_CSV_VALUE)
+    public ResponseEntity<ImportResultDTO> importCsv(
+            InputStream body,
+            @RequestParam(defaultValue = "false") boolean replace) throws IOException {
+        return importResponse(importService.importCsv(body, replace));
+    }
+
+    /**
+     * Bulk import from a JSON array of exams, with the same semantics as the CSV import
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ImportResultDTO> importJson(
+            InputStream body,
+            @RequestParam(defaultValue = "false") boolean replace) throws IOException {
+        return importResponse(importService.importJson(body, replace));
+    }
+
+    /**
+     * Update an existing exam in a single statement
+     * With If-Match, answers 412 if the exam changed since that version.
      */
     @PutMapping("/{id}")
-    public ResponseEntity<ExamDTO> updateExam(@PathVariable Long id, @Valid @RequestBody ExamDTO examDTO) {
-        return ResponseEntity.ok(examService.updateExam(id, examDTO));
+    public ResponseEntity<ExamDTO> updateExam(
+            @PathVariable Long id,
+            @Valid @RequestBody ExamDTO examDTO,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        ExamDTO updated = examService.updateExam(id, examDTO, expectedVersion(ifMatch));
+        return withConflicts(withVersionTag(ResponseEntity.ok(), updated), updated).body(updated);
     }
 
     /**
-     * Delete an exam
+     * Delete an exam in a single statement
+     * With If-Match, answers 412 if the exam changed since that version.
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteExam(@PathVariable Long id) {
-        examService.deleteExam(id);
+    public ResponseEntity<Void> deleteExam(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        examService.deleteExam(id, expectedVersion(ifMatch));
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Pairs of overlapping exams of the same degree, course year and semester,
+     * where either exam matches the filters (same parameters as /filter)
+     */
+    @GetMapping("/conflicts")
+    public ResponseEntity<List<ExamConflictDTO>> findConflicts(ExamFilter filter) {
+        return ResponseEntity.ok(examService.findConflicts(filter));
+    }
+
+    /**
+     * Overlaps, same-day pairs and shortest rest among the exams of a personal
+     * set of subjects, which may come from several degrees and course years
+     */
+    @PostMapping("/my-schedule/analysis")
+    public ResponseEntity<ScheduleAnalysisDTO> analyzeSchedule(@Valid @RequestBody ScheduleRequestDTO request) {
+        return ResponseEntity.ok(scheduleAnalyzer.analyze(request.getSubjectCodes()));
+    }
+
+    /**
+     * Every room named in an exam place, with its number of exams
+     */
+    @GetMapping("/rooms")
+    public ResponseEntity<List<RoomDTO>> getRooms() {
+        return ResponseEntity.ok(roomOccupancy.findRooms());
+    }
+
+    /**
+     * Exams taking place in a room (any spelling of its name) at the given time
+     */
+    @GetMapping("/rooms/occupants")
+    public ResponseEntity<List<ExamDTO>> getRoomOccupants(
+            @RequestParam String room,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.ok(roomOccupancy.findOccupants(room, at));
+    }
+
+    /**
+     * Known rooms with no exam during the slot
+     */
+    @GetMapping("/rooms/free")
+    public ResponseEntity<List<RoomDTO>> getFreeRooms(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(defaultValue = "120") int durationMin) {
+        return ResponseEntity.ok(roomOccupancy.findFreeRooms(start, durationMin));
+    }
+
+    /**
+     * Rooms booked for overlapping exams of different subjects, optionally
+     * limited to exams between two days
+     */
+    @GetMapping("/rooms/double-bookings")
+    public ResponseEntity<List<RoomConflictDTO>> getDoubleBookings(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return ResponseEntity.ok(roomOccupancy.findDoubleBookings(startDate, endDate));
+    }
+
+    /**
+     * Propose days, times and rooms for the subjects of an exam period,
+     * minimizing cohort clashes and exams close together. Searches for the
+     * given time and returns the best timetable found; with apply=true the
+     * proposed exams are inserted.
+     */
+    @PostMapping("/timetable")
+    public ResponseEntity<TimetableResultDTO> planTimetable(@Valid @RequestBody TimetableRequestDTO request) {
+        TimetableResultDTO result = timetableService.plan(request);
+        if (result.getApplied() != null && !result.getApplied().isSuccessful()) {
+            return ResponseEntity.badRequest().body(result);
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Move every exam matching the filters (same parameters as /filter) by the
+     * given days and hours, in one statement. At least one filter is required;
+     * all=true without filters moves every exam.
+     */
+    @PostMapping("/bulk/shift")
+    public ResponseEntity<BulkResultDTO> shiftExams(
+            ExamFilter filter,
+            @RequestParam(defaultValue = "false") boolean all,
+            @RequestParam(defaultValue = "0") int days,
+            @RequestParam(defaultValue = "0") int hours) {
+        return ResponseEntity.ok(new BulkResultDTO(examService.shiftExams(filter, all, days, hours)));
+    }
+
+    /**
+     * Set the exam place of every exam matching the filters, in one statement.
+     * Same filter rules as /bulk/shift.
+     */
+    @PostMapping("/bulk/place")
+    public ResponseEntity<BulkResultDTO> changeExamPlace(
+            ExamFilter filter,
+            @RequestParam(defaultValue = "false") boolean all,
+            @RequestParam String examPlace) {
+        return ResponseEntity.ok(new BulkResultDTO(examService.changeExamPlace(filter, all, examPlace)));
+    }
+
+    /**
+     * Delete every exam matching the filters, in one statement.
+     * Same filter rules as /bulk/shift.
+     */
+    @DeleteMapping("/bulk")
+    public ResponseEntity<BulkResultDTO> deleteExams(
+            ExamFilter filter,
+            @RequestParam(defaultValue = "false") boolean all) {
+        return ResponseEntity.ok(new BulkResultDTO(examService.deleteExams(filter, all)));
+    }
+
+    /**
+     * Detach every exam of an academic year (2024 for 2024-25) from the exam table,
+     * keeping them in archive tables of the database
+     */
+    @PostMapping("/academic-years/{academicYear}/detach")
+    public ResponseEntity<BulkResultDTO> detachAcademicYear(@PathVariable int academicYear) {
+        return ResponseEntity.ok(new BulkResultDTO(examService.detachAcademicYear(academicYear)));
+    }
+
     /**
      * Find exams by subject code
      */
     @GetMapping("/subject/{subjectCode}")
-    public ResponseEntity<List<ExamDTO>> findExamsBySubjectCode(@PathVariable String subjectCode) {
-        return ResponseEntity.ok(examService.findExamsBySubjectCode(subjectCode));
+    public ResponseEntity<List<ExamDTO>> findExamsBySubjectCode(
+            @PathVariable String subjectCode,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after) {
+        return list(ExamFilter.builder().subjectCode(subjectCode).build(), limit, after,
+                () -> examService.findExamsBySubjectCode(subjectCode));
     }
 
     /**
-     * Find exams by school
-     * When ETSINF is selected, only returns data from etsinf_exams table
+     * Find exams by school, optionally narrowed by degree, course year, semester
+     * and subject. All filters are applied by the database in a single query.
      */
     @GetMapping("/school/{school}")
-    public ResponseEntity<List<ExamDTO>> findExamsBySchool(@PathVariable String school) {
-        return ResponseEntity.ok(examService.findExamsBySchool(school));
+    public ResponseEntity<List<ExamDTO>> findExamsBySchool(
+            @PathVariable String school,
+            @RequestParam(required = false) String degree,
+            @RequestParam(required = false) Integer courseYear,
+            @RequestParam(required = false) String semester,
+            @RequestParam(required = false) String subject,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after) {
+        ExamFilter filter = ExamFilter.builder()
+                .school(school)
+                .degree(degree)
+                .courseYear(courseYear)
+                .semester(semester)
+                .subject(subject)
+                .build();
+        if (degree == null && courseYear == null && semester == null && subject == null) {
+            return list(filter, limit, after, () -> examService.findExamsBySchool(school));
+        }
+        return list(filter, limit, after, () -> examService.findExams(filter));
+    }
+
+    /**
+     * Find exams matching any combination of school, degree, course year,
+     * semester and subject in a single query
+     */
+    @GetMapping("/filter")
+    public ResponseEntity<List<ExamDTO>> findExams(
+            ExamFilter filter,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after) {
+        return list(filter, limit, after, () -> examService.findExams(filter));
     }
 
     /**
      * Find exams by degree (kept for backwards compatibility)
      */
     @GetMapping("/degree/{degree}")
-    public ResponseEntity<List<ExamDTO>> findExamsByDegree(@PathVariable String degree) {
-        return ResponseEntity.ok(examService.findExamsByDegree(degree));
+    public ResponseEntity<List<ExamDTO>> findExamsByDegree(
+            @PathVariable String degree,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after) {
+        return list(ExamFilter.builder().degree(degree).build(), limit, after,
+                () -> examService.findExamsByDegree(degree));
     }
 
     /**
@@ -96,8 +450,11 @@ public class ExamController {
      */
     @GetMapping("/course")
     public ResponseEntity<List<ExamDTO>> findExamsByCourseYearAndSemester(
-            @RequestParam Integer courseYear, @RequestParam String semester) {
-        return ResponseEntity.ok(examService.findExamsByCourseYearAndSemester(courseYear, semester));
+            @RequestParam Integer courseYear, @RequestParam String semester,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after) {
+        return list(ExamFilter.builder().courseYear(courseYear).semester(semester).build(), limit, after,
+                () -> examService.findExamsByCourseYearAndSemester(courseYear, semester));
     }
 
     /**
@@ -106,24 +463,47 @@ public class ExamController {
     @GetMapping("/daterange")
     public ResponseEntity<List<ExamDTO>> findExamsByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        return ResponseEntity.ok(examService.findExamsByDateRange(startDate, endDate));
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after) {
+        return list(ExamFilter.builder().startDate(startDate).endDate(endDate).build(), limit, after,
+                () -> examService.findExamsByDateRange(startDate, endDate));
     }
 
     /**
-     * Find exams by subject name containing text (case insensitive)
+     * Find exams by subject name, acronym or code containing text
+     * (case and accent insensitive)
      */
     @GetMapping("/search/subject")
-    public ResponseEntity<List<ExamDTO>> findExamsBySubjectNameContaining(@RequestParam String query) {
-        return ResponseEntity.ok(examService.findExamsBySubjectNameContaining(query));
+    public ResponseEntity<List<ExamDTO>> findExamsBySubjectNameContaining(
+            @RequestParam String query,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after) {
+        return list(ExamFilter.builder().subjectNameContains(query).build(), limit, after,
+                () -> examService.findExamsBySubjectNameContaining(query));
     }
 
     /**
-     * Find exams by exam place containing text (case insensitive)
+     * Find exams by exam place containing text (case and accent insensitive)
      */
     @GetMapping("/search/place")
-    public ResponseEntity<List<ExamDTO>> findExamsByExamPlaceContaining(@RequestParam String query) {
-        return ResponseEntity.ok(examService.findExamsByExamPlaceContaining(query));
+    public ResponseEntity<List<ExamDTO>> findExamsByExamPlaceContaining(
+            @RequestParam String query,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after) {
+        return list(ExamFilter.builder().examPlaceContains(query).build(), limit, after,
+                () -> examService.findExamsByExamPlaceContaining(query));
+    }
+
+    /**
+     * Typeahead over subject names, acronyms and degree names.
+     * Returns at most limit suggestions whose words start with q, most exams first.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(examService.suggest(q, Math.max(1, Math.min(limit, MAX_SUGGESTIONS))));
     }
 
     /**
@@ -187,9 +567,8 @@ public class ExamController {
      */
     @GetMapping("/subjects/distinct")
     public ResponseEntity<List<SubjectDTO>> getAllSubjectsWithAcronymsDistinct() {
-        System.out.println("REST request to get all subjects with acronyms (distinct)");
         List<SubjectDTO> subjects = examService.getAllSubjectsWithAcronymsDistinct();
-        System.out.println("Returning " + subjects.size() + " distinct subjects from controller");
+        log.debug("Returning {} distinct subjects", subjects.size());
         return ResponseEntity.ok(subjects);
     }
 
@@ -198,20 +577,7 @@ public class ExamController {
      */
     @GetMapping("/subjects")
     public ResponseEntity<List<SubjectDTO>> getAllSubjectsWithAcronyms() {
-        System.out.println("REST request to get all subjects with acronyms");
         List<SubjectDTO> subjects = examService.getAllSubjectsWithAcronyms();
-        System.out.println("Returning " + subjects.size() + " subjects from controller");
-
-        // Using a more verbose debug output to see exactly what's going to be
-        // serialized
-        for (SubjectDTO subject : subjects) {
-            System.out.println("Controller sending: " + subject.getName() + " (" + subject.getAcronym() + ")");
-            System.out
-                    .println("  - Object properties: name=" + subject.getName() + ", acronym=" + subject.getAcronym());
-            System.out.println("  - Object class: " + subject.getClass().getName());
-            System.out.println("  - Object toString: " + subject.toString());
-        }
-
         return ResponseEntity.ok(subjects);
     }
 
@@ -220,15 +586,12 @@ public class ExamController {
      */
     @GetMapping("/subdegrees")
     public ResponseEntity<List<String>> getAllSubDegrees() {
-        System.out.println("REST request to get all degrees (formerly subdegrees)");
         try {
             List<String> degrees = examService.getAllSubDegrees();
-            System.out.println("Returning " + degrees.size() + " degrees from controller");
+            log.debug("Returning {} degrees", degrees.size());
             return ResponseEntity.ok(degrees);
         } catch (Exception e) {
-            // Log the error
-            System.err.println("Error getting degrees: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error getting degrees", e);
 
             // Return empty list instead of error
             return ResponseEntity.ok(new ArrayList<>());
@@ -240,15 +603,12 @@ public class ExamController {
      */
     @GetMapping("/degrees/bySchool/{school}")
     public ResponseEntity<List<String>> getDegreesBySchool(@PathVariable String school) {
-        System.out.println("REST request to get degrees for school: " + school);
         try {
             List<String> degrees = examService.getDegreesBySchool(school);
-            System.out.println("Returning " + degrees.size() + " degrees for school " + school);
+            log.debug("Returning {} degrees for school {}", degrees.size(), school);
             return ResponseEntity.ok(degrees);
         } catch (Exception e) {
-            // Log the error
-            System.err.println("Error getting degrees for school " + school + ": " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error getting degrees for school {}", school, e);
 
             // Return empty list instead of error
             return ResponseEntity.ok(new ArrayList<>());
@@ -260,15 +620,12 @@ public class ExamController {
      */
     @GetMapping("/subdegrees/{degree}")
     public ResponseEntity<List<String>> getSubDegreesByDegree(@PathVariable String degree) {
-        System.out.println("REST request to get degrees for school: " + degree);
         try {
             List<String> subDegrees = examService.getSubDegreesByDegree(degree);
-            System.out.println("Returning " + subDegrees.size() + " degrees for school " + degree);
+            log.debug("Returning {} sub-degrees for degree {}", subDegrees.size(), degree);
             return ResponseEntity.ok(subDegrees);
         } catch (Exception e) {
-            // Log the error
-            System.err.println("Error getting degrees for school " + degree + ": " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error getting sub-degrees for degree {}", degree, e);
 
             // Return empty list instead of error
             return ResponseEntity.ok(new ArrayList<>());
@@ -280,8 +637,11 @@ public class ExamController {
      */
     @GetMapping("/course-semester")
     public ResponseEntity<List<ExamDTO>> getExamsByCourseYearAndSemester(
-            @RequestParam Integer courseYear, @RequestParam String semester) {
-        return ResponseEntity.ok(examService.findExamsByCourseYearAndSemester(courseYear, semester));
+            @RequestParam Integer courseYear, @RequestParam String semester,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after) {
+        return list(ExamFilter.builder().courseYear(courseYear).semester(semester).build(), limit, after,
+                () -> examService.findExamsByCourseYearAndSemester(courseYear, semester));
     }
 
     /**
@@ -295,20 +655,90 @@ public class ExamController {
             @RequestParam(required = false) Integer courseYear,
             @RequestParam(required = false) String semester) {
 
-        System.out.println("REST request to get subjects for degree: " + degree +
-                ", courseYear: " + courseYear + ", semester: " + semester);
-
         try {
             List<SubjectDTO> subjects = examService.getSubjectsByDegree(degree, courseYear, semester);
-            System.out.println("Returning " + subjects.size() + " subjects for degree " + degree);
+            log.debug("Returning {} subjects for degree {}, course year {}, semester {}",
+                    subjects.size(), degree, courseYear, semester);
             return ResponseEntity.ok(subjects);
         } catch (Exception e) {
-            // Log the error
-            System.err.println("Error getting subjects for degree " + degree + ": " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error getting subjects for degree {}", degree, e);
 
             // Return empty list instead of error
             return ResponseEntity.ok(new ArrayList<>());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Event ids are dataset versions; anything else is treated as unknown
+     */
+    private static Long parseEventId(String lastEventId) {
+        try {
+            return lastEventId != null ? Long.valueOf(lastEventId.trim()) : null;
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    private static String versionTag(ExamDTO exam) {
+        return "\"" + exam.getVersion() + "\"";
+    }
+
+    /**
+     * Warn about a write that leaves the exam clashing with others of its cohort
+     */
+    private ResponseEntity.BodyBuilder withConflicts(ResponseEntity.BodyBuilder response, ExamDTO exam) {
+        List<ExamDTO> conflicts = examService.findConflictsOf(exam.getId());
+        if (conflicts.isEmpty()) {
+            return response;
+        }
+        String ids = conflicts.stream().map(other -> other.getId().toString()).collect(Collectors.joining(","));
+        return response.header(CONFLICTS_HEADER, ids)
+                .header(HttpHeaders.WARNING, "199 - \"Overlaps exams " + ids + " of the same cohort\"");
+    }
+
+    private static ResponseEntity.BodyBuilder withVersionTag(ResponseEntity.BodyBuilder response, ExamDTO exam) {
+        return exam.getVersion() != null ? response.eTag(versionTag(exam)) : response;
+    }
+
+    /**
+     * Version required by an If-Match header; null when absent or "*" (any current version)
+     */
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.valueOf(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // Fall through to the error below
+            }
+        }
+        throw new BadRequestException("If-Match must be a single exam ETag, e.g. \"42\"");
+    }
+
+    private static ResponseEntity<ImportResultDTO> importResponse(ImportResultDTO result) {
+        return result.isSuccessful()
+                ? ResponseEntity.ok(result)
+                : ResponseEntity.badRequest().body(result);
+    }
+
+    /**
+     * Full list when no pagination parameter is given, otherwise one keyset page
+     * with the cursor of the next page in the X-Next-Cursor header
+     */
+    private ResponseEntity<List<ExamDTO>> list(ExamFilter filter, Integer limit, String after,
+            Supplier<List<ExamDTO>> unpaged) {
+        if (limit == null && after == null) {
+            return ResponseEntity.ok(unpaged.get());
+        }
+        int pageSize = limit != null ? Math.max(1, Math.min(limit, MAX_PAGE_SIZE)) : DEFAULT_PAGE_SIZE;
+        ExamPage page = examService.findExamPage(filter, ExamCursor.parse(after), pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+}
@@ -0,0 +1,34 @@
+package com.upv.examcalendar.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every filter facet needed by the calendar on first load, in one payload
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BootstrapDTO {
+
+    private List<String> schools;
+
+    private List<String> degrees;
+
+    /**
+     * School to degree hierarchy
+     */
+    private Map<String, List<String>> degreesBySchool;
+
+    private List<String> semesters;
+
+    private List<Integer> courseYears;
+
+    private List<SubjectDTO> subjects;
+}
@@ -0,0 +1,19 @@
+package com.upv.examcalendar.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a bulk update or delete
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkResultDTO {
+
+    /**
+     * Number of exams changed or deleted
+     */
+    private int affected;
+}
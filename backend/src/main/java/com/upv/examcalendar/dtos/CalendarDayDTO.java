@@ -0,0 +1,28 @@
+package com.upv.examcalendar.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * One cell of a month grid and its exams in chronological order
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CalendarDayDTO {
+
+    private LocalDate date;
+
+    /**
+     * False for the days of the previous and next month that fill the first and last week
+     */
+    private boolean inMonth;
+
+    private int examCount;
+
+    private List<ExamSummaryDTO> exams;
+}
@@ -0,0 +1,33 @@
+package com.upv.examcalendar.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Month grid of whole weeks, Monday first, from the week of the first day of
+ * the month to the week of its last day
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CalendarMonthDTO {
+
+    private int year;
+
+    private int month;
+
+    private LocalDate gridStart;
+
+    private LocalDate gridEnd;
+
+    /**
+     * Exams on days of the month itself, leaving out the spill-over days
+     */
+    private int examCount;
+
+    private List<CalendarDayDTO> days;
+}
@@ -0,0 +1,33 @@
+package com.upv.examcalendar.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Compact notification of one committed exam change, sent on the change feed
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ExamChangeDTO {
+
+    /**
+     * CREATED, UPDATED or DELETED
+     */
+    private String type;
+
+    private Long examId;
+
+    /**
+     * New state of the exam, absent for deletions
+     */
+    private ExamDTO exam;
+
+    /**
+     * Dataset version after the change
+     */
+    private long datasetVersion;
+}
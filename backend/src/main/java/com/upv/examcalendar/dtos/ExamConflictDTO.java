@@ -0,0 +1,24 @@
+package com.upv.examcalendar.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Two exams of the same cohort (degree, course year and semester) whose
+ * time slots overlap. The first exam is the one that starts earlier.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExamConflictDTO {
+
+    private ExamDTO first;
+
+    private ExamDTO second;
+
+    /**
+     * Minutes during which both exams take place
+     */
+    private long overlapMinutes;
+}
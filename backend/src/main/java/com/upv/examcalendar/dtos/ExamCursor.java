@@ -0,0 +1,72 @@
+package com.upv.examcalendar.dtos;
+
+import com.upv.examcalendar.exceptions.BadRequestException;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Comparator;
+
+/**
+ * Keyset pagination position: the (examDay, examHour, id) of the last exam
+ * of the previous page. Serialized as an opaque URL-safe token, with an empty
+ * part for a null key. Nulls sort last, as in the chronological order of pages.
+ */
+@Value
+public class ExamCursor {
+
+    private static final Comparator<ExamCursor> ORDER = Comparator
+            .comparing(ExamCursor::getExamDay, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(ExamCursor::getExamHour, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(ExamCursor::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    LocalDate examDay;
+    LocalTime examHour;
+    Long id;
+
+    public static ExamCursor after(ExamDTO exam) {
+        return new ExamCursor(exam.getExamDay(), exam.getExamHour(), exam.getId());
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}, null for no cursor
+     */
+    public static ExamCursor parse(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // Keep empty trailing parts, which stand for null keys
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3) {
+                throw new BadRequestException("Invalid page cursor: " + token);
+            }
+            return new ExamCursor(
+                    parts[0].isEmpty() ? null : LocalDate.parse(parts[0]),
+                    parts[1].isEmpty() ? null : LocalTime.parse(parts[1]),
+                    parts[2].isEmpty() ? null : Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid page cursor: " + token, e);
+        }
+    }
+
+    public String encode() {
+        String raw = part(examDay) + "|" + part(examHour) + "|" + part(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Whether the exam sorts strictly after this cursor
+     */
+    public boolean isBefore(ExamDTO exam) {
+        return ORDER.compare(after(exam), this) > 0;
+    }
+
+    private static String part(Object key) {
+        return key != null ? key.toString() : "";
+    }
+}
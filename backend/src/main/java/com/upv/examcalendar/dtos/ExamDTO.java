@@ -54,4 +54,10 @@ public class ExamDTO {
     private String examPlace;
 
     private String comment;
+
+    /**
+     * Row version, sent back as ETag / If-Match for optimistic concurrency.
+     * Set by the server; ignored on input.
+     */
+    private Long version;
 }
\ No newline at end of file
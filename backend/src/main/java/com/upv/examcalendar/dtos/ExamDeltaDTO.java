@@ -0,0 +1,35 @@
+package com.upv.examcalendar.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Exams changed since a client's version.
+ * When resync is set, changed holds every exam and the client must replace
+ * its copy instead of applying the delta.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExamDeltaDTO {
+
+    /**
+     * Version to send as "since" on the next request
+     */
+    private long version;
+
+    private boolean resync;
+
+    /**
+     * Exams inserted or updated since the requested version
+     */
+    private List<ExamDTO> changed;
+
+    /**
+     * Ids of the exams deleted since the requested version
+     */
+    private List<Long> deleted;
+}
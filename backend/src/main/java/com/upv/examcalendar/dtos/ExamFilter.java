@@ -0,0 +1,161 @@
+package com.upv.examcalendar.dtos;
+
+import com.upv.examcalendar.models.AcademicYear;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Combination of calendar filters sent by the frontend
+ * Every field is optional; null means "do not filter on this field"
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExamFilter {
+
+    /**
+     * School prefix of the degree (case insensitive), e.g. ETSINF
+     */
+    private String school;
+
+    /**
+     * Full degree name (case insensitive)
+     */
+    private String degree;
+
+    private Integer courseYear;
+
+    private String semester;
+
+    /**
+     * Subject name, acronym or subject code (case insensitive)
+     */
+    private String subject;
+
+    /**
+     * Exact subject code (case insensitive)
+     */
+    private String subjectCode;
+
+    /**
+     * First exam day, inclusive
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDate;
+
+    /**
+     * Last exam day, inclusive
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate endDate;
+
+    /**
+     * Academic year, by the calendar year it starts in (2024 for 2024-25)
+     */
+    private Integer academicYear;
+
+    /**
+     * Part of the subject name (case insensitive)
+     */
+    private String subjectNameContains;
+
+    /**
+     * Part of the exam place (case insensitive)
+     */
+    private String examPlaceContains;
+
+    /**
+     * Whether at least one filter is set
+     */
+    public boolean hasCriteria() {
+        return school != null || degree != null || courseYear != null || semester != null
+                || subject != null || subjectCode != null || startDate != null || endDate != null
+                || academicYear != null || subjectNameContains != null || examPlaceContains != null;
+    }
+
+    /**
+     * Whether a text filter is set but blank (e.g. "?subject="), which would match
+     * every exam instead of narrowing the selection
+     */
+    public boolean hasBlankText() {
+        return isBlank(school) || isBlank(degree) || isBlank(semester) || isBlank(subject)
+                || isBlank(subjectCode) || isBlank(subjectNameContains) || isBlank(examPlaceContains);
+    }
+
+    private static boolean isBlank(String value) {
+        return value != null && value.isBlank();
+    }
+
+    /**
+     * Whether the given exam satisfies every filter that is set
+     */
+    public boolean matches(ExamDTO exam) {
+        if (school != null && (exam.getDegree() == null
+                || !exam.getDegree().regionMatches(true, 0, school, 0, school.length()))) {
+            return false;
+        }
+        if (degree != null && !degree.equalsIgnoreCase(exam.getDegree())) {
+            return false;
+        }
+        if (courseYear != null && !courseYear.equals(exam.getCourseYear())) {
+            return false;
+        }
+        if (semester != null && !semester.equals(exam.getSemester())) {
+            return false;
+        }
+        if (subjectCode != null && !subjectCode.equalsIgnoreCase(exam.getSubjectCode())) {
+            return false;
+        }
+        LocalDate firstDay = firstDay();
+        if (firstDay != null && (exam.getExamDay() == null || exam.getExamDay().isBefore(firstDay))) {
+            return false;
+        }
+        LocalDate lastDay = lastDay();
+        if (lastDay != null && (exam.getExamDay() == null || exam.getExamDay().isAfter(lastDay))) {
+            return false;
+        }
+        if (subjectNameContains != null && !containsIgnoreCase(exam.getSubjectName(), subjectNameContains)) {
+            return false;
+        }
+        if (examPlaceContains != null && !containsIgnoreCase(exam.getExamPlace(), examPlaceContains)) {
+            return false;
+        }
+        return subject == null
+                || subject.equalsIgnoreCase(exam.getSubjectName())
+                || subject.equalsIgnoreCase(exam.getAcronym())
+                || subject.equalsIgnoreCase(exam.getSubjectCode());
+    }
+
+    /**
+     * First exam day accepted by the start date and academic year together, or null
+     */
+    public LocalDate firstDay() {
+        if (academicYear == null) {
+            return startDate;
+        }
+        LocalDate first = AcademicYear.firstDay(academicYear);
+        return startDate != null && startDate.isAfter(first) ? startDate : first;
+    }
+
+    /**
+     * Last exam day accepted by the end date and academic year together, or null
+     */
+    public LocalDate lastDay() {
+        if (academicYear == null) {
+            return endDate;
+        }
+        LocalDate last = AcademicYear.lastDay(academicYear);
+        return endDate != null && endDate.isBefore(last) ? endDate : last;
+    }
+
+    private static boolean containsIgnoreCase(String value, String part) {
+        return value != null && value.toLowerCase(Locale.ROOT).contains(part.toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,21 @@
+package com.upv.examcalendar.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Two consecutive exams and the rest between the end of the first and the
+ * start of the second
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExamGapDTO {
+
+    private ExamDTO first;
+
+    private ExamDTO second;
+
+    private long gapMinutes;
+}
@@ -0,0 +1,35 @@
+package com.upv.examcalendar.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One keyset page of exams ordered by (examDay, examHour, id)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExamPage {
+
+    private List<ExamDTO> items;
+
+    /**
+     * Cursor for the next page, null on the last page
+     */
+    private String nextCursor;
+
+    /**
+     * Build a page from up to limit + 1 ordered exams; the extra one only
+     * signals that another page exists
+     */
+    public static ExamPage of(List<ExamDTO> fetched, int limit) {
+        if (fetched.size() <= limit) {
+            return new ExamPage(fetched, null);
+        }
+        List<ExamDTO> items = fetched.subList(0, limit);
+        return new ExamPage(items, ExamCursor.after(items.get(limit - 1)).encode());
+    }
+}
@@ -0,0 +1,37 @@
+package com.upv.examcalendar.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalTime;
+
+/**
+ * Fields of an exam shown in a calendar cell; the full exam is fetched by id
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExamSummaryDTO {
+
+    private Long id;
+
+    private LocalTime examHour;
+
+    private Integer durationMin;
+
+    private String subjectCode;
+
+    private String subjectName;
+
+    private String acronym;
+
+    private String degree;
+
+    private String examPlace;
+
+    public static ExamSummaryDTO of(ExamDTO exam) {
+        return new ExamSummaryDTO(exam.getId(), exam.getExamHour(), exam.getDurationMin(), exam.getSubjectCode(),
+                exam.getSubjectName(), exam.getAcronym(), exam.getDegree(), exam.getExamPlace());
+    }
+}
@@ -0,0 +1,33 @@
+package com.upv.examcalendar.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Number of exams matching a filter, and for each facet the number of exams
+ * each option would match if it replaced the current choice for that facet
+ * (the other filters still applied). Options with no exams are left out.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetCountsDTO {
+
+    private int total;
+
+    private Map<String, Integer> schools;
+
+    private Map<String, Integer> degrees;
+
+    private Map<String, Integer> courseYears;
+
+    private Map<String, Integer> semesters;
+
+    /**
+     * Keyed by subject name
+     */
+    private Map<String, Integer> subjects;
+}
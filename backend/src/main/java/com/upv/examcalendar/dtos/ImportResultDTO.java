@@ -0,0 +1,67 @@
+package com.upv.examcalendar.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk exam import.
+ * An import is all or nothing: when any row is rejected nothing is written,
+ * imported is 0 and errors lists the problems row by row.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResultDTO {
+
+    /**
+     * Rows read from the input
+     */
+    private int rows;
+
+    /**
+     * Exams inserted
+     */
+    private long imported;
+
+    /**
+     * Exams removed beforehand when the import replaced the existing timetable
+     */
+    private long deleted;
+
+    /**
+     * Total number of row errors, possibly more than the errors listed
+     */
+    private int errorCount;
+
+    private List<RowError> errors = new ArrayList<>();
+
+    public boolean isSuccessful() {
+        return errorCount == 0;
+    }
+
+    /**
+     * Problem with one field of one input row
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+
+        /**
+         * Spreadsheet row for CSV input (the header is row 1), array position
+         * starting at 1 for JSON input
+         */
+        private int row;
+
+        /**
+         * Offending field, null when the whole row is unreadable
+         */
+        private String field;
+
+        private String message;
+    }
+}
@@ -0,0 +1,23 @@
+package com.upv.examcalendar.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Two exams of different subjects booked in the same room at overlapping
+ * times. The first exam is the one that starts earlier.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomConflictDTO {
+
+    private RoomDTO room;
+
+    private ExamDTO first;
+
+    private ExamDTO second;
+
+    private long overlapMinutes;
+}
@@ -0,0 +1,26 @@
+package com.upv.examcalendar.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Room derived from the free-text exam places
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomDTO {
+
+    /**
+     * Normalized identifier: accent folded, lower case, single spaced
+     */
+    private String id;
+
+    /**
+     * Spelling of the room as first found in an exam place
+     */
+    private String name;
+
+    private int examCount;
+}
@@ -0,0 +1,42 @@
+package com.upv.examcalendar.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Clashes and rest time in the exams of a personal set of subjects
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleAnalysisDTO {
+
+    /**
+     * Every exam of the requested subjects, in chronological order
+     */
+    private List<ExamDTO> exams;
+
+    /**
+     * Requested subject codes without any exam
+     */
+    private List<String> subjectsWithoutExams;
+
+    /**
+     * Exams of different subjects whose time slots overlap
+     */
+    private List<ExamConflictDTO> overlaps;
+
+    /**
+     * Exams of different subjects on the same day that do not overlap
+     */
+    private List<ExamGapDTO> sameDay;
+
+    /**
+     * Shortest rest between an exam and the next one, null with fewer than two
+     * exams or when every exam overlaps the previous ones
+     */
+    private ExamGapDTO shortestGap;
+}
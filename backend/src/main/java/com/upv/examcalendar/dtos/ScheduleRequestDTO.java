@@ -0,0 +1,23 @@
+package com.upv.examcalendar.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Subjects a student takes, possibly from several degrees and course years
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleRequestDTO {
+
+    @NotEmpty(message = "At least one subject code is required")
+    @Size(max = 200, message = "At most 200 subjects can be analysed at once")
+    private List<@NotBlank(message = "Subject codes cannot be blank") String> subjectCodes;
+}
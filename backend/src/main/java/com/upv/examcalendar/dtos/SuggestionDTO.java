@@ -0,0 +1,36 @@
+package com.upv.examcalendar.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One typeahead suggestion: a subject or a degree
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionDTO {
+
+    public enum Type {
+        SUBJECT,
+        DEGREE
+    }
+
+    private Type type;
+
+    /**
+     * Subject or degree name
+     */
+    private String name;
+
+    /**
+     * Subject acronym, null for degrees
+     */
+    private String acronym;
+
+    /**
+     * Number of exams of the subject or degree, used for ranking
+     */
+    private int examCount;
+}
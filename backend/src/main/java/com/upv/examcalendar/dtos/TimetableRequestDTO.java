@@ -0,0 +1,88 @@
+package com.upv.examcalendar.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Exam period to plan: the subjects with their cohorts, and the days, start
+ * times and rooms available
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimetableRequestDTO {
+
+    /**
+     * One entry per subject and cohort; entries with the same subject code
+     * are one exam sat by several cohorts and get the same slot
+     */
+    @Valid
+    @NotEmpty(message = "At least one subject is required")
+    @Size(max = 10000, message = "At most 10000 subjects can be planned at once")
+    private List<SubjectEntry> subjects;
+
+    @NotEmpty(message = "At least one exam day is required")
+    @Size(max = 366, message = "At most 366 exam days can be planned at once")
+    private List<@NotNull LocalDate> days;
+
+    /**
+     * Start times available on every exam day
+     */
+    @NotEmpty(message = "At least one start time is required")
+    @Size(max = 48, message = "At most 48 start times per day can be planned")
+    private List<@NotNull LocalTime> startTimes;
+
+    /**
+     * Rooms to assign; without rooms only the days and times are planned
+     */
+    @Size(max = 1000, message = "At most 1000 rooms can be assigned at once")
+    private List<@NotBlank String> rooms;
+
+    /**
+     * Search time, capped by exam.timetable.max-time-limit-ms
+     */
+    @Min(value = 1, message = "The time limit must be positive")
+    private Long timeLimitMs;
+
+    /**
+     * Insert the proposed exams right away
+     */
+    private boolean apply;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SubjectEntry {
+
+        @NotBlank(message = "Subject code is required")
+        private String subjectCode;
+
+        @NotBlank(message = "Subject name is required")
+        private String subjectName;
+
+        private String acronym;
+
+        @NotBlank(message = "Degree is required")
+        private String degree;
+
+        @NotNull(message = "Course year is required")
+        private Integer courseYear;
+
+        @NotBlank(message = "Semester is required")
+        private String semester;
+
+        @Min(value = 1, message = "Duration must be greater than 0")
+        private Integer durationMin;
+    }
+}
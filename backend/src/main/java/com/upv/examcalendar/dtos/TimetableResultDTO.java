@@ -0,0 +1,54 @@
+package com.upv.examcalendar.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Best timetable found within the time limit
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimetableResultDTO {
+
+    /**
+     * Proposed exams, one per subject and cohort, in chronological order
+     */
+    private List<ExamDTO> exams;
+
+    /**
+     * Pairs of exams of the same cohort at the same day and time
+     */
+    private int cohortClashes;
+
+    /**
+     * Pairs of different subjects in the same room at the same day and time
+     */
+    private int roomConflicts;
+
+    /**
+     * Pairs of exams of the same cohort on the same day at different times
+     */
+    private int sameDayPairs;
+
+    /**
+     * Pairs of exams of the same cohort on consecutive exam days
+     */
+    private int consecutiveDayPairs;
+
+    private long cost;
+
+    private long restarts;
+
+    private long iterations;
+
+    private long elapsedMs;
+
+    /**
+     * Outcome of inserting the proposal, null unless it was applied
+     */
+    private ImportResultDTO applied;
+}
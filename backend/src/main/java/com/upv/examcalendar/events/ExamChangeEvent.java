@@ -0,0 +1,130 @@
+package com.upv.examcalendar.events;
+
+import com.upv.examcalendar.dtos.ExamDTO;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.core.Ordered;
+
+/**
+ * Application event published by the exam service for every write.
+ * Listeners that maintain derived state should use
+ * {@code @TransactionalEventListener} so they only see committed changes.
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ExamChangeEvent {
+
+    /**
+     * Listener order for structures that serve reads (snapshots, caches, indexes)
+     */
+    public static final int READ_MODEL_ORDER = 0;
+
+    /**
+     * Listener order for evicting the Hibernate caches: before the read
+     * structures, so one that reloads from the database never sees a stale entity
+     */
+    public static final int PERSISTENCE_CACHE_ORDER = READ_MODEL_ORDER - 1;
+
+    /**
+     * Listener order for read replicas: first, so any structure reloading from a
+     * replica after the change reads one that has already replayed it
+     */
+    public static final int REPLICA_ORDER = PERSISTENCE_CACHE_ORDER - 1;
+
+    /**
+     * Listener order for the dataset version: bumped only once every read
+     * structure reflects the change, so a new version never tags stale data
+     */
+    public static final int VERSION_ORDER = Ordered.LOWEST_PRECEDENCE - 1;
+
+    /**
+     * Listener order for notifying clients: last, so a client reacting to the
+     * notification already reads the new data and dataset version
+     */
+    public static final int NOTIFY_ORDER = Ordered.LOWEST_PRECEDENCE;
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        /**
+         * Many rows changed in one statement or load; listeners rebuild from the database
+         */
+        BULK
+    }
+
+    private final Type type;
+
+    /**
+     * State of the exam before the change, null for creations and bulk changes
+     */
+    private final ExamDTO before;
+
+    /**
+     * State of the exam after the change, null for deletions and bulk changes
+     */
+    private final ExamDTO after;
+
+    public static ExamChangeEvent created(ExamDTO after) {
+        return new ExamChangeEvent(Type.CREATED, null, after);
+    }
+
+    public static ExamChangeEvent updated(ExamDTO before, ExamDTO after) {
+        return new ExamChangeEvent(Type.UPDATED, before, after);
+    }
+
+    public static ExamChangeEvent deleted(ExamDTO before) {
+        return new ExamChangeEvent(Type.DELETED, before, null);
+    }
+
+    /**
+     * One event for a set-based change, so listeners rebuild and the version is bumped once
+     */
+    public static ExamChangeEvent bulk() {
+        return new ExamChangeEvent(Type.BULK, null, null);
+    }
+
+    public boolean isBulk() {
+        return type == Type.BULK;
+    }
+
+    /**
+     * Id of the changed exam, null for bulk changes
+     */
+    public Long getExamId() {
+        if (after != null) {
+            return after.getId();
+        }
+        return before != null ? before.getId() : null;
+    }
+
+    /**
+     * Version of the exam the change leaves: the written row's, or the deleted
+     * row's for a deletion; null for bulk changes
+     */
+    public Long getVersion() {
+        if (after != null) {
+            return after.getVersion();
+        }
+        return before != null ? before.getVersion() : null;
+    }
+
+    /**
+     * Whether a structure that already applied the given version of the exam
+     * (its row's, or the deleted row's once deleted) must ignore this change.
+     * After-commit listeners of two writes to the same exam may run in either
+     * order, so an older change can arrive after a newer one. Unknown versions
+     * never make a change stale.
+     */
+    public boolean isOlderThan(Long appliedVersion) {
+        Long version = getVersion();
+        if (version == null || appliedVersion == null) {
+            return false;
+        }
+        // A deletion carries the version of the row it deleted, which may be the one applied
+        return after != null ? version <= appliedVersion : version < appliedVersion;
+    }
+}
@@ -0,0 +1,94 @@
+package com.upv.examcalendar.filters;
+
+import com.upv.examcalendar.services.ExamDatasetVersion;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Conditional GET support for the exam API.
+ * The strong ETag combines the dataset version with a hash of the normalized
+ * request (path and sorted parameters). A matching If-None-Match is answered
+ * with 304 before the controller runs, so neither the repository query nor
+ * the JSON serialization happens.
+ */
+@Component
+@RequiredArgsConstructor
+public class ExamETagFilter extends OncePerRequestFilter {
+
+    public static final String VERSION_HEADER = "X-Dataset-Version";
+
+    private static final String EXAMS_PATH = "/api/exams";
+    private static final String CHANGES_PATH = EXAMS_PATH + "/changes/stream";
+    private static final Pattern SINGLE_EXAM = Pattern.compile(EXAMS_PATH + "/\\d+");
+
+    private final ExamDatasetVersion datasetVersion;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !"GET".equals(request.getMethod())
+                || !(path.equals(EXAMS_PATH) || path.startsWith(EXAMS_PATH + "/"))
+                // Single exams are tagged with their row version by the controller
+                || SINGLE_EXAM.matcher(path).matches()
+                || path.equals(CHANGES_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        // Read the version before the data so a concurrent write can only make the tag older
+        long version = datasetVersion.current();
+        String etag = "\"" + version + "-" + requestHash(request) + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        response.setHeader(VERSION_HEADER, Long.toString(version));
+
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Hash of the path and the parameters sorted by name and value
+     */
+    static String requestHash(HttpServletRequest request) {
+        StringBuilder key = new StringBuilder(request.getRequestURI());
+        Map<String, String[]> params = new TreeMap<>(request.getParameterMap());
+        for (Map.Entry<String, String[]> param : params.entrySet()) {
+            String[] values = param.getValue().clone();
+            Arrays.sort(values);
+            key.append('&').append(param.getKey()).append('=').append(String.join(",", values));
+        }
+        return DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -21,7 +21,10 @@ public interface ExamMapper {
 
     /**
      * Convert from DTO to entity
+     * The partition keys are derived from the degree and day when the row is written
      */
+    @Mapping(target = "school", ignore = true)
+    @Mapping(target = "academicYear", ignore = true)
     EtsinfExam toEntity(ExamDTO dto);
 
     /**
@@ -32,5 +35,7 @@ public interface ExamMapper {
     /**
      * Update an existing entity with values from a DTO
      */
+    @Mapping(target = "school", ignore = true)
+    @Mapping(target = "academicYear", ignore = true)
     void updateEntityFromDto(ExamDTO dto, @MappingTarget EtsinfExam entity);
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.upv.examcalendar.models;
+
+import java.time.LocalDate;
+import java.time.Month;
+
+/**
+ * Academic years, identified by the calendar year they start in:
+ * 2024 is the course running from 2024-09-01 to 2025-08-31.
+ * Same rule as the exam_academic_year function in schema.sql.
+ */
+public final class AcademicYear {
+
+    private static final int MONTHS_BEFORE_START = Month.SEPTEMBER.getValue() - 1;
+
+    private AcademicYear() {
+    }
+
+    /**
+     * Academic year of a day, or null for a null day
+     */
+    public static Integer of(LocalDate day) {
+        return day != null ? day.minusMonths(MONTHS_BEFORE_START).getYear() : null;
+    }
+
+    public static LocalDate firstDay(int academicYear) {
+        return LocalDate.of(academicYear, Month.SEPTEMBER, 1);
+    }
+
+    public static LocalDate lastDay(int academicYear) {
+        return firstDay(academicYear + 1).minusDays(1);
+    }
+}
@@ -4,23 +4,36 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Locale;
 
 /**
  * Entity representing an exam in the ETSINF faculty
- * Maps to the etsinf_exams table in the database
+ * Maps to the etsinf_exams table in the database, partitioned by school and academic year
+ * Cached in the second-level cache region "exam" when it is enabled
  */
 @Entity
 @Table(name = "etsinf_exams")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EtsinfExam.CACHE_REGION)
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class EtsinfExam {
 
+    public static final String CACHE_REGION = "exam";
+
+    /**
+     * Query cache region of the cacheable repository finders
+     */
+    public static final String QUERY_CACHE_REGION = "exam-queries";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -57,4 +70,34 @@ public class EtsinfExam {
 
     @Column(name = "comment", columnDefinition = "TEXT")
     private String comment;
+
+    /**
+     * Row version assigned by the database on every insert and update
+     */
+    @Column(name = "version", insertable = false, updatable = false)
+    private Long version;
+
+    /**
+     * Partition key derived from the degree, see {@link #schoolOf(String)}
+     */
+    @Column(name = "school", nullable = false, length = 100)
+    private String school;
+
+    /**
+     * Partition key derived from the exam day, see {@link AcademicYear}
+     */
+    @Column(name = "academic_year", nullable = false)
+    private Integer academicYear;
+
+    /**
+     * School of a degree: its first word, lower case. Same rule as the
+     * exam_school function in schema.sql.
+     */
+    public static String schoolOf(String degree) {
+        if (degree == null) {
+            return null;
+        }
+        int space = degree.indexOf(' ');
+        return (space < 0 ? degree : degree.substring(0, space)).toLowerCase(Locale.ROOT);
+    }
 }
\ No newline at end of file
@@ -1,133 +1,192 @@
 package com.upv.examcalendar.repositories;
 
+import com.upv.examcalendar.models.AcademicYear;
 import com.upv.examcalendar.models.EtsinfExam;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 /**
  * Repository for EtsinfExam entity
- * Provides CRUD operations and custom queries
+ * Provides CRUD operations, custom queries and composable filters
+ * through {@link EtsinfExamSpecifications}
+ * Entities are only read here (writes go through SQL in the custom part), so every
+ * finder is read-only and Hibernate keeps no dirty-checking snapshot of its results.
+ * The finders by subject code, degree, cohort and date range also use the query
+ * cache when it is enabled. The finders by degree, school and date range also
+ * restrict the school and academic year partition keys, so that PostgreSQL
+ * only scans the partitions that can match.
+ * The in-memory read structures load through {@link #findAllForReadModel()} and
+ * {@link #findFacetTuples()}, which run in a read-write transaction of their own
+ * so that they always read the primary database, never a lagging replica.
  */
 @Repository
-public interface EtsinfExamRepository extends JpaRepository<EtsinfExam, Long> {
-
-        /**
-         * Find exams by subject code
-         */
-        List<EtsinfExam> findBySubjectCodeIgnoreCase(String subjectCode);
+public interface EtsinfExamRepository extends JpaRepository<EtsinfExam, Long>,
+                JpaSpecificationExecutor<EtsinfExam>, EtsinfExamRepositoryCustom {
 
         /**
-         * Find exams by degree
-         */
-        List<EtsinfExam> findByDegreeIgnoreCase(String degree);
-
-        /**
-         * Find exams by degree starting with (for school filtering)
+         * Every exam; read-only but not cached, since whole-table results would fill the query region
          */
-        @Query("SELECT e FROM EtsinfExam e WHERE LOWER(e.degree) LIKE LOWER(CONCAT(:school, '%'))")
-        List<EtsinfExam> findByDegreeStartingWithIgnoreCase(@Param("school") String school);
+        @Override
+        @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+        List<EtsinfExam> findAll();
 
         /**
-         * Find exams by course year and semester
+         * Every exam, read on the primary database for building a read structure.
+         * The structures are then kept current by change events, so loading them
+         * from a replica that has not replayed a change yet would keep it stale.
          */
-        List<EtsinfExam> findByCourseYearAndSemester(Integer courseYear, String semester);
+        @Transactional(propagation = Propagation.REQUIRES_NEW)
+        @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+        @Query("SELECT e FROM EtsinfExam e")
+        List<EtsinfExam> findAllForReadModel();
 
         /**
-         * Find exams by date range
+         * Find exams by subject code
+         * Compares lower() rather than the derived upper() so the lower(subject_code) index applies
          */
-        List<EtsinfExam> findByExamDayBetween(LocalDate startDate, LocalDate endDate);
+        @QueryHints({
+                @QueryHint(name = HINT_READONLY, value = "true"),
+                @QueryHint(name = HINT_CACHEABLE, value = "true"),
+                @QueryHint(name = HINT_CACHE_REGION, value = EtsinfExam.QUERY_CACHE_REGION)})
+        @Query("SELECT e FROM EtsinfExam e WHERE LOWER(e.subjectCode) = LOWER(:subjectCode)")
+        List<EtsinfExam> findBySubjectCodeIgnoreCase(@Param("subjectCode") String subjectCode);
 
         /**
-         * Find exams by subject name containing text (case insensitive)
+         * Find the exams of several subjects in one query; the codes must already be lower case
          */
-        List<EtsinfExam> findBySubjectNameContainingIgnoreCase(String subjectNamePart);
+        @QueryHints({
+                @QueryHint(name = HINT_READONLY, value = "true"),
+                @QueryHint(name = HINT_CACHEABLE, value = "true"),
+                @QueryHint(name = HINT_CACHE_REGION, value = EtsinfExam.QUERY_CACHE_REGION)})
+        @Query("SELECT e FROM EtsinfExam e WHERE LOWER(e.subjectCode) IN :subjectCodes")
+        List<EtsinfExam> findBySubjectCodeInLowerCase(@Param("subjectCodes") Collection<String> subjectCodes);
 
         /**
-         * Custom query to find exams by exam place containing text
+         * Find exams by degree
          */
-        @Query("SELECT e FROM EtsinfExam e WHERE LOWER(e.examPlace) LIKE LOWER(CONCAT('%', :place, '%'))")
-        List<EtsinfExam> findByExamPlaceContaining(String place);
+        default List<EtsinfExam> findByDegreeIgnoreCase(String degree) {
+                return findByDegreeInSchool(degree, EtsinfExam.schoolOf(degree));
+        }
 
         /**
-         * Get all unique schools (first word of degree)
+         * Find exams by degree, in the partitions of its school
          */
-        @Query(value = "SELECT DISTINCT SPLIT_PART(degree, ' ', 1) as school FROM etsinf_exams ORDER BY school", nativeQuery = true)
-        List<String> findAllSchools();
+        @QueryHints({
+                @QueryHint(name = HINT_READONLY, value = "true"),
+                @QueryHint(name = HINT_CACHEABLE, value = "true"),
+                @QueryHint(name = HINT_CACHE_REGION, value = EtsinfExam.QUERY_CACHE_REGION)})
+        @Query("SELECT e FROM EtsinfExam e WHERE LOWER(e.degree) = LOWER(:degree) AND e.school = :school")
+        List<EtsinfExam> findByDegreeInSchool(@Param("degree") String degree, @Param("school") String school);
 
         /**
-         * Get all unique degrees
+         * Find exams by degree starting with (for school filtering)
          */
-        @Query(value = "SELECT DISTINCT degree FROM etsinf_exams ORDER BY degree", nativeQuery = true)
-        List<String> findAllDegrees();
+        default List<EtsinfExam> findByDegreeStartingWithIgnoreCase(String school) {
+                String after = EtsinfExamSpecifications.schoolKeyAfter(school);
+                if (after == null) {
+                        return findAll(EtsinfExamSpecifications.school(school));
+                }
+                return findByDegreeStartingWithInSchools(EtsinfExamSpecifications.startingWith(school),
+                                EtsinfExamSpecifications.firstSchoolKey(school), after);
+        }
 
         /**
-         * Get all unique distinct degrees
+         * Find exams by lower-case degree LIKE pattern, in the partitions of the schools from first to before after
          */
-        @Query(value = "SELECT DISTINCT degree FROM etsinf_exams ORDER BY degree", nativeQuery = true)
-        List<String> findDistinctDegrees();
+        @QueryHints({
+                @QueryHint(name = HINT_READONLY, value = "true"),
+                @QueryHint(name = HINT_CACHEABLE, value = "true"),
+                @QueryHint(name = HINT_CACHE_REGION, value = EtsinfExam.QUERY_CACHE_REGION)})
+        @Query("SELECT e FROM EtsinfExam e WHERE LOWER(e.degree) LIKE :pattern ESCAPE '\\' "
+                        + "AND e.school >= :first AND e.school < :after")
+        List<EtsinfExam> findByDegreeStartingWithInSchools(@Param("pattern") String pattern,
+                        @Param("first") String first, @Param("after") String after);
 
         /**
-         * Get all unique sub-degrees (derived from the degree name)
-         * Using native SQL query for PostgreSQL compatibility
+         * Find exams by course year and semester; a semester that is not a number matches no exam
          */
-        @Query(value = "SELECT DISTINCT degree FROM etsinf_exams ORDER BY degree", nativeQuery = true)
-        List<String> findAllSubDegrees();
+        default List<EtsinfExam> findByCourseYearAndSemester(Integer courseYear, String semester) {
+                Integer number = EtsinfExamSpecifications.semesterNumber(semester);
+                return number != null ? findByCourseYearAndSemesterNumber(courseYear, number) : List.of();
+        }
 
         /**
-         * Get degrees for a specific school
-         * Using parameter placeholder for PostgreSQL compatibility
+         * Find exams by course year and semester number, bound as an integer like the semester column
          */
-        @Query(value = "SELECT DISTINCT degree FROM etsinf_exams WHERE degree LIKE :pattern ORDER BY degree", nativeQuery = true)
-        List<String> findDegreesBySchool(@Param("pattern") String pattern);
+        @QueryHints({
+                @QueryHint(name = HINT_READONLY, value = "true"),
+                @QueryHint(name = HINT_CACHEABLE, value = "true"),
+                @QueryHint(name = HINT_CACHE_REGION, value = EtsinfExam.QUERY_CACHE_REGION)})
+        @Query("SELECT e FROM EtsinfExam e WHERE e.courseYear = :courseYear AND CAST(e.semester AS integer) = :semester")
+        List<EtsinfExam> findByCourseYearAndSemesterNumber(@Param("courseYear") Integer courseYear,
+                        @Param("semester") Integer semester);
 
         /**
-         * Get sub-degrees for a specific parent degree
-         * Using simple parameter placeholder for PostgreSQL compatibility
+         * Find exams by date range
          */
-        @Query(value = "SELECT DISTINCT degree FROM etsinf_exams WHERE degree LIKE :pattern ORDER BY degree", nativeQuery = true)
-        List<String> findSubDegreesByParentDegree(@Param("pattern") String pattern);
+        default List<EtsinfExam> findByExamDayBetween(LocalDate startDate, LocalDate endDate) {
+                return findByExamDayBetweenInAcademicYears(startDate, endDate,
+                                AcademicYear.of(startDate), AcademicYear.of(endDate));
+        }
 
         /**
-         * Get all unique semesters
+         * Find exams by date range, in the partitions of the academic years it spans
          */
-        @Query(value = "SELECT DISTINCT semester FROM etsinf_exams ORDER BY semester", nativeQuery = true)
-        List<String> findAllSemesters();
+        @QueryHints({
+                @QueryHint(name = HINT_READONLY, value = "true"),
+                @QueryHint(name = HINT_CACHEABLE, value = "true"),
+                @QueryHint(name = HINT_CACHE_REGION, value = EtsinfExam.QUERY_CACHE_REGION)})
+        @Query("SELECT e FROM EtsinfExam e WHERE e.examDay BETWEEN :startDate AND :endDate "
+                        + "AND e.academicYear BETWEEN :firstYear AND :lastYear")
+        List<EtsinfExam> findByExamDayBetweenInAcademicYears(@Param("startDate") LocalDate startDate,
+                        @Param("endDate") LocalDate endDate, @Param("firstYear") Integer firstYear,
+                        @Param("lastYear") Integer lastYear);
 
         /**
-         * Get all unique distinct semesters
+         * Find exams by subject name containing text (case insensitive, wildcards taken literally)
          */
-        @Query(value = "SELECT DISTINCT semester FROM etsinf_exams ORDER BY semester", nativeQuery = true)
-        List<String> findDistinctSemesters();
+        default List<EtsinfExam> findBySubjectNameContainingIgnoreCase(String subjectNamePart) {
+                return findBySubjectNameLike(EtsinfExamSpecifications.containing(subjectNamePart));
+        }
 
-        /**
-         * Get all unique course years
-         */
-        @Query(value = "SELECT DISTINCT course_year FROM etsinf_exams ORDER BY course_year", nativeQuery = true)
-        List<Integer> findAllCourseYears();
+        @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+        @Query("SELECT e FROM EtsinfExam e WHERE LOWER(e.subjectName) LIKE :pattern ESCAPE '\\'")
+        List<EtsinfExam> findBySubjectNameLike(@Param("pattern") String pattern);
 
         /**
-         * Get all unique distinct course years
+         * Custom query to find exams by exam place containing text (case insensitive, wildcards taken literally)
          */
-        @Query(value = "SELECT DISTINCT course_year FROM etsinf_exams ORDER BY course_year", nativeQuery = true)
-        List<Integer> findDistinctCourseYears();
+        default List<EtsinfExam> findByExamPlaceContaining(String place) {
+                return findByExamPlaceLike(EtsinfExamSpecifications.containing(place));
+        }
 
-        /**
-         * Get all unique subjects with acronyms
-         * Using native SQL query for better PostgreSQL compatibility
-         */
-        @Query(value = "SELECT DISTINCT subject_name as name, acronym FROM etsinf_exams ORDER BY subject_name", nativeQuery = true)
-        List<Object[]> findAllSubjectsWithAcronyms();
+        @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+        @Query("SELECT e FROM EtsinfExam e WHERE LOWER(e.examPlace) LIKE :pattern ESCAPE '\\'")
+        List<EtsinfExam> findByExamPlaceLike(@Param("pattern") String pattern);
 
         /**
-         * Get all unique distinct subjects with acronyms
-         * Using native SQL query for better PostgreSQL compatibility
+         * Row count per distinct (degree, semester, course year, subject name, acronym)
+         * Every filter facet is derived from this single grouped scan, on the primary
+         * database like {@link #findAllForReadModel()}
          */
-        @Query(value = "SELECT DISTINCT subject_name as name, acronym FROM etsinf_exams ORDER BY subject_name", nativeQuery = true)
-        List<Object[]> findDistinctSubjectsWithAcronyms();
-}
\ No newline at end of file
+        @Transactional(propagation = Propagation.REQUIRES_NEW)
+        @Query("SELECT e.degree, e.semester, e.courseYear, e.subjectName, e.acronym, COUNT(e) " +
+                        "FROM EtsinfExam e " +
+                        "GROUP BY e.degree, e.semester, e.courseYear, e.subjectName, e.acronym")
+        List<Object[]> findFacetTuples();
+}
@@ -0,0 +1,118 @@
+package com.upv.examcalendar.repositories;
+
+import com.upv.examcalendar.dtos.ExamCursor;
+import com.upv.examcalendar.dtos.SubjectDTO;
+import com.upv.examcalendar.models.EtsinfExam;
+import lombok.Value;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Custom queries on EtsinfExam that derived queries cannot express
+ */
+public interface EtsinfExamRepositoryCustom {
+
+    /**
+     * State of a row before and after a single-statement update
+     */
+    @Value
+    class RowChange {
+        EtsinfExam before;
+        EtsinfExam after;
+    }
+
+    /**
+     * Versions bounding a delta sync: tombstones up to compactedVersion are
+     * gone, and currentVersion is the highest committed row or tombstone version
+     */
+    @Value
+    class DeltaBounds {
+        long compactedVersion;
+        long currentVersion;
+    }
+
+    /**
+     * Distinct subjects (name and acronym, falling back to the subject code)
+     * of the exams matching the specification, projected in the database
+     */
+    List<SubjectDTO> findDistinctSubjects(Specification<EtsinfExam> spec);
+
+    /**
+     * Row count per distinct (degree, semester, course year, subject name, acronym,
+     * subject code) of the exams matching the specification, count last
+     */
+    List<Object[]> findFacetGroups(Specification<EtsinfExam> spec);
+
+    /**
+     * Up to limit exams matching the specification that sort after the cursor,
+     * ordered by (examDay, examHour, id). A null cursor starts from the beginning.
+     */
+    List<EtsinfExam> findPage(Specification<EtsinfExam> spec, ExamCursor after, int limit);
+
+    /**
+     * Read-only stream over the exams matching the specification, ordered by
+     * (examDay, examHour, id), fetched from a database cursor in batches of
+     * fetchSize. Entities are detached as they are read so the persistence
+     * context does not grow. Must be consumed inside a transaction and closed.
+     */
+    Stream<EtsinfExam> streamAll(Specification<EtsinfExam> spec, int fetchSize);
+
+    /**
+     * Move every exam matching the specification by the given days and hours
+     * (either may be negative) in one UPDATE; hours carry over into the day
+     */
+    int shiftMatching(Specification<EtsinfExam> spec, int days, int hours);
+
+    /**
+     * Set the exam place of every exam matching the specification in one UPDATE
+     */
+    int updateExamPlaceMatching(Specification<EtsinfExam> spec, String examPlace);
+
+    /**
+     * Delete every exam matching the specification in one DELETE
+     */
+    int deleteMatching(Specification<EtsinfExam> spec);
+
+    /**
+     * Insert the exam with INSERT ... RETURNING, yielding the row with its id and version
+     */
+    EtsinfExam insertReturning(EtsinfExam exam);
+
+    /**
+     * Overwrite every column of one exam in a single UPDATE ... RETURNING that
+     * also yields the previous state. When expectedVersion is set the row is
+     * only updated if its version still matches. Empty if nothing was updated.
+     */
+    Optional<RowChange> updateReturning(Long id, EtsinfExam values, Long expectedVersion);
+
+    /**
+     * Delete one exam with DELETE ... RETURNING, optionally only if its version
+     * still matches. Empty if nothing was deleted.
+     */
+    Optional<EtsinfExam> deleteReturning(Long id, Long expectedVersion);
+
+    /**
+     * Compaction and current versions, see {@link DeltaBounds}
+     */
+    DeltaBounds findDeltaBounds();
+
+    /**
+     * Up to limit exams inserted or updated after the given version, in version order
+     */
+    List<EtsinfExam> findChangedSince(long version, int limit);
+
+    /**
+     * Up to limit ids of exams deleted after the given version, in version order
+     */
+    List<Long> findDeletedSince(long version, int limit);
+
+    /**
+     * Remove the tombstones of exams deleted before the given instant, raising
+     * the compacted version to the highest one removed. Returns how many were removed.
+     */
+    int compactTombstones(Instant deletedBefore);
+}
@@ -0,0 +1,376 @@
+package com.upv.examcalendar.repositories;
+
+import com.upv.examcalendar.config.ExamSqlFunctions;
+import com.upv.examcalendar.dtos.ExamCursor;
+import com.upv.examcalendar.dtos.SubjectDTO;
+import com.upv.examcalendar.models.AcademicYear;
+import com.upv.examcalendar.models.EtsinfExam;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Criteria API implementation of {@link EtsinfExamRepositoryCustom}
+ * Single-row writes use plain SQL with RETURNING, so each is one round trip
+ * and nothing is loaded into the persistence context. Writes set the school and
+ * academic year partition keys and ensure their partition exists first.
+ */
+@RequiredArgsConstructor
+public class EtsinfExamRepositoryImpl implements EtsinfExamRepositoryCustom {
+
+    private static final String[] COLUMNS = {"id", "exam_day", "exam_hour", "duration_min", "subject_code",
+            "subject_name", "acronym", "degree", "course_year", "semester", "exam_place", "comment", "version",
+            "school", "academic_year"};
+
+    private static final String RETURNING = returning("", "");
+
+    private static final String VALUES = "exam_day = :examDay, exam_hour = :examHour, "
+            + "duration_min = :durationMin, subject_code = :subjectCode, subject_name = :subjectName, "
+            + "acronym = :acronym, degree = :degree, course_year = :courseYear, semester = :semester, "
+            + "exam_place = :examPlace, comment = :comment, school = :school, academic_year = :academicYear";
+
+    private static final String INSERT_SQL = "INSERT INTO etsinf_exams (exam_day, exam_hour, duration_min, "
+            + "subject_code, subject_name, acronym, degree, course_year, semester, exam_place, comment, "
+            + "school, academic_year) "
+            + "VALUES (:examDay, :examHour, :durationMin, :subjectCode, :subjectName, :acronym, :degree, "
+            + ":courseYear, :semester, :examPlace, :comment, :school, :academicYear) RETURNING " + RETURNING;
+
+    // The CTE locks the row and keeps its previous state for the RETURNING clause
+    private static final String UPDATE_SQL = "WITH old AS (SELECT * FROM etsinf_exams WHERE id = :id FOR UPDATE) "
+            + "UPDATE etsinf_exams e SET " + VALUES + ", version = nextval('etsinf_exams_version_seq') "
+            + "FROM old WHERE e.id = old.id AND (CAST(:expectedVersion AS BIGINT) IS NULL "
+            + "OR old.version = :expectedVersion) "
+            + "RETURNING " + returning("old.", "old_") + ", " + returning("e.", "");
+
+    private static final String DELETE_SQL = "DELETE FROM etsinf_exams WHERE id = :id "
+            + "AND (CAST(:expectedVersion AS BIGINT) IS NULL OR version = :expectedVersion) "
+            + "RETURNING " + RETURNING;
+
+    private static final String DELTA_BOUNDS_SQL = "SELECT compacted_version, greatest(compacted_version, "
+            + "(SELECT max(version) FROM etsinf_exams), (SELECT max(version) FROM etsinf_exam_tombstones)) "
+            + "AS current_version FROM etsinf_exam_sync";
+
+    private static final String CHANGED_SINCE_SQL = "SELECT " + RETURNING + " FROM etsinf_exams "
+            + "WHERE version > :version ORDER BY version LIMIT :limit";
+
+    private static final String DELETED_SINCE_SQL = "SELECT exam_id FROM etsinf_exam_tombstones "
+            + "WHERE version > :version ORDER BY version LIMIT :limit";
+
+    private static final String COMPACT_SQL = "WITH purged AS (DELETE FROM etsinf_exam_tombstones "
+            + "WHERE deleted_at < :deletedBefore RETURNING version) "
+            + "UPDATE etsinf_exam_sync SET compacted_version = "
+            + "greatest(compacted_version, (SELECT max(version) FROM purged)) "
+            + "RETURNING (SELECT count(*) FROM purged)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ExamPartitions partitions;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<SubjectDTO> findDistinctSubjects(Specification<EtsinfExam> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<SubjectDTO> query = cb.createQuery(SubjectDTO.class);
+        Root<EtsinfExam> root = query.from(EtsinfExam.class);
+
+        query.select(cb.construct(SubjectDTO.class,
+                root.get("subjectName"),
+                cb.coalesce(root.<String>get("acronym"), root.<String>get("subjectCode"))))
+                .distinct(true)
+                .orderBy(cb.asc(root.get("subjectName")));
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public List<Object[]> findFacetGroups(Specification<EtsinfExam> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<EtsinfExam> root = query.from(EtsinfExam.class);
+
+        List<Expression<?>> groups = List.of(root.get("degree"), root.get("semester"), root.get("courseYear"),
+                root.get("subjectName"), root.get("acronym"), root.get("subjectCode"));
+        List<Selection<?>> selections = new ArrayList<>(groups);
+        selections.add(cb.count(root));
+        query.multiselect(selections).groupBy(groups);
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public List<EtsinfExam> findPage(Specification<EtsinfExam> spec, ExamCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<EtsinfExam> query = cb.createQuery(EtsinfExam.class);
+        Root<EtsinfExam> root = query.from(EtsinfExam.class);
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (after != null && (after.getExamDay() == null || after.getExamHour() == null || after.getId() == null)) {
+            // Every column of the key is NOT NULL, and nulls sort last: nothing is after the cursor
+            predicate = cb.disjunction();
+        } else if (after != null) {
+            Predicate keyset = cb.or(
+                    cb.greaterThan(root.get("examDay"), after.getExamDay()),
+                    cb.and(cb.equal(root.get("examDay"), after.getExamDay()),
+                            cb.greaterThan(root.get("examHour"), after.getExamHour())),
+                    cb.and(cb.equal(root.get("examDay"), after.getExamDay()),
+                            cb.equal(root.get("examHour"), after.getExamHour()),
+                            cb.greaterThan(root.get("id"), after.getId())));
+            predicate = predicate != null ? cb.and(predicate, keyset) : keyset;
+        }
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(chronological(cb, root));
+
+        return entityManager.createQuery(query)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<EtsinfExam> streamAll(Specification<EtsinfExam> spec, int fetchSize) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<EtsinfExam> query = cb.createQuery(EtsinfExam.class);
+        Root<EtsinfExam> root = query.from(EtsinfExam.class);
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(chronological(cb, root));
+
+        return entityManager.createQuery(query)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream()
+                .peek(entityManager::detach);
+    }
+
+    @Override
+    public int shiftMatching(Specification<EtsinfExam> spec, int days, int hours) {
+        ensureShiftedPartitions(spec, days, hours);
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<EtsinfExam> update = cb.createCriteriaUpdate(EtsinfExam.class);
+        Root<EtsinfExam> root = update.from(EtsinfExam.class);
+
+        // Both sides are computed from the old day and hour
+        Expression<?>[] shift = {root.get("examDay"), root.get("examHour"), cb.literal(days), cb.literal(hours)};
+        update.set(root.<LocalDate>get("examDay"), cb.function(ExamSqlFunctions.SHIFTED_DAY, LocalDate.class, shift));
+        update.set(root.<LocalTime>get("examHour"), cb.function(ExamSqlFunctions.SHIFTED_HOUR, LocalTime.class, shift));
+        // Rows whose academic year changes move to the partition of the new one
+        update.set(root.<Integer>get("academicYear"), cb.function(ExamSqlFunctions.ACADEMIC_YEAR, Integer.class,
+                cb.function(ExamSqlFunctions.SHIFTED_DAY, LocalDate.class, shift)));
+        update.set(root.<Long>get("version"), cb.function(ExamSqlFunctions.NEXT_VERSION, Long.class));
+        where(update, spec.toPredicate(root, null, cb));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    /**
+     * Ensure the partitions of every school and academic year the shifted rows can land in,
+     * from the first to the last day of each school's rows moved by the shift. The hours
+     * can carry a row across one more midnight, hence the extra day at the end.
+     */
+    private void ensureShiftedPartitions(Specification<EtsinfExam> spec, int days, int hours) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<EtsinfExam> root = query.from(EtsinfExam.class);
+
+        query.multiselect(root.get("school"), cb.least(root.<LocalDate>get("examDay")),
+                cb.greatest(root.<LocalDate>get("examDay")))
+                .groupBy(root.get("school"));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+
+        long wholeDays = days + Math.floorDiv(hours, 24);
+        for (Object[] school : entityManager.createQuery(query).getResultList()) {
+            int first = AcademicYear.of(((LocalDate) school[1]).plusDays(wholeDays));
+            int last = AcademicYear.of(((LocalDate) school[2]).plusDays(wholeDays + 1));
+            for (int year = first; year <= last; year++) {
+                partitions.ensure((String) school[0], year);
+            }
+        }
+    }
+
+    @Override
+    public int updateExamPlaceMatching(Specification<EtsinfExam> spec, String examPlace) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<EtsinfExam> update = cb.createCriteriaUpdate(EtsinfExam.class);
+        Root<EtsinfExam> root = update.from(EtsinfExam.class);
+
+        update.set(root.<String>get("examPlace"), examPlace);
+        update.set(root.<Long>get("version"), cb.function(ExamSqlFunctions.NEXT_VERSION, Long.class));
+        where(update, spec.toPredicate(root, null, cb));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    @Override
+    public int deleteMatching(Specification<EtsinfExam> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaDelete<EtsinfExam> delete = cb.createCriteriaDelete(EtsinfExam.class);
+        Root<EtsinfExam> root = delete.from(EtsinfExam.class);
+
+        Predicate predicate = spec.toPredicate(root, null, cb);
+        if (predicate != null) {
+            delete.where(predicate);
+        }
+        return entityManager.createQuery(delete).executeUpdate();
+    }
+
+    @Override
+    public EtsinfExam insertReturning(EtsinfExam exam) {
+        partitions.ensureFor(exam.getDegree(), exam.getExamDay());
+        return jdbcTemplate.queryForObject(INSERT_SQL, values(exam), rowMapper(""));
+    }
+
+    @Override
+    public Optional<RowChange> updateReturning(Long id, EtsinfExam values, Long expectedVersion) {
+        // A changed degree or day moves the row to another partition
+        partitions.ensureFor(values.getDegree(), values.getExamDay());
+        MapSqlParameterSource params = values(values)
+                .addValue("id", id)
+                .addValue("expectedVersion", expectedVersion, Types.BIGINT);
+        RowMapper<EtsinfExam> before = rowMapper("old_");
+        RowMapper<EtsinfExam> after = rowMapper("");
+        return jdbcTemplate.query(UPDATE_SQL, params,
+                (rs, rowNum) -> new RowChange(before.mapRow(rs, rowNum), after.mapRow(rs, rowNum)))
+                .stream().findFirst();
+    }
+
+    @Override
+    public Optional<EtsinfExam> deleteReturning(Long id, Long expectedVersion) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("expectedVersion", expectedVersion, Types.BIGINT);
+        return jdbcTemplate.query(DELETE_SQL, params, rowMapper("")).stream().findFirst();
+    }
+
+    @Override
+    public DeltaBounds findDeltaBounds() {
+        return jdbcTemplate.queryForObject(DELTA_BOUNDS_SQL, new MapSqlParameterSource(),
+                (rs, rowNum) -> new DeltaBounds(rs.getLong("compacted_version"), rs.getLong("current_version")));
+    }
+
+    @Override
+    public List<EtsinfExam> findChangedSince(long version, int limit) {
+        return jdbcTemplate.query(CHANGED_SINCE_SQL, since(version, limit), rowMapper(""));
+    }
+
+    @Override
+    public List<Long> findDeletedSince(long version, int limit) {
+        return jdbcTemplate.queryForList(DELETED_SINCE_SQL, since(version, limit), Long.class);
+    }
+
+    @Override
+    public int compactTombstones(Instant deletedBefore) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("deletedBefore", Timestamp.from(deletedBefore), Types.TIMESTAMP);
+        Long purged = jdbcTemplate.queryForObject(COMPACT_SQL, params, Long.class);
+        return purged != null ? purged.intValue() : 0;
+    }
+
+    private static MapSqlParameterSource since(long version, int limit) {
+        return new MapSqlParameterSource()
+                .addValue("version", version)
+                .addValue("limit", limit);
+    }
+
+    private static MapSqlParameterSource values(EtsinfExam exam) {
+        return new MapSqlParameterSource()
+                .addValue("examDay", exam.getExamDay())
+                .addValue("examHour", exam.getExamHour())
+                .addValue("durationMin", exam.getDurationMin())
+                .addValue("subjectCode", exam.getSubjectCode())
+                .addValue("subjectName", exam.getSubjectName())
+                .addValue("acronym", exam.getAcronym())
+                .addValue("degree", exam.getDegree())
+                .addValue("courseYear", exam.getCourseYear())
+                // Untyped, so PostgreSQL converts it to whatever type the semester column has
+                .addValue("semester", new SqlParameterValue(Types.OTHER, exam.getSemester()))
+                .addValue("examPlace", exam.getExamPlace())
+                .addValue("comment", exam.getComment())
+                .addValue("school", EtsinfExam.schoolOf(exam.getDegree()))
+                .addValue("academicYear", AcademicYear.of(exam.getExamDay()), Types.INTEGER);
+    }
+
+    private static String returning(String table, String alias) {
+        return Arrays.stream(COLUMNS)
+                .map(column -> table + column + " AS " + alias + column)
+                .collect(Collectors.joining(", "));
+    }
+
+    private static RowMapper<EtsinfExam> rowMapper(String prefix) {
+        return (rs, rowNum) -> EtsinfExam.builder()
+                .id(rs.getLong(prefix + "id"))
+                .examDay(rs.getObject(prefix + "exam_day", LocalDate.class))
+                .examHour(rs.getObject(prefix + "exam_hour", LocalTime.class))
+                .durationMin(integer(rs, prefix + "duration_min"))
+                .subjectCode(rs.getString(prefix + "subject_code"))
+                .subjectName(rs.getString(prefix + "subject_name"))
+                .acronym(rs.getString(prefix + "acronym"))
+                .degree(rs.getString(prefix + "degree"))
+                .courseYear(integer(rs, prefix + "course_year"))
+                .semester(rs.getString(prefix + "semester"))
+                .examPlace(rs.getString(prefix + "exam_place"))
+                .comment(rs.getString(prefix + "comment"))
+                .version(rs.getLong(prefix + "version"))
+                .school(rs.getString(prefix + "school"))
+                .academicYear(integer(rs, prefix + "academic_year"))
+                .build();
+    }
+
+    private static Integer integer(ResultSet rs, String column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static void where(CriteriaUpdate<EtsinfExam> update, Predicate predicate) {
+        if (predicate != null) {
+            update.where(predicate);
+        }
+    }
+
+    private static List<Order> chronological(CriteriaBuilder cb, Root<EtsinfExam> root) {
+        return List.of(cb.asc(root.get("examDay")), cb.asc(root.get("examHour")), cb.asc(root.get("id")));
+    }
+}
@@ -0,0 +1,217 @@
+package com.upv.examcalendar.repositories;
+
+import com.upv.examcalendar.dtos.ExamFilter;
+import com.upv.examcalendar.models.AcademicYear;
+import com.upv.examcalendar.models.EtsinfExam;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Predicate;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Composable query predicates over EtsinfExam
+ * Only the filters that are actually set end up in the generated SQL,
+ * so every combination runs as a single statement the planner can index.
+ * Predicates never use the query argument, so they also restrict bulk
+ * CriteriaUpdate and CriteriaDelete statements (called with a null query).
+ * School, degree and date predicates also restrict the school and academic year
+ * partition keys, which they imply, so PostgreSQL only scans matching partitions.
+ */
+public final class EtsinfExamSpecifications {
+
+    /**
+     * Escape character of the LIKE patterns built here
+     */
+    public static final char LIKE_ESCAPE = '\\';
+
+    private EtsinfExamSpecifications() {
+    }
+
+    /**
+     * Degree starting with the school name (case insensitive)
+     */
+    public static Specification<EtsinfExam> school(String school) {
+        String first = firstSchoolKey(school);
+        String after = schoolKeyAfter(school);
+        return (root, query, cb) -> {
+            Predicate prefix = cb.like(cb.lower(root.get("degree")), startingWith(school), LIKE_ESCAPE);
+            return after == null ? prefix : cb.and(prefix,
+                    cb.greaterThanOrEqualTo(root.get("school"), first), cb.lessThan(root.get("school"), after));
+        };
+    }
+
+    public static Specification<EtsinfExam> degree(String degree) {
+        return (root, query, cb) -> cb.and(
+                cb.equal(cb.lower(root.get("degree")), degree.toLowerCase(Locale.ROOT)),
+                cb.equal(root.get("school"), EtsinfExam.schoolOf(degree)));
+    }
+
+    public static Specification<EtsinfExam> courseYear(Integer courseYear) {
+        return (root, query, cb) -> cb.equal(root.get("courseYear"), courseYear);
+    }
+
+    /**
+     * Semester number; a value that is not a number matches no exam.
+     * The semester column is an integer, so the value is bound as one.
+     */
+    public static Specification<EtsinfExam> semester(String semester) {
+        Integer number = semesterNumber(semester);
+        return (root, query, cb) -> number == null
+                ? cb.disjunction()
+                : cb.equal(root.get("semester").as(Integer.class), number);
+    }
+
+    /**
+     * Number of a semester filter value, or null when it is missing or not a number
+     */
+    public static Integer semesterNumber(String semester) {
+        if (semester == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(semester.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Subject name, acronym or code equal to the given value (case insensitive)
+     */
+    public static Specification<EtsinfExam> subject(String subject) {
+        String value = subject.toLowerCase(Locale.ROOT);
+        return (root, query, cb) -> cb.or(
+                cb.equal(cb.lower(root.get("subjectName")), value),
+                cb.equal(cb.lower(root.get("acronym")), value),
+                cb.equal(cb.lower(root.get("subjectCode")), value));
+    }
+
+    public static Specification<EtsinfExam> subjectCode(String subjectCode) {
+        return (root, query, cb) -> cb.equal(cb.lower(root.get("subjectCode")), subjectCode.toLowerCase(Locale.ROOT));
+    }
+
+    public static Specification<EtsinfExam> examDayFrom(LocalDate startDate) {
+        return (root, query, cb) -> cb.and(
+                cb.greaterThanOrEqualTo(root.get("examDay"), startDate),
+                cb.greaterThanOrEqualTo(root.get("academicYear"), AcademicYear.of(startDate)));
+    }
+
+    public static Specification<EtsinfExam> examDayTo(LocalDate endDate) {
+        return (root, query, cb) -> cb.and(
+                cb.lessThanOrEqualTo(root.get("examDay"), endDate),
+                cb.lessThanOrEqualTo(root.get("academicYear"), AcademicYear.of(endDate)));
+    }
+
+    /**
+     * Academic year, by the calendar year it starts in
+     */
+    public static Specification<EtsinfExam> academicYear(Integer academicYear) {
+        return (root, query, cb) -> cb.equal(root.get("academicYear"), academicYear);
+    }
+
+    public static Specification<EtsinfExam> subjectNameContains(String part) {
+        return (root, query, cb) -> cb.like(cb.lower(root.get("subjectName")), containing(part), LIKE_ESCAPE);
+    }
+
+    public static Specification<EtsinfExam> examPlaceContains(String part) {
+        return (root, query, cb) -> cb.like(cb.lower(root.get("examPlace")), containing(part), LIKE_ESCAPE);
+    }
+
+    /**
+     * Conjunction of every filter that is set
+     */
+    public static Specification<EtsinfExam> matching(ExamFilter filter) {
+        Specification<EtsinfExam> spec = Specification.where(null);
+        if (filter.getSchool() != null) {
+            spec = spec.and(school(filter.getSchool()));
+        }
+        if (filter.getDegree() != null) {
+            spec = spec.and(degree(filter.getDegree()));
+        }
+        if (filter.getCourseYear() != null) {
+            spec = spec.and(courseYear(filter.getCourseYear()));
+        }
+        if (filter.getSemester() != null) {
+            spec = spec.and(semester(filter.getSemester()));
+        }
+        if (filter.getSubject() != null) {
+            spec = spec.and(subject(filter.getSubject()));
+        }
+        if (filter.getSubjectCode() != null) {
+            spec = spec.and(subjectCode(filter.getSubjectCode()));
+        }
+        if (filter.getStartDate() != null) {
+            spec = spec.and(examDayFrom(filter.getStartDate()));
+        }
+        if (filter.getEndDate() != null) {
+            spec = spec.and(examDayTo(filter.getEndDate()));
+        }
+        if (filter.getAcademicYear() != null) {
+            spec = spec.and(academicYear(filter.getAcademicYear()));
+        }
+        if (filter.getSubjectNameContains() != null) {
+            spec = spec.and(subjectNameContains(filter.getSubjectNameContains()));
+        }
+        if (filter.getExamPlaceContains() != null) {
+            spec = spec.and(examPlaceContains(filter.getExamPlaceContains()));
+        }
+        return spec;
+    }
+
+    /**
+     * Lower-case LIKE pattern of the values starting with the given text, taken literally
+     */
+    public static String startingWith(String text) {
+        return escapeLike(text) + "%";
+    }
+
+    /**
+     * Lower-case LIKE pattern of the values containing the given text, taken literally
+     */
+    public static String containing(String text) {
+        return "%" + escapeLike(text) + "%";
+    }
+
+    private static String escapeLike(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        StringBuilder escaped = new StringBuilder(lower.length() + 8);
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Smallest school key (see {@link EtsinfExam#schoolOf(String)}) of a degree starting
+     * with the given prefix: the key is the first word of the degree, so it is the prefix
+     * up to its first space, or a word starting with the whole prefix
+     */
+    public static String firstSchoolKey(String prefix) {
+        int space = prefix.indexOf(' ');
+        return (space < 0 ? prefix : prefix.substring(0, space)).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Smallest school key after every key of a degree starting with the given prefix,
+     * in the C collation of the school column (code point order): the first key with a
+     * different prefix of the same length. Null when there is no bound, as for an empty
+     * prefix, which every degree starts with.
+     */
+    public static String schoolKeyAfter(String prefix) {
+        String first = firstSchoolKey(prefix);
+        if (first.isEmpty()) {
+            return null;
+        }
+        char last = first.charAt(first.length() - 1);
+        char next = (char) (last + 1);
+        if (last == Character.MAX_VALUE || Character.isSurrogate(last) || Character.isSurrogate(next)) {
+            return null;
+        }
+        return first.substring(0, first.length() - 1) + next;
+    }
+}
@@ -0,0 +1,61 @@
+package com.upv.examcalendar.repositories;
+
+import com.upv.examcalendar.models.AcademicYear;
+import com.upv.examcalendar.models.EtsinfExam;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Partitions of etsinf_exams, one per school and academic year (see schema.sql).
+ * A row can only be written once the partition for its keys exists, so every
+ * writer ensures it first, in the transaction of the write: creating a partition
+ * locks the whole table until that transaction ends, which only happens for the
+ * first exam of a new school or academic year. Callers must not already have
+ * written in the transaction, or a concurrent writer doing the same could
+ * deadlock with them.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExamPartitions {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Create the partition of a school and academic year unless it exists
+     */
+    public void ensure(String school, int academicYear) {
+        Boolean created = jdbcTemplate.queryForObject("SELECT etsinf_exams_ensure_partition(?, ?)",
+                Boolean.class, school, academicYear);
+        if (Boolean.TRUE.equals(created)) {
+            log.info("Created the exam partition of school {} and academic year {}", school, academicYear);
+        }
+    }
+
+    /**
+     * Create the partition an exam with this degree and day goes to, unless it exists.
+     * Does nothing when either is missing: the write then fails on the column constraints.
+     */
+    public void ensureFor(String degree, LocalDate examDay) {
+        if (degree != null && examDay != null) {
+            ensure(EtsinfExam.schoolOf(degree), AcademicYear.of(examDay));
+        }
+    }
+
+    /**
+     * Detach every partition of an academic year from etsinf_exams, keeping it as an
+     * archive table. Its exams leave tombstones so delta clients drop them too.
+     *
+     * @return number of exams detached
+     */
+    public long detachAcademicYear(int academicYear) {
+        Long detached = jdbcTemplate.queryForObject("SELECT etsinf_exams_detach_academic_year(?)",
+                Long.class, academicYear);
+        log.info("Detached {} exams of academic year {}", detached, academicYear);
+        return detached != null ? detached : 0;
+    }
+}
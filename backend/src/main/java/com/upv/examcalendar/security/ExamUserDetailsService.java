@@ -0,0 +1,59 @@
+package com.upv.examcalendar.security;
+
+import com.upv.examcalendar.repositories.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+/**
+ * Accounts that can sign in: the exam administrator configured with
+ * exam.admin.username and exam.admin.password, who may change exams, and the
+ * registered users, by email, who may only read them. Without an admin password
+ * there is no administrator and every exam write is refused.
+ */
+@Service
+@Slf4j
+public class ExamUserDetailsService implements UserDetailsService {
+
+    public static final String ADMIN_ROLE = "ADMIN";
+    public static final String USER_ROLE = "USER";
+
+    private final UserRepository userRepository;
+    private final UserDetails admin;
+
+    public ExamUserDetailsService(
+            UserRepository userRepository,
+            PasswordEncoder passwordEncoder,
+            @Value("${exam.admin.username}") String adminUsername,
+            @Value("${exam.admin.password:}") String adminPassword) {
+        this.userRepository = userRepository;
+        if (adminPassword.isEmpty()) {
+            log.warn("No exam.admin.password set: exam changes are refused");
+            this.admin = null;
+        } else {
+            this.admin = User.withUsername(adminUsername)
+                    .password(passwordEncoder.encode(adminPassword))
+                    .roles(ADMIN_ROLE)
+                    .build();
+        }
+    }
+
+    @Override
+    public UserDetails loadUserByUsername(String username) {
+        if (admin != null && admin.getUsername().equals(username)) {
+            // A copy, as authentication erases the credentials of what it is given
+            return User.withUserDetails(admin).build();
+        }
+        return userRepository.findByEmail(username)
+                .map(user -> User.withUsername(user.getEmail())
+                        .password(user.getPassword())
+                        .roles(USER_ROLE)
+                        .build())
+                .orElseThrow(() -> new UsernameNotFoundException("Unknown user " + username));
+    }
+}
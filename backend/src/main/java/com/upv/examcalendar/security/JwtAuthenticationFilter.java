@@ -0,0 +1,56 @@
+package com.upv.examcalendar.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Authenticates requests carrying the token handed out on login
+ * ("Authorization: Bearer <token>"). The account is looked up again, so its
+ * current roles apply. Requests without a valid token go on unauthenticated.
+ */
+@RequiredArgsConstructor
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private final JwtTokenProvider tokenProvider;
+    private final UserDetailsService userDetailsService;
+    private final String header;
+    private final String prefix;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String token = token(request);
+        if (token != null && tokenProvider.validateJwtToken(token)) {
+            try {
+                UserDetails user = userDetailsService.loadUserByUsername(tokenProvider.getUsernameFromJwtToken(token));
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            } catch (UsernameNotFoundException e) {
+                logger.debug("Token of an account that no longer exists: " + e.getMessage());
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    private String token(HttpServletRequest request) {
+        String value = request.getHeader(header);
+        if (value == null || !value.startsWith(prefix + " ")) {
+            return null;
+        }
+        return value.substring(prefix.length() + 1).trim();
+    }
+}
@@ -1,12 +1,17 @@
 package com.upv.examcalendar.security;
 
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 
 @Component
@@ -19,6 +24,8 @@ public class JwtTokenProvider {
     @Value("${jwt.expiration}")
     private int jwtExpirationMs;
 
+    private volatile SecretKey signingKey;
+
     public String generateJwtToken(Authentication authentication) {
         UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
 
@@ -26,17 +33,17 @@ public class JwtTokenProvider {
                 .setSubject(userPrincipal.getUsername())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(SignatureAlgorithm.HS512, jwtSecret)
+                .signWith(signingKey(), SignatureAlgorithm.HS512)
                 .compact();
     }
 
     public String getUsernameFromJwtToken(String token) {
-        return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody().getSubject();
+        return parser().parseClaimsJws(token).getBody().getSubject();
     }
 
     public boolean validateJwtToken(String authToken) {
         try {
-            Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
+            parser().parseClaimsJws(authToken);
             return true;
         } catch (SignatureException e) {
             log.error("Invalid JWT signature: {}", e.getMessage());
@@ -52,4 +59,26 @@ public class JwtTokenProvider {
 
         return false;
     }
-}
\ No newline at end of file
+
+    private JwtParser parser() {
+        return Jwts.parserBuilder().setSigningKey(signingKey()).build();
+    }
+
+    /**
+     * HS512 needs a key of at least 512 bits, so the key is the SHA-512 of the
+     * configured secret, whatever its length
+     */
+    private SecretKey signingKey() {
+        SecretKey key = signingKey;
+        if (key == null) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-512").digest(jwtSecret.getBytes(StandardCharsets.UTF_8));
+                key = Keys.hmacShaKeyFor(digest);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-512 is not available", e);
+            }
+            signingKey = key;
+        }
+        return key;
+    }
+}
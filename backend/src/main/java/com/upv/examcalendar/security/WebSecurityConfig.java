@@ -1,8 +1,14 @@
 package com.upv.examcalendar.security;
 
+import com.upv.examcalendar.controllers.ExamController;
+import com.upv.examcalendar.filters.ExamETagFilter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -11,6 +17,8 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -23,18 +31,40 @@ import java.util.List;
 @RequiredArgsConstructor
 public class WebSecurityConfig {
 
+    @Value("${jwt.header}")
+    private String jwtHeader;
+
+    @Value("${jwt.prefix}")
+    private String jwtPrefix;
+
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration authConfig) throws Exception {
         return authConfig.getAuthenticationManager();
     }
 
+    /**
+     * Exams are public to read. Changing them (create, update, delete, import,
+     * bulk operations, timetables, archiving) takes the admin account, signed in
+     * with the token from /api/auth/login or with HTTP Basic. The schedule analysis
+     * is a POST only to carry its subject list, so it stays public.
+     */
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, JwtTokenProvider tokenProvider,
+            ExamUserDetailsService userDetailsService) throws Exception {
         http.cors().and().csrf().disable()
                 .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and()
                 .authorizeRequests()
-                .antMatchers("/api/auth/**", "/api/exams/**").permitAll()
-                .anyRequest().authenticated();
+                .antMatchers("/api/auth/**").permitAll()
+                .antMatchers(HttpMethod.GET, "/api/exams/**").permitAll()
+                .antMatchers(HttpMethod.HEAD, "/api/exams/**").permitAll()
+                .antMatchers(HttpMethod.POST, "/api/exams/my-schedule/analysis").permitAll()
+                .antMatchers("/api/exams/**").hasRole(ExamUserDetailsService.ADMIN_ROLE)
+                .anyRequest().authenticated()
+                .and()
+                // No WWW-Authenticate challenge, so browsers do not prompt for a password
+                .httpBasic().authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)).and()
+                .addFilterBefore(new JwtAuthenticationFilter(tokenProvider, userDetailsService, jwtHeader, jwtPrefix),
+                        UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
@@ -50,6 +80,9 @@ public class WebSecurityConfig {
         configuration.setAllowedOrigins(List.of("*"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(List.of("*"));
+        // Headers the frontend reads: the token, conditional requests, keyset paging and write warnings
+        configuration.setExposedHeaders(List.of(jwtHeader, HttpHeaders.ETAG, ExamETagFilter.VERSION_HEADER,
+                ExamController.NEXT_CURSOR_HEADER, ExamController.CONFLICTS_HEADER, HttpHeaders.WARNING));
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
         return source;
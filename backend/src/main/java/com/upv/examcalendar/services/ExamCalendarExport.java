@@ -0,0 +1,199 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * iCalendar export of the exams matching a filter.
+ * A miss streams the events straight from the exam cursor to the client while
+ * keeping a copy of the bytes; the copy is cached per normalized filter and
+ * dataset version, so calendar apps polling the same subscription are served
+ * from memory until the next write. Entries of older versions are dropped as
+ * soon as another version is rendered, and the cache is bounded by total size.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExamCalendarExport {
+
+    private final ExamService examService;
+    private final ExamDatasetVersion datasetVersion;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${exam.ics.cache.max-bytes:33554432}")
+    private long maxCacheBytes;
+
+    // Access ordered, so iteration starts at the least recently used entry
+    private final Map<String, byte[]> rendered = new LinkedHashMap<>(16, 0.75f, true);
+    private long renderedVersion;
+    private long renderedBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        FunctionCounter.builder("exam.ics.cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("exam.ics.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss").register(meterRegistry);
+        Gauge.builder("exam.ics.cache.bytes", this, export -> export.cachedBytes())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Write the calendar of the exams matching the filter to out
+     */
+    public void export(ExamFilter filter, OutputStream out) throws IOException {
+        // Read the version before the data so a concurrent write can only make the entry older
+        long version = datasetVersion.current();
+        String key = cacheKey(filter);
+
+        byte[] cached = lookup(version, key);
+        if (cached != null) {
+            hits.increment();
+            out.write(cached);
+            out.flush();
+            return;
+        }
+        misses.increment();
+
+        CopyingOutputStream copy = new CopyingOutputStream(out, maxCacheBytes / 4);
+        ICalendarWriter writer = new ICalendarWriter(copy, Instant.now());
+        writer.begin();
+        try {
+            examService.streamExams(filter, exam -> {
+                try {
+                    writer.event(exam);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.end();
+
+        byte[] bytes = copy.copied();
+        if (bytes != null) {
+            store(version, key, bytes);
+        }
+    }
+
+    /**
+     * Filter fields in a fixed order, lower cased where matching ignores case
+     */
+    static String cacheKey(ExamFilter filter) {
+        StringJoiner key = new StringJoiner("|");
+        key.add(lower(filter.getSchool()));
+        key.add(lower(filter.getDegree()));
+        key.add(String.valueOf(filter.getCourseYear()));
+        key.add(String.valueOf(filter.getSemester()));
+        key.add(lower(filter.getSubject()));
+        key.add(lower(filter.getSubjectCode()));
+        key.add(String.valueOf(filter.getStartDate()));
+        key.add(String.valueOf(filter.getEndDate()));
+        key.add(String.valueOf(filter.getAcademicYear()));
+        key.add(lower(filter.getSubjectNameContains()));
+        key.add(lower(filter.getExamPlaceContains()));
+        return key.toString();
+    }
+
+    private static String lower(String value) {
+        return value != null ? value.trim().toLowerCase(Locale.ROOT) : "null";
+    }
+
+    private synchronized byte[] lookup(long version, String key) {
+        return version == renderedVersion ? rendered.get(key) : null;
+    }
+
+    private synchronized void store(long version, String key, byte[] bytes) {
+        // Rendered while the data changed
+        if (version != datasetVersion.current()) {
+            return;
+        }
+        if (version != renderedVersion) {
+            rendered.clear();
+            renderedBytes = 0;
+            renderedVersion = version;
+        }
+        byte[] previous = rendered.put(key, bytes);
+        renderedBytes += bytes.length - (previous != null ? previous.length : 0);
+
+        Iterator<byte[]> eldest = rendered.values().iterator();
+        while (renderedBytes > maxCacheBytes && eldest.hasNext()) {
+            renderedBytes -= eldest.next().length;
+            eldest.remove();
+        }
+        log.debug("Cached calendar for {} ({} bytes, version {})", key, bytes.length, version);
+    }
+
+    private synchronized long cachedBytes() {
+        return renderedBytes;
+    }
+
+    /**
+     * Passes every byte through and keeps a copy until it grows past the limit
+     */
+    private static final class CopyingOutputStream extends FilterOutputStream {
+
+        private final long limit;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream(8192);
+
+        CopyingOutputStream(OutputStream out, long limit) {
+            super(out);
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (copy != null) {
+                copy.write(b);
+                checkLimit();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (copy != null) {
+                copy.write(b, off, len);
+                checkLimit();
+            }
+        }
+
+        /**
+         * Everything written, or null if it was too large to keep
+         */
+        byte[] copied() {
+            return copy != null ? copy.toByteArray() : null;
+        }
+
+        private void checkLimit() {
+            if (copy.size() > limit) {
+                copy = null;
+            }
+        }
+    }
+}
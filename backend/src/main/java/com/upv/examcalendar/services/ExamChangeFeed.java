@@ -0,0 +1,328 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamChangeDTO;
+import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.dtos.ExamFilter;
+import com.upv.examcalendar.events.ExamChangeEvent;
+import com.upv.examcalendar.exceptions.ServiceUnavailableException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-Sent Events feed of committed exam changes.
+ * Connections are held as async requests, so an idle subscriber costs no
+ * thread. Each subscriber has a small bounded queue drained by a shared
+ * dispatcher pool; a subscriber that falls behind has its queue replaced by
+ * a single "resync" event, telling it to reload instead of replaying changes.
+ * Bulk changes are sent as resync to everyone, since they cannot be filtered.
+ * Sends are blocking servlet writes, so a client that stops reading holds its
+ * dispatcher thread until the container's write timeout: a watchdog drops any
+ * subscriber whose send stalls and lends the pool a thread in its place, so
+ * stalled clients never starve the others.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExamChangeFeed {
+
+    static final String CHANGE_EVENT = "change";
+    static final String RESYNC_EVENT = "resync";
+
+    private final ExamDatasetVersion datasetVersion;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${exam.changes.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${exam.changes.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${exam.changes.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${exam.changes.dispatch-threads:4}")
+    private int dispatchThreads;
+
+    @Value("${exam.changes.heartbeat-seconds:25}")
+    private int heartbeatSeconds;
+
+    @Value("${exam.changes.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private ThreadPoolExecutor dispatcher;
+    private ScheduledExecutorService heartbeat;
+
+    @PostConstruct
+    void init() {
+        dispatcher = (ThreadPoolExecutor) Executors.newFixedThreadPool(dispatchThreads, daemonThreads("exam-feed-"));
+        heartbeat = Executors.newSingleThreadScheduledExecutor(daemonThreads("exam-feed-heartbeat-"));
+        heartbeat.scheduleAtFixedRate(() -> subscribers.forEach(subscriber -> subscriber.offer(Message.HEARTBEAT)),
+                heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        long watchdogMs = Math.max(1, sendTimeoutMs / 2);
+        heartbeat.scheduleWithFixedDelay(this::dropStalled, watchdogMs, watchdogMs, TimeUnit.MILLISECONDS);
+        Gauge.builder("exam.changes.subscribers", subscribers, Set::size).register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeat.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        dispatcher.shutdown();
+    }
+
+    /**
+     * Open a feed of the changes matching the filter (only school, degree and
+     * subject are considered). A client reconnecting with the id of the last
+     * event it saw is told to resync if it missed any change.
+     */
+    public SseEmitter subscribe(ExamFilter filter, Long lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ServiceUnavailableException("Too many change feed subscribers, retry later");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        subscribe(emitter, filter, lastEventId);
+        return emitter;
+    }
+
+    void subscribe(SseEmitter emitter, ExamFilter filter, Long lastEventId) {
+        Subscriber subscriber = new Subscriber(emitter, filter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+
+        long version = datasetVersion.current();
+        if (lastEventId != null && lastEventId < version) {
+            subscriber.offer(Message.resync(version));
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(ExamChangeEvent.NOTIFY_ORDER)
+    public void onExamChange(ExamChangeEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        long version = datasetVersion.current();
+        if (event.isBulk()) {
+            Message resync = Message.resync(version);
+            subscribers.forEach(subscriber -> subscriber.offer(resync));
+            return;
+        }
+        Message change = new Message(CHANGE_EVENT, version,
+                new ExamChangeDTO(event.getType().name(), event.getExamId(), event.getAfter(), version));
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.matches(event)) {
+                subscriber.offer(change);
+            }
+        }
+    }
+
+    /**
+     * Drop the subscribers whose current send has taken longer than the send timeout.
+     * Their emitter can only be completed once the send returns, since both lock it;
+     * until then the pool gets one more thread, so the others keep being served.
+     */
+    private void dropStalled() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long since = subscriber.sendingSince;
+            if (since != 0 && now - since > TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs) && subscriber.stall()) {
+                log.debug("Dropping change feed subscriber: send stalled for over {} ms", sendTimeoutMs);
+                subscribers.remove(subscriber);
+                resizeDispatcher(1);
+            }
+        }
+    }
+
+    private synchronized void resizeDispatcher(int delta) {
+        if (delta > 0) {
+            dispatcher.setMaximumPoolSize(dispatcher.getMaximumPoolSize() + delta);
+            dispatcher.setCorePoolSize(dispatcher.getCorePoolSize() + delta);
+        } else {
+            dispatcher.setCorePoolSize(dispatcher.getCorePoolSize() + delta);
+            dispatcher.setMaximumPoolSize(dispatcher.getMaximumPoolSize() + delta);
+        }
+    }
+
+    private static CustomizableThreadFactory daemonThreads(String prefix) {
+        CustomizableThreadFactory factory = new CustomizableThreadFactory(prefix);
+        factory.setDaemon(true);
+        return factory;
+    }
+
+    /**
+     * One event to send; a null name marks a heartbeat comment
+     */
+    private static final class Message {
+
+        static final Message HEARTBEAT = new Message(null, 0, null);
+
+        private final String name;
+        private final long version;
+        private final Object data;
+
+        Message(String name, long version, Object data) {
+            this.name = name;
+            this.version = version;
+            this.data = data;
+        }
+
+        static Message resync(long version) {
+            return new Message(RESYNC_EVENT, version, Collections.singletonMap("datasetVersion", version));
+        }
+
+        SseEmitter.SseEventBuilder toEvent() {
+            if (name == null) {
+                return SseEmitter.event().comment("keep-alive");
+            }
+            return SseEmitter.event()
+                    .id(Long.toString(version))
+                    .name(name)
+                    .data(data, MediaType.APPLICATION_JSON);
+        }
+    }
+
+    /**
+     * One open connection with its filter and pending events
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final ExamFilter filter;
+
+        // Guarded by this
+        private final Queue<Message> queue = new ArrayDeque<>();
+        private boolean draining;
+        private boolean resyncPending;
+        private boolean stalled;
+
+        // System.nanoTime() when the current send started, 0 between sends
+        private volatile long sendingSince;
+
+        Subscriber(SseEmitter emitter, ExamFilter filter) {
+            this.emitter = emitter;
+            this.filter = filter;
+        }
+
+        boolean matches(ExamChangeEvent event) {
+            return matches(event.getBefore()) || matches(event.getAfter());
+        }
+
+        private boolean matches(ExamDTO exam) {
+            return exam != null && filter.matches(exam);
+        }
+
+        /**
+         * Mark a send as stalled, true unless it has just returned
+         */
+        synchronized boolean stall() {
+            if (sendingSince == 0) {
+                return false;
+            }
+            stalled = true;
+            queue.clear();
+            return true;
+        }
+
+        synchronized void offer(Message message) {
+            if (stalled) {
+                return;
+            }
+            if (message == Message.HEARTBEAT) {
+                // Only needed on an idle connection
+                if (!queue.isEmpty()) {
+                    return;
+                }
+                queue.add(message);
+            } else if (resyncPending) {
+                // The pending resync already covers this change
+                return;
+            } else if (RESYNC_EVENT.equals(message.name) || queue.size() >= queueCapacity) {
+                queue.clear();
+                queue.add(RESYNC_EVENT.equals(message.name) ? message : Message.resync(message.version));
+                resyncPending = true;
+            } else {
+                queue.add(message);
+            }
+            if (!draining) {
+                draining = true;
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Message message;
+                synchronized (this) {
+                    message = queue.poll();
+                    if (message == null) {
+                        draining = false;
+                        return;
+                    }
+                    if (RESYNC_EVENT.equals(message.name)) {
+                        resyncPending = false;
+                    }
+                }
+                boolean failed = false;
+                sendingSince = System.nanoTime();
+                try {
+                    emitter.send(message.toEvent());
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away or the emitter already completed
+                    log.debug("Dropping change feed subscriber: {}", e.getMessage());
+                    failed = true;
+                }
+                boolean wasStalled;
+                synchronized (this) {
+                    sendingSince = 0;
+                    wasStalled = stalled;
+                    if (wasStalled || failed) {
+                        queue.clear();
+                        draining = false;
+                    }
+                }
+                if (wasStalled) {
+                    // The watchdog lent the pool a thread in place of this one
+                    resizeDispatcher(-1);
+                    if (!failed) {
+                        emitter.completeWithError(new IOException("Change feed send stalled"));
+                    }
+                    return;
+                }
+                if (failed) {
+                    subscribers.remove(this);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.dtos.ExamFilter;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Exams stored column by column, one array element per row.
+ * Strings are dictionary encoded: every distinct value is kept once and rows
+ * hold its int code, so the few hundred degree, subject and place names of a
+ * multi-school dataset cost one String each instead of one per exam. Days,
+ * start minutes, durations and course years are primitive ints. Rows are in
+ * chronological order (day, hour, id), so ascending row numbers are also in
+ * that order. Immutable; a row becomes an {@link ExamDTO} only when read.
+ */
+final class ExamColumns {
+
+    /**
+     * Code of a null string
+     */
+    static final int NULL_CODE = -1;
+
+    // Null days sort last, like in ExamSnapshot.CHRONOLOGICAL
+    private static final int NULL_DAY = Integer.MAX_VALUE;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final long NULL_LONG = Long.MIN_VALUE;
+
+    private final String[] dictionary;
+
+    private final long[] ids;
+    private final long[] versions;
+    private final int[] days;
+    private final int[] minutes;
+    private final int[] durations;
+    private final int[] courseYears;
+    private final int[] subjectCodes;
+    private final int[] subjectNames;
+    private final int[] acronyms;
+    private final int[] degrees;
+    private final int[] semesters;
+    private final int[] examPlaces;
+    private final int[] comments;
+
+    // Ids in ascending order and the row of each
+    private final long[] sortedIds;
+    private final int[] rowsBySortedId;
+
+    private ExamColumns(List<ExamDTO> sorted) {
+        int n = sorted.size();
+        ids = new long[n];
+        versions = new long[n];
+        days = new int[n];
+        minutes = new int[n];
+        durations = new int[n];
+        courseYears = new int[n];
+        subjectCodes = new int[n];
+        subjectNames = new int[n];
+        acronyms = new int[n];
+        degrees = new int[n];
+        semesters = new int[n];
+        examPlaces = new int[n];
+        comments = new int[n];
+
+        Map<String, Integer> codes = new HashMap<>();
+        List<String> values = new ArrayList<>();
+        for (int row = 0; row < n; row++) {
+            ExamDTO exam = sorted.get(row);
+            ids[row] = exam.getId() != null ? exam.getId() : NULL_LONG;
+            versions[row] = exam.getVersion() != null ? exam.getVersion() : NULL_LONG;
+            days[row] = exam.getExamDay() != null ? dayKey(exam.getExamDay()) : NULL_DAY;
+            minutes[row] = exam.getExamHour() != null ? exam.getExamHour().toSecondOfDay() / 60 : NULL_INT;
+            durations[row] = exam.getDurationMin() != null ? exam.getDurationMin() : NULL_INT;
+            courseYears[row] = exam.getCourseYear() != null ? exam.getCourseYear() : NULL_INT;
+            subjectCodes[row] = encode(exam.getSubjectCode(), codes, values);
+            subjectNames[row] = encode(exam.getSubjectName(), codes, values);
+            acronyms[row] = encode(exam.getAcronym(), codes, values);
+            degrees[row] = encode(exam.getDegree(), codes, values);
+            semesters[row] = encode(exam.getSemester(), codes, values);
+            examPlaces[row] = encode(exam.getExamPlace(), codes, values);
+            comments[row] = encode(exam.getComment(), codes, values);
+        }
+        dictionary = values.toArray(new String[0]);
+
+        Integer[] byId = new Integer[n];
+        for (int row = 0; row < n; row++) {
+            byId[row] = row;
+        }
+        Arrays.sort(byId, (a, b) -> Long.compare(ids[a], ids[b]));
+        sortedIds = new long[n];
+        rowsBySortedId = new int[n];
+        for (int i = 0; i < n; i++) {
+            rowsBySortedId[i] = byId[i];
+            sortedIds[i] = ids[byId[i]];
+        }
+    }
+
+    static ExamColumns of(Collection<ExamDTO> exams) {
+        List<ExamDTO> sorted = new ArrayList<>(exams);
+        sorted.sort(ExamSnapshot.CHRONOLOGICAL);
+        return new ExamColumns(sorted);
+    }
+
+    private static int encode(String value, Map<String, Integer> codes, List<String> values) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        return codes.computeIfAbsent(value, key -> {
+            values.add(key);
+            return values.size() - 1;
+        });
+    }
+
+    /**
+     * Day as an int, clamped so that open range bounds such as LocalDate.MAX still compare correctly
+     */
+    private static int dayKey(LocalDate day) {
+        return (int) Math.max(Integer.MIN_VALUE + 1L, Math.min(Integer.MAX_VALUE - 1L, day.toEpochDay()));
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    /**
+     * Number of distinct strings
+     */
+    int dictionarySize() {
+        return dictionary.length;
+    }
+
+    String string(int code) {
+        return code == NULL_CODE ? null : dictionary[code];
+    }
+
+    ExamDTO get(int row) {
+        return ExamDTO.builder()
+                .id(ids[row] != NULL_LONG ? ids[row] : null)
+                .version(versions[row] != NULL_LONG ? versions[row] : null)
+                .examDay(days[row] != NULL_DAY ? LocalDate.ofEpochDay(days[row]) : null)
+                .examHour(minutes[row] != NULL_INT ? LocalTime.ofSecondOfDay(minutes[row] * 60L) : null)
+                .durationMin(durations[row] != NULL_INT ? durations[row] : null)
+                .courseYear(courseYears[row] != NULL_INT ? courseYears[row] : null)
+                .subjectCode(string(subjectCodes[row]))
+                .subjectName(string(subjectNames[row]))
+                .acronym(string(acronyms[row]))
+                .degree(string(degrees[row]))
+                .semester(string(semesters[row]))
+                .examPlace(string(examPlaces[row]))
+                .comment(string(comments[row]))
+                .build();
+    }
+
+    Integer courseYear(int row) {
+        return courseYears[row] != NULL_INT ? courseYears[row] : null;
+    }
+
+    int subjectCode(int row) {
+        return subjectCodes[row];
+    }
+
+    int subjectName(int row) {
+        return subjectNames[row];
+    }
+
+    int acronym(int row) {
+        return acronyms[row];
+    }
+
+    int degree(int row) {
+        return degrees[row];
+    }
+
+    int semester(int row) {
+        return semesters[row];
+    }
+
+    int examPlace(int row) {
+        return examPlaces[row];
+    }
+
+    /**
+     * Row of the exam with the given id, or -1
+     */
+    int rowOf(Long id) {
+        if (id == null) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(sortedIds, id);
+        return index >= 0 ? rowsBySortedId[index] : -1;
+    }
+
+    /**
+     * First row whose day is not before the given day; days are sorted since rows are
+     */
+    int firstRowOnOrAfter(LocalDate day) {
+        return firstRowFrom(dayKey(day));
+    }
+
+    /**
+     * First row whose day is after the given day, before any row without a day
+     */
+    int firstRowAfter(LocalDate day) {
+        return firstRowFrom(dayKey(day) + 1);
+    }
+
+    private int firstRowFrom(int key) {
+        int low = 0;
+        int high = days.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (days[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Codes of the dictionary strings accepted by the predicate, for testing a
+     * string column with one bit lookup per row
+     */
+    BitSet codes(Predicate<String> predicate) {
+        BitSet result = new BitSet(dictionary.length);
+        for (int code = 0; code < dictionary.length; code++) {
+            if (predicate.test(dictionary[code])) {
+                result.set(code);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Rows accepted by the predicate, among the given rows, in the same order
+     */
+    static int[] select(int[] rows, IntPredicate predicate) {
+        int[] selected = new int[rows.length];
+        int count = 0;
+        for (int row : rows) {
+            if (predicate.test(row)) {
+                selected[count++] = row;
+            }
+        }
+        return count == rows.length ? rows : Arrays.copyOf(selected, count);
+    }
+
+    /**
+     * Rows from (inclusive) to (exclusive)
+     */
+    static int[] range(int from, int to) {
+        int[] rows = new int[Math.max(to - from, 0)];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = from + i;
+        }
+        return rows;
+    }
+
+    /**
+     * Same semantics as {@link ExamFilter#matches(ExamDTO)}, evaluated on the
+     * columns: string filters are resolved against the dictionary once, then
+     * every row costs a few int comparisons
+     */
+    IntPredicate matcher(ExamFilter filter) {
+        IntPredicate matcher = row -> true;
+        if (filter.getSchool() != null) {
+            String school = filter.getSchool();
+            BitSet accepted = codes(degree -> degree.regionMatches(true, 0, school, 0, school.length()));
+            matcher = matcher.and(row -> in(accepted, degrees[row]));
+        }
+        if (filter.getDegree() != null) {
+            BitSet accepted = codes(filter.getDegree()::equalsIgnoreCase);
+            matcher = matcher.and(row -> in(accepted, degrees[row]));
+        }
+        if (filter.getCourseYear() != null) {
+            int courseYear = filter.getCourseYear();
+            matcher = matcher.and(row -> courseYears[row] == courseYear);
+        }
+        if (filter.getSemester() != null) {
+            BitSet accepted = codes(filter.getSemester()::equals);
+            matcher = matcher.and(row -> in(accepted, semesters[row]));
+        }
+        if (filter.getSubjectCode() != null) {
+            BitSet accepted = codes(filter.getSubjectCode()::equalsIgnoreCase);
+            matcher = matcher.and(row -> in(accepted, subjectCodes[row]));
+        }
+        LocalDate firstDay = filter.firstDay();
+        if (firstDay != null) {
+            int start = dayKey(firstDay);
+            matcher = matcher.and(row -> days[row] != NULL_DAY && days[row] >= start);
+        }
+        LocalDate lastDay = filter.lastDay();
+        if (lastDay != null) {
+            int end = dayKey(lastDay);
+            matcher = matcher.and(row -> days[row] != NULL_DAY && days[row] <= end);
+        }
+        if (filter.getSubjectNameContains() != null) {
+            BitSet accepted = codes(containing(filter.getSubjectNameContains()));
+            matcher = matcher.and(row -> in(accepted, subjectNames[row]));
+        }
+        if (filter.getExamPlaceContains() != null) {
+            BitSet accepted = codes(containing(filter.getExamPlaceContains()));
+            matcher = matcher.and(row -> in(accepted, examPlaces[row]));
+        }
+        if (filter.getSubject() != null) {
+            BitSet accepted = codes(filter.getSubject()::equalsIgnoreCase);
+            matcher = matcher.and(row -> in(accepted, subjectNames[row])
+                    || in(accepted, acronyms[row]) || in(accepted, subjectCodes[row]));
+        }
+        return matcher;
+    }
+
+    static Predicate<String> containing(String part) {
+        String needle = part.toLowerCase(Locale.ROOT);
+        return value -> value.toLowerCase(Locale.ROOT).contains(needle);
+    }
+
+    private static boolean in(BitSet codes, int code) {
+        return code != NULL_CODE && codes.get(code);
+    }
+
+    /**
+     * The given rows as a read-only list, building each exam when it is read
+     */
+    List<ExamDTO> view(int[] rows) {
+        return new RowList(rows);
+    }
+
+    private final class RowList extends AbstractList<ExamDTO> implements RandomAccess {
+
+        private final int[] rows;
+
+        RowList(int[] rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public ExamDTO get(int index) {
+            return ExamColumns.this.get(rows[index]);
+        }
+
+        @Override
+        public int size() {
+            return rows.length;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamConflictDTO;
+import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.dtos.ExamFilter;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of overlapping exams within each cohort (degree, course year and
+ * semester), the students who sit every exam of that cohort.
+ * Each cohort keeps the rows of its exams in {@link ExamRows} in an
+ * {@link ExamTimeline}, so a write finds the exams it overlaps in
+ * O(log n + k) instead of a rescan of the cohort. The clashing pairs
+ * themselves are kept up to date, so listing them is a walk over the pairs.
+ * Exams of the same subject are not reported against each other, since that
+ * is one exam split across rooms or groups.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExamConflictIndex implements ExamRows.Index {
+
+    private final ExamRows rows;
+
+    private final Map<Integer, Slot> slots = new HashMap<>();
+    private final Map<Cohort, ExamTimeline> timelines = new HashMap<>();
+    private final Map<Integer, Set<Integer>> clashes = new HashMap<>();
+
+    @PostConstruct
+    void init() {
+        rows.register(this);
+    }
+
+    /**
+     * Every clashing pair with at least one exam matching the filter, in chronological order
+     */
+    public List<ExamConflictDTO> findConflicts(ExamFilter filter) {
+        List<ExamConflictDTO> result = rows.read(() -> {
+            List<ExamConflictDTO> conflicts = new ArrayList<>();
+            for (Map.Entry<Integer, Set<Integer>> entry : clashes.entrySet()) {
+                Slot slot = slots.get(entry.getKey());
+                ExamDTO exam = rows.get(slot.row);
+                for (Integer otherRow : entry.getValue()) {
+                    Slot other = slots.get(otherRow);
+                    // Each pair is stored both ways; report it once
+                    if (slot.isBefore(other)) {
+                        ExamDTO otherExam = rows.get(other.row);
+                        if (filter.matches(exam) || filter.matches(otherExam)) {
+                            conflicts.add(new ExamConflictDTO(exam, otherExam, slot.overlap(other)));
+                        }
+                    }
+                }
+            }
+            return conflicts;
+        });
+        result.sort(Comparator.comparing(ExamConflictDTO::getFirst, ExamSnapshot.CHRONOLOGICAL)
+                .thenComparing(ExamConflictDTO::getSecond, ExamSnapshot.CHRONOLOGICAL));
+        return result;
+    }
+
+    /**
+     * Exams currently clashing with the given one, in chronological order
+     */
+    public List<ExamDTO> findConflictsOf(Long examId) {
+        List<ExamDTO> result = rows.read(() -> {
+            List<ExamDTO> exams = new ArrayList<>();
+            Slot slot = slots.get(rows.rowOf(examId));
+            if (slot != null) {
+                for (Integer otherRow : clashes.getOrDefault(slot.row, Collections.emptySet())) {
+                    exams.add(rows.get(otherRow));
+                }
+            }
+            return exams;
+        });
+        result.sort(ExamSnapshot.CHRONOLOGICAL);
+        return result;
+    }
+
+    @Override
+    public void rebuild(ExamRows rows) {
+        slots.clear();
+        timelines.clear();
+        clashes.clear();
+        rows.forEach(row -> added(row, rows.get(row)));
+        log.info("Exam conflict index built with {} exams in {} cohorts, {} clashing exams",
+                slots.size(), timelines.size(), clashes.size());
+    }
+
+    @Override
+    public void added(int row, ExamDTO exam) {
+        Slot slot = Slot.of(row, exam);
+        if (slot == null) {
+            return;
+        }
+        ExamTimeline timeline = timelines.computeIfAbsent(slot.cohort, cohort -> new ExamTimeline());
+        for (Long otherRow : timeline.overlapping(slot.start, slot.end)) {
+            Slot other = slots.get(otherRow.intValue());
+            if (slot.clashesWith(other)) {
+                clashes.computeIfAbsent(slot.row, r -> new HashSet<>()).add(other.row);
+                clashes.computeIfAbsent(other.row, r -> new HashSet<>()).add(slot.row);
+            }
+        }
+        timeline.add((long) row, slot.start, slot.end);
+        slots.put(row, slot);
+    }
+
+    @Override
+    public void removed(int row, ExamDTO exam) {
+        Slot slot = slots.remove(row);
+        if (slot == null) {
+            return;
+        }
+        ExamTimeline timeline = timelines.get(slot.cohort);
+        timeline.remove((long) row, slot.start);
+        if (timeline.isEmpty()) {
+            timelines.remove(slot.cohort);
+        }
+        Set<Integer> others = clashes.remove(row);
+        if (others != null) {
+            for (Integer otherRow : others) {
+                Set<Integer> back = clashes.get(otherRow);
+                back.remove(row);
+                if (back.isEmpty()) {
+                    clashes.remove(otherRow);
+                }
+            }
+        }
+    }
+
+    /**
+     * Students sitting the same exams: degree (case insensitive), course year and semester
+     */
+    @Value
+    private static class Cohort {
+        String degree;
+        Integer courseYear;
+        String semester;
+    }
+
+    /**
+     * Time slot of the exam in one row as [start, end) minutes since the epoch
+     */
+    private static final class Slot {
+
+        private final int row;
+        private final long id;
+        private final String subjectCode;
+        private final Cohort cohort;
+        private final long start;
+        private final long end;
+
+        private Slot(int row, ExamDTO exam, Cohort cohort, long start, long end) {
+            this.row = row;
+            this.id = exam.getId();
+            this.subjectCode = exam.getSubjectCode();
+            this.cohort = cohort;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Slot of the exam, or null when it lacks the fields needed to place it
+         */
+        static Slot of(int row, ExamDTO exam) {
+            if (exam.getId() == null || exam.getDegree() == null || exam.getExamDay() == null
+                    || exam.getExamHour() == null || exam.getDurationMin() == null) {
+                return null;
+            }
+            Cohort cohort = new Cohort(exam.getDegree().toLowerCase(Locale.ROOT),
+                    exam.getCourseYear(), exam.getSemester());
+            long start = ExamTimeline.minuteOf(exam.getExamDay(), exam.getExamHour());
+            return new Slot(row, exam, cohort, start, start + Math.max(exam.getDurationMin(), 1));
+        }
+
+        boolean clashesWith(Slot other) {
+            return row != other.row && (subjectCode == null || !subjectCode.equalsIgnoreCase(other.subjectCode));
+        }
+
+        long overlap(Slot other) {
+            return Math.min(end, other.end) - Math.max(start, other.start);
+        }
+
+        boolean isBefore(Slot other) {
+            return start < other.start || (start == other.start && id < other.id);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.upv.examcalendar.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 reader for spreadsheet exports.
+ * Supports quoted fields with embedded delimiters, quotes and line breaks, a
+ * leading byte order mark, and detects whether the header uses commas or
+ * semicolons (the default of spreadsheets in Spanish locales).
+ */
+final class ExamCsvReader {
+
+    private static final int BOM = '\uFEFF';
+    private static final int MAX_HEADER_CHARS = 64 * 1024;
+
+    private final BufferedReader in;
+    private final char delimiter;
+    private int line = 1;
+    private int recordLine;
+
+    ExamCsvReader(BufferedReader in) throws IOException {
+        this.in = in;
+        in.mark(MAX_HEADER_CHARS);
+        if (in.read() != BOM) {
+            in.reset();
+        }
+        // After the byte order mark, so reading the header again skips it
+        in.mark(MAX_HEADER_CHARS);
+        this.delimiter = detectDelimiter(in.readLine());
+        in.reset();
+    }
+
+    /**
+     * Fields of the next record, or null at the end of the input.
+     * Blank lines are skipped.
+     */
+    List<String> next() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean empty = true;
+        recordLine = line;
+
+        int c;
+        while ((c = in.read()) != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    in.mark(1);
+                    if (in.read() == '"') {
+                        field.append('"');
+                    } else {
+                        in.reset();
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+                empty = false;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+                empty = false;
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    in.mark(1);
+                    if (in.read() != '\n') {
+                        in.reset();
+                    }
+                }
+                line++;
+                if (!empty || field.length() > 0) {
+                    fields.add(field.toString());
+                    return fields;
+                }
+                recordLine = line;
+            } else {
+                field.append((char) c);
+                empty = false;
+            }
+        }
+        if (!empty || field.length() > 0) {
+            fields.add(field.toString());
+            return fields;
+        }
+        return null;
+    }
+
+    /**
+     * Line on which the record last returned by next() started
+     */
+    int getRecordLine() {
+        return recordLine;
+    }
+
+    private static char detectDelimiter(String header) {
+        if (header == null) {
+            return ',';
+        }
+        int commas = 0;
+        int semicolons = 0;
+        boolean quoted = false;
+        for (char c : header.toCharArray()) {
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && c == ',') {
+                commas++;
+            } else if (!quoted && c == ';') {
+                semicolons++;
+            }
+        }
+        return semicolons > commas ? ';' : ',';
+    }
+}
@@ -0,0 +1,89 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.config.ReplicaLagGuard;
+import com.upv.examcalendar.events.ExamChangeEvent;
+import com.upv.examcalendar.repositories.EtsinfExamRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Version of the exam dataset: the highest row or tombstone version committed in
+ * the database, as in delta sync. Writes take versions in commit order, so data
+ * read after seeing version V includes every write up to V, whichever instance
+ * made it, and every instance derives the same version from the same data, also
+ * across restarts. Refreshed after every local write, once the read structures
+ * have applied it. A poll every exam.dataset-version.refresh-ms catches the writes
+ * of other instances and publishes a bulk change for them, so the read structures
+ * rebuild before the version moves. With read replicas, they serve reads only once
+ * they have replayed the writes of the version (see {@link ReplicaLagGuard}).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExamDatasetVersion {
+
+    private final EtsinfExamRepository examRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectProvider<ReplicaLagGuard> replicaLagGuard;
+
+    private volatile long version;
+
+    @PostConstruct
+    void init() {
+        refresh();
+    }
+
+    /**
+     * Current version. Read it before reading the data it describes.
+     */
+    public long current() {
+        return version;
+    }
+
+    /**
+     * Read the committed version from the database, returning it.
+     * Serialized, so an older reading never replaces a newer one.
+     */
+    public synchronized long refresh() {
+        long committed = examRepository.findDeltaBounds().getCurrentVersion();
+        // Before the version is published, or a lagging replica could be read under it
+        ReplicaLagGuard lagGuard = replicaLagGuard.getIfAvailable();
+        if (lagGuard != null) {
+            lagGuard.catchUpWithPrimary();
+        }
+        version = committed;
+        return committed;
+    }
+
+    @Scheduled(fixedDelayString = "${exam.dataset-version.refresh-ms:1000}",
+            initialDelayString = "${exam.dataset-version.refresh-ms:1000}")
+    void poll() {
+        long committed;
+        try {
+            committed = examRepository.findDeltaBounds().getCurrentVersion();
+        } catch (DataAccessException e) {
+            log.warn("Could not read the exam dataset version, keeping {}: {}", version, e.getMessage());
+            return;
+        }
+        if (committed != version) {
+            // Written by another instance; the listeners end with onExamChange
+            log.info("Exam dataset changed outside this instance: version {} -> {}", version, committed);
+            eventPublisher.publishEvent(ExamChangeEvent.bulk());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(ExamChangeEvent.VERSION_ORDER)
+    public void onExamChange(ExamChangeEvent event) {
+        refresh();
+    }
+}
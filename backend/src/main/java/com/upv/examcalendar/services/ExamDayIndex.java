@@ -0,0 +1,139 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.CalendarDayDTO;
+import com.upv.examcalendar.dtos.CalendarMonthDTO;
+import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.dtos.ExamFilter;
+import com.upv.examcalendar.dtos.ExamSummaryDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exams bucketed by day for the month view.
+ * With the read model enabled, the grid is one date range of the snapshot,
+ * whose exams are in chronological order already. Otherwise each day keeps
+ * the rows of its exams in {@link ExamRows} in chronological order, so a
+ * month grid is at most 42 bucket lookups whatever the size of the dataset.
+ * The buckets are patched with the rows on every committed write.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExamDayIndex implements ExamRows.Index {
+
+    private final ExamRows rows;
+    private final ExamReadModel readModel;
+
+    // Day -> rows of its exams, ordered by (hour, id)
+    private final Map<LocalDate, List<Integer>> days = new HashMap<>();
+
+    @PostConstruct
+    void init() {
+        if (!readModel.isEnabled()) {
+            rows.register(this);
+        }
+    }
+
+    /**
+     * Grid of the month with the exams matching the filter on every day,
+     * including the days of the adjacent months that complete the first and
+     * last week
+     */
+    public CalendarMonthDTO getMonth(YearMonth month, ExamFilter filter) {
+        LocalDate gridStart = month.atDay(1).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate gridEnd = month.atEndOfMonth().with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
+        boolean filtered = filter != null && filter.hasCriteria();
+
+        Map<LocalDate, List<ExamSummaryDTO>> summaries = readModel.isEnabled()
+                ? snapshotDays(gridStart, gridEnd, filtered ? filter : null)
+                : rows.read(() -> indexedDays(gridStart, gridEnd, filtered ? filter : null));
+        List<CalendarDayDTO> cells = new ArrayList<>();
+        for (LocalDate day = gridStart; !day.isAfter(gridEnd); day = day.plusDays(1)) {
+            List<ExamSummaryDTO> exams = summaries.getOrDefault(day, Collections.emptyList());
+            cells.add(new CalendarDayDTO(day, YearMonth.from(day).equals(month), exams.size(), exams));
+        }
+        int examCount = 0;
+        for (CalendarDayDTO cell : cells) {
+            if (cell.isInMonth()) {
+                examCount += cell.getExamCount();
+            }
+        }
+        return new CalendarMonthDTO(month.getYear(), month.getMonthValue(), gridStart, gridEnd, examCount, cells);
+    }
+
+    /**
+     * Summaries per day of the exams in the range from the read model, in chronological order
+     */
+    private Map<LocalDate, List<ExamSummaryDTO>> snapshotDays(LocalDate start, LocalDate end, ExamFilter filter) {
+        Map<LocalDate, List<ExamSummaryDTO>> summaries = new HashMap<>();
+        for (ExamDTO exam : readModel.current().findByDateRange(start, end)) {
+            if (filter == null || filter.matches(exam)) {
+                summaries.computeIfAbsent(exam.getExamDay(), day -> new ArrayList<>()).add(ExamSummaryDTO.of(exam));
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * Summaries per day of the exams in the range from the buckets, in chronological order
+     */
+    private Map<LocalDate, List<ExamSummaryDTO>> indexedDays(LocalDate start, LocalDate end, ExamFilter filter) {
+        Map<LocalDate, List<ExamSummaryDTO>> summaries = new HashMap<>();
+        for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+            for (int row : days.getOrDefault(day, Collections.emptyList())) {
+                ExamDTO exam = rows.get(row);
+                if (filter == null || filter.matches(exam)) {
+                    summaries.computeIfAbsent(day, key -> new ArrayList<>()).add(ExamSummaryDTO.of(exam));
+                }
+            }
+        }
+        return summaries;
+    }
+
+    @Override
+    public void rebuild(ExamRows rows) {
+        days.clear();
+        rows.forEach(row -> added(row, rows.get(row)));
+        log.info("Exam day index built with {} exams on {} days", rows.size(), days.size());
+    }
+
+    @Override
+    public void added(int row, ExamDTO exam) {
+        if (exam.getExamDay() == null) {
+            return;
+        }
+        List<Integer> bucket = days.computeIfAbsent(exam.getExamDay(), day -> new ArrayList<>());
+        // Buckets hold a handful of exams, so a linear search for the position is enough
+        int position = 0;
+        while (position < bucket.size()
+                && ExamSnapshot.CHRONOLOGICAL.compare(rows.get(bucket.get(position)), exam) < 0) {
+            position++;
+        }
+        bucket.add(position, row);
+    }
+
+    @Override
+    public void removed(int row, ExamDTO exam) {
+        LocalDate day = exam.getExamDay();
+        List<Integer> bucket = day != null ? days.get(day) : null;
+        if (bucket == null) {
+            return;
+        }
+        bucket.remove(Integer.valueOf(row));
+        if (bucket.isEmpty()) {
+            days.remove(day);
+        }
+    }
+}
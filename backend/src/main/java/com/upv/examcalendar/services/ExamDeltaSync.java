@@ -0,0 +1,83 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamDeltaDTO;
+import com.upv.examcalendar.mappers.ExamMapper;
+import com.upv.examcalendar.models.EtsinfExam;
+import com.upv.examcalendar.repositories.EtsinfExamRepository;
+import com.upv.examcalendar.repositories.EtsinfExamRepositoryCustom.DeltaBounds;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * "Changes since version N" for clients that keep a copy of the exams.
+ * Row versions and deletion tombstones come from the same database sequence
+ * (see schema.sql), so a delta is the rows and tombstones above N. Clients
+ * are told to resync, and sent every exam, when they are new (N = 0), behind
+ * compacted tombstones, ahead of the database, or too far behind for a delta
+ * to be worth it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExamDeltaSync {
+
+    private final EtsinfExamRepository examRepository;
+    private final ExamMapper examMapper;
+
+    @Value("${exam.delta.max-changes:2000}")
+    private int maxChanges;
+
+    @Value("${exam.delta.tombstone-retention-days:30}")
+    private int tombstoneRetentionDays;
+
+    /**
+     * Delta from the given version, read from one snapshot so the bounds,
+     * rows and tombstones agree
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public ExamDeltaDTO getDelta(long since) {
+        DeltaBounds bounds = examRepository.findDeltaBounds();
+        long version = bounds.getCurrentVersion();
+        if (since <= 0 || since < bounds.getCompactedVersion() || since > version) {
+            return resync(version);
+        }
+        if (since == version) {
+            return new ExamDeltaDTO(version, false, Collections.emptyList(), Collections.emptyList());
+        }
+
+        List<EtsinfExam> changed = examRepository.findChangedSince(since, maxChanges + 1);
+        List<Long> deleted = examRepository.findDeletedSince(since, maxChanges + 1);
+        if (changed.size() + deleted.size() > maxChanges) {
+            return resync(version);
+        }
+        return new ExamDeltaDTO(version, false, examMapper.toDtoList(changed), deleted);
+    }
+
+    /**
+     * Drop old tombstones; clients last synced before them get a resync
+     */
+    @Scheduled(cron = "${exam.delta.compaction-cron:0 30 4 * * *}")
+    @Transactional
+    public void compactTombstones() {
+        Instant deletedBefore = Instant.now().minus(Duration.ofDays(tombstoneRetentionDays));
+        int purged = examRepository.compactTombstones(deletedBefore);
+        if (purged > 0) {
+            log.info("Compacted {} exam tombstones deleted before {}", purged, deletedBefore);
+        }
+    }
+
+    private ExamDeltaDTO resync(long version) {
+        List<EtsinfExam> exams = examRepository.findChangedSince(0, Integer.MAX_VALUE);
+        return new ExamDeltaDTO(version, true, examMapper.toDtoList(exams), Collections.emptyList());
+    }
+}
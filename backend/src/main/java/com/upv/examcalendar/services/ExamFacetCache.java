@@ -0,0 +1,177 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.events.ExamChangeEvent;
+import com.upv.examcalendar.repositories.EtsinfExamRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Server-side cache of the filter facets.
+ * All facets are filled from a single grouped scan of etsinf_exams and kept
+ * until a committed write adds or removes a distinct facet value. Per-school
+ * degree lookups are memoized in a size-bounded LRU map.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExamFacetCache {
+
+    private final EtsinfExamRepository examRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${exam.facet-cache.max-prefix-entries:256}")
+    private int maxPrefixEntries;
+
+    private volatile ExamFacets facets;
+
+    // Bumped on every invalidation so a scan that raced with a write is not stored
+    private final AtomicLong generation = new AtomicLong();
+    private final Object loadLock = new Object();
+
+    private Map<String, List<String>> degreesByPrefix;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        degreesByPrefix = new LinkedHashMap<String, List<String>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<String>> eldest) {
+                if (size() > maxPrefixEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        FunctionCounter.builder("exam.facet.cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("exam.facet.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("exam.facet.cache.invalidations", invalidations, LongAdder::sum)
+                .register(meterRegistry);
+        FunctionCounter.builder("exam.facet.cache.evictions", evictions, LongAdder::sum)
+                .register(meterRegistry);
+        Gauge.builder("exam.facet.cache.prefix.size", this, cache -> cache.prefixEntries())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Current facets, scanning the table on a miss
+     */
+    public ExamFacets facets() {
+        ExamFacets current = facets;
+        if (current != null) {
+            hits.increment();
+            return current;
+        }
+        synchronized (loadLock) {
+            current = facets;
+            if (current != null) {
+                hits.increment();
+                return current;
+            }
+            misses.increment();
+            long startGeneration = generation.get();
+            ExamFacets loaded = ExamFacets.of(ExamFacets.countsFromRows(examRepository.findFacetTuples()));
+            synchronized (this) {
+                if (generation.get() == startGeneration) {
+                    facets = loaded;
+                }
+            }
+            return loaded;
+        }
+    }
+
+    /**
+     * Degrees whose name starts with the given school prefix
+     */
+    public List<String> degreesStartingWith(String prefix) {
+        ExamFacets current = facets();
+        synchronized (this) {
+            List<String> cached = degreesByPrefix.get(prefix);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        List<String> degrees = current.getDegreesStartingWith(prefix);
+        synchronized (this) {
+            // Only memoize results computed from facets that are still current
+            if (facets == current) {
+                degreesByPrefix.put(prefix, degrees);
+            }
+        }
+        return degrees;
+    }
+
+    /**
+     * Hit, miss, invalidation and eviction counters
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("prefixEntries", (long) prefixEntries());
+        return stats;
+    }
+
+    /**
+     * Drop everything; the next read rescans the table
+     */
+    public synchronized void invalidate() {
+        generation.incrementAndGet();
+        facets = null;
+        degreesByPrefix.clear();
+        invalidations.increment();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(ExamChangeEvent.READ_MODEL_ORDER)
+    public void onExamChange(ExamChangeEvent event) {
+        synchronized (this) {
+            ExamFacets current = facets;
+            if (event.isBulk()) {
+                invalidate();
+                return;
+            }
+            if (current == null) {
+                // Nothing cached, but a scan may be in flight
+                generation.incrementAndGet();
+                return;
+            }
+            Optional<ExamFacets> patched = current.patched(event.getBefore(), event.getAfter());
+            if (patched.isPresent()) {
+                // Same distinct values, only the row counts moved
+                facets = patched.get();
+                return;
+            }
+            log.debug("Exam {} changed a facet value, invalidating facet cache", event.getExamId());
+            invalidate();
+        }
+    }
+
+    private synchronized int prefixEntries() {
+        return degreesByPrefix.size();
+    }
+}
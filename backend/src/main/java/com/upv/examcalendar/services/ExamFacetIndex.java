@@ -0,0 +1,548 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.dtos.ExamFilter;
+import com.upv.examcalendar.dtos.FacetCountsDTO;
+import com.upv.examcalendar.dtos.SubjectDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Index of the exams by filter facet.
+ * Every facet value (degree, school, course year, semester, subject, day)
+ * keeps the set of the rows of its exams in {@link ExamRows}, as a sorted
+ * array while it is sparse and as a bitmap once that is smaller (see
+ * {@link RowSet}), so a facet costs about four bytes per exam however many
+ * values it has. A filter is the AND of one row set per facet, where a facet
+ * with several matching values (a school prefix, a date window, a subject
+ * matched by name, acronym or code) is their OR. Facet counts are the rows of
+ * each value that also match the other facets' filters, so every option can
+ * show how many exams choosing it would give. The row sets are patched with
+ * the rows on every committed write.
+ * Enabled with exam.facet-index.enabled; otherwise the counts come from
+ * the database grouped by facet values (see {@link #countGroups}).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExamFacetIndex implements ExamRows.Index {
+
+    /**
+     * Filter facets that are counted separately; the other criteria always apply
+     */
+    private enum Dimension { SCHOOL, DEGREE, COURSE_YEAR, SEMESTER, SUBJECT, OTHER }
+
+    private static final Comparator<String> NULLS_LAST = Comparator.nullsLast(Comparator.naturalOrder());
+
+    private final ExamRows rows;
+
+    @Value("${exam.facet-index.enabled:false}")
+    private boolean enabled;
+
+    private final BitSet live = new BitSet();
+
+    private final Facet<String> schools = new Facet<>();
+    private final Facet<String> degrees = new Facet<>();
+    private final Facet<Integer> courseYears = new Facet<>();
+    private final Facet<String> semesters = new Facet<>();
+    private final Facet<String> subjectNames = new Facet<>();
+    private final Facet<String> acronyms = new Facet<>();
+    private final Facet<String> subjectCodes = new Facet<>();
+    private final Facet<LocalDate> days = new Facet<>();
+
+    @PostConstruct
+    void init() {
+        if (enabled) {
+            rows.register(this);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Exams matching the filter and, per facet, the exams each option would match
+     */
+    public FacetCountsDTO countFacets(ExamFilter filter) {
+        return rows.read(() -> {
+            Map<Dimension, BitSet> constraints = constraints(filter);
+            return new FacetCountsDTO(
+                    matching(constraints, null).cardinality(),
+                    counts(schools, matching(constraints, Dimension.SCHOOL)),
+                    counts(degrees, matching(constraints, Dimension.DEGREE)),
+                    counts(courseYears, matching(constraints, Dimension.COURSE_YEAR)),
+                    counts(semesters, matching(constraints, Dimension.SEMESTER)),
+                    counts(subjectNames, matching(constraints, Dimension.SUBJECT)));
+        });
+    }
+
+    /**
+     * Distinct subjects (name, and acronym or else code) of the exams matching the filter, ordered by name
+     */
+    public List<SubjectDTO> findSubjects(ExamFilter filter) {
+        Set<SubjectDTO> subjects = rows.read(() -> {
+            Set<SubjectDTO> distinct = new LinkedHashSet<>();
+            BitSet matching = matching(constraints(filter), null);
+            for (int row = matching.nextSetBit(0); row >= 0; row = matching.nextSetBit(row + 1)) {
+                ExamDTO exam = rows.get(row);
+                distinct.add(new SubjectDTO(exam.getSubjectName(),
+                        exam.getAcronym() != null ? exam.getAcronym() : exam.getSubjectCode()));
+            }
+            return distinct;
+        });
+        List<SubjectDTO> result = new ArrayList<>(subjects);
+        result.sort(Comparator.comparing(SubjectDTO::getName, NULLS_LAST)
+                .thenComparing(SubjectDTO::getAcronym, NULLS_LAST));
+        return result;
+    }
+
+    /**
+     * Criteria of the filter that are not counted per facet, for the database
+     * to narrow the rows given to {@link #countGroups}
+     */
+    public static ExamFilter otherCriteria(ExamFilter filter) {
+        return ExamFilter.builder()
+                .subjectCode(filter.getSubjectCode())
+                .startDate(filter.getStartDate())
+                .endDate(filter.getEndDate())
+                .academicYear(filter.getAcademicYear())
+                .subjectNameContains(filter.getSubjectNameContains())
+                .examPlaceContains(filter.getExamPlaceContains())
+                .build();
+    }
+
+    /**
+     * Facet counts, as {@link #countFacets}, from the exams matching the
+     * {@link #otherCriteria} grouped by (degree, semester, course year, subject
+     * name, acronym, subject code) with their count in the last column
+     */
+    public static FacetCountsDTO countGroups(ExamFilter filter, List<Object[]> groups) {
+        Map<Dimension, Predicate<Object[]>> constraints = new EnumMap<>(Dimension.class);
+        if (filter.getSchool() != null) {
+            String prefix = lower(filter.getSchool());
+            constraints.put(Dimension.SCHOOL, group -> group[0] != null && lower((String) group[0]).startsWith(prefix));
+        }
+        if (filter.getDegree() != null) {
+            constraints.put(Dimension.DEGREE, group -> filter.getDegree().equalsIgnoreCase((String) group[0]));
+        }
+        if (filter.getCourseYear() != null) {
+            constraints.put(Dimension.COURSE_YEAR, group -> filter.getCourseYear().equals(group[2]));
+        }
+        if (filter.getSemester() != null) {
+            constraints.put(Dimension.SEMESTER, group -> filter.getSemester().equals(group[1]));
+        }
+        if (filter.getSubject() != null) {
+            String subject = filter.getSubject();
+            constraints.put(Dimension.SUBJECT, group -> subject.equalsIgnoreCase((String) group[3])
+                    || subject.equalsIgnoreCase((String) group[4]) || subject.equalsIgnoreCase((String) group[5]));
+        }
+
+        int total = 0;
+        Tally<String> schoolCounts = new Tally<>();
+        Tally<String> degreeCounts = new Tally<>();
+        Tally<Integer> courseYearCounts = new Tally<>();
+        Tally<String> semesterCounts = new Tally<>();
+        Tally<String> subjectCounts = new Tally<>();
+        for (Object[] group : groups) {
+            int count = ((Number) group[6]).intValue();
+            String degree = (String) group[0];
+            Integer courseYear = (Integer) group[2];
+            String semester = (String) group[1];
+            String subjectName = (String) group[3];
+            if (matches(constraints, group, null)) {
+                total += count;
+            }
+            if (matches(constraints, group, Dimension.SCHOOL) && degree != null) {
+                String school = ExamSnapshot.schoolOf(degree);
+                schoolCounts.add(lower(school), school, count);
+            }
+            if (matches(constraints, group, Dimension.DEGREE)) {
+                degreeCounts.add(lowerOrNull(degree), degree, count);
+            }
+            if (matches(constraints, group, Dimension.COURSE_YEAR)) {
+                courseYearCounts.add(courseYear, String.valueOf(courseYear), count);
+            }
+            if (matches(constraints, group, Dimension.SEMESTER)) {
+                semesterCounts.add(semester, semester, count);
+            }
+            if (matches(constraints, group, Dimension.SUBJECT)) {
+                subjectCounts.add(lowerOrNull(subjectName), subjectName, count);
+            }
+        }
+        return new FacetCountsDTO(total, schoolCounts.counts(), degreeCounts.counts(),
+                courseYearCounts.counts(), semesterCounts.counts(), subjectCounts.counts());
+    }
+
+    private static boolean matches(Map<Dimension, Predicate<Object[]>> constraints,
+            Object[] group, Dimension excluded) {
+        for (Map.Entry<Dimension, Predicate<Object[]>> constraint : constraints.entrySet()) {
+            if (constraint.getKey() != excluded && !constraint.getValue().test(group)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * One bitmap per filtered dimension; missing dimensions are unconstrained
+     */
+    private Map<Dimension, BitSet> constraints(ExamFilter filter) {
+        Map<Dimension, BitSet> constraints = new EnumMap<>(Dimension.class);
+        if (filter.getSchool() != null) {
+            // Same semantics as the "degree starts with" filter
+            String prefix = lower(filter.getSchool());
+            constraints.put(Dimension.SCHOOL,
+                    union(degrees.rows.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()));
+        }
+        if (filter.getDegree() != null) {
+            constraints.put(Dimension.DEGREE, degrees.get(lower(filter.getDegree())).toBitSet());
+        }
+        if (filter.getCourseYear() != null) {
+            constraints.put(Dimension.COURSE_YEAR, courseYears.get(filter.getCourseYear()).toBitSet());
+        }
+        if (filter.getSemester() != null) {
+            constraints.put(Dimension.SEMESTER, semesters.get(filter.getSemester()).toBitSet());
+        }
+        if (filter.getSubject() != null) {
+            String subject = lower(filter.getSubject());
+            constraints.put(Dimension.SUBJECT, union(List.of(
+                    subjectNames.get(subject), acronyms.get(subject), subjectCodes.get(subject))));
+        }
+
+        BitSet other = null;
+        if (filter.getSubjectCode() != null) {
+            other = and(other, subjectCodes.get(lower(filter.getSubjectCode())).toBitSet());
+        }
+        if (filter.firstDay() != null || filter.lastDay() != null) {
+            LocalDate start = filter.firstDay() != null ? filter.firstDay() : LocalDate.MIN;
+            LocalDate end = filter.lastDay() != null ? filter.lastDay() : LocalDate.MAX;
+            other = and(other, start.isAfter(end)
+                    ? new BitSet()
+                    : union(days.rows.subMap(start, true, end, true).values()));
+        }
+        if (filter.getSubjectNameContains() != null || filter.getExamPlaceContains() != null) {
+            // Substrings are not indexed: test the remaining rows one by one
+            ExamFilter contains = ExamFilter.builder()
+                    .subjectNameContains(filter.getSubjectNameContains())
+                    .examPlaceContains(filter.getExamPlaceContains())
+                    .build();
+            BitSet candidates = other != null ? other : live;
+            BitSet matching = new BitSet();
+            for (int row = candidates.nextSetBit(0); row >= 0; row = candidates.nextSetBit(row + 1)) {
+                if (contains.matches(rows.get(row))) {
+                    matching.set(row);
+                }
+            }
+            other = matching;
+        }
+        if (other != null) {
+            constraints.put(Dimension.OTHER, other);
+        }
+        return constraints;
+    }
+
+    /**
+     * Rows satisfying every constraint but the excluded one (null to apply all)
+     */
+    private BitSet matching(Map<Dimension, BitSet> constraints, Dimension excluded) {
+        BitSet result = (BitSet) live.clone();
+        constraints.forEach((dimension, rowSet) -> {
+            if (dimension != excluded) {
+                result.and(rowSet);
+            }
+        });
+        return result;
+    }
+
+    private static <K> Map<String, Integer> counts(Facet<K> facet, BitSet matching) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        if (matching.isEmpty()) {
+            return counts;
+        }
+        long[] matchingWords = matching.toLongArray();
+        for (Map.Entry<K, RowSet> value : facet.rows.entrySet()) {
+            int count = value.getValue().countIn(matchingWords);
+            if (count > 0) {
+                counts.merge(facet.labels.get(value.getKey()), count, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    private static BitSet union(Collection<RowSet> rowSets) {
+        BitSet result = new BitSet();
+        rowSets.forEach(rowSet -> rowSet.orInto(result));
+        return result;
+    }
+
+    private static BitSet and(BitSet current, BitSet rowSet) {
+        if (current == null) {
+            return rowSet;
+        }
+        BitSet result = (BitSet) current.clone();
+        result.and(rowSet);
+        return result;
+    }
+
+    @Override
+    public void rebuild(ExamRows rows) {
+        live.clear();
+        for (Facet<?> facet : List.of(schools, degrees, courseYears, semesters, subjectNames, acronyms,
+                subjectCodes, days)) {
+            facet.rows.clear();
+            facet.labels.clear();
+        }
+        rows.forEach(row -> added(row, rows.get(row)));
+        log.info("Exam facet index built with {} exams, {} degrees and {} subjects",
+                live.cardinality(), degrees.rows.size(), subjectNames.rows.size());
+    }
+
+    @Override
+    public void added(int row, ExamDTO exam) {
+        live.set(row);
+        String school = exam.getDegree() != null ? ExamSnapshot.schoolOf(exam.getDegree()) : null;
+        schools.add(lowerOrNull(school), school, row);
+        degrees.add(lowerOrNull(exam.getDegree()), exam.getDegree(), row);
+        courseYears.add(exam.getCourseYear(), String.valueOf(exam.getCourseYear()), row);
+        semesters.add(exam.getSemester(), exam.getSemester(), row);
+        subjectNames.add(lowerOrNull(exam.getSubjectName()), exam.getSubjectName(), row);
+        acronyms.add(lowerOrNull(exam.getAcronym()), exam.getAcronym(), row);
+        subjectCodes.add(lowerOrNull(exam.getSubjectCode()), exam.getSubjectCode(), row);
+        days.add(exam.getExamDay(), String.valueOf(exam.getExamDay()), row);
+    }
+
+    @Override
+    public void removed(int row, ExamDTO exam) {
+        live.clear(row);
+        schools.remove(exam.getDegree() != null ? lower(ExamSnapshot.schoolOf(exam.getDegree())) : null, row);
+        degrees.remove(lowerOrNull(exam.getDegree()), row);
+        courseYears.remove(exam.getCourseYear(), row);
+        semesters.remove(exam.getSemester(), row);
+        subjectNames.remove(lowerOrNull(exam.getSubjectName()), row);
+        acronyms.remove(lowerOrNull(exam.getAcronym()), row);
+        subjectCodes.remove(lowerOrNull(exam.getSubjectCode()), row);
+        days.remove(exam.getExamDay(), row);
+    }
+
+    private static String lower(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static String lowerOrNull(String value) {
+        return value != null ? lower(value) : null;
+    }
+
+    /**
+     * Exams per value of one facet, counted under the spelling first seen for each value
+     */
+    private static final class Tally<K> {
+
+        private final NavigableMap<K, Integer> counts = new TreeMap<>();
+        private final Map<K, String> labels = new HashMap<>();
+
+        void add(K key, String label, int count) {
+            if (key == null) {
+                return;
+            }
+            counts.merge(key, count, Integer::sum);
+            labels.putIfAbsent(key, label);
+        }
+
+        Map<String, Integer> counts() {
+            Map<String, Integer> result = new LinkedHashMap<>();
+            counts.forEach((key, count) -> result.merge(labels.get(key), count, Integer::sum));
+            return result;
+        }
+    }
+
+    /**
+     * Rows of each value of one facet, with the spelling first seen for each value
+     */
+    private static final class Facet<K> {
+
+        private final NavigableMap<K, RowSet> rows = new TreeMap<>();
+        private final Map<K, String> labels = new HashMap<>();
+
+        void add(K key, String label, int row) {
+            if (key == null) {
+                return;
+            }
+            rows.computeIfAbsent(key, k -> new RowSet()).add(row);
+            labels.putIfAbsent(key, label);
+        }
+
+        void remove(K key, int row) {
+            if (key == null) {
+                return;
+            }
+            RowSet rowSet = rows.get(key);
+            rowSet.remove(row);
+            if (rowSet.isEmpty()) {
+                rows.remove(key);
+                labels.remove(key);
+            }
+        }
+
+        RowSet get(K key) {
+            return rows.getOrDefault(key, RowSet.EMPTY);
+        }
+    }
+
+    /**
+     * Rows of one facet value: a sorted array of row numbers while it is
+     * smaller than a bitmap up to its highest row, the bitmap's words otherwise.
+     * Rows are chronological, so most values (a subject, a degree, a day of
+     * another school) hold few rows spread over the whole range, where a bitmap
+     * would cost the whole range; a value is only a bitmap when it holds at
+     * least one row in 32. Not thread safe.
+     */
+    static final class RowSet {
+
+        static final RowSet EMPTY = new RowSet();
+
+        // Sorted row numbers while sparse, null while a bitmap
+        private int[] sorted = new int[2];
+        // Bitmap words while dense, null while sparse
+        private long[] words;
+        private int size;
+
+        boolean isDense() {
+            return words != null;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void add(int row) {
+            if (words != null) {
+                int word = row >>> 6;
+                if (word >= words.length) {
+                    words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+                }
+                if ((words[word] & 1L << row) == 0) {
+                    words[word] |= 1L << row;
+                    size++;
+                }
+                return;
+            }
+            int at = Arrays.binarySearch(sorted, 0, size, row);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            if (size == sorted.length) {
+                sorted = Arrays.copyOf(sorted, size * 2);
+            }
+            System.arraycopy(sorted, at, sorted, at + 1, size - at);
+            sorted[at] = row;
+            size++;
+            // 32 bits per row in the array against 1 bit per row number in the bitmap
+            if ((long) size * 32 > sorted[size - 1] + 64) {
+                toBitmap();
+            }
+        }
+
+        void remove(int row) {
+            if (words != null) {
+                int word = row >>> 6;
+                if (word < words.length && (words[word] & 1L << row) != 0) {
+                    words[word] &= ~(1L << row);
+                    size--;
+                    // Back to an array at half the density that made it a bitmap, so it does not flip back and forth
+                    if (size < words.length) {
+                        toSorted();
+                    }
+                }
+                return;
+            }
+            int at = Arrays.binarySearch(sorted, 0, size, row);
+            if (at >= 0) {
+                System.arraycopy(sorted, at + 1, sorted, at, size - at - 1);
+                size--;
+            }
+        }
+
+        /**
+         * Rows of this set that are also set in the given bitmap words
+         */
+        int countIn(long[] bitmap) {
+            int count = 0;
+            if (words != null) {
+                int length = Math.min(words.length, bitmap.length);
+                for (int word = 0; word < length; word++) {
+                    count += Long.bitCount(words[word] & bitmap[word]);
+                }
+                return count;
+            }
+            for (int i = 0; i < size; i++) {
+                int word = sorted[i] >>> 6;
+                if (word < bitmap.length && (bitmap[word] & 1L << sorted[i]) != 0) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        void orInto(BitSet target) {
+            if (words != null) {
+                target.or(BitSet.valueOf(words));
+                return;
+            }
+            for (int i = 0; i < size; i++) {
+                target.set(sorted[i]);
+            }
+        }
+
+        BitSet toBitSet() {
+            BitSet result = new BitSet();
+            orInto(result);
+            return result;
+        }
+
+        private void toBitmap() {
+            words = new long[(sorted[size - 1] >>> 6) + 1];
+            for (int i = 0; i < size; i++) {
+                words[sorted[i] >>> 6] |= 1L << sorted[i];
+            }
+            sorted = null;
+        }
+
+        private void toSorted() {
+            sorted = new int[Math.max(size, 2)];
+            int i = 0;
+            for (int word = 0; word < words.length; word++) {
+                for (long bits = words[word]; bits != 0; bits &= bits - 1) {
+                    sorted[i++] = word * 64 + Long.numberOfTrailingZeros(bits);
+                }
+            }
+            words = null;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.BootstrapDTO;
+import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.dtos.SubjectDTO;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable set of every filter facet (schools, degrees, semesters, course
+ * years and subjects) derived from one pass over the exams.
+ * Keeps a row count per distinct facet tuple so that a write can tell
+ * whether it actually changes any facet value.
+ */
+public final class ExamFacets {
+
+    private static final Comparator<String> NULLS_LAST = Comparator.nullsLast(Comparator.naturalOrder());
+
+    /**
+     * Projection of an exam onto the columns the facets depend on
+     */
+    @Value
+    public static class FacetKey {
+        String degree;
+        String semester;
+        Integer courseYear;
+        String subjectName;
+        String acronym;
+
+        public static FacetKey of(ExamDTO exam) {
+            return new FacetKey(exam.getDegree(), exam.getSemester(), exam.getCourseYear(),
+                    exam.getSubjectName(), exam.getAcronym());
+        }
+    }
+
+    private final Map<FacetKey, Integer> counts;
+
+    private final List<String> schools;
+    private final List<String> degrees;
+    private final List<String> semesters;
+    private final List<Integer> courseYears;
+    private final List<SubjectDTO> subjects;
+    private final Map<String, List<String>> degreesBySchool;
+    private final BootstrapDTO bootstrap;
+
+    // Built on first typeahead request; a racing duplicate build is harmless
+    private volatile ExamSuggestions suggestions;
+
+    private ExamFacets(Map<FacetKey, Integer> counts) {
+        this.counts = Collections.unmodifiableMap(counts);
+
+        Set<String> distinctDegrees = new TreeSet<>();
+        Set<String> distinctSemesters = new TreeSet<>();
+        Set<Integer> distinctCourseYears = new TreeSet<>();
+        for (FacetKey key : counts.keySet()) {
+            addIfPresent(distinctDegrees, key.getDegree());
+            addIfPresent(distinctSemesters, key.getSemester());
+            addIfPresent(distinctCourseYears, key.getCourseYear());
+        }
+
+        Map<String, List<String>> hierarchy = new TreeMap<>();
+        for (String degree : distinctDegrees) {
+            hierarchy.computeIfAbsent(ExamSnapshot.schoolOf(degree), school -> new ArrayList<>()).add(degree);
+        }
+        hierarchy.replaceAll((school, list) -> Collections.unmodifiableList(list));
+
+        Set<SubjectDTO> distinctSubjects = new LinkedHashSet<>();
+        counts.keySet().stream()
+                .sorted(Comparator.comparing(FacetKey::getSubjectName, NULLS_LAST))
+                .forEach(key -> distinctSubjects.add(new SubjectDTO(
+                        key.getSubjectName() != null ? key.getSubjectName() : "Unknown",
+                        key.getAcronym() != null ? key.getAcronym() : "")));
+
+        this.degrees = Collections.unmodifiableList(new ArrayList<>(distinctDegrees));
+        this.semesters = Collections.unmodifiableList(new ArrayList<>(distinctSemesters));
+        this.courseYears = Collections.unmodifiableList(new ArrayList<>(distinctCourseYears));
+        this.schools = Collections.unmodifiableList(new ArrayList<>(hierarchy.keySet()));
+        this.degreesBySchool = Collections.unmodifiableMap(hierarchy);
+        this.subjects = Collections.unmodifiableList(new ArrayList<>(distinctSubjects));
+        this.bootstrap = new BootstrapDTO(schools, degrees, degreesBySchool, semesters, courseYears, subjects);
+    }
+
+    /**
+     * Build the facets from row counts per facet tuple
+     */
+    public static ExamFacets of(Map<FacetKey, Integer> counts) {
+        return new ExamFacets(new HashMap<>(counts));
+    }
+
+    /**
+     * Build the facets from a full set of exams
+     */
+    public static ExamFacets fromExams(Collection<ExamDTO> exams) {
+        Map<FacetKey, Integer> counts = new HashMap<>();
+        for (ExamDTO exam : exams) {
+            counts.merge(FacetKey.of(exam), 1, Integer::sum);
+        }
+        return new ExamFacets(counts);
+    }
+
+    /**
+     * Apply a write to the row counts.
+     * Returns empty when the write adds or removes a distinct facet tuple,
+     * meaning the facet lists themselves change and must be rebuilt.
+     */
+    public Optional<ExamFacets> patched(ExamDTO removed, ExamDTO added) {
+        FacetKey removedKey = removed != null ? FacetKey.of(removed) : null;
+        FacetKey addedKey = added != null ? FacetKey.of(added) : null;
+        if (removedKey != null && removedKey.equals(addedKey)) {
+            return Optional.of(this);
+        }
+        if (addedKey != null && !counts.containsKey(addedKey)) {
+            return Optional.empty();
+        }
+        if (removedKey != null && counts.getOrDefault(removedKey, 0) <= 1) {
+            return Optional.empty();
+        }
+
+        Map<FacetKey, Integer> copy = new HashMap<>(counts);
+        if (addedKey != null) {
+            copy.merge(addedKey, 1, Integer::sum);
+        }
+        if (removedKey != null) {
+            copy.merge(removedKey, -1, Integer::sum);
+        }
+        return Optional.of(new ExamFacets(copy));
+    }
+
+    public List<String> getSchools() {
+        return schools;
+    }
+
+    public List<String> getDegrees() {
+        return degrees;
+    }
+
+    public List<String> getSemesters() {
+        return semesters;
+    }
+
+    public List<Integer> getCourseYears() {
+        return courseYears;
+    }
+
+    public List<SubjectDTO> getSubjects() {
+        return subjects;
+    }
+
+    /**
+     * School to degree hierarchy, both levels sorted
+     */
+    public Map<String, List<String>> getDegreesBySchool() {
+        return degreesBySchool;
+    }
+
+    /**
+     * All facets as a single response object, built once per facet set
+     */
+    public BootstrapDTO getBootstrap() {
+        return bootstrap;
+    }
+
+    /**
+     * Typeahead index over the subjects and degrees of this facet set
+     */
+    public ExamSuggestions getSuggestions() {
+        ExamSuggestions current = suggestions;
+        if (current == null) {
+            current = ExamSuggestions.of(this);
+            suggestions = current;
+        }
+        return current;
+    }
+
+    /**
+     * Degrees starting with the given (case sensitive) prefix
+     */
+    public List<String> getDegreesStartingWith(String prefix) {
+        return degrees.stream()
+                .filter(degree -> degree.startsWith(prefix))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Number of exams per distinct facet tuple
+     */
+    public Map<FacetKey, Integer> getCounts() {
+        return counts;
+    }
+
+    private static <T> void addIfPresent(Set<T> target, T value) {
+        if (value != null) {
+            target.add(value);
+        }
+    }
+
+    /**
+     * Rows returned by the facet scan, keyed in insertion order
+     */
+    static Map<FacetKey, Integer> countsFromRows(List<Object[]> rows) {
+        Map<FacetKey, Integer> counts = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            FacetKey key = new FacetKey((String) row[0], (String) row[1], (Integer) row[2],
+                    (String) row[3], (String) row[4]);
+            counts.put(key, ((Number) row[5]).intValue());
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,349 @@
+package com.upv.examcalendar.services;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.dtos.ImportResultDTO;
+import com.upv.examcalendar.dtos.ImportResultDTO.RowError;
+import com.upv.examcalendar.events.ExamChangeEvent;
+import com.upv.examcalendar.exceptions.BadRequestException;
+import com.upv.examcalendar.models.AcademicYear;
+import com.upv.examcalendar.models.EtsinfExam;
+import com.upv.examcalendar.repositories.ExamPartitions;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk exam import from CSV or JSON.
+ * Rows are read as a stream, validated in parallel with the same Bean
+ * Validation rules as POST /api/exams, and loaded with a single PostgreSQL
+ * COPY in one transaction, optionally replacing every existing exam. Any
+ * invalid row rejects the whole import. Derived read structures are rebuilt
+ * once through a bulk {@link ExamChangeEvent}. The partitions of new schools and
+ * academic years are created in a short transaction of their own beforehand,
+ * so the import does not lock the whole exam table while it runs.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExamImportService {
+
+    private static final String COPY_SQL = "COPY etsinf_exams (exam_day, exam_hour, duration_min, subject_code, "
+            + "subject_name, acronym, degree, course_year, semester, exam_place, comment, school, academic_year) "
+            + "FROM STDIN WITH (FORMAT csv)";
+
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final DateTimeFormatter SPREADSHEET_DATE = DateTimeFormatter.ofPattern("d/M/yyyy");
+    private static final DateTimeFormatter SPREADSHEET_TIME = DateTimeFormatter.ofPattern("H:mm[:ss]");
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ExamPartitions partitions;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${exam.import.max-rows:100000}")
+    private int maxRows;
+
+    /**
+     * Import a CSV with a header row naming the ExamDTO fields
+     * (examDay, exam_day and "Exam day" are all accepted)
+     */
+    public ImportResultDTO importCsv(InputStream in, boolean replace) throws IOException {
+        ExamCsvReader reader = new ExamCsvReader(
+                new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        List<String> header = reader.next();
+        if (header == null) {
+            throw new BadRequestException("The CSV is empty");
+        }
+        List<BiConsumer<ParsedRow, String>> columns = new ArrayList<>();
+        for (String name : header) {
+            columns.add(column(name));
+        }
+
+        List<ParsedRow> rows = new ArrayList<>();
+        List<String> fields;
+        while ((fields = reader.next()) != null) {
+            ParsedRow row = new ParsedRow(reader.getRecordLine());
+            if (fields.size() != columns.size()) {
+                row.error(null, "Expected " + columns.size() + " fields but found " + fields.size());
+            } else {
+                for (int i = 0; i < fields.size(); i++) {
+                    String value = fields.get(i).trim();
+                    columns.get(i).accept(row, value.isEmpty() ? null : value);
+                }
+            }
+            add(rows, row);
+        }
+        return load(rows, replace);
+    }
+
+    /**
+     * Import a JSON array of ExamDTO objects; ids are ignored
+     */
+    public ImportResultDTO importJson(InputStream in, boolean replace) throws IOException {
+        List<ParsedRow> rows = new ArrayList<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new BadRequestException("Expected a JSON array of exams");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                ParsedRow row = new ParsedRow(rows.size() + 1);
+                JsonNode node = parser.readValueAsTree();
+                try {
+                    row.exam = objectMapper.treeToValue(node, ExamDTO.class);
+                } catch (JsonProcessingException e) {
+                    row.error(null, e.getOriginalMessage());
+                }
+                add(rows, row);
+            }
+            if (token != JsonToken.END_ARRAY) {
+                throw new BadRequestException("Expected an exam object at position " + (rows.size() + 1));
+            }
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Malformed JSON: " + e.getOriginalMessage(), e);
+        }
+        return load(rows, replace);
+    }
+
+    /**
+     * Import exams built in process (such as timetable proposals), with the
+     * same validation and loading as the file imports
+     */
+    public ImportResultDTO importExams(List<ExamDTO> exams, boolean replace) {
+        List<ParsedRow> rows = new ArrayList<>();
+        for (ExamDTO exam : exams) {
+            ParsedRow row = new ParsedRow(rows.size() + 1);
+            row.exam = exam;
+            add(rows, row);
+        }
+        return load(rows, replace);
+    }
+
+    private void add(List<ParsedRow> rows, ParsedRow row) {
+        if (rows.size() >= maxRows) {
+            throw new BadRequestException("An import is limited to " + maxRows + " rows");
+        }
+        rows.add(row);
+    }
+
+    private ImportResultDTO load(List<ParsedRow> rows, boolean replace) {
+        List<RowError> errors = rows.parallelStream()
+                .flatMap(row -> validate(row).stream())
+                .sorted(Comparator.comparingInt(RowError::getRow))
+                .collect(Collectors.toList());
+        if (!errors.isEmpty()) {
+            List<RowError> reported = errors.subList(0, Math.min(errors.size(), MAX_REPORTED_ERRORS));
+            return new ImportResultDTO(rows.size(), 0, 0, errors.size(), new ArrayList<>(reported));
+        }
+
+        long started = System.currentTimeMillis();
+        Map<String, TreeSet<Integer>> academicYears = new TreeMap<>();
+        for (ParsedRow row : rows) {
+            academicYears.computeIfAbsent(EtsinfExam.schoolOf(row.exam.getDegree()), school -> new TreeSet<>())
+                    .add(AcademicYear.of(row.exam.getExamDay()));
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                academicYears.forEach((school, years) -> years.forEach(year -> partitions.ensure(school, year))));
+
+        long[] deleted = {0};
+        Long imported;
+        try {
+            imported = transactionTemplate.execute(status -> {
+                if (replace) {
+                    deleted[0] = jdbcTemplate.update("DELETE FROM etsinf_exams");
+                }
+                long count = copy(rows);
+                eventPublisher.publishEvent(ExamChangeEvent.bulk());
+                return count;
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new BadRequestException("Import rejected by the database: "
+                    + NestedExceptionUtils.getMostSpecificCause(e).getMessage(), e);
+        }
+        log.info("Imported {} exams ({} replaced) in {} ms", imported, deleted[0],
+                System.currentTimeMillis() - started);
+        return new ImportResultDTO(rows.size(), imported != null ? imported : 0, deleted[0], 0, new ArrayList<>());
+    }
+
+    private List<RowError> validate(ParsedRow row) {
+        if (row.exam == null || !row.errors.isEmpty()) {
+            return row.errors;
+        }
+        List<RowError> errors = new ArrayList<>();
+        for (ConstraintViolation<ExamDTO> violation : validator.validate(row.exam)) {
+            errors.add(new RowError(row.number, violation.getPropertyPath().toString(), violation.getMessage()));
+        }
+        return errors;
+    }
+
+    /**
+     * Stream the rows to COPY in CSV format, on the connection of the current transaction
+     */
+    private long copy(List<ParsedRow> rows) {
+        Long copied = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+            try {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream(COPY_BUFFER_BYTES + 4096);
+                for (ParsedRow row : rows) {
+                    writeCopyRow(buffer, row.exam);
+                    if (buffer.size() >= COPY_BUFFER_BYTES) {
+                        copyIn.writeToCopy(buffer.toByteArray(), 0, buffer.size());
+                        buffer.reset();
+                    }
+                }
+                if (buffer.size() > 0) {
+                    copyIn.writeToCopy(buffer.toByteArray(), 0, buffer.size());
+                }
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        });
+        return copied != null ? copied : 0;
+    }
+
+    static void writeCopyRow(ByteArrayOutputStream out, ExamDTO exam) {
+        StringBuilder line = new StringBuilder(256);
+        line.append(exam.getExamDay()).append(',');
+        line.append(exam.getExamHour()).append(',');
+        line.append(exam.getDurationMin()).append(',');
+        quote(line, exam.getSubjectCode()).append(',');
+        quote(line, exam.getSubjectName()).append(',');
+        quote(line, exam.getAcronym()).append(',');
+        quote(line, exam.getDegree()).append(',');
+        line.append(exam.getCourseYear()).append(',');
+        quote(line, exam.getSemester()).append(',');
+        quote(line, exam.getExamPlace()).append(',');
+        quote(line, exam.getComment()).append(',');
+        quote(line, EtsinfExam.schoolOf(exam.getDegree())).append(',');
+        line.append(AcademicYear.of(exam.getExamDay())).append('\n');
+        byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Quoted CSV value; null stays unquoted and empty, which COPY reads as NULL
+     */
+    private static StringBuilder quote(StringBuilder line, String value) {
+        if (value == null) {
+            return line;
+        }
+        return line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    /**
+     * Setter for the CSV column with the given header
+     */
+    private static BiConsumer<ParsedRow, String> column(String header) {
+        String name = header.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+        switch (name) {
+            case "id":
+                return (row, value) -> { };
+            case "examday":
+                return (row, value) -> row.exam.setExamDay(parse(row, "examDay", value, ExamImportService::date));
+            case "examhour":
+                return (row, value) -> row.exam.setExamHour(parse(row, "examHour", value, ExamImportService::time));
+            case "durationmin":
+                return (row, value) -> row.exam.setDurationMin(parse(row, "durationMin", value, Integer::valueOf));
+            case "subjectcode":
+                return (row, value) -> row.exam.setSubjectCode(value);
+            case "subjectname":
+                return (row, value) -> row.exam.setSubjectName(value);
+            case "acronym":
+                return (row, value) -> row.exam.setAcronym(value);
+            case "degree":
+                return (row, value) -> row.exam.setDegree(value);
+            case "courseyear":
+                return (row, value) -> row.exam.setCourseYear(parse(row, "courseYear", value, Integer::valueOf));
+            case "semester":
+                return (row, value) -> row.exam.setSemester(value);
+            case "examplace":
+                return (row, value) -> row.exam.setExamPlace(value);
+            case "comment":
+                return (row, value) -> row.exam.setComment(value);
+            default:
+                throw new BadRequestException("Unknown CSV column: " + header);
+        }
+    }
+
+    private static <T> T parse(ParsedRow row, String field, String value, Function<String, T> parser) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            row.error(field, "Invalid value '" + value + "'");
+            return null;
+        }
+    }
+
+    private static LocalDate date(String value) {
+        return value.contains("/") ? LocalDate.parse(value, SPREADSHEET_DATE) : LocalDate.parse(value);
+    }
+
+    private static LocalTime time(String value) {
+        return LocalTime.parse(value, SPREADSHEET_TIME);
+    }
+
+    /**
+     * One input row with its conversion errors
+     */
+    private static final class ParsedRow {
+
+        private final int number;
+        private ExamDTO exam = new ExamDTO();
+        private final List<RowError> errors = new ArrayList<>();
+
+        ParsedRow(int number) {
+            this.number = number;
+        }
+
+        void error(String field, String message) {
+            errors.add(new RowError(number, field, message));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.events.ExamChangeEvent;
+import com.upv.examcalendar.models.EtsinfExam;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.persistence.EntityManagerFactory;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+
+/**
+ * Keeps the Hibernate second-level and query caches of {@link EtsinfExam}
+ * consistent with writes Hibernate does not see.
+ * Single-row writes go through SQL with RETURNING and the import through
+ * plain JDBC, so after every committed write the changed entity (or the
+ * whole region after a bulk change) and the exam query results are evicted.
+ * A read that loaded the old row just before the commit may still put it back
+ * after the eviction, so the regions expire entries after 10 seconds (see
+ * ehcache.xml), the longest the calendar may show a row from before a write.
+ * Publishes hit, miss, put and eviction counters per region when the cache
+ * and Hibernate statistics are enabled. Does nothing when the cache is off.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExamPersistenceCache {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final MeterRegistry meterRegistry;
+
+    private SessionFactory sessionFactory;
+
+    @PostConstruct
+    void init() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        if (!sessionFactory.getSessionFactoryOptions().isSecondLevelCacheEnabled()) {
+            return;
+        }
+        log.info("Second-level cache enabled for regions {} and {}",
+                EtsinfExam.CACHE_REGION, EtsinfExam.QUERY_CACHE_REGION);
+        Statistics statistics = sessionFactory.getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            return;
+        }
+        registerRegion(EtsinfExam.CACHE_REGION, statistics.getDomainDataRegionStatistics(EtsinfExam.CACHE_REGION));
+        if (sessionFactory.getSessionFactoryOptions().isQueryCacheEnabled()) {
+            registerRegion(EtsinfExam.QUERY_CACHE_REGION,
+                    statistics.getQueryRegionStatistics(EtsinfExam.QUERY_CACHE_REGION));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(ExamChangeEvent.PERSISTENCE_CACHE_ORDER)
+    public void onExamChange(ExamChangeEvent event) {
+        if (!sessionFactory.getSessionFactoryOptions().isSecondLevelCacheEnabled()) {
+            return;
+        }
+        org.hibernate.Cache cache = sessionFactory.getCache();
+        if (event.isBulk()) {
+            cache.evictEntityData(EtsinfExam.class);
+        } else {
+            cache.evictEntityData(EtsinfExam.class, event.getExamId());
+        }
+        // Any cached result may have gained or lost the changed exam
+        cache.evictQueryRegion(EtsinfExam.QUERY_CACHE_REGION);
+    }
+
+    private void registerRegion(String region, CacheRegionStatistics statistics) {
+        FunctionCounter.builder("exam.persistence.cache.requests", statistics, CacheRegionStatistics::getHitCount)
+                .tags("region", region, "result", "hit").register(meterRegistry);
+        FunctionCounter.builder("exam.persistence.cache.requests", statistics, CacheRegionStatistics::getMissCount)
+                .tags("region", region, "result", "miss").register(meterRegistry);
+        FunctionCounter.builder("exam.persistence.cache.puts", statistics, CacheRegionStatistics::getPutCount)
+                .tag("region", region).register(meterRegistry);
+        Gauge.builder("exam.persistence.cache.entries", statistics, CacheRegionStatistics::getElementCountInMemory)
+                .tag("region", region).register(meterRegistry);
+        FunctionCounter.builder("exam.persistence.cache.evictions", region, ExamPersistenceCache::evictions)
+                .tag("region", region).register(meterRegistry);
+    }
+
+    /**
+     * Entries the cache provider evicted to stay within its size bound, read
+     * from the standard JCache statistics MBean so no provider API is needed
+     */
+    private static double evictions(String region) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            Set<ObjectName> names = server.queryNames(
+                    new ObjectName("javax.cache:type=CacheStatistics,Cache=" + region + ",*"), null);
+            double evictions = 0;
+            for (ObjectName name : names) {
+                evictions += ((Number) server.getAttribute(name, "CacheEvictions")).doubleValue();
+            }
+            return evictions;
+        } catch (Exception e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.events.ExamChangeEvent;
+import com.upv.examcalendar.mappers.ExamMapper;
+import com.upv.examcalendar.repositories.EtsinfExamRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Optional in-memory read model holding an {@link ExamSnapshot} of every exam.
+ * Enabled with {@code exam.read-model.enabled=true}. Reads go to the current
+ * snapshot without touching the database; writes patch a copy after commit,
+ * unless the snapshot already holds a later version of the exam.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExamReadModel {
+
+    private final EtsinfExamRepository examRepository;
+    private final ExamMapper examMapper;
+
+    @Value("${exam.read-model.enabled:false}")
+    private boolean enabled;
+
+    private final AtomicReference<ExamSnapshot> snapshot = new AtomicReference<>();
+
+    // Serializes full reloads with patches so a patch is never lost behind a reload
+    private final Object writeLock = new Object();
+
+    // Id -> version of each exam deleted, so an older write can't bring it back.
+    // Kept across reloads; deletions are rare and ids are never reused.
+    private final Map<Long, Long> deletedVersions = new HashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Current snapshot, loading it on first use
+     */
+    public ExamSnapshot current() {
+        ExamSnapshot current = snapshot.get();
+        if (current != null) {
+            return current;
+        }
+        synchronized (writeLock) {
+            current = snapshot.get();
+            return current != null ? current : reload();
+        }
+    }
+
+    /**
+     * Rebuild the snapshot from the database
+     */
+    public ExamSnapshot reload() {
+        synchronized (writeLock) {
+            ExamSnapshot fresh = ExamSnapshot.of(examMapper.toDtoList(examRepository.findAllForReadModel()));
+            snapshot.set(fresh);
+            log.info("Exam read model loaded with {} exams", fresh.size());
+            return fresh;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    /**
+     * Patch a copy of the snapshot once the write has committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(ExamChangeEvent.READ_MODEL_ORDER)
+    public void onExamChange(ExamChangeEvent event) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (writeLock) {
+            ExamSnapshot current = snapshot.get();
+            if (event.isBulk()) {
+                // Keep serving the old snapshot until the new one is built
+                if (current != null) {
+                    reload();
+                }
+                return;
+            }
+            Long id = event.getExamId();
+            Long applied = current != null
+                    ? current.findById(id).map(ExamDTO::getVersion).orElse(deletedVersions.get(id))
+                    : deletedVersions.get(id);
+            if (event.isOlderThan(applied)) {
+                log.debug("Ignoring change of exam {} older than its version {}", id, applied);
+                return;
+            }
+            if (event.getAfter() == null) {
+                deletedVersions.put(id, event.getVersion());
+            }
+            // Not loaded yet: the first read will pick the change up from the database
+            if (current != null) {
+                snapshot.set(event.getAfter() != null
+                        ? current.withExam(event.getAfter())
+                        : current.withoutExam(id));
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.dtos.RoomConflictDTO;
+import com.upv.examcalendar.dtos.RoomDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Room occupancy derived from the free-text exam places.
+ * A place naming several rooms ("1G 0.1, 1G 0.2" or "Aula 3 / Aula 4") is
+ * split into rooms, each identified by its accent folded, lower cased and
+ * single spaced name. Every room keeps the rows of its exams in
+ * {@link ExamRows} in an {@link ExamTimeline}, so occupancy and free-room
+ * lookups cost O(log n + k) per room, and is patched with the rows on every
+ * committed write. Exams of the same subject sharing a room (one sitting
+ * listed under several degrees) are not double bookings.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExamRoomOccupancy implements ExamRows.Index {
+
+    private static final Pattern ROOM_SEPARATORS = Pattern.compile("\\s*(?:[,;/+&]|\\s(?:y|and)\\s)\\s*");
+    private static final Pattern NOT_ROOM_CHARS = Pattern.compile("[^\\p{Alnum}.]+");
+
+    private final ExamRows rows;
+
+    private final Map<Integer, Booking> bookings = new HashMap<>();
+    private final Map<String, Room> rooms = new HashMap<>();
+
+    @PostConstruct
+    void init() {
+        rows.register(this);
+    }
+
+    /**
+     * Identifier of a room name, or null if nothing identifying is left
+     */
+    public static String roomId(String name) {
+        String id = NOT_ROOM_CHARS.matcher(ExamSearchIndex.fold(name)).replaceAll(" ").trim();
+        return id.isEmpty() ? null : id;
+    }
+
+    /**
+     * Every known room, sorted by identifier
+     */
+    public List<RoomDTO> findRooms() {
+        List<RoomDTO> result = rows.read(() -> {
+            List<RoomDTO> known = new ArrayList<>();
+            rooms.values().forEach(room -> known.add(room.toDto()));
+            return known;
+        });
+        result.sort(Comparator.comparing(RoomDTO::getId));
+        return result;
+    }
+
+    /**
+     * Exams taking place in the room at the given time
+     */
+    public List<ExamDTO> findOccupants(String roomName, LocalDateTime at) {
+        long minute = ExamTimeline.minuteOf(at.toLocalDate(), at.toLocalTime());
+        String roomId = roomId(roomName);
+        List<ExamDTO> result = rows.read(() -> {
+            List<ExamDTO> occupants = new ArrayList<>();
+            Room room = roomId != null ? rooms.get(roomId) : null;
+            if (room != null) {
+                room.timeline.overlapping(minute, minute + 1).forEach(row -> occupants.add(rows.get(row.intValue())));
+            }
+            return occupants;
+        });
+        result.sort(ExamSnapshot.CHRONOLOGICAL);
+        return result;
+    }
+
+    /**
+     * Known rooms with no exam overlapping the slot
+     */
+    public List<RoomDTO> findFreeRooms(LocalDateTime start, int durationMin) {
+        long from = ExamTimeline.minuteOf(start.toLocalDate(), start.toLocalTime());
+        long to = from + Math.max(durationMin, 1);
+        List<RoomDTO> result = rows.read(() -> {
+            List<RoomDTO> free = new ArrayList<>();
+            for (Room room : rooms.values()) {
+                if (room.timeline.overlapping(from, to).isEmpty()) {
+                    free.add(room.toDto());
+                }
+            }
+            return free;
+        });
+        result.sort(Comparator.comparing(RoomDTO::getId));
+        return result;
+    }
+
+    /**
+     * Overlapping exams of different subjects in the same room, for exams
+     * starting within the optional date range, in chronological order
+     */
+    public List<RoomConflictDTO> findDoubleBookings(LocalDate startDate, LocalDate endDate) {
+        List<RoomConflictDTO> result = rows.read(() -> {
+            List<RoomConflictDTO> conflicts = new ArrayList<>();
+            for (Booking booking : bookings.values()) {
+                if ((startDate != null && booking.day.isBefore(startDate))
+                        || (endDate != null && booking.day.isAfter(endDate))) {
+                    continue;
+                }
+                for (String roomId : booking.roomIds) {
+                    Room room = rooms.get(roomId);
+                    for (Long otherRow : room.timeline.overlapping(booking.start, booking.end)) {
+                        Booking other = bookings.get(otherRow.intValue());
+                        // Each pair is found from both exams; report it from the earlier one
+                        if (booking.isBefore(other) && !booking.sameSubject(other)) {
+                            conflicts.add(new RoomConflictDTO(room.toDto(), rows.get(booking.row),
+                                    rows.get(other.row), Math.min(booking.end, other.end) - other.start));
+                        }
+                    }
+                }
+            }
+            return conflicts;
+        });
+        result.sort(Comparator.comparing(RoomConflictDTO::getFirst, ExamSnapshot.CHRONOLOGICAL)
+                .thenComparing(RoomConflictDTO::getSecond, ExamSnapshot.CHRONOLOGICAL)
+                .thenComparing(conflict -> conflict.getRoom().getId()));
+        return result;
+    }
+
+    @Override
+    public void rebuild(ExamRows rows) {
+        bookings.clear();
+        rooms.clear();
+        rows.forEach(row -> added(row, rows.get(row)));
+        log.info("Exam room occupancy built with {} exams in {} rooms", bookings.size(), rooms.size());
+    }
+
+    @Override
+    public void added(int row, ExamDTO exam) {
+        Booking booking = Booking.of(row, exam);
+        if (booking == null) {
+            return;
+        }
+        for (Map.Entry<String, String> name : booking.roomNames.entrySet()) {
+            Room room = rooms.computeIfAbsent(name.getKey(), id -> new Room(id, name.getValue()));
+            room.timeline.add((long) row, booking.start, booking.end);
+            room.examCount++;
+        }
+        bookings.put(row, booking);
+    }
+
+    @Override
+    public void removed(int row, ExamDTO exam) {
+        Booking booking = bookings.remove(row);
+        if (booking == null) {
+            return;
+        }
+        for (String roomId : booking.roomIds) {
+            Room room = rooms.get(roomId);
+            room.timeline.remove((long) row, booking.start);
+            if (--room.examCount == 0) {
+                rooms.remove(roomId);
+            }
+        }
+    }
+
+    /**
+     * One room and the exams booked in it
+     */
+    private static final class Room {
+
+        private final String id;
+        private final String name;
+        private final ExamTimeline timeline = new ExamTimeline();
+        private int examCount;
+
+        Room(String id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        RoomDTO toDto() {
+            return new RoomDTO(id, name, examCount);
+        }
+    }
+
+    /**
+     * Time slot of the exam in one row and the rooms it uses
+     */
+    private static final class Booking {
+
+        private final int row;
+        private final long id;
+        private final String subjectCode;
+        private final LocalDate day;
+        private final long start;
+        private final long end;
+        // Room id -> name as written in this exam place
+        private final Map<String, String> roomNames;
+        private final Set<String> roomIds;
+
+        private Booking(int row, ExamDTO exam, long start, long end, Map<String, String> roomNames) {
+            this.row = row;
+            this.id = exam.getId();
+            this.subjectCode = exam.getSubjectCode();
+            this.day = exam.getExamDay();
+            this.start = start;
+            this.end = end;
+            this.roomNames = roomNames;
+            this.roomIds = roomNames.keySet();
+        }
+
+        /**
+         * Booking of the exam, or null when it has no time or no room
+         */
+        static Booking of(int row, ExamDTO exam) {
+            if (exam.getId() == null || exam.getExamPlace() == null || exam.getExamDay() == null
+                    || exam.getExamHour() == null || exam.getDurationMin() == null) {
+                return null;
+            }
+            Map<String, String> roomNames = new HashMap<>();
+            for (String name : ROOM_SEPARATORS.split(exam.getExamPlace().trim())) {
+                String roomId = roomId(name);
+                if (roomId != null) {
+                    roomNames.putIfAbsent(roomId, name.trim());
+                }
+            }
+            if (roomNames.isEmpty()) {
+                return null;
+            }
+            long start = ExamTimeline.minuteOf(exam.getExamDay(), exam.getExamHour());
+            return new Booking(row, exam, start, start + Math.max(exam.getDurationMin(), 1),
+                    Collections.unmodifiableMap(roomNames));
+        }
+
+        boolean sameSubject(Booking other) {
+            return subjectCode != null && subjectCode.equalsIgnoreCase(other.subjectCode);
+        }
+
+        boolean isBefore(Booking other) {
+            return start < other.start || (start == other.start && id < other.id);
+        }
+    }
+}
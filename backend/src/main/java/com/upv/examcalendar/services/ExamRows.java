@@ -0,0 +1,287 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.events.ExamChangeEvent;
+import com.upv.examcalendar.mappers.ExamMapper;
+import com.upv.examcalendar.repositories.EtsinfExamRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Every exam, shared by the in-memory indexes that answer reads without the
+ * database. Exams are loaded once into {@link ExamColumns}; a write marks the
+ * row of the old exam dead and appends the new one after the columns, so row
+ * numbers stay stable and the indexes keep row numbers only, building an exam
+ * when they read it. Once the appended rows reach a quarter of the columns,
+ * they are folded into new columns and the indexes rebuilt from them.
+ * A change older than the version of the exam already held is ignored.
+ * The database is read outside the lock, so reads keep being served from the
+ * current rows, and writes committed meanwhile are applied once it is read.
+ * A bulk change reloads the rows once for every index.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExamRows {
+
+    /**
+     * Structure derived from the rows, called under the write lock
+     */
+    interface Index {
+
+        /**
+         * Discard everything and index every row, after a load
+         */
+        void rebuild(ExamRows rows);
+
+        void added(int row, ExamDTO exam);
+
+        void removed(int row, ExamDTO exam);
+    }
+
+    private static final int MIN_COMPACTION_ROWS = 1024;
+
+    private final EtsinfExamRepository examRepository;
+    private final ExamMapper examMapper;
+
+    private final List<Index> indexes = new CopyOnWriteArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // One load at a time; patches only wait for the lock
+    private final Object loadLock = new Object();
+
+    private ExamColumns columns = ExamColumns.of(Collections.emptyList());
+    // Rows of the columns that are still current
+    private BitSet live = new BitSet();
+    // Rows after the columns, null once replaced or deleted
+    private List<ExamDTO> appended = new ArrayList<>();
+    private Map<Long, Integer> appendedRowOfId = new HashMap<>();
+    private int size;
+    // Id -> version of each exam deleted, so an older write can't bring it back.
+    // Kept across loads; deletions are rare and ids are never reused.
+    private final Map<Long, Long> deletedVersions = new HashMap<>();
+
+    // Changes committed while the database is read, applied once it is
+    private List<ExamChangeEvent> pending;
+    private volatile boolean loaded;
+
+    /**
+     * Keep the index up to date from the next load on
+     */
+    void register(Index index) {
+        indexes.add(index);
+    }
+
+    /**
+     * Run a lookup over the rows, loading them on first use
+     */
+    <T> T read(Supplier<T> lookup) {
+        if (!loaded) {
+            synchronized (loadLock) {
+                if (!loaded) {
+                    load();
+                }
+            }
+        }
+        lock.readLock().lock();
+        try {
+            return lookup.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Exam of a live row; call within {@link #read} or an {@link Index} callback
+     */
+    ExamDTO get(int row) {
+        return row < columns.size() ? columns.get(row) : appended.get(row - columns.size());
+    }
+
+    /**
+     * Every live row; call within {@link #read} or an {@link Index} callback
+     */
+    void forEach(IntConsumer action) {
+        for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+            action.accept(row);
+        }
+        for (int i = 0; i < appended.size(); i++) {
+            if (appended.get(i) != null) {
+                action.accept(columns.size() + i);
+            }
+        }
+    }
+
+    /**
+     * Number of live rows
+     */
+    int size() {
+        return size;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(ExamChangeEvent.READ_MODEL_ORDER)
+    public void onExamChange(ExamChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(event);
+                return;
+            }
+            // Not loaded yet: the first read will pick the change up from the database
+            if (!loaded) {
+                // Except deletions: an older write to the exam may still arrive after the load
+                Long id = event.getExamId();
+                if (!event.isBulk() && event.getAfter() == null && !event.isOlderThan(deletedVersions.get(id))) {
+                    deletedVersions.put(id, event.getVersion());
+                }
+                return;
+            }
+            if (!event.isBulk()) {
+                apply(event, true);
+                compactIfNeeded();
+                return;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // Keep serving the current rows until the new ones are loaded
+        synchronized (loadLock) {
+            load();
+        }
+    }
+
+    /**
+     * Read every exam and swap it in, again while a bulk change committed meanwhile
+     */
+    private void load() {
+        boolean again = true;
+        while (again) {
+            lock.writeLock().lock();
+            try {
+                pending = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            List<ExamDTO> exams;
+            try {
+                exams = examMapper.toDtoList(examRepository.findAllForReadModel());
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    pending = null;
+                    loaded = false;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+            ExamColumns loadedColumns = ExamColumns.of(exams);
+
+            lock.writeLock().lock();
+            try {
+                List<ExamChangeEvent> committed = pending;
+                pending = null;
+                again = committed.stream().anyMatch(ExamChangeEvent::isBulk);
+                if (!again) {
+                    swap(loadedColumns);
+                    committed.forEach(event -> apply(event, false));
+                    loaded = true;
+                    indexes.forEach(index -> index.rebuild(this));
+                    log.info("Exam rows loaded with {} exams, {} distinct strings, for {} indexes",
+                            size, columns.dictionarySize(), indexes.size());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void swap(ExamColumns fresh) {
+        columns = fresh;
+        live = new BitSet(fresh.size());
+        live.set(0, fresh.size());
+        appended = new ArrayList<>();
+        appendedRowOfId = new HashMap<>();
+        size = fresh.size();
+    }
+
+    private void apply(ExamChangeEvent event, boolean notify) {
+        Long id = event.getExamId();
+        int removed = rowOf(id);
+        Long applied = removed >= 0 ? get(removed).getVersion() : deletedVersions.get(id);
+        if (event.isOlderThan(applied)) {
+            log.debug("Ignoring change of exam {} older than its version {}", id, applied);
+            return;
+        }
+        if (event.getAfter() == null) {
+            deletedVersions.put(id, event.getVersion());
+        }
+        if (removed >= 0) {
+            ExamDTO before = get(removed);
+            if (removed < columns.size()) {
+                live.clear(removed);
+            } else {
+                appended.set(removed - columns.size(), null);
+                appendedRowOfId.remove(before.getId());
+            }
+            size--;
+            if (notify) {
+                indexes.forEach(index -> index.removed(removed, before));
+            }
+        }
+        ExamDTO after = event.getAfter();
+        if (after != null && after.getId() != null) {
+            int added = columns.size() + appended.size();
+            appended.add(after);
+            appendedRowOfId.put(after.getId(), added);
+            size++;
+            if (notify) {
+                indexes.forEach(index -> index.added(added, after));
+            }
+        }
+    }
+
+    /**
+     * Live row of the exam with the given id, or -1
+     */
+    int rowOf(Long id) {
+        if (id == null) {
+            return -1;
+        }
+        Integer row = appendedRowOfId.get(id);
+        if (row != null) {
+            return row;
+        }
+        row = columns.rowOf(id);
+        return row >= 0 && live.get(row) ? row : -1;
+    }
+
+    /**
+     * Fold the appended rows into new columns once they are a large share of them
+     */
+    private void compactIfNeeded() {
+        if (appended.size() < Math.max(MIN_COMPACTION_ROWS, columns.size() / 4)) {
+            return;
+        }
+        List<ExamDTO> exams = new ArrayList<>(size);
+        forEach(row -> exams.add(get(row)));
+        swap(ExamColumns.of(exams));
+        indexes.forEach(index -> index.rebuild(this));
+        log.debug("Exam rows compacted to {} exams", size);
+    }
+}
@@ -0,0 +1,126 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamConflictDTO;
+import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.dtos.ExamGapDTO;
+import com.upv.examcalendar.dtos.ScheduleAnalysisDTO;
+import com.upv.examcalendar.mappers.ExamMapper;
+import com.upv.examcalendar.repositories.EtsinfExamRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Clash and rest analysis of the exams of a personal set of subjects.
+ * The exams are fetched in one query (or read from the read model), sorted
+ * once, and swept over primitive arrays of start and end minutes: overlaps
+ * come from the small set of exams still running at each start, and the
+ * shortest rest from the latest end seen so far. Exams of the same subject are
+ * never reported against each other, since that is one exam split across rooms.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExamScheduleAnalyzer {
+
+    private final EtsinfExamRepository examRepository;
+    private final ExamMapper examMapper;
+    private final ExamReadModel readModel;
+
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public ScheduleAnalysisDTO analyze(Collection<String> subjectCodes) {
+        Set<String> codes = new LinkedHashSet<>();
+        for (String code : subjectCodes) {
+            codes.add(code.trim().toLowerCase(Locale.ROOT));
+        }
+
+        List<ExamDTO> exams = new ArrayList<>();
+        if (readModel.isEnabled()) {
+            ExamSnapshot snapshot = readModel.current();
+            codes.forEach(code -> exams.addAll(snapshot.findBySubjectCode(code)));
+        } else {
+            exams.addAll(examMapper.toDtoList(examRepository.findBySubjectCodeInLowerCase(codes)));
+        }
+        // Exams without a time cannot clash and are left out
+        exams.removeIf(exam -> exam.getExamDay() == null || exam.getExamHour() == null
+                || exam.getDurationMin() == null || exam.getSubjectCode() == null);
+        exams.sort(ExamSnapshot.CHRONOLOGICAL);
+
+        Set<String> withoutExams = new LinkedHashSet<>(codes);
+        exams.forEach(exam -> withoutExams.remove(exam.getSubjectCode().toLowerCase(Locale.ROOT)));
+
+        return sweep(exams, new ArrayList<>(withoutExams));
+    }
+
+    private static ScheduleAnalysisDTO sweep(List<ExamDTO> exams, List<String> withoutExams) {
+        int n = exams.size();
+        long[] start = new long[n];
+        long[] end = new long[n];
+        long[] day = new long[n];
+        int[] subject = new int[n];
+        Map<String, Integer> subjects = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            ExamDTO exam = exams.get(i);
+            day[i] = exam.getExamDay().toEpochDay();
+            start[i] = ExamTimeline.minuteOf(exam.getExamDay(), exam.getExamHour());
+            end[i] = start[i] + Math.max(exam.getDurationMin(), 1);
+            subject[i] = subjects.computeIfAbsent(exam.getSubjectCode().toLowerCase(Locale.ROOT),
+                    code -> subjects.size());
+        }
+
+        List<ExamConflictDTO> overlaps = new ArrayList<>();
+        List<ExamGapDTO> sameDay = new ArrayList<>();
+        ExamGapDTO shortestGap = null;
+
+        // Exams still running at the current start
+        int[] running = new int[n];
+        int runningCount = 0;
+        // Exam with the latest end so far, the one the current exam rests after
+        int latest = -1;
+        // First exam of the current day
+        int dayStart = 0;
+
+        for (int i = 0; i < n; i++) {
+            int kept = 0;
+            for (int r = 0; r < runningCount; r++) {
+                int other = running[r];
+                if (end[other] > start[i]) {
+                    running[kept++] = other;
+                    if (subject[other] != subject[i]) {
+                        overlaps.add(new ExamConflictDTO(exams.get(other), exams.get(i),
+                                Math.min(end[other], end[i]) - start[i]));
+                    }
+                }
+            }
+            running[kept++] = i;
+            runningCount = kept;
+
+            if (day[i] != day[dayStart]) {
+                dayStart = i;
+            }
+            for (int other = dayStart; other < i; other++) {
+                if (end[other] <= start[i] && subject[other] != subject[i]) {
+                    sameDay.add(new ExamGapDTO(exams.get(other), exams.get(i), start[i] - end[other]));
+                }
+            }
+
+            if (latest >= 0 && end[latest] <= start[i]
+                    && (shortestGap == null || start[i] - end[latest] < shortestGap.getGapMinutes())) {
+                shortestGap = new ExamGapDTO(exams.get(latest), exams.get(i), start[i] - end[latest]);
+            }
+            if (latest < 0 || end[i] > end[latest]) {
+                latest = i;
+            }
+        }
+        return new ScheduleAnalysisDTO(exams, withoutExams, overlaps, sameDay, shortestGap);
+    }
+}
@@ -0,0 +1,219 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * In-process trigram index answering the subject and exam place "contains"
+ * searches without scanning the table.
+ * Subject searches match the subject name, acronym and subject code; place
+ * searches match the exam place. Text is accent folded and lower cased, so
+ * "programacion" finds "Programación". The index is keyed on distinct terms,
+ * which are far fewer than exams, and keeps the rows of {@link ExamRows}
+ * holding each term, so it is patched with them on every committed write.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExamSearchIndex implements ExamRows.Index {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final int GRAM = 3;
+
+    private final ExamRows rows;
+
+    @Value("${exam.search-index.enabled:true}")
+    private boolean enabled;
+
+    private final TermIndex subjects = new TermIndex();
+    private final TermIndex places = new TermIndex();
+
+    @PostConstruct
+    void init() {
+        if (enabled) {
+            rows.register(this);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Exams whose subject name, acronym or code contains the query
+     */
+    public List<ExamDTO> searchSubjects(String query) {
+        return search(subjects, query);
+    }
+
+    /**
+     * Exams whose exam place contains the query
+     */
+    public List<ExamDTO> searchPlaces(String query) {
+        return search(places, query);
+    }
+
+    /**
+     * Accent-fold and lower-case text for indexing and querying
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void rebuild(ExamRows rows) {
+        subjects.clear();
+        places.clear();
+        rows.forEach(row -> added(row, rows.get(row)));
+        log.info("Exam search index built with {} subject terms, {} place terms",
+                subjects.termCount(), places.termCount());
+    }
+
+    @Override
+    public void added(int row, ExamDTO exam) {
+        subjects.add(exam.getSubjectName(), row);
+        subjects.add(exam.getAcronym(), row);
+        subjects.add(exam.getSubjectCode(), row);
+        places.add(exam.getExamPlace(), row);
+    }
+
+    @Override
+    public void removed(int row, ExamDTO exam) {
+        subjects.remove(exam.getSubjectName(), row);
+        subjects.remove(exam.getAcronym(), row);
+        subjects.remove(exam.getSubjectCode(), row);
+        places.remove(exam.getExamPlace(), row);
+    }
+
+    private List<ExamDTO> search(TermIndex index, String query) {
+        String needle = fold(query);
+        List<ExamDTO> result = rows.read(() -> {
+            List<ExamDTO> exams = new ArrayList<>();
+            for (int row : index.search(needle)) {
+                exams.add(rows.get(row));
+            }
+            return exams;
+        });
+        result.sort(ExamSnapshot.CHRONOLOGICAL);
+        return result;
+    }
+
+    /**
+     * Inverted index from trigrams to distinct folded terms, and from terms to rows
+     */
+    private static final class TermIndex {
+
+        private final Map<String, Set<Integer>> rowsByTerm = new HashMap<>();
+        private final Map<String, Set<String>> termsByGram = new HashMap<>();
+
+        void add(String text, int row) {
+            if (text == null || text.isEmpty()) {
+                return;
+            }
+            String term = fold(text);
+            Set<Integer> rows = rowsByTerm.get(term);
+            if (rows == null) {
+                rows = new HashSet<>();
+                rowsByTerm.put(term, rows);
+                for (String gram : grams(term)) {
+                    termsByGram.computeIfAbsent(gram, g -> new HashSet<>()).add(term);
+                }
+            }
+            rows.add(row);
+        }
+
+        void remove(String text, int row) {
+            if (text == null || text.isEmpty()) {
+                return;
+            }
+            String term = fold(text);
+            Set<Integer> rows = rowsByTerm.get(term);
+            if (rows == null || !rows.remove(row) || !rows.isEmpty()) {
+                return;
+            }
+            rowsByTerm.remove(term);
+            for (String gram : grams(term)) {
+                Set<String> terms = termsByGram.get(gram);
+                if (terms != null) {
+                    terms.remove(term);
+                    if (terms.isEmpty()) {
+                        termsByGram.remove(gram);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Rows of the exams having a term that contains the folded needle
+         */
+        Set<Integer> search(String needle) {
+            Set<Integer> result = new HashSet<>();
+            for (String term : candidates(needle)) {
+                if (term.contains(needle)) {
+                    result.addAll(rowsByTerm.get(term));
+                }
+            }
+            return result;
+        }
+
+        void clear() {
+            rowsByTerm.clear();
+            termsByGram.clear();
+        }
+
+        int termCount() {
+            return rowsByTerm.size();
+        }
+
+        /**
+         * Terms containing every trigram of the needle; all terms for needles shorter than a trigram
+         */
+        private Set<String> candidates(String needle) {
+            if (needle.length() < GRAM) {
+                return rowsByTerm.keySet();
+            }
+            // Intersect starting from the rarest trigram
+            List<Set<String>> postings = new ArrayList<>();
+            for (String gram : grams(needle)) {
+                Set<String> terms = termsByGram.get(gram);
+                if (terms == null) {
+                    return Collections.emptySet();
+                }
+                postings.add(terms);
+            }
+            postings.sort((a, b) -> Integer.compare(a.size(), b.size()));
+            Set<String> candidates = new HashSet<>(postings.get(0));
+            for (int i = 1; i < postings.size() && !candidates.isEmpty(); i++) {
+                candidates.retainAll(postings.get(i));
+            }
+            return candidates;
+        }
+
+        private static Set<String> grams(String term) {
+            Set<String> grams = new HashSet<>();
+            for (int i = 0; i + GRAM <= term.length(); i++) {
+                grams.add(term.substring(i, i + GRAM));
+            }
+            return grams;
+        }
+    }
+}
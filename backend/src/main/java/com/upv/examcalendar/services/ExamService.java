@@ -1,11 +1,18 @@
 package com.upv.examcalendar.services;
 
+import com.upv.examcalendar.dtos.BootstrapDTO;
+import com.upv.examcalendar.dtos.ExamConflictDTO;
+import com.upv.examcalendar.dtos.ExamCursor;
 import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.dtos.ExamFilter;
+import com.upv.examcalendar.dtos.ExamPage;
+import com.upv.examcalendar.dtos.FacetCountsDTO;
 import com.upv.examcalendar.dtos.SubjectDTO;
+import com.upv.examcalendar.dtos.SuggestionDTO;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Service interface defining operations for exams
@@ -32,11 +39,22 @@ public interface ExamService {
      */
     ExamDTO updateExam(Long id, ExamDTO examDTO);
 
+    /**
+     * Update an existing exam only if its version still equals expectedVersion
+     * (null skips the check). Throws PreconditionFailedException on a mismatch.
+     */
+    ExamDTO updateExam(Long id, ExamDTO examDTO, Long expectedVersion);
+
     /**
      * Delete an exam
      */
     void deleteExam(Long id);
 
+    /**
+     * Delete an exam only if its version still equals expectedVersion (null skips the check)
+     */
+    void deleteExam(Long id, Long expectedVersion);
+
     /**
      * Find exams by subject code
      */
@@ -65,11 +83,13 @@ public interface ExamService {
 
     /**
      * Find exams by subject name (partial match)
+     * With the search index enabled this also matches acronyms and subject codes,
+     * ignoring accents
      */
     List<ExamDTO> findExamsBySubjectNameContaining(String subjectNamePart);
 
     /**
-     * Find exams by exam place (partial match)
+     * Find exams by exam place (partial match, ignoring accents with the search index)
      */
     List<ExamDTO> findExamsByExamPlaceContaining(String place);
 
@@ -138,4 +158,82 @@ public interface ExamService {
      * semester
      */
     List<SubjectDTO> getSubjectsByDegree(String degree, Integer courseYear, String semester);
+
+    /**
+     * Find exams matching every filter that is set, in a single query
+     */
+    List<ExamDTO> findExams(ExamFilter filter);
+
+    /**
+     * Get the distinct subjects of the exams matching every filter that is set
+     */
+    List<SubjectDTO> findSubjects(ExamFilter filter);
+
+    /**
+     * Count the exams matching the filter and, for each facet option, the exams
+     * it would match in place of the current choice for that facet
+     */
+    FacetCountsDTO countFacets(ExamFilter filter);
+
+    /**
+     * Get every filter facet and the school to degree hierarchy at once
+     */
+    BootstrapDTO getBootstrap();
+
+    /**
+     * Find one keyset page of exams matching the filter, ordered by
+     * (examDay, examHour, id), starting after the given cursor (null for the first page)
+     */
+    ExamPage findExamPage(ExamFilter filter, ExamCursor after, int limit);
+
+    /**
+     * Pass every exam matching the filter to the consumer, in (examDay, examHour, id)
+     * order, without materializing the whole result
+     */
+    void streamExams(ExamFilter filter, Consumer<ExamDTO> consumer);
+
+    /**
+     * Move every exam matching the filter by the given days and hours in one statement.
+     * A filter without criteria is refused unless all is set.
+     * @return number of exams moved
+     */
+    int shiftExams(ExamFilter filter, boolean all, int days, int hours);
+
+    /**
+     * Set the exam place of every exam matching the filter in one statement.
+     * A filter without criteria is refused unless all is set.
+     * @return number of exams changed
+     */
+    int changeExamPlace(ExamFilter filter, boolean all, String examPlace);
+
+    /**
+     * Delete every exam matching the filter in one statement.
+     * A filter without criteria is refused unless all is set.
+     * @return number of exams deleted
+     */
+    int deleteExams(ExamFilter filter, boolean all);
+
+    /**
+     * Detach the partitions of an academic year from the exam table, keeping them as archive tables.
+     * Its exams disappear from every query and read structure as if deleted.
+     * @return number of exams detached
+     */
+    int detachAcademicYear(int academicYear);
+
+    /**
+     * Get up to limit subjects and degrees with a word starting with the query,
+     * ranked by number of exams
+     */
+    List<SuggestionDTO> suggest(String query, int limit);
+
+    /**
+     * Get the pairs of overlapping exams of the same cohort (degree, course
+     * year and semester) where either exam matches the filter
+     */
+    List<ExamConflictDTO> findConflicts(ExamFilter filter);
+
+    /**
+     * Get the exams of the same cohort overlapping the given exam
+     */
+    List<ExamDTO> findConflictsOf(Long id);
 }
\ No newline at end of file
@@ -1,42 +1,80 @@
 package com.upv.examcalendar.services;
 
+import com.upv.examcalendar.dtos.BootstrapDTO;
+import com.upv.examcalendar.dtos.ExamConflictDTO;
+import com.upv.examcalendar.dtos.ExamCursor;
 import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.dtos.ExamFilter;
+import com.upv.examcalendar.dtos.ExamPage;
+import com.upv.examcalendar.dtos.FacetCountsDTO;
 import com.upv.examcalendar.dtos.SubjectDTO;
+import com.upv.examcalendar.dtos.SuggestionDTO;
+import com.upv.examcalendar.events.ExamChangeEvent;
+import com.upv.examcalendar.exceptions.BadRequestException;
+import com.upv.examcalendar.exceptions.PreconditionFailedException;
 import com.upv.examcalendar.exceptions.ResourceNotFoundException;
 import com.upv.examcalendar.mappers.ExamMapper;
 import com.upv.examcalendar.models.EtsinfExam;
 import com.upv.examcalendar.repositories.EtsinfExamRepository;
+import com.upv.examcalendar.repositories.EtsinfExamRepositoryCustom;
+import com.upv.examcalendar.repositories.EtsinfExamSpecifications;
+import com.upv.examcalendar.repositories.ExamPartitions;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Implementation of the ExamService interface
+ * Read methods use SUPPORTS propagation so that, when the in-memory read model
+ * is enabled, they are served from the snapshot without borrowing a connection.
+ * Every write publishes an {@link ExamChangeEvent} for the derived read structures.
  */
 @Service
 @RequiredArgsConstructor
 @Transactional
+@Slf4j
 public class ExamServiceImpl implements ExamService {
 
     private final EtsinfExamRepository examRepository;
     private final ExamMapper examMapper;
+    private final ExamReadModel readModel;
+    private final ExamFacetCache facetCache;
+    private final ExamSearchIndex searchIndex;
+    private final ExamConflictIndex conflictIndex;
+    private final ExamFacetIndex facetIndex;
+    private final ExamPartitions partitions;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${exam.stream.fetch-size:500}")
+    private int streamFetchSize;
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<ExamDTO> getAllExams() {
+        if (readModel.isEnabled()) {
+            return readModel.current().getAll();
+        }
         return examMapper.toDtoList(examRepository.findAll());
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public ExamDTO getExamById(Long id) {
+        if (readModel.isEnabled()) {
+            return readModel.current().findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Exam not found with id: " + id));
+        }
         return examRepository.findById(id)
                 .map(examMapper::toDto)
                 .orElseThrow(() -> new ResourceNotFoundException("Exam not found with id: " + id));
@@ -44,39 +82,63 @@ public class ExamServiceImpl implements ExamService {
 
     @Override
     public ExamDTO createExam(ExamDTO examDTO) {
-        EtsinfExam exam = examMapper.toEntity(examDTO);
-        EtsinfExam savedExam = examRepository.save(exam);
-        return examMapper.toDto(savedExam);
+        ExamDTO saved = examMapper.toDto(examRepository.insertReturning(examMapper.toEntity(examDTO)));
+        eventPublisher.publishEvent(ExamChangeEvent.created(saved));
+        return saved;
     }
 
     @Override
     public ExamDTO updateExam(Long id, ExamDTO examDTO) {
-        return examRepository.findById(id)
-                .map(existingExam -> {
-                    examMapper.updateEntityFromDto(examDTO, existingExam);
-                    return examMapper.toDto(examRepository.save(existingExam));
-                })
-                .orElseThrow(() -> new ResourceNotFoundException("Exam not found with id: " + id));
+        return updateExam(id, examDTO, null);
+    }
+
+    @Override
+    public ExamDTO updateExam(Long id, ExamDTO examDTO, Long expectedVersion) {
+        EtsinfExamRepositoryCustom.RowChange change = examRepository
+                .updateReturning(id, examMapper.toEntity(examDTO), expectedVersion)
+                .orElseThrow(() -> writeFailed(id, expectedVersion));
+        ExamDTO updated = examMapper.toDto(change.getAfter());
+        eventPublisher.publishEvent(ExamChangeEvent.updated(examMapper.toDto(change.getBefore()), updated));
+        return updated;
     }
 
     @Override
     public void deleteExam(Long id) {
-        if (examRepository.existsById(id)) {
-            examRepository.deleteById(id);
-        } else {
-            throw new ResourceNotFoundException("Exam not found with id: " + id);
+        deleteExam(id, null);
+    }
+
+    @Override
+    public void deleteExam(Long id, Long expectedVersion) {
+        EtsinfExam deleted = examRepository.deleteReturning(id, expectedVersion)
+                .orElseThrow(() -> writeFailed(id, expectedVersion));
+        eventPublisher.publishEvent(ExamChangeEvent.deleted(examMapper.toDto(deleted)));
+    }
+
+    /**
+     * Why a single-row write affected nothing; only this failure path costs a second query
+     */
+    private RuntimeException writeFailed(Long id, Long expectedVersion) {
+        if (expectedVersion != null && examRepository.existsById(id)) {
+            return new PreconditionFailedException("Exam " + id + " was modified since version " + expectedVersion);
         }
+        return new ResourceNotFoundException("Exam not found with id: " + id);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<ExamDTO> findExamsBySubjectCode(String subjectCode) {
+        if (readModel.isEnabled()) {
+            return readModel.current().findBySubjectCode(subjectCode);
+        }
         return examMapper.toDtoList(examRepository.findBySubjectCodeIgnoreCase(subjectCode));
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<ExamDTO> findExamsBySchool(String school) {
+        if (readModel.isEnabled()) {
+            return readModel.current().findBySchool(school);
+        }
         // If ETSINF is selected, ensure only data from etsinf_exams table is returned
         if ("ETSINF".equalsIgnoreCase(school)) {
             return examMapper.toDtoList(examRepository.findByDegreeStartingWithIgnoreCase(school));
@@ -86,197 +148,148 @@ public class ExamServiceImpl implements ExamService {
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<ExamDTO> findExamsByDegree(String degree) {
+        if (readModel.isEnabled()) {
+            return readModel.current().findByDegree(degree);
+        }
         return examMapper.toDtoList(examRepository.findByDegreeIgnoreCase(degree));
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<ExamDTO> findExamsByCourseYearAndSemester(Integer courseYear, String semester) {
+        if (readModel.isEnabled()) {
+            return readModel.current().findByCourseYearAndSemester(courseYear, semester);
+        }
         return examMapper.toDtoList(examRepository.findByCourseYearAndSemester(courseYear, semester));
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<ExamDTO> findExamsByDateRange(LocalDate startDate, LocalDate endDate) {
+        if (readModel.isEnabled()) {
+            return readModel.current().findByDateRange(startDate, endDate);
+        }
         return examMapper.toDtoList(examRepository.findByExamDayBetween(startDate, endDate));
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<ExamDTO> findExamsBySubjectNameContaining(String subjectNamePart) {
+        if (searchIndex.isEnabled()) {
+            return searchIndex.searchSubjects(subjectNamePart);
+        }
+        if (readModel.isEnabled()) {
+            return readModel.current().findBySubjectNameContaining(subjectNamePart);
+        }
         return examMapper.toDtoList(examRepository.findBySubjectNameContainingIgnoreCase(subjectNamePart));
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<ExamDTO> findExamsByExamPlaceContaining(String place) {
+        if (searchIndex.isEnabled()) {
+            return searchIndex.searchPlaces(place);
+        }
+        if (readModel.isEnabled()) {
+            return readModel.current().findByExamPlaceContaining(place);
+        }
         return examMapper.toDtoList(examRepository.findByExamPlaceContaining(place));
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<String> getAllSchools() {
         try {
-            // Use the repository method to get all schools
-            return examRepository.findAllSchools();
+            return facets().getSchools();
         } catch (Exception e) {
-            System.err.println("Error fetching all schools: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error fetching all schools", e);
             return new ArrayList<>();
         }
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<String> getAllDegreesDistinct() {
         try {
-            return examRepository.findDistinctDegrees();
+            return facets().getDegrees();
         } catch (Exception e) {
-            System.err.println("Error fetching distinct degrees: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error fetching distinct degrees", e);
             return new ArrayList<>();
         }
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<String> getAllDegrees() {
-        return examRepository.findAllDegrees();
+        return facets().getDegrees();
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<String> getAllSemestersDistinct() {
         try {
-            return examRepository.findDistinctSemesters();
+            return facets().getSemesters();
         } catch (Exception e) {
-            System.err.println("Error fetching distinct semesters: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error fetching distinct semesters", e);
             return new ArrayList<>();
         }
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<String> getAllSemesters() {
-        return examRepository.findAllSemesters();
+        return facets().getSemesters();
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<Integer> getAllCourseYearsDistinct() {
         try {
-            return examRepository.findDistinctCourseYears();
+            return facets().getCourseYears();
         } catch (Exception e) {
-            System.err.println("Error fetching distinct course years: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error fetching distinct course years", e);
             return new ArrayList<>();
         }
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<Integer> getAllCourseYears() {
-        return examRepository.findAllCourseYears();
+        return facets().getCourseYears();
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<SubjectDTO> getAllSubjectsWithAcronymsDistinct() {
         try {
-            List<Object[]> results = examRepository.findDistinctSubjectsWithAcronyms();
-            List<SubjectDTO> subjects = new ArrayList<>();
-
-            System.out.println("Found " + results.size() + " distinct subjects with acronyms");
-
-            for (Object[] result : results) {
-                try {
-                    String name = (String) result[0];
-                    String acronym = (String) result[1];
-
-                    // Handle null values
-                    if (name == null) {
-                        name = "Unknown";
-                    }
-                    if (acronym == null) {
-                        acronym = "";
-                    }
-
-                    System.out.println("Subject: name=" + name + ", acronym=" + acronym);
-
-                    subjects.add(new SubjectDTO(name, acronym));
-                } catch (Exception e) {
-                    System.err.println("Error processing subject: " + e.getMessage());
-                    e.printStackTrace();
-                    // Continue with next subject
-                }
-            }
-
-            System.out.println("Returning " + subjects.size() + " distinct SubjectDTO objects");
-            return subjects;
+            return facets().getSubjects();
         } catch (Exception e) {
-            System.err.println("Error in getAllSubjectsWithAcronymsDistinct: " + e.getMessage());
-            e.printStackTrace();
-            return new ArrayList<>(); // Return empty list on error
+            log.error("Error in getAllSubjectsWithAcronymsDistinct", e);
+            return new ArrayList<>();
         }
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<SubjectDTO> getAllSubjectsWithAcronyms() {
         try {
-            List<Object[]> results = examRepository.findAllSubjectsWithAcronyms();
-            List<SubjectDTO> subjects = new ArrayList<>();
-
-            System.out.println("Found " + results.size() + " subjects with acronyms");
-
-            for (Object[] result : results) {
-                try {
-                    String name = (String) result[0];
-                    String acronym = (String) result[1];
-
-                    // Handle null values
-                    if (name == null) {
-                        name = "Unknown";
-                    }
-                    if (acronym == null) {
-                        acronym = "";
-                    }
-
-                    System.out.println("Subject: name=" + name + ", acronym=" + acronym);
-
-                    subjects.add(new SubjectDTO(name, acronym));
-                } catch (Exception e) {
-                    System.err.println("Error processing subject: " + e.getMessage());
-                    e.printStackTrace();
-                    // Continue with next subject
-                }
-            }
-
-            System.out.println("Returning " + subjects.size() + " SubjectDTO objects");
-            for (SubjectDTO subject : subjects) {
-                System.out.println("  - " + subject.getName() + " (" + subject.getAcronym() + ")");
-            }
-
-            return subjects;
+            return facets().getSubjects();
         } catch (Exception e) {
-            System.err.println("Error in getAllSubjectsWithAcronyms: " + e.getMessage());
-            e.printStackTrace();
-            return new ArrayList<>(); // Return empty list on error
+            log.error("Error in getAllSubjectsWithAcronyms", e);
+            return new ArrayList<>();
         }
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<String> getAllSubDegrees() {
         try {
-            return examRepository.findAllSubDegrees();
+            return facets().getDegrees();
         } catch (Exception e) {
             // Log the error
-            System.err.println("Error fetching all degrees (formerly sub-degrees): " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error fetching all degrees (formerly sub-degrees)", e);
 
             // Return empty list as fallback
             return new ArrayList<>();
@@ -284,16 +297,13 @@ public class ExamServiceImpl implements ExamService {
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<String> getDegreesBySchool(String school) {
         try {
-            // Format the pattern correctly for SQL LIKE
-            String pattern = school + "%";
-            return examRepository.findDegreesBySchool(pattern);
+            return degreesStartingWith(school);
         } catch (Exception e) {
             // Log the error
-            System.err.println("Error fetching degrees for school " + school + ": " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error fetching degrees for school {}", school, e);
 
             // Return empty list as fallback
             return new ArrayList<>();
@@ -301,58 +311,170 @@ public class ExamServiceImpl implements ExamService {
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<String> getSubDegreesByDegree(String degree) {
         try {
             // This uses the degree as a parent degree
-            String pattern = degree + "%";
-            return examRepository.findSubDegreesByParentDegree(pattern);
+            return degreesStartingWith(degree);
         } catch (Exception e) {
-            System.err.println("Error fetching sub-degrees for degree " + degree + ": " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error fetching sub-degrees for degree {}", degree, e);
             return new ArrayList<>();
         }
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<SubjectDTO> getSubjectsByDegree(String degree, Integer courseYear, String semester) {
         try {
-            // Get all exams for the specified degree
-            List<EtsinfExam> exams = examRepository.findByDegreeIgnoreCase(degree);
-
-            // Apply additional filters if provided
-            if (courseYear != null) {
-                exams = exams.stream()
-                        .filter(exam -> exam.getCourseYear() != null && exam.getCourseYear().equals(courseYear))
-                        .collect(Collectors.toList());
-            }
-
-            if (semester != null) {
-                exams = exams.stream()
-                        .filter(exam -> exam.getSemester() != null && exam.getSemester().equals(semester))
-                        .collect(Collectors.toList());
-            }
-
-            // Extract distinct subjects from the filtered exams
-            Set<SubjectDTO> distinctSubjects = new HashSet<>();
-
-            for (EtsinfExam exam : exams) {
-                SubjectDTO subject = new SubjectDTO();
-                subject.setName(exam.getSubjectName());
-                subject.setAcronym(exam.getAcronym() != null ? exam.getAcronym() : exam.getSubjectCode());
-                distinctSubjects.add(subject);
-            }
-
-            System.out.println("Found " + distinctSubjects.size() + " distinct subjects for degree " + degree +
-                    (courseYear != null ? ", year " + courseYear : "") +
-                    (semester != null ? ", semester " + semester : ""));
-
-            return new ArrayList<>(distinctSubjects);
+            List<SubjectDTO> subjects = findSubjects(ExamFilter.builder()
+                    .degree(degree)
+                    .courseYear(courseYear)
+                    .semester(semester)
+                    .build());
+
+            log.debug("Found {} distinct subjects for degree {}, year {}, semester {}",
+                    subjects.size(), degree, courseYear, semester);
+            return subjects;
         } catch (Exception e) {
-            System.err.println("Error fetching subjects for degree " + degree + ": " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error fetching subjects for degree {}", degree, e);
             return new ArrayList<>();
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<ExamDTO> findExams(ExamFilter filter) {
+        if (readModel.isEnabled()) {
+            return readModel.current().findByFilter(filter);
+        }
+        return examMapper.toDtoList(examRepository.findAll(EtsinfExamSpecifications.matching(filter)));
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<SubjectDTO> findSubjects(ExamFilter filter) {
+        if (facetIndex.isEnabled()) {
+            return facetIndex.findSubjects(filter);
+        }
+        if (readModel.isEnabled()) {
+            return readModel.current().findSubjects(filter);
+        }
+        return examRepository.findDistinctSubjects(EtsinfExamSpecifications.matching(filter));
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public FacetCountsDTO countFacets(ExamFilter filter) {
+        if (facetIndex.isEnabled()) {
+            return facetIndex.countFacets(filter);
+        }
+        // Grouped in the database by facet values, counted per facet in memory
+        return ExamFacetIndex.countGroups(filter, examRepository.findFacetGroups(
+                EtsinfExamSpecifications.matching(ExamFacetIndex.otherCriteria(filter))));
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public ExamPage findExamPage(ExamFilter filter, ExamCursor after, int limit) {
+        if (readModel.isEnabled()) {
+            return readModel.current().findPage(filter, after, limit);
+        }
+        // Fetch one extra row to know whether there is a next page
+        List<EtsinfExam> exams = examRepository.findPage(EtsinfExamSpecifications.matching(filter), after, limit + 1);
+        return ExamPage.of(examMapper.toDtoList(exams), limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamExams(ExamFilter filter, Consumer<ExamDTO> consumer) {
+        if (readModel.isEnabled()) {
+            readModel.current().findByFilter(filter).forEach(consumer);
+            return;
+        }
+        try (Stream<EtsinfExam> exams = examRepository.streamAll(EtsinfExamSpecifications.matching(filter),
+                streamFetchSize)) {
+            exams.map(examMapper::toDto).forEach(consumer);
+        }
+    }
+
+    @Override
+    public int shiftExams(ExamFilter filter, boolean all, int days, int hours) {
+        return bulk(examRepository.shiftMatching(bulkSpec(filter, all), days, hours));
+    }
+
+    @Override
+    public int changeExamPlace(ExamFilter filter, boolean all, String examPlace) {
+        return bulk(examRepository.updateExamPlaceMatching(bulkSpec(filter, all), examPlace));
+    }
+
+    @Override
+    public int deleteExams(ExamFilter filter, boolean all) {
+        return bulk(examRepository.deleteMatching(bulkSpec(filter, all)));
+    }
+
+    @Override
+    public int detachAcademicYear(int academicYear) {
+        return bulk(Math.toIntExact(partitions.detachAcademicYear(academicYear)));
+    }
+
+    /**
+     * Specification of a bulk write. A filter without criteria would touch every exam,
+     * so it needs all=true; blank text filters match everything too and are always refused.
+     */
+    private static Specification<EtsinfExam> bulkSpec(ExamFilter filter, boolean all) {
+        if (filter.hasBlankText()) {
+            throw new BadRequestException("Bulk operation filters cannot be blank");
+        }
+        if (!all && !filter.hasCriteria()) {
+            throw new BadRequestException("A bulk operation needs at least one filter, or all=true to change every exam");
+        }
+        return EtsinfExamSpecifications.matching(filter);
+    }
+
+    /**
+     * One change event for the whole statement, so read structures rebuild and the version moves once
+     */
+    private int bulk(int affected) {
+        if (affected > 0) {
+            eventPublisher.publishEvent(ExamChangeEvent.bulk());
+        }
+        return affected;
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public BootstrapDTO getBootstrap() {
+        return facets().getBootstrap();
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<SuggestionDTO> suggest(String query, int limit) {
+        return facets().getSuggestions().suggest(query, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<ExamConflictDTO> findConflicts(ExamFilter filter) {
+        return conflictIndex.findConflicts(filter);
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<ExamDTO> findConflictsOf(Long id) {
+        return conflictIndex.findConflictsOf(id);
+    }
+
+    /**
+     * Facets from the read model when enabled, otherwise from the facet cache
+     */
+    private ExamFacets facets() {
+        return readModel.isEnabled() ? readModel.current().getFacets() : facetCache.facets();
+    }
+
+    private List<String> degreesStartingWith(String prefix) {
+        return readModel.isEnabled()
+                ? readModel.current().getFacets().getDegreesStartingWith(prefix)
+                : facetCache.degreesStartingWith(prefix);
+    }
+}
@@ -0,0 +1,320 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamCursor;
+import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.dtos.ExamFilter;
+import com.upv.examcalendar.dtos.ExamPage;
+import com.upv.examcalendar.dtos.SubjectDTO;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+
+/**
+ * Immutable, fully indexed view of every exam row.
+ * Exams are held in {@link ExamColumns} and the indexes are arrays of row
+ * numbers, so the snapshot keeps no per-exam objects; exams are built when
+ * a result is read. A snapshot is never modified once built: writes produce
+ * a new copy which {@link ExamReadModel} swaps in atomically, so readers need
+ * no locking.
+ */
+public final class ExamSnapshot {
+
+    /**
+     * Order used for every list held by the snapshot (day, hour, id)
+     */
+    public static final Comparator<ExamDTO> CHRONOLOGICAL = Comparator
+            .comparing(ExamDTO::getExamDay, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(ExamDTO::getExamHour, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(ExamDTO::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private static final int[] NO_ROWS = new int[0];
+
+    private static final ExamSnapshot EMPTY = new ExamSnapshot(ExamColumns.of(Collections.emptyList()));
+
+    private final ExamColumns columns;
+    private final int[] all;
+    private final NavigableMap<String, int[]> byDegree;
+    private final NavigableMap<String, int[]> bySchool;
+    private final Map<String, int[]> byCohort;
+    private final Map<String, int[]> bySubjectCode;
+
+    private final ExamFacets facets;
+
+    private ExamSnapshot(ExamColumns columns) {
+        this.columns = columns;
+        this.all = ExamColumns.range(0, columns.size());
+        this.byDegree = Collections.unmodifiableNavigableMap(
+                group(columns, row -> lower(columns.string(columns.degree(row))), new TreeMap<>()));
+        this.bySchool = Collections.unmodifiableNavigableMap(
+                group(columns, row -> lower(schoolOf(columns.string(columns.degree(row)))), new TreeMap<>()));
+        this.byCohort = Collections.unmodifiableMap(group(columns,
+                row -> cohortKey(columns.courseYear(row), columns.string(columns.semester(row))), new HashMap<>()));
+        this.bySubjectCode = Collections.unmodifiableMap(
+                group(columns, row -> lower(columns.string(columns.subjectCode(row))), new HashMap<>()));
+
+        this.facets = ExamFacets.fromExams(columns.view(all));
+    }
+
+    /**
+     * Snapshot without any exams
+     */
+    public static ExamSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Build a snapshot from a full set of exams
+     */
+    public static ExamSnapshot of(Collection<ExamDTO> exams) {
+        return exams.isEmpty() ? EMPTY : new ExamSnapshot(ExamColumns.of(exams));
+    }
+
+    /**
+     * Copy of this snapshot with the given exam inserted or replaced
+     */
+    public ExamSnapshot withExam(ExamDTO exam) {
+        int replaced = columns.rowOf(exam.getId());
+        List<ExamDTO> copy = new ArrayList<>(columns.size() + 1);
+        for (int row = 0; row < columns.size(); row++) {
+            if (row != replaced) {
+                copy.add(columns.get(row));
+            }
+        }
+        copy.add(exam);
+        return new ExamSnapshot(ExamColumns.of(copy));
+    }
+
+    /**
+     * Copy of this snapshot without the given exam
+     */
+    public ExamSnapshot withoutExam(Long id) {
+        int removed = columns.rowOf(id);
+        if (removed < 0) {
+            return this;
+        }
+        List<ExamDTO> copy = new ArrayList<>(columns.size());
+        for (int row = 0; row < columns.size(); row++) {
+            if (row != removed) {
+                copy.add(columns.get(row));
+            }
+        }
+        return of(copy);
+    }
+
+    public int size() {
+        return columns.size();
+    }
+
+    /**
+     * Distinct strings held by the snapshot
+     */
+    public int dictionarySize() {
+        return columns.dictionarySize();
+    }
+
+    public List<ExamDTO> getAll() {
+        return columns.view(all);
+    }
+
+    public Optional<ExamDTO> findById(Long id) {
+        int row = columns.rowOf(id);
+        return row >= 0 ? Optional.of(columns.get(row)) : Optional.empty();
+    }
+
+    public List<ExamDTO> findBySubjectCode(String subjectCode) {
+        return columns.view(subjectCodeRows(subjectCode));
+    }
+
+    /**
+     * Same semantics as the case-insensitive "degree starts with" repository query
+     */
+    public List<ExamDTO> findBySchool(String school) {
+        return columns.view(schoolRows(school));
+    }
+
+    public List<ExamDTO> findByDegree(String degree) {
+        return columns.view(degreeRows(degree));
+    }
+
+    public List<ExamDTO> findByCourseYearAndSemester(Integer courseYear, String semester) {
+        return columns.view(byCohort.getOrDefault(cohortKey(courseYear, semester), NO_ROWS));
+    }
+
+    public List<ExamDTO> findByDateRange(LocalDate startDate, LocalDate endDate) {
+        return columns.view(dateRangeRows(startDate, endDate));
+    }
+
+    public List<ExamDTO> findBySubjectNameContaining(String subjectNamePart) {
+        // A missing name counts as empty, so it only matches an empty part
+        boolean matchesNull = subjectNamePart.isEmpty();
+        BitSet names = columns.codes(ExamColumns.containing(subjectNamePart));
+        return columns.view(ExamColumns.select(all, row -> {
+            int code = columns.subjectName(row);
+            return code == ExamColumns.NULL_CODE ? matchesNull : names.get(code);
+        }));
+    }
+
+    public List<ExamDTO> findByExamPlaceContaining(String place) {
+        BitSet places = columns.codes(ExamColumns.containing(place));
+        return columns.view(ExamColumns.select(all, row -> {
+            int code = columns.examPlace(row);
+            return code != ExamColumns.NULL_CODE && places.get(code);
+        }));
+    }
+
+    /**
+     * Distinct filter values of the exams in this snapshot
+     */
+    public ExamFacets getFacets() {
+        return facets;
+    }
+
+    /**
+     * Exams matching every filter that is set, starting from the narrowest index
+     */
+    public List<ExamDTO> findByFilter(ExamFilter filter) {
+        return columns.view(filterRows(filter));
+    }
+
+    private int[] filterRows(ExamFilter filter) {
+        int[] candidates;
+        if (filter.getDegree() != null) {
+            candidates = degreeRows(filter.getDegree());
+        } else if (filter.getSchool() != null) {
+            candidates = schoolRows(filter.getSchool());
+        } else if (filter.getSubjectCode() != null) {
+            candidates = subjectCodeRows(filter.getSubjectCode());
+        } else if (filter.getCourseYear() != null && filter.getSemester() != null) {
+            candidates = byCohort.getOrDefault(cohortKey(filter.getCourseYear(), filter.getSemester()), NO_ROWS);
+        } else if (filter.firstDay() != null || filter.lastDay() != null) {
+            candidates = dateRangeRows(
+                    filter.firstDay() != null ? filter.firstDay() : LocalDate.MIN,
+                    filter.lastDay() != null ? filter.lastDay() : LocalDate.MAX);
+        } else {
+            candidates = all;
+        }
+        return filter.hasCriteria() ? ExamColumns.select(candidates, columns.matcher(filter)) : candidates;
+    }
+
+    /**
+     * One keyset page of the exams matching the filter
+     */
+    public ExamPage findPage(ExamFilter filter, ExamCursor after, int limit) {
+        List<ExamDTO> matching = findByFilter(filter);
+        int start = 0;
+        if (after != null) {
+            ExamDTO probe = ExamDTO.builder()
+                    .examDay(after.getExamDay())
+                    .examHour(after.getExamHour())
+                    .id(after.getId())
+                    .build();
+            int position = Collections.binarySearch(matching, probe, CHRONOLOGICAL);
+            start = position >= 0 ? position + 1 : -position - 1;
+        }
+        int end = Math.min(matching.size(), start + limit + 1);
+        return ExamPage.of(matching.subList(start, end), limit);
+    }
+
+    /**
+     * Distinct subjects of the exams matching the filter, ordered by name
+     */
+    public List<SubjectDTO> findSubjects(ExamFilter filter) {
+        int[] rows = filterRows(filter);
+        // Each distinct (name, acronym or code) pair once, in chronological order of first appearance
+        Map<Long, Integer> firstRowOfPair = new LinkedHashMap<>();
+        for (int row : rows) {
+            int name = columns.subjectName(row);
+            int label = columns.acronym(row) != ExamColumns.NULL_CODE ? columns.acronym(row) : columns.subjectCode(row);
+            firstRowOfPair.putIfAbsent(((long) name << 32) | (label & 0xffffffffL), row);
+        }
+        List<SubjectDTO> subjects = new ArrayList<>(firstRowOfPair.size());
+        for (Map.Entry<Long, Integer> pair : firstRowOfPair.entrySet()) {
+            subjects.add(new SubjectDTO(columns.string((int) (pair.getKey() >> 32)),
+                    columns.string(pair.getKey().intValue())));
+        }
+        subjects.sort(Comparator.comparing(SubjectDTO::getName, Comparator.nullsLast(Comparator.naturalOrder())));
+        return subjects;
+    }
+
+    private int[] subjectCodeRows(String subjectCode) {
+        return bySubjectCode.getOrDefault(lower(subjectCode), NO_ROWS);
+    }
+
+    private int[] degreeRows(String degree) {
+        return byDegree.getOrDefault(lower(degree), NO_ROWS);
+    }
+
+    private int[] schoolRows(String school) {
+        String prefix = lower(school);
+        // The per-school bucket is exact unless a longer school name shares the prefix
+        int[] bucket = bySchool.get(prefix);
+        if (bucket != null && bySchool.subMap(prefix, false, prefix + Character.MAX_VALUE, false).isEmpty()) {
+            return bucket;
+        }
+        return merge(byDegree.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values());
+    }
+
+    private int[] dateRangeRows(LocalDate startDate, LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            return NO_ROWS;
+        }
+        // Rows are in chronological order, so the range is contiguous
+        return ExamColumns.range(columns.firstRowOnOrAfter(startDate), columns.firstRowAfter(endDate));
+    }
+
+    /**
+     * School of a degree: its first word, as computed by the repository
+     */
+    static String schoolOf(String degree) {
+        if (degree == null) {
+            return "";
+        }
+        int space = degree.indexOf(' ');
+        return space < 0 ? degree : degree.substring(0, space);
+    }
+
+    private static String cohortKey(Integer courseYear, String semester) {
+        return courseYear + "|" + semester;
+    }
+
+    private static String lower(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static <K, M extends Map<K, int[]>> M group(ExamColumns columns, IntFunction<K> key, M target) {
+        Map<K, List<Integer>> rows = new HashMap<>();
+        for (int row = 0; row < columns.size(); row++) {
+            K value = key.apply(row);
+            if (value != null) {
+                rows.computeIfAbsent(value, k -> new ArrayList<>()).add(row);
+            }
+        }
+        rows.forEach((value, list) -> target.put(value, list.stream().mapToInt(Integer::intValue).toArray()));
+        return target;
+    }
+
+    private static int[] merge(Collection<int[]> buckets) {
+        if (buckets.isEmpty()) {
+            return NO_ROWS;
+        }
+        if (buckets.size() == 1) {
+            return buckets.iterator().next();
+        }
+        // Ascending rows are in chronological order
+        return buckets.stream().flatMapToInt(Arrays::stream).sorted().toArray();
+    }
+}
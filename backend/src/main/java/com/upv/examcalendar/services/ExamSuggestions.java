@@ -0,0 +1,137 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.SuggestionDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Immutable prefix index for the typeahead endpoint.
+ * Every word start of every subject name, acronym and degree name is stored
+ * as an accent-folded key in one sorted array; a query is a binary search for
+ * the range of keys starting with it, and the k suggestions with the most
+ * exams in that range are returned.
+ */
+public final class ExamSuggestions {
+
+    private static final Comparator<SuggestionDTO> BY_EXAM_COUNT = Comparator
+            .comparingInt(SuggestionDTO::getExamCount)
+            .thenComparing(SuggestionDTO::getName, Comparator.reverseOrder());
+
+    private final SuggestionDTO[] suggestions;
+    private final String[] keys;
+    private final int[] owners;
+
+    private ExamSuggestions(List<SuggestionDTO> suggestions) {
+        this.suggestions = suggestions.toArray(new SuggestionDTO[0]);
+
+        List<String> keyList = new ArrayList<>();
+        List<Integer> ownerList = new ArrayList<>();
+        for (int i = 0; i < this.suggestions.length; i++) {
+            SuggestionDTO suggestion = this.suggestions[i];
+            for (String key : wordStarts(ExamSearchIndex.fold(suggestion.getName()))) {
+                keyList.add(key);
+                ownerList.add(i);
+            }
+            if (suggestion.getAcronym() != null && !suggestion.getAcronym().isEmpty()) {
+                keyList.add(ExamSearchIndex.fold(suggestion.getAcronym()));
+                ownerList.add(i);
+            }
+        }
+
+        Integer[] order = new Integer[keyList.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(keyList::get));
+        this.keys = new String[order.length];
+        this.owners = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            keys[i] = keyList.get(order[i]);
+            owners[i] = ownerList.get(order[i]);
+        }
+    }
+
+    /**
+     * Build the index from the facet counts, one suggestion per distinct
+     * subject (name and acronym) and per degree
+     */
+    public static ExamSuggestions of(ExamFacets facets) {
+        Map<List<String>, Integer> subjectCounts = new HashMap<>();
+        Map<String, Integer> degreeCounts = new HashMap<>();
+        facets.getCounts().forEach((key, count) -> {
+            if (key.getSubjectName() != null) {
+                subjectCounts.merge(Arrays.asList(key.getSubjectName(), key.getAcronym()), count, Integer::sum);
+            }
+            if (key.getDegree() != null) {
+                degreeCounts.merge(key.getDegree(), count, Integer::sum);
+            }
+        });
+
+        List<SuggestionDTO> suggestions = new ArrayList<>();
+        subjectCounts.forEach((subject, count) -> suggestions.add(
+                new SuggestionDTO(SuggestionDTO.Type.SUBJECT, subject.get(0), subject.get(1), count)));
+        degreeCounts.forEach((degree, count) -> suggestions.add(
+                new SuggestionDTO(SuggestionDTO.Type.DEGREE, degree, null, count)));
+        return new ExamSuggestions(suggestions);
+    }
+
+    /**
+     * Up to limit suggestions with a word starting with the query, most exams first
+     */
+    public List<SuggestionDTO> suggest(String query, int limit) {
+        String prefix = ExamSearchIndex.fold(query).trim();
+        if (prefix.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        int from = lowerBound(prefix);
+        BitSet seen = new BitSet(suggestions.length);
+        PriorityQueue<SuggestionDTO> top = new PriorityQueue<>(limit + 1, BY_EXAM_COUNT);
+        for (int i = from; i < keys.length && keys[i].startsWith(prefix); i++) {
+            int owner = owners[i];
+            if (seen.get(owner)) {
+                continue;
+            }
+            seen.set(owner);
+            top.add(suggestions[owner]);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<SuggestionDTO> result = new ArrayList<>(top);
+        result.sort(BY_EXAM_COUNT.reversed());
+        return result;
+    }
+
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static List<String> wordStarts(String text) {
+        List<String> starts = new ArrayList<>();
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i)) && (i == 0 || Character.isWhitespace(text.charAt(i - 1)))) {
+                starts.add(text.substring(i));
+            }
+        }
+        return starts;
+    }
+}
@@ -0,0 +1,65 @@
+package com.upv.examcalendar.services;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Exam time slots as [start, end) minutes since the epoch, ordered by start.
+ * No slot lasts longer than the longest one added, so the slots overlapping
+ * an interval all start within one range lookup before its end: a lookup is
+ * O(log n + k) for k nearby slots. Not thread safe.
+ */
+final class ExamTimeline {
+
+    private static final long MINUTES_PER_DAY = 24 * 60;
+
+    // Start minute -> exam id -> end minute
+    private final NavigableMap<Long, Map<Long, Long>> slots = new TreeMap<>();
+
+    // Longest slot ever added; never lowered, which only widens the lookups
+    private long longest;
+
+    /**
+     * Minutes since the epoch at which an exam starts
+     */
+    static long minuteOf(LocalDate day, LocalTime hour) {
+        return day.toEpochDay() * MINUTES_PER_DAY + hour.toSecondOfDay() / 60;
+    }
+
+    void add(Long id, long start, long end) {
+        slots.computeIfAbsent(start, minute -> new HashMap<>()).put(id, end);
+        longest = Math.max(longest, end - start);
+    }
+
+    void remove(Long id, long start) {
+        Map<Long, Long> atStart = slots.get(start);
+        if (atStart != null && atStart.remove(id) != null && atStart.isEmpty()) {
+            slots.remove(start);
+        }
+    }
+
+    boolean isEmpty() {
+        return slots.isEmpty();
+    }
+
+    /**
+     * Ids of the slots overlapping [start, end)
+     */
+    List<Long> overlapping(long start, long end) {
+        List<Long> ids = new ArrayList<>();
+        for (Map<Long, Long> atStart : slots.subMap(start - longest, false, end, false).values()) {
+            for (Map.Entry<Long, Long> slot : atStart.entrySet()) {
+                if (slot.getValue() > start) {
+                    ids.add(slot.getKey());
+                }
+            }
+        }
+        return ids;
+    }
+}
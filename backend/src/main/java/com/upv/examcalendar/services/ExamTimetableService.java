@@ -0,0 +1,160 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.dtos.TimetableRequestDTO;
+import com.upv.examcalendar.dtos.TimetableRequestDTO.SubjectEntry;
+import com.upv.examcalendar.dtos.TimetableResultDTO;
+import com.upv.examcalendar.exceptions.BadRequestException;
+import com.upv.examcalendar.exceptions.ServiceUnavailableException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Exam period planning with {@link ExamTimetableSolver}.
+ * Translates the request into cohort and subject indexes, searches on a
+ * dedicated pool with one worker per core for the requested time, and turns
+ * the best assignment into one proposed exam per subject and cohort. One
+ * search runs at a time since it already uses every core; a second request
+ * while one is running gets 503. Applied proposals are inserted through the
+ * bulk import.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExamTimetableService {
+
+    private static final int DEFAULT_DURATION_MIN = 120;
+
+    private final ExamImportService importService;
+
+    @Value("${exam.timetable.threads:0}")
+    private int threads;
+
+    @Value("${exam.timetable.default-time-limit-ms:10000}")
+    private long defaultTimeLimitMs;
+
+    @Value("${exam.timetable.max-time-limit-ms:60000}")
+    private long maxTimeLimitMs;
+
+    @Value("${exam.timetable.max-cells:2000000}")
+    private long maxCells;
+
+    private final ReentrantLock running = new ReentrantLock();
+    private ExecutorService workers;
+
+    @PostConstruct
+    void init() {
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        CustomizableThreadFactory factory = new CustomizableThreadFactory("exam-timetable-");
+        factory.setDaemon(true);
+        workers = Executors.newFixedThreadPool(threads, factory);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Best timetable found within the time limit, inserted when the request asks to apply it
+     */
+    public TimetableResultDTO plan(TimetableRequestDTO request) {
+        // Distinct subjects by code and cohorts by (degree, course year, semester), in request order
+        Map<String, Integer> subjects = new LinkedHashMap<>();
+        Map<String, Integer> cohorts = new HashMap<>();
+        List<Set<Integer>> cohortsOfSubject = new ArrayList<>();
+        for (SubjectEntry entry : request.getSubjects()) {
+            int subject = subjects.computeIfAbsent(entry.getSubjectCode().trim().toLowerCase(Locale.ROOT), code -> {
+                cohortsOfSubject.add(new LinkedHashSet<>());
+                return cohortsOfSubject.size() - 1;
+            });
+            String cohort = entry.getDegree().trim().toLowerCase(Locale.ROOT) + '\u0000'
+                    + entry.getCourseYear() + '\u0000' + entry.getSemester().trim();
+            cohortsOfSubject.get(subject).add(cohorts.computeIfAbsent(cohort, key -> cohorts.size()));
+        }
+        int[][] subjectCohorts = new int[cohortsOfSubject.size()][];
+        for (int i = 0; i < subjectCohorts.length; i++) {
+            subjectCohorts[i] = cohortsOfSubject.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        List<LocalDate> days = new ArrayList<>(new TreeSet<>(request.getDays()));
+        List<LocalTime> startTimes = new ArrayList<>(new TreeSet<>(request.getStartTimes()));
+        List<String> rooms = request.getRooms() != null
+                ? new ArrayList<>(new LinkedHashSet<>(request.getRooms()))
+                : new ArrayList<>();
+        // Every worker keeps a counter per cohort and timeslot, and per room and timeslot
+        long timeslots = (long) days.size() * startTimes.size();
+        if (Math.max(cohorts.size(), rooms.size()) * timeslots > maxCells) {
+            throw new BadRequestException(String.format(
+                    "Too large to plan: %d cohorts and %d rooms over %d days of %d start times; "
+                            + "cohorts or rooms times timeslots can be at most %d",
+                    cohorts.size(), rooms.size(), days.size(), startTimes.size(), maxCells));
+        }
+        ExamTimetableSolver.Problem problem = new ExamTimetableSolver.Problem(
+                subjectCohorts, cohorts.size(), days.size(), startTimes.size(), rooms.size());
+
+        long timeLimitMs = Math.min(request.getTimeLimitMs() != null ? request.getTimeLimitMs() : defaultTimeLimitMs,
+                maxTimeLimitMs);
+        if (!running.tryLock()) {
+            throw new ServiceUnavailableException("A timetable search is already running, retry later");
+        }
+        ExamTimetableSolver.Result result;
+        try {
+            result = ExamTimetableSolver.solve(problem, timeLimitMs, threads, System.nanoTime(), workers);
+        } finally {
+            running.unlock();
+        }
+        ExamTimetableSolver.Solution best = result.best;
+        if (best == null) {
+            throw new ServiceUnavailableException("The timetable search was interrupted");
+        }
+        log.info("Planned {} subjects for {} cohorts in {} ms: cost {}, {} clashes, {} room conflicts, "
+                        + "{} restarts, {} iterations", subjectCohorts.length, cohorts.size(), result.elapsedMs,
+                best.cost, best.clashes, best.roomConflicts, result.restarts, result.iterations);
+
+        List<ExamDTO> exams = new ArrayList<>();
+        for (SubjectEntry entry : request.getSubjects()) {
+            int subject = subjects.get(entry.getSubjectCode().trim().toLowerCase(Locale.ROOT));
+            int timeslot = best.timeslot[subject];
+            exams.add(ExamDTO.builder()
+                    .examDay(days.get(timeslot / startTimes.size()))
+                    .examHour(startTimes.get(timeslot % startTimes.size()))
+                    .durationMin(entry.getDurationMin() != null ? entry.getDurationMin() : DEFAULT_DURATION_MIN)
+                    .subjectCode(entry.getSubjectCode().trim())
+                    .subjectName(entry.getSubjectName())
+                    .acronym(entry.getAcronym())
+                    .degree(entry.getDegree())
+                    .courseYear(entry.getCourseYear())
+                    .semester(entry.getSemester())
+                    .examPlace(rooms.isEmpty() ? null : rooms.get(best.room[subject]))
+                    .build());
+        }
+        exams.sort(ExamSnapshot.CHRONOLOGICAL.thenComparing(ExamDTO::getDegree));
+
+        return new TimetableResultDTO(exams, best.clashes, best.roomConflicts, best.sameDayPairs,
+                best.nextDayPairs, best.cost, result.restarts, result.iterations, result.elapsedMs,
+                request.isApply() ? importService.importExams(exams, false) : null);
+    }
+}
@@ -0,0 +1,374 @@
+package com.upv.examcalendar.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Exam timetabling by parallel simulated annealing restarts.
+ * Each subject gets one timeslot (a candidate day and start time) and, when
+ * rooms are given, one room. The cost counts, per cohort, pairs of exams in
+ * the same timeslot, on the same day and on consecutive exam days, plus pairs
+ * of subjects sharing a room and timeslot. Counts per cohort, day and room are
+ * kept in flat arrays, so a move is evaluated in O(cohorts of the subject).
+ * Every worker runs independent restarts until the deadline and publishes
+ * its best assignment; the best one over all workers is returned.
+ */
+final class ExamTimetableSolver {
+
+    static final long CLASH_WEIGHT = 1000;
+    static final long ROOM_WEIGHT = 1000;
+    static final long SAME_DAY_WEIGHT = 20;
+    static final long NEXT_DAY_WEIGHT = 3;
+
+    private static final double START_TEMPERATURE = 50;
+    private static final double END_TEMPERATURE = 0.5;
+    private static final int MIN_ITERATIONS_PER_RESTART = 100_000;
+    private static final int ITERATIONS_PER_SUBJECT = 2_000;
+    private static final int DEADLINE_CHECK_MASK = 1023;
+
+    /**
+     * Subjects to place, each with the distinct cohorts sitting it
+     */
+    static final class Problem {
+
+        final int[][] cohortsOfSubject;
+        final int cohorts;
+        final int days;
+        final int slotsPerDay;
+        final int rooms;
+
+        Problem(int[][] cohortsOfSubject, int cohorts, int days, int slotsPerDay, int rooms) {
+            this.cohortsOfSubject = cohortsOfSubject;
+            this.cohorts = cohorts;
+            this.days = days;
+            this.slotsPerDay = slotsPerDay;
+            this.rooms = rooms;
+        }
+
+        int subjects() {
+            return cohortsOfSubject.length;
+        }
+
+        int timeslots() {
+            return days * slotsPerDay;
+        }
+    }
+
+    /**
+     * Timeslot and room per subject, with its cost broken down
+     */
+    static final class Solution {
+
+        final int[] timeslot;
+        final int[] room;
+        final long cost;
+        final int clashes;
+        final int roomConflicts;
+        final int sameDayPairs;
+        final int nextDayPairs;
+
+        private Solution(int[] timeslot, int[] room, long cost,
+                int clashes, int roomConflicts, int sameDayPairs, int nextDayPairs) {
+            this.timeslot = timeslot;
+            this.room = room;
+            this.cost = cost;
+            this.clashes = clashes;
+            this.roomConflicts = roomConflicts;
+            this.sameDayPairs = sameDayPairs;
+            this.nextDayPairs = nextDayPairs;
+        }
+    }
+
+    /**
+     * Outcome of a run: the best solution and how much searching produced it
+     */
+    static final class Result {
+
+        final Solution best;
+        final long restarts;
+        final long iterations;
+        final long elapsedMs;
+
+        Result(Solution best, long restarts, long iterations, long elapsedMs) {
+            this.best = best;
+            this.restarts = restarts;
+            this.iterations = iterations;
+            this.elapsedMs = elapsedMs;
+        }
+    }
+
+    private ExamTimetableSolver() {
+    }
+
+    /**
+     * Search with the given number of workers on the executor until the time
+     * limit, returning the best assignment found by any of them
+     */
+    static Result solve(Problem problem, long timeLimitMs, int workers, long seed, ExecutorService executor) {
+        long started = System.currentTimeMillis();
+        long deadline = started + timeLimitMs;
+        AtomicReference<Solution> best = new AtomicReference<>();
+        AtomicLong restarts = new AtomicLong();
+        AtomicLong iterations = new AtomicLong();
+
+        SplittableRandom seeds = new SplittableRandom(seed);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            SplittableRandom random = seeds.split();
+            tasks.add(() -> {
+                new Search(problem, random).run(deadline, best, restarts, iterations);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Timetable search failed", e.getCause());
+        }
+        return new Result(best.get(), restarts.get(), iterations.get(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Keep the cheaper of the published and the candidate solution
+     */
+    private static void publish(AtomicReference<Solution> best, Solution candidate) {
+        Solution current = best.get();
+        while ((current == null || candidate.cost < current.cost) && !best.compareAndSet(current, candidate)) {
+            current = best.get();
+        }
+    }
+
+    /**
+     * State of one worker; never shared between threads
+     */
+    static final class Search {
+
+        private final Problem problem;
+        private final SplittableRandom random;
+        private final int timeslots;
+
+        private final int[] timeslot;
+        private final int[] room;
+        // Subjects per cohort and timeslot, per cohort and day, and per room and timeslot
+        private final int[] cohortSlot;
+        private final int[] cohortDay;
+        private final int[] roomSlot;
+        private long cost;
+
+        Search(Problem problem, SplittableRandom random) {
+            this.problem = problem;
+            this.random = random;
+            this.timeslots = problem.timeslots();
+            this.timeslot = new int[problem.subjects()];
+            this.room = new int[problem.subjects()];
+            this.cohortSlot = new int[problem.cohorts * timeslots];
+            this.cohortDay = new int[problem.cohorts * problem.days];
+            this.roomSlot = new int[Math.max(problem.rooms, 1) * timeslots];
+        }
+
+        void run(long deadline, AtomicReference<Solution> best, AtomicLong restarts, AtomicLong iterations) {
+            int subjects = problem.subjects();
+            long perRestart = Math.max(MIN_ITERATIONS_PER_RESTART, (long) subjects * ITERATIONS_PER_SUBJECT);
+            double cooling = Math.pow(END_TEMPERATURE / START_TEMPERATURE, 1.0 / perRestart);
+
+            do {
+                randomStart();
+                long bestCost = cost;
+                int[] bestTimeslot = timeslot.clone();
+                int[] bestRoom = room.clone();
+                double temperature = START_TEMPERATURE;
+                long done = 0;
+
+                for (; done < perRestart && bestCost > 0; done++) {
+                    if ((done & DEADLINE_CHECK_MASK) == 0 && System.currentTimeMillis() >= deadline) {
+                        break;
+                    }
+                    if (subjects > 1 && random.nextInt(5) == 0) {
+                        trySwap(temperature);
+                    } else {
+                        tryRelocate(temperature);
+                    }
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        System.arraycopy(timeslot, 0, bestTimeslot, 0, subjects);
+                        System.arraycopy(room, 0, bestRoom, 0, subjects);
+                    }
+                    temperature *= cooling;
+                }
+                iterations.addAndGet(done);
+                restarts.incrementAndGet();
+                publish(best, evaluate(problem, bestTimeslot, bestRoom));
+            } while (System.currentTimeMillis() < deadline && best.get().cost > 0);
+        }
+
+        void randomStart() {
+            Arrays.fill(cohortSlot, 0);
+            Arrays.fill(cohortDay, 0);
+            Arrays.fill(roomSlot, 0);
+            cost = 0;
+            for (int subject = 0; subject < timeslot.length; subject++) {
+                cost += place(subject, random.nextInt(timeslots), randomRoom());
+            }
+        }
+
+        void tryRelocate(double temperature) {
+            int subject = random.nextInt(timeslot.length);
+            int oldTimeslot = timeslot[subject];
+            int oldRoom = room[subject];
+            long delta = unplace(subject) + place(subject, random.nextInt(timeslots), randomRoom());
+            if (!accept(delta, temperature)) {
+                unplace(subject);
+                place(subject, oldTimeslot, oldRoom);
+                return;
+            }
+            cost += delta;
+        }
+
+        void trySwap(double temperature) {
+            int first = random.nextInt(timeslot.length);
+            int second = random.nextInt(timeslot.length);
+            if (first == second || timeslot[first] == timeslot[second]) {
+                return;
+            }
+            int firstTimeslot = timeslot[first];
+            int firstRoom = room[first];
+            int secondTimeslot = timeslot[second];
+            int secondRoom = room[second];
+            long delta = unplace(first) + unplace(second)
+                    + place(first, secondTimeslot, secondRoom) + place(second, firstTimeslot, firstRoom);
+            if (!accept(delta, temperature)) {
+                unplace(first);
+                unplace(second);
+                place(first, firstTimeslot, firstRoom);
+                place(second, secondTimeslot, secondRoom);
+                return;
+            }
+            cost += delta;
+        }
+
+        /**
+         * Cost kept up to date move by move, equal to the cost of {@link #evaluated()}
+         */
+        long cost() {
+            return cost;
+        }
+
+        /**
+         * Current assignment evaluated from scratch
+         */
+        Solution evaluated() {
+            return evaluate(problem, timeslot.clone(), room.clone());
+        }
+
+        private boolean accept(long delta, double temperature) {
+            return delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature);
+        }
+
+        private int randomRoom() {
+            return problem.rooms > 0 ? random.nextInt(problem.rooms) : 0;
+        }
+
+        /**
+         * Put the subject in a timeslot and room, returning the cost added
+         */
+        private long place(int subject, int slot, int roomIndex) {
+            timeslot[subject] = slot;
+            room[subject] = roomIndex;
+            int day = slot / problem.slotsPerDay;
+            long delta = 0;
+            for (int cohort : problem.cohortsOfSubject[subject]) {
+                delta += cohortSlot[cohort * timeslots + slot]++ * CLASH_WEIGHT;
+                delta += cohortDay[cohort * problem.days + day]++ * SAME_DAY_WEIGHT;
+                delta += neighbourDays(cohort, day) * NEXT_DAY_WEIGHT;
+            }
+            if (problem.rooms > 0) {
+                delta += roomSlot[roomIndex * timeslots + slot]++ * ROOM_WEIGHT;
+            }
+            return delta;
+        }
+
+        /**
+         * Take the subject out of its timeslot and room, returning the (negative) cost change
+         */
+        private long unplace(int subject) {
+            int slot = timeslot[subject];
+            int day = slot / problem.slotsPerDay;
+            long delta = 0;
+            for (int cohort : problem.cohortsOfSubject[subject]) {
+                delta -= --cohortSlot[cohort * timeslots + slot] * CLASH_WEIGHT;
+                delta -= --cohortDay[cohort * problem.days + day] * SAME_DAY_WEIGHT;
+                delta -= neighbourDays(cohort, day) * NEXT_DAY_WEIGHT;
+            }
+            if (problem.rooms > 0) {
+                delta -= --roomSlot[room[subject] * timeslots + slot] * ROOM_WEIGHT;
+            }
+            return delta;
+        }
+
+        private long neighbourDays(int cohort, int day) {
+            int base = cohort * problem.days;
+            long count = 0;
+            if (day > 0) {
+                count += cohortDay[base + day - 1];
+            }
+            if (day + 1 < problem.days) {
+                count += cohortDay[base + day + 1];
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Cost and its breakdown for a full assignment, computed from scratch
+     */
+    static Solution evaluate(Problem problem, int[] timeslot, int[] room) {
+        int timeslots = problem.timeslots();
+        int[] cohortSlot = new int[problem.cohorts * timeslots];
+        int[] cohortDay = new int[problem.cohorts * problem.days];
+        int[] roomSlot = new int[Math.max(problem.rooms, 1) * timeslots];
+        for (int subject = 0; subject < timeslot.length; subject++) {
+            for (int cohort : problem.cohortsOfSubject[subject]) {
+                cohortSlot[cohort * timeslots + timeslot[subject]]++;
+                cohortDay[cohort * problem.days + timeslot[subject] / problem.slotsPerDay]++;
+            }
+            if (problem.rooms > 0) {
+                roomSlot[room[subject] * timeslots + timeslot[subject]]++;
+            }
+        }
+
+        int clashes = pairs(cohortSlot);
+        int roomConflicts = problem.rooms > 0 ? pairs(roomSlot) : 0;
+        // Same-day pairs include the clashing ones, which are reported separately
+        int sameDayPairs = pairs(cohortDay) - clashes;
+        int nextDayPairs = 0;
+        for (int cohort = 0; cohort < problem.cohorts; cohort++) {
+            for (int day = 0; day + 1 < problem.days; day++) {
+                int base = cohort * problem.days + day;
+                nextDayPairs += cohortDay[base] * cohortDay[base + 1];
+            }
+        }
+        long cost = (clashes * CLASH_WEIGHT) + (roomConflicts * ROOM_WEIGHT)
+                + ((long) (sameDayPairs + clashes) * SAME_DAY_WEIGHT) + (nextDayPairs * NEXT_DAY_WEIGHT);
+        return new Solution(timeslot, room, cost, clashes, roomConflicts, sameDayPairs, nextDayPairs);
+    }
+
+    private static int pairs(int[] counts) {
+        int pairs = 0;
+        for (int count : counts) {
+            pairs += count * (count - 1) / 2;
+        }
+        return pairs;
+    }
+}
@@ -0,0 +1,169 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamDTO;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes exams as an RFC 5545 iCalendar stream, one VEVENT at a time.
+ * Exam times are local to the UPV, so events carry TZID=Europe/Madrid and the
+ * calendar embeds the matching VTIMEZONE. Lines are folded at 75 octets
+ * without splitting UTF-8 sequences.
+ */
+final class ICalendarWriter {
+
+    private static final String TIME_ZONE = "Europe/Madrid";
+    private static final int MAX_LINE_OCTETS = 75;
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] FOLD = {'\r', '\n', ' '};
+
+    private static final DateTimeFormatter UTC_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+            .withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter LOCAL_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter LOCAL_TIME = DateTimeFormatter.ofPattern("HHmmss");
+
+    private static final String[] VTIMEZONE = {
+            "BEGIN:VTIMEZONE",
+            "TZID:" + TIME_ZONE,
+            "BEGIN:DAYLIGHT",
+            "TZOFFSETFROM:+0100",
+            "TZOFFSETTO:+0200",
+            "TZNAME:CEST",
+            "DTSTART:19700329T020000",
+            "RRULE:FREQ=YEARLY;BYMONTH=3;BYDAY=-1SU",
+            "END:DAYLIGHT",
+            "BEGIN:STANDARD",
+            "TZOFFSETFROM:+0200",
+            "TZOFFSETTO:+0100",
+            "TZNAME:CET",
+            "DTSTART:19701025T030000",
+            "RRULE:FREQ=YEARLY;BYMONTH=10;BYDAY=-1SU",
+            "END:STANDARD",
+            "END:VTIMEZONE"
+    };
+
+    private final OutputStream out;
+    private final String stamp;
+
+    /**
+     * @param out    destination, not closed by the writer
+     * @param stamp  render time, written as the DTSTAMP of every event
+     */
+    ICalendarWriter(OutputStream out, Instant stamp) {
+        this.out = out;
+        this.stamp = UTC_STAMP.format(stamp);
+    }
+
+    void begin() throws IOException {
+        line("BEGIN:VCALENDAR");
+        line("VERSION:2.0");
+        line("PRODID:-//UPV Exam Calendar//Exams//EN");
+        line("CALSCALE:GREGORIAN");
+        line("METHOD:PUBLISH");
+        line("X-WR-CALNAME:UPV exams");
+        line("X-WR-TIMEZONE:" + TIME_ZONE);
+        for (String vtimezone : VTIMEZONE) {
+            line(vtimezone);
+        }
+    }
+
+    /**
+     * Write one exam; exams without a day or hour cannot be placed and are skipped
+     */
+    void event(ExamDTO exam) throws IOException {
+        if (exam.getExamDay() == null || exam.getExamHour() == null) {
+            return;
+        }
+        line("BEGIN:VEVENT");
+        line("UID:exam-" + exam.getId() + "@upv-exam-calendar");
+        line("DTSTAMP:" + stamp);
+        line("DTSTART;TZID=" + TIME_ZONE + ":" + LOCAL_DATE.format(exam.getExamDay())
+                + "T" + LOCAL_TIME.format(exam.getExamHour()));
+        if (exam.getDurationMin() != null) {
+            line("DURATION:PT" + exam.getDurationMin() + "M");
+        }
+        line("SUMMARY:" + escape(summary(exam)));
+        if (exam.getExamPlace() != null && !exam.getExamPlace().isEmpty()) {
+            line("LOCATION:" + escape(exam.getExamPlace()));
+        }
+        line("DESCRIPTION:" + escape(description(exam)));
+        line("END:VEVENT");
+    }
+
+    void end() throws IOException {
+        line("END:VCALENDAR");
+        out.flush();
+    }
+
+    private static String summary(ExamDTO exam) {
+        if (exam.getAcronym() != null && !exam.getAcronym().isEmpty()) {
+            return exam.getAcronym() + " - " + exam.getSubjectName();
+        }
+        return exam.getSubjectName();
+    }
+
+    private static String description(ExamDTO exam) {
+        StringBuilder description = new StringBuilder();
+        description.append(exam.getSubjectName()).append(" (").append(exam.getSubjectCode()).append(")\n");
+        description.append(exam.getDegree()).append('\n');
+        description.append("Course ").append(exam.getCourseYear())
+                .append(", semester ").append(exam.getSemester());
+        if (exam.getComment() != null && !exam.getComment().isEmpty()) {
+            description.append('\n').append(exam.getComment());
+        }
+        return description.toString();
+    }
+
+    /**
+     * Escape a TEXT value (RFC 5545 section 3.3.11)
+     */
+    private static String escape(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder escaped = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\':
+                case ';':
+                case ',':
+                    escaped.append('\\').append(c);
+                    break;
+                case '\n':
+                    escaped.append("\\n");
+                    break;
+                case '\r':
+                    break;
+                default:
+                    escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private void line(String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        int start = 0;
+        int limit = MAX_LINE_OCTETS;
+        while (bytes.length - start > limit) {
+            int end = start + limit;
+            // Never split a multi-byte character across folded lines
+            while ((bytes[end] & 0xC0) == 0x80) {
+                end--;
+            }
+            out.write(bytes, start, end - start);
+            out.write(FOLD);
+            start = end;
+            // Continuation lines start with a space, which counts towards the limit
+            limit = MAX_LINE_OCTETS - 1;
+        }
+        out.write(bytes, start, bytes.length - start);
+        out.write(CRLF);
+    }
+}
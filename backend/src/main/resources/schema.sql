@@ -1,5 +1,94 @@
+-- Exams are partitioned by school, then by academic year, so a school's queries
+-- touch only its own partitions and a finished academic year can be detached.
+
+-- School of a degree: its first word, lower case
+CREATE OR REPLACE FUNCTION exam_school(degree TEXT) RETURNS TEXT
+    LANGUAGE sql IMMUTABLE AS 'SELECT lower(split_part($1, '' '', 1))';
+
+-- Academic year of an exam day, by the calendar year it starts in: 2024 for 2024-09-01 to 2025-08-31
+CREATE OR REPLACE FUNCTION exam_academic_year(exam_day DATE) RETURNS INTEGER
+    LANGUAGE sql IMMUTABLE AS 'SELECT CAST(extract(YEAR FROM $1 - INTERVAL ''8 months'') AS INTEGER)';
+
+-- Name of the partition of a school: the school itself when it is alphanumeric, otherwise its
+-- alphanumeric characters and a hash. Its academic years add "_y<year>", which no school partition
+-- name ends with, so a school can never be given the name of another school's academic year.
+CREATE OR REPLACE FUNCTION etsinf_exams_partition_name(school TEXT) RETURNS TEXT
+    LANGUAGE sql IMMUTABLE AS '
+SELECT CASE WHEN $1 ~ ''^[a-z0-9]{1,32}$'' THEN ''etsinf_exams_'' || $1
+    ELSE ''etsinf_exams_'' || left(regexp_replace($1, ''[^a-z0-9]'', '''', ''g''), 24) || ''_'' || left(md5($1), 8)
+END';
+
+CREATE OR REPLACE FUNCTION etsinf_exams_year_partition_name(school TEXT, academic_year INTEGER) RETURNS TEXT
+    LANGUAGE sql IMMUTABLE AS 'SELECT etsinf_exams_partition_name($1) || ''_y'' || $2';
+
+-- Create the partitions of a school and academic year unless they exist; true when it created any.
+-- Writers call it in their own transaction before writing a row of a new school or year.
+-- Existing partitions are found by their bounds and renamed if they were named differently.
+CREATE OR REPLACE FUNCTION etsinf_exams_ensure_partition(p_school TEXT, p_year INTEGER) RETURNS BOOLEAN
+    LANGUAGE plpgsql AS '
+DECLARE
+    school_partition TEXT := etsinf_exams_partition_name(p_school);
+    year_partition TEXT := etsinf_exams_year_partition_name(p_school, p_year);
+    existing REGCLASS;
+    created BOOLEAN := FALSE;
+BEGIN
+    IF to_regclass(quote_ident(year_partition)) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+    PERFORM pg_advisory_xact_lock(hashtext(''etsinf_exams_partitions''));
+    SELECT child.oid::regclass INTO existing
+    FROM pg_inherits JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+    WHERE pg_inherits.inhparent = ''etsinf_exams''::regclass
+      AND pg_get_expr(child.relpartbound, child.oid)
+          = ''FOR VALUES IN ('' || chr(39) || replace(p_school, chr(39), chr(39) || chr(39)) || chr(39) || '')'';
+    IF existing IS NULL THEN
+        EXECUTE format(''CREATE TABLE %I PARTITION OF etsinf_exams FOR VALUES IN (%L) PARTITION BY RANGE (academic_year)'',
+            school_partition, p_school);
+        created := TRUE;
+    ELSIF existing IS DISTINCT FROM to_regclass(quote_ident(school_partition)) THEN
+        EXECUTE format(''ALTER TABLE %s RENAME TO %I'', existing, school_partition);
+    END IF;
+    existing := NULL;
+    SELECT child.oid::regclass INTO existing
+    FROM pg_inherits JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+    WHERE pg_inherits.inhparent = to_regclass(quote_ident(school_partition))
+      AND pg_get_expr(child.relpartbound, child.oid) = format(''FOR VALUES FROM (%s) TO (%s)'', p_year, p_year + 1);
+    IF existing IS NULL THEN
+        EXECUTE format(''CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%s) TO (%s)'',
+            year_partition, school_partition, p_year, p_year + 1);
+        created := TRUE;
+    ELSIF existing IS DISTINCT FROM to_regclass(quote_ident(year_partition)) THEN
+        EXECUTE format(''ALTER TABLE %s RENAME TO %I'', existing, year_partition);
+    END IF;
+    RETURN created;
+END';
+
+-- A database created before partitioning keeps its rows in a plain table: move it out of
+-- the way here, its rows are copied into the partitioned table at the end of the script
+DO '
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_class WHERE oid = to_regclass(''etsinf_exams'') AND relkind = ''r'') THEN
+        ALTER TABLE etsinf_exams RENAME TO etsinf_exams_unpartitioned;
+        ALTER INDEX IF EXISTS etsinf_exams_pkey RENAME TO etsinf_exams_unpartitioned_pkey;
+        ALTER SEQUENCE IF EXISTS etsinf_exams_id_seq OWNED BY NONE;
+        DROP INDEX IF EXISTS etsinf_exams_degree_cohort_idx, etsinf_exams_chronological_idx,
+            etsinf_exams_subject_code_idx, etsinf_exams_subject_name_idx, etsinf_exams_acronym_idx,
+            etsinf_exams_subject_name_trgm_idx, etsinf_exams_exam_place_trgm_idx, etsinf_exams_version_idx;
+    END IF;
+END';
+
+-- Row version: a new value from the sequence on every insert and update.
+-- Used for optimistic concurrency (ETag / If-Match) on single exams.
+CREATE SEQUENCE IF NOT EXISTS etsinf_exams_version_seq;
+CREATE SEQUENCE IF NOT EXISTS etsinf_exams_id_seq;
+-- The sequence of a pre-partitioning table is an integer one
+ALTER SEQUENCE etsinf_exams_id_seq AS BIGINT;
+
+-- school and academic_year are derived from degree and exam_day by the writers.
+-- The primary key has to include the partition keys; ids still come from one sequence.
+-- The C collation makes the school range predicates of EtsinfExamSpecifications byte-wise.
 CREATE TABLE IF NOT EXISTS etsinf_exams (
-    id SERIAL PRIMARY KEY,
+    id BIGINT NOT NULL DEFAULT nextval('etsinf_exams_id_seq'),
     exam_day DATE NOT NULL,
     exam_hour TIME NOT NULL,
     duration_min INTEGER NOT NULL,
@@ -10,5 +99,136 @@ CREATE TABLE IF NOT EXISTS etsinf_exams (
     course_year INTEGER NOT NULL,
     semester INTEGER NOT NULL,
     exam_place VARCHAR(255),
-    comment TEXT
-); 
\ No newline at end of file
+    comment TEXT,
+    version BIGINT NOT NULL DEFAULT nextval('etsinf_exams_version_seq'),
+    school VARCHAR(100) COLLATE "C" NOT NULL,
+    academic_year INTEGER NOT NULL,
+    PRIMARY KEY (id, school, academic_year)
+) PARTITION BY LIST (school);
+ALTER SEQUENCE etsinf_exams_id_seq OWNED BY etsinf_exams.id;
+
+-- Indexes matching the EtsinfExamRepository queries and EtsinfExamSpecifications.
+-- Case-insensitive filters compare lower(column), so the indexes are on lower(column).
+-- Indexes of the partitioned table are created on every partition.
+
+-- School prefix (lower(degree) LIKE 'etsinf%'), degree equality and degree + cohort filters
+CREATE INDEX IF NOT EXISTS etsinf_exams_degree_cohort_idx
+    ON etsinf_exams (lower(degree) text_pattern_ops, course_year, semester);
+
+-- Cohorts across degrees (findByCourseYearAndSemester)
+CREATE INDEX IF NOT EXISTS etsinf_exams_cohort_idx
+    ON etsinf_exams (course_year, semester);
+
+-- Date ranges and the (exam_day, exam_hour, id) order of pages and streams
+CREATE INDEX IF NOT EXISTS etsinf_exams_chronological_idx
+    ON etsinf_exams (exam_day, exam_hour, id);
+
+-- Subject code, and the subject filter matching name, acronym or code
+CREATE INDEX IF NOT EXISTS etsinf_exams_subject_code_idx ON etsinf_exams (lower(subject_code));
+CREATE INDEX IF NOT EXISTS etsinf_exams_subject_name_idx ON etsinf_exams (lower(subject_name));
+CREATE INDEX IF NOT EXISTS etsinf_exams_acronym_idx ON etsinf_exams (lower(acronym));
+
+-- "Contains" searches on subject name and exam place
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS etsinf_exams_subject_name_trgm_idx
+    ON etsinf_exams USING gin (lower(subject_name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS etsinf_exams_exam_place_trgm_idx
+    ON etsinf_exams USING gin (lower(exam_place) gin_trgm_ops);
+
+-- Delta sync (GET /api/exams/delta?since=N)
+-- Rows changed since N are those with version > N; deleted rows leave a tombstone
+-- with its own version from the same sequence.
+CREATE INDEX IF NOT EXISTS etsinf_exams_version_idx ON etsinf_exams (version);
+
+CREATE TABLE IF NOT EXISTS etsinf_exam_tombstones (
+    exam_id BIGINT PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT nextval('etsinf_exams_version_seq'),
+    deleted_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+CREATE INDEX IF NOT EXISTS etsinf_exam_tombstones_version_idx ON etsinf_exam_tombstones (version);
+
+-- Highest tombstone version removed by compaction: clients behind it must resync
+CREATE TABLE IF NOT EXISTS etsinf_exam_sync (
+    id BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (id),
+    compacted_version BIGINT NOT NULL DEFAULT 0
+);
+INSERT INTO etsinf_exam_sync DEFAULT VALUES ON CONFLICT DO NOTHING;
+
+-- Every write statement takes the same transaction-level lock before assigning versions,
+-- so versions become visible in commit order and "version > N" cannot skip a row that
+-- commits later with a lower version. Function bodies are single-quoted for the script splitter.
+CREATE OR REPLACE FUNCTION etsinf_exams_lock_versions() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    PERFORM pg_advisory_xact_lock(TG_RELID::bigint);
+    RETURN NULL;
+END';
+DROP TRIGGER IF EXISTS etsinf_exams_lock_versions ON etsinf_exams;
+CREATE TRIGGER etsinf_exams_lock_versions
+    BEFORE INSERT OR UPDATE OR DELETE ON etsinf_exams
+    FOR EACH STATEMENT EXECUTE FUNCTION etsinf_exams_lock_versions();
+
+-- One set-based insert per DELETE statement, including bulk deletes and import replacements
+CREATE OR REPLACE FUNCTION etsinf_exams_record_tombstones() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    INSERT INTO etsinf_exam_tombstones (exam_id)
+    SELECT id FROM deleted_exams
+    ON CONFLICT (exam_id) DO UPDATE SET version = EXCLUDED.version, deleted_at = EXCLUDED.deleted_at;
+    RETURN NULL;
+END';
+DROP TRIGGER IF EXISTS etsinf_exams_record_tombstones ON etsinf_exams;
+CREATE TRIGGER etsinf_exams_record_tombstones
+    AFTER DELETE ON etsinf_exams REFERENCING OLD TABLE AS deleted_exams
+    FOR EACH STATEMENT EXECUTE FUNCTION etsinf_exams_record_tombstones();
+
+-- Detach every partition of an academic year, leaving it as a plain archive table named
+-- etsinf_exams_archived_<year>_<hash>_<time>. Its rows leave tombstones like deleted rows,
+-- under the same lock as other writes. Returns the number of rows detached.
+CREATE OR REPLACE FUNCTION etsinf_exams_detach_academic_year(p_year INTEGER) RETURNS BIGINT
+    LANGUAGE plpgsql AS '
+DECLARE
+    year_partition RECORD;
+    detached BIGINT := 0;
+    partition_rows BIGINT;
+BEGIN
+    PERFORM pg_advisory_xact_lock(''etsinf_exams''::regclass::oid::bigint);
+    FOR year_partition IN
+        SELECT child.oid::regclass AS name, parent.oid::regclass AS parent_name
+        FROM pg_inherits school_inherits
+        JOIN pg_class parent ON parent.oid = school_inherits.inhrelid
+        JOIN pg_inherits year_inherits ON year_inherits.inhparent = parent.oid
+        JOIN pg_class child ON child.oid = year_inherits.inhrelid
+        WHERE school_inherits.inhparent = ''etsinf_exams''::regclass
+          AND pg_get_expr(child.relpartbound, child.oid) = format(''FOR VALUES FROM (%s) TO (%s)'', p_year, p_year + 1)
+    LOOP
+        EXECUTE format(''INSERT INTO etsinf_exam_tombstones (exam_id) SELECT id FROM %s ''
+            || ''ON CONFLICT (exam_id) DO UPDATE SET version = EXCLUDED.version, deleted_at = EXCLUDED.deleted_at'',
+            year_partition.name);
+        GET DIAGNOSTICS partition_rows = ROW_COUNT;
+        detached := detached + partition_rows;
+        EXECUTE format(''ALTER TABLE %s DETACH PARTITION %s'', year_partition.parent_name, year_partition.name);
+        EXECUTE format(''ALTER TABLE %s RENAME TO %I'', year_partition.name, format(''etsinf_exams_archived_%s_%s_%s'',
+            p_year, left(md5(year_partition.name::text), 8), to_char(clock_timestamp(), ''YYYYMMDDHH24MISS'')));
+    END LOOP;
+    RETURN detached;
+END';
+
+-- Copy the rows of a database created before partitioning, keeping ids and versions;
+-- its id sequence was kept, so new ids still follow the old ones. A database older than
+-- row versions has no version column: its rows are given one from the sequence first.
+DO '
+BEGIN
+    IF to_regclass(''etsinf_exams_unpartitioned'') IS NOT NULL THEN
+        ALTER TABLE etsinf_exams_unpartitioned
+            ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT nextval(''etsinf_exams_version_seq'');
+        PERFORM etsinf_exams_ensure_partition(keys.school, keys.academic_year)
+        FROM (SELECT DISTINCT exam_school(degree) AS school, exam_academic_year(exam_day) AS academic_year
+              FROM etsinf_exams_unpartitioned) keys;
+        INSERT INTO etsinf_exams (id, exam_day, exam_hour, duration_min, subject_code, subject_name, acronym,
+            degree, course_year, semester, exam_place, comment, version, school, academic_year)
+        SELECT id, exam_day, exam_hour, duration_min, subject_code, subject_name, acronym,
+            degree, course_year, semester, exam_place, comment, version,
+            exam_school(degree), exam_academic_year(exam_day)
+        FROM etsinf_exams_unpartitioned;
+        DROP TABLE etsinf_exams_unpartitioned;
+    END IF;
+END';
@@ -0,0 +1,36 @@
+package com.upv.examcalendar;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Base of the tests that run against PostgreSQL, with the real schema.sql.
+ * They only run when EXAM_TEST_DATABASE_URL points to a scratch database, e.g.
+ *
+ * <pre>
+ * EXAM_TEST_DATABASE_URL=jdbc:postgresql://localhost:5432/upv_calendar_test mvn test
+ * </pre>
+ *
+ * EXAM_TEST_DATABASE_USERNAME and EXAM_TEST_DATABASE_PASSWORD default to postgres.
+ * Tests roll back what they write, so the database can be reused.
+ * JUnit conditions are not inherited, so each test class repeats
+ * {@code @EnabledIfEnvironmentVariable(named = PostgresTest.DATABASE_URL, matches = ".+")}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+public abstract class PostgresTest {
+
+    public static final String DATABASE_URL = "EXAM_TEST_DATABASE_URL";
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv(DATABASE_URL));
+        registry.add("spring.datasource.username", () -> env("EXAM_TEST_DATABASE_USERNAME", "postgres"));
+        registry.add("spring.datasource.password", () -> env("EXAM_TEST_DATABASE_PASSWORD", "postgres"));
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null && !value.isEmpty() ? value : defaultValue;
+    }
+}
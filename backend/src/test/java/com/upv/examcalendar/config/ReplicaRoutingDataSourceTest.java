@@ -0,0 +1,114 @@
+package com.upv.examcalendar.config;
+
+import com.upv.examcalendar.config.ReplicaRoutingDataSource.Selection;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+
+    private HikariDataSource primary;
+    private HikariDataSource replica;
+    private Connection primaryConnection;
+    private Connection replicaConnection;
+    private ResultSet replayed;
+    private ReplicaLagGuard lagGuard;
+    private ReplicaRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = pool("primary");
+        replica = pool("replica");
+        primaryConnection = mock(Connection.class);
+        replicaConnection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+
+        Statement statement = mock(Statement.class);
+        replayed = mock(ResultSet.class);
+        when(replicaConnection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(replayed);
+        when(replayed.next()).thenReturn(true);
+
+        lagGuard = mock(ReplicaLagGuard.class);
+        dataSource = new ReplicaRoutingDataSource(primary, List.of(replica), Selection.ROUND_ROBIN, lagGuard);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void replicaThatReplayedTheLastWriteServesTheRead() throws SQLException {
+        when(lagGuard.requiredLsn()).thenReturn(100L);
+        when(replayed.getLong(1)).thenReturn(100L);
+
+        assertThat(physicalConnection()).isSameAs(replicaConnection);
+    }
+
+    @Test
+    void laggingReplicaLeavesTheReadToThePrimary() throws SQLException {
+        when(lagGuard.requiredLsn()).thenReturn(100L);
+        when(replayed.getLong(1)).thenReturn(99L);
+
+        assertThat(physicalConnection()).isSameAs(primaryConnection);
+        verify(replicaConnection).close();
+    }
+
+    @Test
+    void replayPositionIsOnlyAskedWhileBehind() throws SQLException {
+        when(lagGuard.requiredLsn()).thenReturn(100L);
+        when(replayed.getLong(1)).thenReturn(150L);
+        physicalConnection();
+
+        when(lagGuard.requiredLsn()).thenReturn(120L);
+        assertThat(physicalConnection()).isSameAs(replicaConnection);
+        verify(replicaConnection).createStatement();
+    }
+
+    @Test
+    void failedReplayCheckFallsBackToThePrimary() throws SQLException {
+        when(lagGuard.requiredLsn()).thenReturn(100L);
+        when(replayed.getLong(1)).thenThrow(new SQLException("recovery conflict"));
+
+        assertThat(physicalConnection()).isSameAs(primaryConnection);
+        verify(replicaConnection).close();
+    }
+
+    @Test
+    void pinnedClientSkipsTheReplicas() throws SQLException {
+        when(lagGuard.isCurrentClientPinned()).thenReturn(true);
+
+        assertThat(physicalConnection()).isSameAs(primaryConnection);
+        verify(replica, never()).getConnection();
+    }
+
+    private Connection physicalConnection() throws SQLException {
+        // The lazy proxy connects when first used
+        return ((ConnectionProxy) dataSource.getConnection()).getTargetConnection();
+    }
+
+    private static HikariDataSource pool(String name) {
+        HikariDataSource pool = mock(HikariDataSource.class);
+        when(pool.getPoolName()).thenReturn(name);
+        return pool;
+    }
+}
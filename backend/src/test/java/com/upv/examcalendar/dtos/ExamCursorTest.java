@@ -0,0 +1,78 @@
+package com.upv.examcalendar.dtos;
+
+import com.upv.examcalendar.exceptions.BadRequestException;
+import com.upv.examcalendar.services.ExamSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExamCursorTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 1, 13);
+    private static final LocalTime NINE = LocalTime.of(9, 0);
+
+    @Test
+    void encodedCursorParsesBack() {
+        ExamCursor cursor = new ExamCursor(DAY, LocalTime.of(9, 30), 42L);
+
+        String token = cursor.encode();
+
+        assertThat(token).doesNotContain("=", "+", "/");
+        assertThat(ExamCursor.parse(token)).isEqualTo(cursor);
+    }
+
+    @Test
+    void nullKeysSurviveTheToken() {
+        ExamCursor cursor = new ExamCursor(null, null, 7L);
+        assertThat(ExamCursor.parse(cursor.encode())).isEqualTo(cursor);
+
+        ExamCursor noId = new ExamCursor(DAY, NINE, null);
+        assertThat(ExamCursor.parse(noId.encode())).isEqualTo(noId);
+    }
+
+    @Test
+    void missingTokenIsNoCursor() {
+        assertThat(ExamCursor.parse(null)).isNull();
+        assertThat(ExamCursor.parse("")).isNull();
+    }
+
+    @Test
+    void malformedTokensAreBadRequests() {
+        for (String token : List.of("not base64!", token("2025-01-13|09:00"), token("2025-01-13|09:00|1|2"),
+                token("2025-13-01|09:00|1"), token("2025-01-13|9h|1"), token("2025-01-13|09:00|x"))) {
+            assertThatThrownBy(() -> ExamCursor.parse(token)).as(token).isInstanceOf(BadRequestException.class);
+        }
+    }
+
+    @Test
+    void examsAfterTheCursorFollowTheChronologicalOrder() {
+        List<ExamDTO> exams = new ArrayList<>();
+        for (LocalDate day : new LocalDate[]{DAY, DAY.plusDays(1), null}) {
+            for (LocalTime hour : new LocalTime[]{NINE, LocalTime.of(15, 0), null}) {
+                for (Long id : new Long[]{1L, 2L, null}) {
+                    exams.add(ExamDTO.builder().examDay(day).examHour(hour).id(id).build());
+                }
+            }
+        }
+        exams.sort(ExamSnapshot.CHRONOLOGICAL);
+
+        for (int i = 0; i < exams.size(); i++) {
+            ExamCursor cursor = ExamCursor.after(exams.get(i));
+            for (int j = 0; j < exams.size(); j++) {
+                assertThat(cursor.isBefore(exams.get(j))).as("%s after %s", exams.get(j), cursor).isEqualTo(j > i);
+            }
+        }
+    }
+
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,80 @@
+package com.upv.examcalendar.repositories;
+
+import com.upv.examcalendar.PostgresTest;
+import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.dtos.ExamDeltaDTO;
+import com.upv.examcalendar.models.EtsinfExam;
+import com.upv.examcalendar.services.ExamDeltaSync;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Deltas over the real version sequence, tombstone trigger and compaction
+ */
+@EnabledIfEnvironmentVariable(named = PostgresTest.DATABASE_URL, matches = ".+")
+@Transactional
+class EtsinfExamDeltaTest extends PostgresTest {
+
+    @Autowired
+    private EtsinfExamRepository examRepository;
+
+    @Autowired
+    private ExamDeltaSync deltaSync;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void deltaCarriesWritesAndDeletionsUntilTheyAreCompacted() {
+        EtsinfExam updated = examRepository.insertReturning(exam("DT1"));
+        EtsinfExam deleted = examRepository.insertReturning(exam("DT2"));
+        long since = examRepository.findDeltaBounds().getCurrentVersion();
+
+        jdbcTemplate.update("UPDATE etsinf_exams SET exam_place = 'Room 2' WHERE id = ?", updated.getId());
+        jdbcTemplate.update("DELETE FROM etsinf_exams WHERE id = ?", deleted.getId());
+        EtsinfExam inserted = examRepository.insertReturning(exam("DT3"));
+
+        ExamDeltaDTO delta = deltaSync.getDelta(since);
+        assertThat(delta.isResync()).isFalse();
+        assertThat(delta.getChanged()).extracting(ExamDTO::getId).containsExactly(updated.getId(), inserted.getId());
+        assertThat(delta.getDeleted()).containsExactly(deleted.getId());
+
+        ExamDeltaDTO current = deltaSync.getDelta(delta.getVersion());
+        assertThat(current.isResync()).isFalse();
+        assertThat(current.getVersion()).isEqualTo(delta.getVersion());
+        assertThat(current.getChanged()).isEmpty();
+        assertThat(current.getDeleted()).isEmpty();
+
+        // The tombstone goes, so a client that never saw the deletion must resync
+        assertThat(examRepository.compactTombstones(Instant.now().plus(Duration.ofDays(1)))).isPositive();
+        assertThat(examRepository.findDeltaBounds().getCompactedVersion()).isGreaterThan(since);
+        ExamDeltaDTO compacted = deltaSync.getDelta(since);
+        assertThat(compacted.isResync()).isTrue();
+        assertThat(compacted.getChanged()).extracting(ExamDTO::getId)
+                .contains(updated.getId(), inserted.getId())
+                .doesNotContain(deleted.getId());
+    }
+
+    private static EtsinfExam exam(String subjectCode) {
+        return EtsinfExam.builder()
+                .examDay(LocalDate.of(2031, 1, 20))
+                .examHour(LocalTime.of(9, 0))
+                .durationMin(120)
+                .subjectCode(subjectCode)
+                .subjectName("Delta testing")
+                .degree("DELTATEST Degree in Testing")
+                .courseYear(1)
+                .semester("1")
+                .build();
+    }
+}
@@ -0,0 +1,20 @@
+package com.upv.examcalendar.repositories;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EtsinfExamLikePatternTest {
+
+    @Test
+    void wildcardsAreTakenLiterally() {
+        assertThat(EtsinfExamSpecifications.containing("50%_off")).isEqualTo("%50\\%\\_off%");
+        assertThat(EtsinfExamSpecifications.startingWith("a\\b")).isEqualTo("a\\\\b%");
+    }
+
+    @Test
+    void patternsAreLowerCaseInTheRootLocale() {
+        assertThat(EtsinfExamSpecifications.startingWith("ETSINF")).isEqualTo("etsinf%");
+        assertThat(EtsinfExamSpecifications.containing("INFORMÁTICA")).isEqualTo("%informática%");
+    }
+}
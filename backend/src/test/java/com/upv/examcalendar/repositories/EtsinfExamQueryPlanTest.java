@@ -0,0 +1,192 @@
+package com.upv.examcalendar.repositories;
+
+import com.upv.examcalendar.PostgresTest;
+import com.upv.examcalendar.dtos.ExamCursor;
+import com.upv.examcalendar.dtos.ExamFilter;
+import com.upv.examcalendar.models.AcademicYear;
+import com.upv.examcalendar.models.EtsinfExam;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query plan regression test for the etsinf_exams partitions and indexes in
+ * schema.sql. Inserts a large generated dataset, runs ANALYZE and calls every
+ * selective repository query with its real generated SQL and parameters,
+ * counting the scans of each partition through pg_stat_xact_user_tables.
+ * A query by school or degree must not read a partition of another school, and
+ * no other query may scan a partition sequentially. Queries by school read
+ * whole partitions of that school by design, so their cost does not grow with
+ * the rest of the table. One exam in a hundred is of a sixth course year, as in
+ * double degrees, so the query by course year and semester is selective.
+ *
+ * Not checked, because they read all or a large share of the table by design:
+ * findAll, findFacetTuples, unfiltered streams and subject lists.
+ */
+@EnabledIfEnvironmentVariable(named = PostgresTest.DATABASE_URL, matches = ".+")
+@Transactional
+class EtsinfExamQueryPlanTest extends PostgresTest {
+
+    private static final String GENERATE_SQL =
+            "INSERT INTO etsinf_exams (exam_day, exam_hour, duration_min, subject_code, subject_name, "
+                    + "acronym, degree, course_year, semester, exam_place, school, academic_year) "
+                    + "SELECT generated.*, exam_school(degree), exam_academic_year(exam_day) FROM ("
+                    + "SELECT DATE '2020-01-07' + g % 1500 AS exam_day, "
+                    + "TIME '08:00' + (g % 6) * INTERVAL '2 hours', 120, "
+                    + "'PC' || g % 5000, 'Plan check subject ' || g % 5000, 'PCS' || g % 5000, "
+                    + "'PCK' || lpad((g % 10)::text, 2, '0') || ' Degree ' || g % 400 AS degree, "
+                    + "CASE WHEN g % 100 = 0 THEN 6 ELSE 1 + g % 5 END, 1 + (g / 100) % 2, "
+                    + "'Plan check room ' || g % 2000 "
+                    + "FROM generate_series(1, ?) AS g) AS generated";
+
+    private static final String SCANS_SQL = "SELECT relname, seq_scan, coalesce(idx_scan, 0) AS idx_scan "
+            + "FROM pg_stat_xact_user_tables WHERE relid IN "
+            + "(SELECT relid FROM pg_partition_tree('etsinf_exams') WHERE isleaf)";
+
+    private static final int ROWS = 200_000;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2020, 1, 7);
+    private static final LocalDate LAST_DAY = FIRST_DAY.plusDays(1499);
+    private static final LocalDate FROM = LocalDate.of(2021, 3, 1);
+    private static final LocalDate TO = LocalDate.of(2021, 3, 7);
+    private static final int SCHOOLS = 10;
+    private static final String CHECKED_SCHOOL = "pck07";
+
+    @Autowired
+    private EtsinfExamRepository examRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ExamPartitions partitions;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void generateExams() {
+        for (int school = 0; school < SCHOOLS; school++) {
+            for (int year = AcademicYear.of(FIRST_DAY); year <= AcademicYear.of(LAST_DAY); year++) {
+                partitions.ensure(String.format("pck%02d", school), year);
+            }
+        }
+        jdbcTemplate.update(GENERATE_SQL, ROWS);
+        jdbcTemplate.execute("ANALYZE etsinf_exams");
+    }
+
+    @Test
+    void queriesBySchoolOrDegreeOnlyReadItsPartitions() {
+        ExamFilter school = ExamFilter.builder().school("PCK07").build();
+        ExamFilter degree = ExamFilter.builder().degree("PCK07 Degree 207").build();
+
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("findByDegreeIgnoreCase", () -> examRepository.findByDegreeIgnoreCase("pck07 degree 207"));
+        queries.put("findByDegreeStartingWithIgnoreCase",
+                () -> examRepository.findByDegreeStartingWithIgnoreCase("pck07"));
+        queries.put("filter by school", () -> examRepository.findAll(EtsinfExamSpecifications.matching(school)));
+        queries.put("filter by school and academic year", () -> examRepository.findAll(EtsinfExamSpecifications
+                .matching(ExamFilter.builder().school("PCK07").academicYear(2021).build())));
+        queries.put("filter by degree and course year", () -> examRepository.findAll(EtsinfExamSpecifications
+                .matching(ExamFilter.builder().degree("PCK07 Degree 207").courseYear(2).build())));
+        queries.put("findDistinctSubjects by degree",
+                () -> examRepository.findDistinctSubjects(EtsinfExamSpecifications.matching(degree)));
+        queries.put("findPage by degree after cursor", () -> examRepository.findPage(
+                EtsinfExamSpecifications.matching(degree), new ExamCursor(FROM, LocalTime.NOON, 0L), 101));
+        queries.put("streamAll by school", () -> {
+            try (Stream<EtsinfExam> exams = examRepository.streamAll(EtsinfExamSpecifications.matching(school), 500)) {
+                exams.count();
+            }
+        });
+
+        Map<String, List<String>> otherSchools = new LinkedHashMap<>();
+        String schoolPartitions = "etsinf_exams_" + CHECKED_SCHOOL + "_y";
+        queries.forEach((name, query) -> {
+            List<String> others = new ArrayList<>();
+            for (String partition : scans(query).keySet()) {
+                if (!partition.startsWith(schoolPartitions)) {
+                    others.add(partition);
+                }
+            }
+            if (!others.isEmpty()) {
+                otherSchools.put(name, others);
+            }
+        });
+        assertThat(otherSchools).as("partitions of other schools read per query").isEmpty();
+    }
+
+    @Test
+    void queriesAcrossSchoolsUseAnIndex() {
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("findBySubjectCodeIgnoreCase", () -> examRepository.findBySubjectCodeIgnoreCase("pc1234"));
+        queries.put("findBySubjectCodeInLowerCase",
+                () -> examRepository.findBySubjectCodeInLowerCase(List.of("pc1234", "pc42", "pc4999")));
+        queries.put("findByExamDayBetween", () -> examRepository.findByExamDayBetween(FROM, TO));
+        queries.put("findByCourseYearAndSemester", () -> examRepository.findByCourseYearAndSemester(6, "2"));
+        queries.put("findBySubjectNameContainingIgnoreCase",
+                () -> examRepository.findBySubjectNameContainingIgnoreCase("subject 4321"));
+        queries.put("findByExamPlaceContaining", () -> examRepository.findByExamPlaceContaining("room 1234"));
+        queries.put("filter by subject", () -> examRepository.findAll(EtsinfExamSpecifications
+                .matching(ExamFilter.builder().subject("PCS1234").build())));
+        queries.put("filter by date range", () -> examRepository.findAll(EtsinfExamSpecifications
+                .matching(ExamFilter.builder().startDate(FROM).endDate(TO).build())));
+        queries.put("findPage first page",
+                () -> examRepository.findPage(EtsinfExamSpecifications.matching(new ExamFilter()), null, 101));
+
+        Map<String, List<String>> sequentialScans = new LinkedHashMap<>();
+        queries.forEach((name, query) -> {
+            List<String> sequential = new ArrayList<>();
+            scans(query).forEach((partition, scan) -> {
+                if (scan[0] > 0) {
+                    sequential.add(partition);
+                }
+            });
+            if (!sequential.isEmpty()) {
+                sequentialScans.put(name, sequential);
+            }
+        });
+        assertThat(sequentialScans).as("partitions scanned sequentially per query").isEmpty();
+    }
+
+    /**
+     * Sequential and index scans per partition that a query caused
+     */
+    private Map<String, long[]> scans(Runnable query) {
+        Map<String, long[]> before = partitionScans();
+        query.run();
+        entityManager.clear();
+        Map<String, long[]> scans = new TreeMap<>();
+        partitionScans().forEach((partition, after) -> {
+            long[] previous = before.getOrDefault(partition, new long[2]);
+            long[] scan = {after[0] - previous[0], after[1] - previous[1]};
+            if (scan[0] > 0 || scan[1] > 0) {
+                scans.put(partition, scan);
+            }
+        });
+        return scans;
+    }
+
+    private Map<String, long[]> partitionScans() {
+        Map<String, long[]> scans = new HashMap<>();
+        jdbcTemplate.query(SCANS_SQL, rs -> {
+            scans.put(rs.getString("relname"), new long[]{rs.getLong("seq_scan"), rs.getLong("idx_scan")});
+        });
+        return scans;
+    }
+}
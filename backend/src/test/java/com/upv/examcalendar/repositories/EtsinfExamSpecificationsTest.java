@@ -0,0 +1,77 @@
+package com.upv.examcalendar.repositories;
+
+import com.upv.examcalendar.PostgresTest;
+import com.upv.examcalendar.dtos.ExamFilter;
+import com.upv.examcalendar.models.EtsinfExam;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@EnabledIfEnvironmentVariable(named = PostgresTest.DATABASE_URL, matches = ".+")
+@Transactional
+class EtsinfExamSpecificationsTest extends PostgresTest {
+
+    private static final String DEGREE = "SPECTEST Degree in Testing";
+
+    @Autowired
+    private EtsinfExamRepository examRepository;
+
+    private EtsinfExam exam;
+
+    @BeforeEach
+    void insertExam() {
+        exam = examRepository.insertReturning(EtsinfExam.builder()
+                .examDay(LocalDate.of(2031, 1, 15))
+                .examHour(LocalTime.of(9, 0))
+                .durationMin(120)
+                .subjectCode("ST1")
+                .subjectName("Specification testing")
+                .acronym("STE")
+                .degree(DEGREE)
+                .courseYear(3)
+                .semester("2")
+                .build());
+    }
+
+    @Test
+    void semesterFilterBindsAnInteger() {
+        assertThat(ids(ExamFilter.builder().degree(DEGREE).semester("2").build())).containsExactly(exam.getId());
+        assertThat(ids(ExamFilter.builder().degree(DEGREE).semester(" 2 ").build())).containsExactly(exam.getId());
+        assertThat(ids(ExamFilter.builder().degree(DEGREE).semester("1").build())).isEmpty();
+    }
+
+    @Test
+    void semesterThatIsNotANumberMatchesNothing() {
+        assertThat(ids(ExamFilter.builder().degree(DEGREE).semester("B").build())).isEmpty();
+        assertThat(examRepository.findByCourseYearAndSemester(3, "B")).isEmpty();
+    }
+
+    @Test
+    void courseYearAndSemesterFinderBindsAnInteger() {
+        assertThat(examRepository.findByCourseYearAndSemester(3, "2")).extracting(EtsinfExam::getId)
+                .contains(exam.getId());
+    }
+
+    @Test
+    void bulkWritesFilterBySemester() {
+        ExamFilter filter = ExamFilter.builder().degree(DEGREE).semester("2").build();
+        assertThat(examRepository.updateExamPlaceMatching(EtsinfExamSpecifications.matching(filter), "Room 1"))
+                .isEqualTo(1);
+        assertThat(examRepository.deleteMatching(EtsinfExamSpecifications.matching(filter))).isEqualTo(1);
+    }
+
+    private List<Long> ids(ExamFilter filter) {
+        return examRepository.findAll(EtsinfExamSpecifications.matching(filter)).stream()
+                .map(EtsinfExam::getId)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,68 @@
+package com.upv.examcalendar.repositories;
+
+import com.upv.examcalendar.PostgresTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@EnabledIfEnvironmentVariable(named = PostgresTest.DATABASE_URL, matches = ".+")
+@Transactional
+class ExamPartitionsTest extends PostgresTest {
+
+    @Autowired
+    private ExamPartitions partitions;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void schoolNamedLikeAnAcademicYearGetsItsOwnPartition() {
+        partitions.ensure("parttest", 2031);
+        partitions.ensure("parttest_2031", 2031);
+        partitions.ensure("parttest_y2031", 2031);
+
+        assertThat(partitionOf("parttest", 2031)).isNotEqualTo(partitionOf("parttest_2031", 2031))
+                .isNotEqualTo(partitionOf("parttest_y2031", 2031));
+        assertThat(partitionOf("parttest_2031", 2031)).isNotEqualTo(partitionOf("parttest_y2031", 2031));
+    }
+
+    @Test
+    void ensuringTwiceCreatesOnce() {
+        assertThat(jdbcTemplate.queryForObject("SELECT etsinf_exams_ensure_partition('parttest', 2032)", Boolean.class))
+                .isTrue();
+        assertThat(jdbcTemplate.queryForObject("SELECT etsinf_exams_ensure_partition('parttest', 2032)", Boolean.class))
+                .isFalse();
+    }
+
+    @Test
+    void partitionNamedTheOldWayIsFoundAndRenamed() {
+        jdbcTemplate.execute("CREATE TABLE etsinf_exams_partold PARTITION OF etsinf_exams "
+                + "FOR VALUES IN ('partold') PARTITION BY RANGE (academic_year)");
+        jdbcTemplate.execute("CREATE TABLE etsinf_exams_partold_2033 PARTITION OF etsinf_exams_partold "
+                + "FOR VALUES FROM (2033) TO (2034)");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT etsinf_exams_ensure_partition('partold', 2033)", Boolean.class))
+                .isFalse();
+        assertThat(partitionOf("partold", 2033)).isEqualTo("etsinf_exams_partold_y2033");
+    }
+
+    /**
+     * Name of the table the rows of a school and academic year go to
+     */
+    private String partitionOf(String school, int academicYear) {
+        List<String> names = jdbcTemplate.queryForList(
+                "SELECT child.relname FROM pg_inherits "
+                        + "JOIN pg_class child ON child.oid = pg_inherits.inhrelid "
+                        + "WHERE pg_inherits.inhparent = to_regclass(quote_ident(etsinf_exams_partition_name(?))) "
+                        + "AND pg_get_expr(child.relpartbound, child.oid) = format('FOR VALUES FROM (%s) TO (%s)', ?, ?)",
+                String.class, school, academicYear, academicYear + 1);
+        assertThat(names).hasSize(1);
+        return names.get(0);
+    }
+}
@@ -0,0 +1,62 @@
+package com.upv.examcalendar.repositories;
+
+import com.upv.examcalendar.PostgresTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * schema.sql run again over a database whose exams were left in a table of the baseline shape,
+ * as the rename at the top of the script leaves them
+ */
+@EnabledIfEnvironmentVariable(named = PostgresTest.DATABASE_URL, matches = ".+")
+@Transactional
+class ExamSchemaUpgradeTest extends PostgresTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void baselineRowsWithoutVersionsAreCopiedWithNewVersions() {
+        jdbcTemplate.execute("CREATE TABLE etsinf_exams_unpartitioned ("
+                + "id INTEGER PRIMARY KEY, exam_day DATE NOT NULL, exam_hour TIME NOT NULL, "
+                + "duration_min INTEGER NOT NULL, subject_code VARCHAR(20) NOT NULL, "
+                + "subject_name VARCHAR(255) NOT NULL, acronym VARCHAR(20), degree VARCHAR(100) NOT NULL, "
+                + "course_year INTEGER NOT NULL, semester INTEGER NOT NULL, exam_place VARCHAR(255), comment TEXT)");
+        jdbcTemplate.update("INSERT INTO etsinf_exams_unpartitioned VALUES "
+                + "(900001, '2035-01-13', '09:00', 120, 'UPG1', 'Upgrade I', 'UP1', 'upgtest Informatica', 1, 1, "
+                + "'1G 0.1', NULL), "
+                + "(900002, '2035-06-20', '15:00', 90, 'UPG2', 'Upgrade II', NULL, 'upgtest Informatica', 2, 2, "
+                + "NULL, 'Oral')");
+        long sequenceBefore = jdbcTemplate.queryForObject(
+                "SELECT last_value FROM etsinf_exams_version_seq", Long.class);
+
+        ScriptUtils.executeSqlScript(DataSourceUtils.getConnection(dataSource), new ClassPathResource("schema.sql"));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT to_regclass('etsinf_exams_unpartitioned') IS NULL",
+                Boolean.class)).isTrue();
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT id, subject_code, school, academic_year, version FROM etsinf_exams "
+                        + "WHERE id IN (900001, 900002) ORDER BY id");
+        assertThat(rows).extracting(row -> row.get("subject_code")).containsExactly("UPG1", "UPG2");
+        assertThat(rows).extracting(row -> row.get("school")).containsOnly("upgtest");
+        assertThat(rows).extracting(row -> row.get("academic_year")).containsOnly(2034);
+        assertThat(rows).extracting(row -> ((Number) row.get("version")).longValue())
+                .allSatisfy(version -> assertThat(version).isGreaterThan(sequenceBefore))
+                .doesNotHaveDuplicates();
+    }
+}
@@ -0,0 +1,209 @@
+package com.upv.examcalendar.security;
+
+import com.upv.examcalendar.controllers.ExamController;
+import com.upv.examcalendar.dtos.TimetableResultDTO;
+import com.upv.examcalendar.models.User;
+import com.upv.examcalendar.repositories.UserRepository;
+import com.upv.examcalendar.services.ExamCalendarExport;
+import com.upv.examcalendar.services.ExamChangeFeed;
+import com.upv.examcalendar.services.ExamDatasetVersion;
+import com.upv.examcalendar.services.ExamDayIndex;
+import com.upv.examcalendar.services.ExamDeltaSync;
+import com.upv.examcalendar.services.ExamImportService;
+import com.upv.examcalendar.services.ExamRoomOccupancy;
+import com.upv.examcalendar.services.ExamScheduleAnalyzer;
+import com.upv.examcalendar.services.ExamService;
+import com.upv.examcalendar.services.ExamTimetableService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Who may read and change exams, with the services mocked out
+ */
+@WebMvcTest(controllers = ExamController.class, properties = {
+        "exam.admin.username=admin",
+        "exam.admin.password=admin-secret"
+})
+@Import({WebSecurityConfig.class, ExamUserDetailsService.class, JwtTokenProvider.class})
+class ExamWriteSecurityTest {
+
+    private static final String STUDENT = "student@upv.es";
+    private static final String STUDENT_PASSWORD = "student-secret";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ExamUserDetailsService userDetailsService;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    @MockBean
+    private UserRepository userRepository;
+    @MockBean
+    private ExamService examService;
+    @MockBean
+    private ExamCalendarExport calendarExport;
+    @MockBean
+    private ExamImportService importService;
+    @MockBean
+    private ExamChangeFeed changeFeed;
+    @MockBean
+    private ExamDeltaSync deltaSync;
+    @MockBean
+    private ExamDayIndex dayIndex;
+    @MockBean
+    private ExamScheduleAnalyzer scheduleAnalyzer;
+    @MockBean
+    private ExamRoomOccupancy roomOccupancy;
+    @MockBean
+    private ExamTimetableService timetableService;
+    @MockBean
+    private ExamDatasetVersion datasetVersion;
+
+    @BeforeEach
+    void registeredStudent() {
+        User student = new User();
+        student.setName("Student");
+        student.setEmail(STUDENT);
+        student.setPassword(passwordEncoder.encode(STUDENT_PASSWORD));
+        when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
+        when(userRepository.findByEmail(STUDENT)).thenReturn(Optional.of(student));
+    }
+
+    @Test
+    void anyoneReadsExams() throws Exception {
+        mvc.perform(get("/api/exams/rooms")).andExpect(status().isOk());
+    }
+
+    @Test
+    void anyoneAnalysesASchedule() throws Exception {
+        mvc.perform(post("/api/exams/my-schedule/analysis")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"subjectCodes\":[\"11545\"]}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void anonymousWritesAreRejected() throws Exception {
+        mvc.perform(post("/api/exams").contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isUnauthorized());
+        mvc.perform(post("/api/exams/import").contentType("text/csv").content("subjectCode\n"))
+                .andExpect(status().isUnauthorized());
+        mvc.perform(delete("/api/exams/1")).andExpect(status().isUnauthorized());
+        verify(examService, never()).deleteExam(any(), any());
+    }
+
+    @Test
+    void usersCannotWrite() throws Exception {
+        mvc.perform(delete("/api/exams/1").with(httpBasic(STUDENT, STUDENT_PASSWORD)))
+                .andExpect(status().isForbidden());
+        verify(examService, never()).deleteExam(any(), any());
+    }
+
+    @Test
+    void wrongAdminPasswordIsRejected() throws Exception {
+        mvc.perform(delete("/api/exams/1").with(httpBasic("admin", "guess")))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void adminWritesWithBasicAuthentication() throws Exception {
+        mvc.perform(delete("/api/exams/1").with(httpBasic("admin", "admin-secret")))
+                .andExpect(status().isNoContent());
+        verify(examService).deleteExam(1L, null);
+    }
+
+    @Test
+    void bulkOperationsNeedTheAdmin() throws Exception {
+        mvc.perform(post("/api/exams/bulk/shift").param("degree", "GII").param("days", "1"))
+                .andExpect(status().isUnauthorized());
+        mvc.perform(post("/api/exams/bulk/place").param("degree", "GII").param("examPlace", "1G 0.1")
+                        .with(httpBasic(STUDENT, STUDENT_PASSWORD)))
+                .andExpect(status().isForbidden());
+        mvc.perform(delete("/api/exams/bulk").param("all", "true"))
+                .andExpect(status().isUnauthorized());
+        verifyNoInteractions(examService);
+
+        mvc.perform(delete("/api/exams/bulk").param("all", "true").with(httpBasic("admin", "admin-secret")))
+                .andExpect(status().isOk());
+        verify(examService).deleteExams(any(), eq(true));
+    }
+
+    @Test
+    void detachingAnAcademicYearNeedsTheAdmin() throws Exception {
+        mvc.perform(post("/api/exams/academic-years/2023/detach")).andExpect(status().isUnauthorized());
+        mvc.perform(post("/api/exams/academic-years/2023/detach").with(httpBasic(STUDENT, STUDENT_PASSWORD)))
+                .andExpect(status().isForbidden());
+        verifyNoInteractions(examService);
+
+        mvc.perform(post("/api/exams/academic-years/2023/detach").with(httpBasic("admin", "admin-secret")))
+                .andExpect(status().isOk());
+        verify(examService).detachAcademicYear(2023);
+    }
+
+    @Test
+    void planningATimetableNeedsTheAdmin() throws Exception {
+        String request = "{\"subjects\":[{\"subjectCode\":\"11545\",\"subjectName\":\"Algebra\","
+                + "\"degree\":\"GII\",\"courseYear\":1,\"semester\":\"1\"}],"
+                + "\"days\":[\"2031-01-15\"],\"startTimes\":[\"09:00\"]}";
+
+        mvc.perform(post("/api/exams/timetable").contentType(MediaType.APPLICATION_JSON).content(request))
+                .andExpect(status().isUnauthorized());
+        mvc.perform(post("/api/exams/timetable").contentType(MediaType.APPLICATION_JSON).content(request)
+                        .with(httpBasic(STUDENT, STUDENT_PASSWORD)))
+                .andExpect(status().isForbidden());
+        verifyNoInteractions(timetableService);
+
+        when(timetableService.plan(any())).thenReturn(new TimetableResultDTO());
+        mvc.perform(post("/api/exams/timetable").contentType(MediaType.APPLICATION_JSON).content(request)
+                        .with(httpBasic("admin", "admin-secret")))
+                .andExpect(status().isOk());
+        verify(timetableService).plan(any());
+    }
+
+    @Test
+    void adminWritesWithTheLoginToken() throws Exception {
+        UserDetails admin = userDetailsService.loadUserByUsername("admin");
+        String token = tokenProvider.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(admin, null, admin.getAuthorities()));
+
+        mvc.perform(delete("/api/exams/1").header("Authorization", "Bearer " + token))
+                .andExpect(status().isNoContent());
+        verify(examService).deleteExam(1L, null);
+    }
+
+    @Test
+    void invalidTokenIsAnonymous() throws Exception {
+        mvc.perform(delete("/api/exams/1").header("Authorization", "Bearer not-a-token"))
+                .andExpect(status().isUnauthorized());
+    }
+}
@@ -0,0 +1,120 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.dtos.ExamFilter;
+import com.upv.examcalendar.events.ExamChangeEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExamChangeFeedTest {
+
+    private ExamChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        ExamDatasetVersion datasetVersion = mock(ExamDatasetVersion.class);
+        when(datasetVersion.current()).thenReturn(1L);
+        feed = new ExamChangeFeed(datasetVersion, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(feed, "queueCapacity", 64);
+        ReflectionTestUtils.setField(feed, "dispatchThreads", 1);
+        ReflectionTestUtils.setField(feed, "heartbeatSeconds", 3600);
+        ReflectionTestUtils.setField(feed, "sendTimeoutMs", 100L);
+        feed.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.shutdown();
+    }
+
+    @Test
+    void subscriberThatStopsReadingIsDroppedWithoutStarvingTheOthers() throws InterruptedException {
+        RecordingEmitter stalled = new RecordingEmitter(new CountDownLatch(1));
+        feed.subscribe(stalled, new ExamFilter(), null);
+        // The only dispatcher thread blocks in the stalled subscriber's send
+        feed.onExamChange(ExamChangeEvent.created(exam(1L)));
+        assertThat(stalled.sent.poll(5, TimeUnit.SECONDS)).isNotNull();
+
+        RecordingEmitter reading = new RecordingEmitter(null);
+        feed.subscribe(reading, new ExamFilter(), null);
+        feed.onExamChange(ExamChangeEvent.created(exam(2L)));
+        feed.onExamChange(ExamChangeEvent.created(exam(3L)));
+
+        assertThat(reading.sent.poll(5, TimeUnit.SECONDS)).isNotNull();
+        assertThat(reading.sent.poll(5, TimeUnit.SECONDS)).isNotNull();
+        assertThat(feed.getSubscriberCount()).isEqualTo(1);
+
+        stalled.release.countDown();
+        assertThat(stalled.completedWithError.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(stalled.sent).isEmpty();
+    }
+
+    @Test
+    void dispatcherGivesBackTheLentThread() throws InterruptedException {
+        RecordingEmitter stalled = new RecordingEmitter(new CountDownLatch(1));
+        feed.subscribe(stalled, new ExamFilter(), null);
+        feed.onExamChange(ExamChangeEvent.created(exam(1L)));
+        assertThat(stalled.sent.poll(5, TimeUnit.SECONDS)).isNotNull();
+        while (feed.getSubscriberCount() > 0) {
+            Thread.sleep(10);
+        }
+
+        stalled.release.countDown();
+        assertThat(stalled.completedWithError.await(5, TimeUnit.SECONDS)).isTrue();
+        ThreadPoolExecutor dispatcher = (ThreadPoolExecutor) ReflectionTestUtils.getField(feed, "dispatcher");
+        assertThat(dispatcher.getCorePoolSize()).isEqualTo(1);
+        assertThat(dispatcher.getMaximumPoolSize()).isEqualTo(1);
+    }
+
+    private static ExamDTO exam(Long id) {
+        return ExamDTO.builder().id(id).version(id).degree("GII").subjectCode("S" + id).build();
+    }
+
+    /**
+     * Emitter that records its events, and blocks in send until released when it has a latch,
+     * as a servlet write to a client that stopped reading does
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+
+        final BlockingQueue<SseEventBuilder> sent = new LinkedBlockingQueue<>();
+        final CountDownLatch release;
+        final CountDownLatch completedWithError = new CountDownLatch(1);
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sent.add(builder);
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+        }
+
+        @Override
+        public synchronized void completeWithError(Throwable error) {
+            completedWithError.countDown();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.mappers.ExamMapper;
+import com.upv.examcalendar.mappers.ExamMapperImpl;
+import com.upv.examcalendar.models.EtsinfExam;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Memory benchmark of the columnar {@link ExamSnapshot} against the entity
+ * and DTO lists a database read produces. For each dataset size it generates
+ * exams of several schools, where every row carries its own copies of the
+ * degree, subject, semester and place strings as rows read from JDBC do, and
+ * logs the retained heap per exam of the entities plus their DTOs, of the
+ * DTOs alone and of the snapshot built from them. Heap is measured as used
+ * memory after forcing garbage collection, so run it on an otherwise idle
+ * JVM. Its name keeps it out of the test run; run it, optionally with other
+ * dataset sizes, with:
+ *
+ * <pre>
+ * mvn test -Dtest=ExamColumnsBenchmark -Dexam.columns.benchmark.exams=10000,100000,500000
+ * </pre>
+ */
+@Slf4j
+class ExamColumnsBenchmark {
+
+    private static final int SCHOOLS = 6;
+    private static final int DEGREES_PER_SCHOOL = 8;
+    private static final int COURSE_YEARS = 4;
+    private static final int SUBJECTS_PER_COHORT = 10;
+    private static final int SUBJECTS = SCHOOLS * DEGREES_PER_SCHOOL * COURSE_YEARS * SUBJECTS_PER_COHORT;
+    private static final int ROOMS_PER_SCHOOL = 40;
+    private static final long SEED = 20240601L;
+
+    private final ExamMapper examMapper = new ExamMapperImpl();
+
+    @Test
+    void retainedHeapPerExam() {
+        int[] examCounts = Arrays.stream(System.getProperty("exam.columns.benchmark.exams", "10000,100000,500000")
+                .split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+        for (int exams : examCounts) {
+            long baseline = usedHeap();
+            List<EtsinfExam> entities = generate(exams, new Random(SEED));
+            List<ExamDTO> dtos = examMapper.toDtoList(entities);
+            long withEntities = usedHeap();
+            entities = null;
+            long withDtos = usedHeap();
+            ExamSnapshot snapshot = ExamSnapshot.of(dtos);
+            dtos = null;
+            long withSnapshot = usedHeap();
+
+            log.info("Columns benchmark: {} exams, {} distinct strings", snapshot.size(), snapshot.dictionarySize());
+            log.info("  entities + DTOs: {} bytes/exam", (withEntities - baseline) / exams);
+            log.info("  DTOs:            {} bytes/exam", (withDtos - baseline) / exams);
+            log.info("  snapshot:        {} bytes/exam", (withSnapshot - baseline) / exams);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Exams of the subjects of six schools, with as many sittings per subject
+     * as needed over a three-week period. Strings are built per row, as a
+     * result set does.
+     */
+    static List<EtsinfExam> generate(int count, Random random) {
+        List<EtsinfExam> exams = new ArrayList<>(count);
+        LocalDate firstDay = LocalDate.of(2025, 1, 8);
+        for (long id = 1; id <= count; id++) {
+            int subject = random.nextInt(SUBJECTS);
+            int cohort = subject / SUBJECTS_PER_COHORT;
+            int degree = cohort / COURSE_YEARS;
+            int school = degree / DEGREES_PER_SCHOOL;
+            exams.add(EtsinfExam.builder()
+                    .id(id)
+                    .version(id)
+                    .examDay(firstDay.plusDays(random.nextInt(21)))
+                    .examHour(LocalTime.of(9 + 4 * random.nextInt(3), 0))
+                    .durationMin(120)
+                    .subjectCode(String.valueOf(10000 + subject))
+                    .subjectName("Subject " + subject + " of degree " + degree)
+                    .acronym("S" + subject)
+                    .degree("SCHOOL" + school + " Degree in Engineering " + degree)
+                    .courseYear(cohort % COURSE_YEARS + 1)
+                    .semester(new String(random.nextBoolean() ? "A" : "B"))
+                    .examPlace("SCHOOL" + school + " Room " + random.nextInt(ROOMS_PER_SCHOOL))
+                    .build());
+        }
+        return exams;
+    }
+}
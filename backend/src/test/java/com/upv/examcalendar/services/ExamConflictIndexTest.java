@@ -0,0 +1,161 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamConflictDTO;
+import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.dtos.ExamFilter;
+import com.upv.examcalendar.events.ExamChangeEvent;
+import com.upv.examcalendar.mappers.ExamMapper;
+import com.upv.examcalendar.repositories.EtsinfExamRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExamConflictIndexTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 1, 13);
+
+    private ExamMapper examMapper;
+    private ExamRows rows;
+    private ExamConflictIndex conflictIndex;
+
+    @BeforeEach
+    void setUp() {
+        examMapper = mock(ExamMapper.class);
+        rows = new ExamRows(mock(EtsinfExamRepository.class), examMapper);
+        conflictIndex = new ExamConflictIndex(rows);
+        conflictIndex.init();
+    }
+
+    @Test
+    void examsThatOnlyTouchDoNotClash() {
+        database(exam(1L, 9 * 60, 120, "S1"), exam(2L, 11 * 60, 120, "S2"), exam(3L, 13 * 60 - 1, 60, "S3"));
+
+        assertThat(conflictIndex.findConflicts(new ExamFilter()))
+                .extracting(conflict -> conflict.getFirst().getId(), conflict -> conflict.getSecond().getId(),
+                        ExamConflictDTO::getOverlapMinutes)
+                .containsExactly(tuple(2L, 3L, 1L));
+        assertThat(conflictIndex.findConflictsOf(1L)).isEmpty();
+    }
+
+    @Test
+    void examsOfTheSameSubjectDoNotClash() {
+        database(exam(1L, 9 * 60, 120, "S1"), exam(2L, 9 * 60, 120, "s1"), exam(3L, 10 * 60, 60, "S3"));
+
+        assertThat(conflictIndex.findConflictsOf(1L)).extracting(ExamDTO::getId).containsExactly(3L);
+        assertThat(conflictIndex.findConflictsOf(2L)).extracting(ExamDTO::getId).containsExactly(3L);
+        assertThat(conflictIndex.findConflictsOf(3L)).extracting(ExamDTO::getId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void onlyExamsOfOneCohortClash() {
+        ExamDTO sameCohort = exam(2L, 9 * 60, 120, "S2");
+        sameCohort.setDegree("etsinf degree");
+        ExamDTO otherYear = exam(3L, 9 * 60, 120, "S3");
+        otherYear.setCourseYear(2);
+        ExamDTO otherSemester = exam(4L, 9 * 60, 120, "S4");
+        otherSemester.setSemester("2");
+        database(exam(1L, 9 * 60, 120, "S1"), sameCohort, otherYear, otherSemester);
+
+        assertThat(conflictIndex.findConflictsOf(1L)).extracting(ExamDTO::getId).containsExactly(2L);
+    }
+
+    @Test
+    void eachPairIsReportedOnceFromTheEarlierExam() {
+        database(exam(1L, 10 * 60, 120, "S1"), exam(2L, 9 * 60, 120, "S2"), exam(3L, 9 * 60, 30, "S3"));
+
+        assertThat(conflictIndex.findConflicts(new ExamFilter()))
+                .extracting(conflict -> conflict.getFirst().getId(), conflict -> conflict.getSecond().getId(),
+                        ExamConflictDTO::getOverlapMinutes)
+                .containsExactly(tuple(2L, 3L, 30L), tuple(2L, 1L, 60L));
+    }
+
+    @Test
+    void filterKeepsPairsWithEitherExamMatching() {
+        database(exam(1L, 9 * 60, 120, "S1"), exam(2L, 9 * 60, 120, "S2"));
+
+        assertThat(conflictIndex.findConflicts(ExamFilter.builder().subject("S2").build())).hasSize(1);
+        assertThat(conflictIndex.findConflicts(ExamFilter.builder().subject("S9").build())).isEmpty();
+    }
+
+    @Test
+    void removalClearsBothSidesOfEveryPair() {
+        database(exam(1L, 9 * 60, 240, "S1"), exam(2L, 9 * 60, 60, "S2"), exam(3L, 12 * 60, 60, "S3"));
+        assertThat(conflictIndex.findConflictsOf(1L)).extracting(ExamDTO::getId).containsExactly(2L, 3L);
+
+        rows.onExamChange(ExamChangeEvent.deleted(versioned(exam(1L, 9 * 60, 240, "S1"), 10)));
+
+        assertThat(conflictIndex.findConflictsOf(2L)).isEmpty();
+        assertThat(conflictIndex.findConflictsOf(3L)).isEmpty();
+        assertThat(conflictIndex.findConflicts(new ExamFilter())).isEmpty();
+    }
+
+    @Test
+    void updateMovesAnExamBetweenPairs() {
+        database(exam(1L, 9 * 60, 120, "S1"), exam(2L, 10 * 60, 120, "S2"), exam(3L, 15 * 60, 120, "S3"));
+        assertThat(conflictIndex.findConflictsOf(2L)).extracting(ExamDTO::getId).containsExactly(1L);
+
+        rows.onExamChange(ExamChangeEvent.updated(exam(2L, 10 * 60, 120, "S2"),
+                versioned(exam(2L, 16 * 60, 120, "S2"), 10)));
+
+        assertThat(conflictIndex.findConflictsOf(1L)).isEmpty();
+        assertThat(conflictIndex.findConflictsOf(2L)).extracting(ExamDTO::getId).containsExactly(3L);
+        assertThat(conflictIndex.findConflictsOf(3L)).extracting(ExamDTO::getId).containsExactly(2L);
+        assertThat(conflictIndex.findConflicts(new ExamFilter()))
+                .extracting(conflict -> conflict.getFirst().getId(), conflict -> conflict.getSecond().getId())
+                .containsExactly(tuple(3L, 2L));
+    }
+
+    @Test
+    void longExamClashesWithExamsStartingLongAfterIt() {
+        database(exam(1L, 9 * 60, 30, "S1"), exam(2L, 8 * 60, 600, "S2"), exam(3L, 17 * 60, 30, "S3"));
+
+        assertThat(conflictIndex.findConflictsOf(2L)).extracting(ExamDTO::getId).containsExactly(1L, 3L);
+        assertThat(conflictIndex.findConflictsOf(3L)).extracting(ExamDTO::getId).containsExactly(2L);
+    }
+
+    @Test
+    void examsThatCannotBePlacedAreLeftOut() {
+        ExamDTO unplaced = exam(2L, 9 * 60, 120, "S2");
+        unplaced.setExamHour(null);
+        database(exam(1L, 9 * 60, 120, "S1"), unplaced);
+
+        assertThat(conflictIndex.findConflicts(new ExamFilter())).isEmpty();
+    }
+
+    private void database(ExamDTO... exams) {
+        List<ExamDTO> loaded = new ArrayList<>(List.of(exams));
+        when(examMapper.toDtoList(any())).thenReturn(loaded);
+    }
+
+    private static ExamDTO versioned(ExamDTO exam, long version) {
+        exam.setVersion(version);
+        return exam;
+    }
+
+    /**
+     * Exam of one cohort starting at the given minute of a day
+     */
+    private static ExamDTO exam(Long id, int minute, int durationMin, String subjectCode) {
+        return ExamDTO.builder()
+                .id(id)
+                .version(id)
+                .examDay(DAY.plusDays(minute / (24 * 60)))
+                .examHour(LocalTime.of(minute % (24 * 60) / 60, minute % 60))
+                .durationMin(durationMin)
+                .subjectCode(subjectCode)
+                .degree("ETSINF Degree")
+                .courseYear(1)
+                .semester("1")
+                .build();
+    }
+}
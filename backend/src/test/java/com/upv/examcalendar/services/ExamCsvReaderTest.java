@@ -0,0 +1,89 @@
+package com.upv.examcalendar.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExamCsvReaderTest {
+
+    @Test
+    void readsCommaSeparatedRecords() throws IOException {
+        assertThat(records("examDay,examHour,subjectCode\n2025-01-13,09:00,S1\n2025-01-14,15:00,S2\n"))
+                .containsExactly(
+                        List.of("examDay", "examHour", "subjectCode"),
+                        List.of("2025-01-13", "09:00", "S1"),
+                        List.of("2025-01-14", "15:00", "S2"));
+    }
+
+    @Test
+    void detectsSemicolonsFromTheHeader() throws IOException {
+        assertThat(records("examDay;subjectName;comment\n13/1/2025;Algebra, lineal;\n"))
+                .containsExactly(
+                        List.of("examDay", "subjectName", "comment"),
+                        List.of("13/1/2025", "Algebra, lineal", ""));
+    }
+
+    @Test
+    void delimitersInsideQuotedHeadersAreNotCounted() throws IOException {
+        assertThat(records("\"a;b;c\",d,e\n1,2,3\n"))
+                .containsExactly(List.of("a;b;c", "d", "e"), List.of("1", "2", "3"));
+    }
+
+    @Test
+    void quotedFieldsKeepDelimitersQuotesAndLineBreaks() throws IOException {
+        ExamCsvReader reader = reader("subjectName,comment\n\"Redes, I\",\"Bring \"\"ID\"\"\nand pen\"\nX,Y\n");
+
+        assertThat(reader.next()).containsExactly("subjectName", "comment");
+        assertThat(reader.next()).containsExactly("Redes, I", "Bring \"ID\"\nand pen");
+        assertThat(reader.getRecordLine()).isEqualTo(2);
+        assertThat(reader.next()).containsExactly("X", "Y");
+        assertThat(reader.getRecordLine()).isEqualTo(4);
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void acceptsCrlfAndLoneCr() throws IOException {
+        assertThat(records("a,b\r\n1,2\r3,4\r\n"))
+                .containsExactly(List.of("a", "b"), List.of("1", "2"), List.of("3", "4"));
+    }
+
+    @Test
+    void skipsTheByteOrderMark() throws IOException {
+        assertThat(records("\uFEFFa;b\n1;2")).containsExactly(List.of("a", "b"), List.of("1", "2"));
+    }
+
+    @Test
+    void skipsBlankLinesButKeepsEmptyFields() throws IOException {
+        ExamCsvReader reader = reader("a,b\n\n\n,\n\"\"\n");
+
+        assertThat(reader.next()).containsExactly("a", "b");
+        assertThat(reader.next()).containsExactly("", "");
+        assertThat(reader.getRecordLine()).isEqualTo(4);
+        assertThat(reader.next()).containsExactly("");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void emptyInputHasNoRecords() throws IOException {
+        assertThat(records("")).isEmpty();
+    }
+
+    private static List<List<String>> records(String csv) throws IOException {
+        ExamCsvReader reader = reader(csv);
+        List<List<String>> records = new ArrayList<>();
+        for (List<String> record = reader.next(); record != null; record = reader.next()) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static ExamCsvReader reader(String csv) throws IOException {
+        return new ExamCsvReader(new BufferedReader(new StringReader(csv)));
+    }
+}
@@ -0,0 +1,104 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.config.ReplicaLagGuard;
+import com.upv.examcalendar.events.ExamChangeEvent;
+import com.upv.examcalendar.repositories.EtsinfExamRepository;
+import com.upv.examcalendar.repositories.EtsinfExamRepositoryCustom.DeltaBounds;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ExamDatasetVersionTest {
+
+    private EtsinfExamRepository examRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private ReplicaLagGuard lagGuard;
+    private ExamDatasetVersion datasetVersion;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        examRepository = mock(EtsinfExamRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        lagGuard = mock(ReplicaLagGuard.class);
+        ObjectProvider<ReplicaLagGuard> lagGuardProvider = mock(ObjectProvider.class);
+        when(lagGuardProvider.getIfAvailable()).thenReturn(lagGuard);
+        committed(40);
+        datasetVersion = new ExamDatasetVersion(examRepository, eventPublisher, lagGuardProvider);
+        datasetVersion.init();
+    }
+
+    @Test
+    void startsAtTheCommittedVersion() {
+        assertThat(datasetVersion.current()).isEqualTo(40);
+    }
+
+    @Test
+    void localWriteReadsTheNewVersion() {
+        committed(41);
+
+        datasetVersion.onExamChange(ExamChangeEvent.bulk());
+
+        assertThat(datasetVersion.current()).isEqualTo(41);
+    }
+
+    @Test
+    void replicasCatchUpAfterTheVersionIsRead() {
+        clearInvocations(examRepository, lagGuard);
+        committed(41);
+
+        datasetVersion.onExamChange(ExamChangeEvent.bulk());
+
+        // Replicas must replay at least the writes of the version they are read under
+        InOrder order = inOrder(examRepository, lagGuard);
+        order.verify(examRepository).findDeltaBounds();
+        order.verify(lagGuard).catchUpWithPrimary();
+    }
+
+    @Test
+    void pollWithoutChangesDoesNothing() {
+        datasetVersion.poll();
+
+        verifyNoInteractions(eventPublisher);
+        assertThat(datasetVersion.current()).isEqualTo(40);
+    }
+
+    @Test
+    void writeOfAnotherInstanceIsPublishedAsBulk() {
+        committed(45);
+
+        datasetVersion.poll();
+
+        ArgumentCaptor<ExamChangeEvent> event = ArgumentCaptor.forClass(ExamChangeEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().isBulk()).isTrue();
+        // The version moves once the listeners have rebuilt, ending with onExamChange
+        assertThat(datasetVersion.current()).isEqualTo(40);
+    }
+
+    @Test
+    void failedPollKeepsTheVersion() {
+        when(examRepository.findDeltaBounds()).thenThrow(new QueryTimeoutException("timeout"));
+
+        datasetVersion.poll();
+
+        verifyNoInteractions(eventPublisher);
+        assertThat(datasetVersion.current()).isEqualTo(40);
+    }
+
+    private void committed(long version) {
+        when(examRepository.findDeltaBounds()).thenReturn(new DeltaBounds(0, version));
+    }
+}
@@ -0,0 +1,118 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.CalendarDayDTO;
+import com.upv.examcalendar.dtos.CalendarMonthDTO;
+import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.dtos.ExamFilter;
+import com.upv.examcalendar.dtos.ExamSummaryDTO;
+import com.upv.examcalendar.events.ExamChangeEvent;
+import com.upv.examcalendar.mappers.ExamMapper;
+import com.upv.examcalendar.repositories.EtsinfExamRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExamDayIndexTest {
+
+    private static final YearMonth JANUARY = YearMonth.of(2025, 1);
+
+    private EtsinfExamRepository examRepository;
+    private ExamMapper examMapper;
+
+    @BeforeEach
+    void setUp() {
+        examRepository = mock(EtsinfExamRepository.class);
+        examMapper = mock(ExamMapper.class);
+        List<ExamDTO> exams = List.of(
+                exam(1L, LocalDate.of(2024, 12, 30), 9, "GII"),
+                exam(2L, LocalDate.of(2025, 1, 13), 15, "GII"),
+                exam(3L, LocalDate.of(2025, 1, 13), 9, "GTI"),
+                exam(4L, LocalDate.of(2025, 1, 31), 9, "GII"),
+                exam(5L, LocalDate.of(2025, 2, 10), 9, "GII"));
+        when(examMapper.toDtoList(any())).thenAnswer(invocation -> new ArrayList<>(exams));
+    }
+
+    @Test
+    void gridCompletesTheWeeksAndCountsTheMonthOnly() {
+        CalendarMonthDTO month = dayIndex(false).getMonth(JANUARY, new ExamFilter());
+
+        assertThat(month.getGridStart()).isEqualTo(LocalDate.of(2024, 12, 30));
+        assertThat(month.getGridEnd()).isEqualTo(LocalDate.of(2025, 2, 2));
+        assertThat(month.getDays()).hasSize(35);
+        assertThat(month.getExamCount()).isEqualTo(3);
+        assertThat(examIds(month, LocalDate.of(2024, 12, 30))).containsExactly(1L);
+        assertThat(examIds(month, LocalDate.of(2025, 1, 13))).containsExactly(3L, 2L);
+    }
+
+    @Test
+    void readModelServesTheSameGrid() {
+        ExamFilter gii = ExamFilter.builder().degree("gii").build();
+
+        assertThat(dayIndex(true).getMonth(JANUARY, new ExamFilter()))
+                .isEqualTo(dayIndex(false).getMonth(JANUARY, new ExamFilter()));
+        assertThat(dayIndex(true).getMonth(JANUARY, gii)).isEqualTo(dayIndex(false).getMonth(JANUARY, gii));
+    }
+
+    @Test
+    void committedWritesMoveExamsBetweenDays() {
+        ExamRows rows = new ExamRows(examRepository, examMapper);
+        ExamDayIndex dayIndex = new ExamDayIndex(rows, readModel(false));
+        dayIndex.init();
+        dayIndex.getMonth(JANUARY, new ExamFilter());
+
+        ExamDTO moved = exam(2L, LocalDate.of(2025, 1, 14), 8, "GII");
+        moved.setVersion(6L);
+        rows.onExamChange(ExamChangeEvent.updated(exam(2L, LocalDate.of(2025, 1, 13), 15, "GII"), moved));
+
+        CalendarMonthDTO month = dayIndex.getMonth(JANUARY, new ExamFilter());
+        assertThat(examIds(month, LocalDate.of(2025, 1, 13))).containsExactly(3L);
+        assertThat(examIds(month, LocalDate.of(2025, 1, 14))).containsExactly(2L);
+    }
+
+    private ExamDayIndex dayIndex(boolean readModelEnabled) {
+        ExamDayIndex dayIndex = new ExamDayIndex(new ExamRows(examRepository, examMapper), readModel(readModelEnabled));
+        dayIndex.init();
+        return dayIndex;
+    }
+
+    private ExamReadModel readModel(boolean enabled) {
+        ExamReadModel readModel = new ExamReadModel(examRepository, examMapper);
+        ReflectionTestUtils.setField(readModel, "enabled", enabled);
+        return readModel;
+    }
+
+    private static List<Long> examIds(CalendarMonthDTO month, LocalDate day) {
+        List<Long> ids = new ArrayList<>();
+        for (CalendarDayDTO cell : month.getDays()) {
+            if (cell.getDate().equals(day)) {
+                cell.getExams().stream().map(ExamSummaryDTO::getId).forEach(ids::add);
+            }
+        }
+        return ids;
+    }
+
+    private static ExamDTO exam(Long id, LocalDate day, int hour, String degree) {
+        return ExamDTO.builder()
+                .id(id)
+                .version(id)
+                .examDay(day)
+                .examHour(LocalTime.of(hour, 0))
+                .durationMin(120)
+                .subjectCode("S" + id)
+                .degree(degree)
+                .courseYear(1)
+                .semester("1")
+                .build();
+    }
+}
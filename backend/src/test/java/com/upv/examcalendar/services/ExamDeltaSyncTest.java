@@ -0,0 +1,112 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.dtos.ExamDeltaDTO;
+import com.upv.examcalendar.mappers.ExamMapper;
+import com.upv.examcalendar.models.EtsinfExam;
+import com.upv.examcalendar.repositories.EtsinfExamRepository;
+import com.upv.examcalendar.repositories.EtsinfExamRepositoryCustom.DeltaBounds;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExamDeltaSyncTest {
+
+    private static final long COMPACTED = 10;
+    private static final long CURRENT = 20;
+
+    private final List<EtsinfExam> changedSince15 = List.of(entity(3L, 16), entity(1L, 18));
+    private final List<EtsinfExam> everyExam = List.of(entity(1L, 18), entity(3L, 16), entity(4L, 5));
+
+    private EtsinfExamRepository examRepository;
+    private ExamDeltaSync deltaSync;
+
+    @BeforeEach
+    void setUp() {
+        examRepository = mock(EtsinfExamRepository.class);
+        ExamMapper examMapper = mock(ExamMapper.class);
+        when(examMapper.toDtoList(anyList())).thenAnswer(invocation -> {
+            List<EtsinfExam> exams = invocation.getArgument(0);
+            return exams.stream().map(exam -> ExamDTO.builder().id(exam.getId()).version(exam.getVersion()).build())
+                    .collect(Collectors.toList());
+        });
+        when(examRepository.findDeltaBounds()).thenReturn(new DeltaBounds(COMPACTED, CURRENT));
+        when(examRepository.findChangedSince(0, Integer.MAX_VALUE)).thenReturn(everyExam);
+        deltaSync = new ExamDeltaSync(examRepository, examMapper);
+        ReflectionTestUtils.setField(deltaSync, "maxChanges", 2000);
+    }
+
+    @Test
+    void clientNewerThanTheCompactionGetsChangesAndDeletions() {
+        when(examRepository.findChangedSince(15, 2001)).thenReturn(changedSince15);
+        when(examRepository.findDeletedSince(15, 2001)).thenReturn(List.of(2L));
+
+        ExamDeltaDTO delta = deltaSync.getDelta(15);
+
+        assertThat(delta.isResync()).isFalse();
+        assertThat(delta.getVersion()).isEqualTo(CURRENT);
+        assertThat(delta.getChanged()).extracting(ExamDTO::getId).containsExactly(3L, 1L);
+        assertThat(delta.getDeleted()).containsExactly(2L);
+    }
+
+    @Test
+    void clientAtTheCompactedVersionStillGetsADelta() {
+        // Every tombstone above the compacted version is kept
+        when(examRepository.findChangedSince(COMPACTED, 2001)).thenReturn(changedSince15);
+        when(examRepository.findDeletedSince(COMPACTED, 2001)).thenReturn(List.of(2L));
+
+        ExamDeltaDTO delta = deltaSync.getDelta(COMPACTED);
+
+        assertThat(delta.isResync()).isFalse();
+        assertThat(delta.getDeleted()).containsExactly(2L);
+    }
+
+    @Test
+    void clientOlderThanTheCompactionResyncs() {
+        ExamDeltaDTO delta = deltaSync.getDelta(COMPACTED - 1);
+
+        assertThat(delta.isResync()).isTrue();
+        assertThat(delta.getVersion()).isEqualTo(CURRENT);
+        assertThat(delta.getChanged()).extracting(ExamDTO::getId).containsExactly(1L, 3L, 4L);
+        assertThat(delta.getDeleted()).isEmpty();
+        verify(examRepository, never()).findDeletedSince(anyLong(), anyInt());
+    }
+
+    @Test
+    void clientAtTheCurrentVersionGetsAnEmptyDelta() {
+        ExamDeltaDTO delta = deltaSync.getDelta(CURRENT);
+
+        assertThat(delta.isResync()).isFalse();
+        assertThat(delta.getVersion()).isEqualTo(CURRENT);
+        assertThat(delta.getChanged()).isEmpty();
+        assertThat(delta.getDeleted()).isEmpty();
+        verify(examRepository, never()).findChangedSince(anyLong(), anyInt());
+    }
+
+    @Test
+    void newClientsClientsAheadAndLongDeltasResync() {
+        when(examRepository.findChangedSince(15, 3)).thenReturn(changedSince15);
+        when(examRepository.findDeletedSince(15, 3)).thenReturn(List.of(2L, 5L));
+
+        assertThat(deltaSync.getDelta(0).isResync()).isTrue();
+        assertThat(deltaSync.getDelta(CURRENT + 1).isResync()).isTrue();
+        ReflectionTestUtils.setField(deltaSync, "maxChanges", 2);
+        assertThat(deltaSync.getDelta(15).isResync()).isTrue();
+    }
+
+    private static EtsinfExam entity(Long id, long version) {
+        return EtsinfExam.builder().id(id).version(version).build();
+    }
+}
@@ -0,0 +1,175 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.dtos.ExamFilter;
+import com.upv.examcalendar.dtos.FacetCountsDTO;
+import com.upv.examcalendar.mappers.ExamMapper;
+import com.upv.examcalendar.repositories.EtsinfExamRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExamFacetIndexTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 1, 13);
+
+    private final List<ExamDTO> exams = new ArrayList<>();
+    private ExamFacetIndex facetIndex;
+
+    @BeforeEach
+    void setUp() {
+        long id = 1;
+        for (String degree : List.of("GII-ETSINF Informatica", "MUIINF-ETSINF Master", "GTI-EPSA Telecom")) {
+            for (int courseYear = 1; courseYear <= 2; courseYear++) {
+                for (String semester : List.of("1", "2")) {
+                    exams.add(exam(id++, degree, courseYear, semester, "Algebra", "ALG", "S1"));
+                    exams.add(exam(id++, degree, courseYear, semester, "Redes", null, "S2"));
+                }
+            }
+        }
+        exams.add(exam(id, "gii-etsinf informatica", 1, "1", "algebra", "ALG", "S1"));
+
+        EtsinfExamRepository examRepository = mock(EtsinfExamRepository.class);
+        ExamMapper examMapper = mock(ExamMapper.class);
+        when(examMapper.toDtoList(any())).thenReturn(new ArrayList<>(exams));
+        ExamRows rows = new ExamRows(examRepository, examMapper);
+        facetIndex = new ExamFacetIndex(rows);
+        ReflectionTestUtils.setField(facetIndex, "enabled", true);
+        facetIndex.init();
+    }
+
+    @Test
+    void countsEveryOptionUnderTheOtherFacets() {
+        ExamFilter filter = ExamFilter.builder().school("GII-ETSINF").courseYear(1).build();
+
+        FacetCountsDTO counts = facetIndex.countFacets(filter);
+
+        assertThat(counts.getTotal()).isEqualTo(5);
+        assertThat(counts.getCourseYears()).containsEntry("1", 5).containsEntry("2", 4);
+        // Both spellings of the degree count under the first one seen
+        assertThat(counts.getDegrees()).containsOnly(Map.entry("GII-ETSINF Informatica", 5));
+        assertThat(counts.getSubjects()).containsOnly(Map.entry("Algebra", 3), Map.entry("Redes", 2));
+    }
+
+    @Test
+    void groupsFromTheDatabaseCountLikeTheIndex() {
+        for (ExamFilter filter : List.of(
+                new ExamFilter(),
+                ExamFilter.builder().school("gii").build(),
+                ExamFilter.builder().degree("gii-etsinf informatica").semester("2").build(),
+                ExamFilter.builder().subject("alg").build(),
+                ExamFilter.builder().subject("ALG").courseYear(2).build(),
+                ExamFilter.builder().subjectCode("S2").build())) {
+            assertThat(ExamFacetIndex.countGroups(filter, groups(ExamFacetIndex.otherCriteria(filter))))
+                    .as("%s", filter)
+                    .isEqualTo(facetIndex.countFacets(filter));
+        }
+    }
+
+    @Test
+    void subjectsAreDistinctAndOrderedByName() {
+        ExamFilter filter = ExamFilter.builder().degree("GTI-EPSA Telecom").build();
+
+        assertThat(facetIndex.findSubjects(filter)).extracting(subject -> subject.getName() + "/" + subject.getAcronym())
+                .containsExactly("Algebra/ALG", "Redes/S2");
+    }
+
+    @Test
+    void rowSetsMatchABitmapAcrossSparseAndDense() {
+        Random random = new Random(42);
+        ExamFacetIndex.RowSet rowSet = new ExamFacetIndex.RowSet();
+        BitSet expected = new BitSet();
+        boolean wasDense = false;
+        boolean wasSparseAgain = false;
+
+        for (int step = 0; step < 30_000; step++) {
+            // Fill densely first, then remove nearly every row
+            int row = random.nextInt(4000);
+            if (step < 10_000 && random.nextInt(4) != 0) {
+                rowSet.add(row);
+                expected.set(row);
+            } else {
+                rowSet.remove(row);
+                expected.clear(row);
+            }
+            wasSparseAgain |= wasDense && !rowSet.isDense();
+            wasDense |= rowSet.isDense();
+
+            assertThat(rowSet.size()).isEqualTo(expected.cardinality());
+            if (step % 500 == 0) {
+                BitSet matching = new BitSet();
+                random.ints(2000, 0, 5000).forEach(matching::set);
+                BitSet intersection = (BitSet) expected.clone();
+                intersection.and(matching);
+                assertThat(rowSet.toBitSet()).as("step %d", step).isEqualTo(expected);
+                assertThat(rowSet.countIn(matching.toLongArray())).as("step %d", step)
+                        .isEqualTo(intersection.cardinality());
+            }
+        }
+        assertThat(wasDense).isTrue();
+        assertThat(wasSparseAgain).isTrue();
+    }
+
+    @Test
+    void rowsSpreadOverTheRangeStayAnArray() {
+        ExamFacetIndex.RowSet rowSet = new ExamFacetIndex.RowSet();
+        for (int row = 0; row < 100_000; row += 1000) {
+            rowSet.add(row);
+        }
+
+        assertThat(rowSet.isDense()).isFalse();
+        for (int row = 0; row < 3200; row++) {
+            rowSet.add(row);
+        }
+        assertThat(rowSet.isDense()).isTrue();
+    }
+
+    /**
+     * What the grouped query returns for the exams matching the other criteria
+     */
+    private List<Object[]> groups(ExamFilter other) {
+        Map<List<Object>, Long> counts = new LinkedHashMap<>();
+        for (ExamDTO exam : exams) {
+            if (other.matches(exam)) {
+                counts.merge(Arrays.asList(exam.getDegree(), exam.getSemester(), exam.getCourseYear(),
+                        exam.getSubjectName(), exam.getAcronym(), exam.getSubjectCode()), 1L, Long::sum);
+            }
+        }
+        List<Object[]> groups = new ArrayList<>();
+        counts.forEach((group, count) -> {
+            List<Object> row = new ArrayList<>(group);
+            row.add(count);
+            groups.add(row.toArray());
+        });
+        return groups;
+    }
+
+    private static ExamDTO exam(long id, String degree, int courseYear, String semester,
+            String subjectName, String acronym, String subjectCode) {
+        return ExamDTO.builder()
+                .id(id)
+                .version(id)
+                .examDay(DAY.plusDays(id))
+                .degree(degree)
+                .courseYear(courseYear)
+                .semester(semester)
+                .subjectName(subjectName)
+                .acronym(acronym)
+                .subjectCode(subjectCode)
+                .build();
+    }
+}
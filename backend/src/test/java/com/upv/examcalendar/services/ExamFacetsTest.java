@@ -0,0 +1,104 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.services.ExamFacets.FacetKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExamFacetsTest {
+
+    private final ExamFacets facets = ExamFacets.fromExams(List.of(
+            exam("GII-ETSINF Informatica", 1, "Algebra"),
+            exam("GII-ETSINF Informatica", 1, "Algebra"),
+            exam("GTI-EPSA Telecom", 2, "Redes")));
+
+    @Test
+    void writeThatKeepsTheFacetTupleIsANoOp() {
+        ExamDTO before = exam("GII-ETSINF Informatica", 1, "Algebra");
+        ExamDTO after = exam("GII-ETSINF Informatica", 1, "Algebra");
+        after.setExamPlace("Another room");
+
+        assertThat(facets.patched(before, after)).containsSame(facets);
+    }
+
+    @Test
+    void writeWithinExistingTuplesOnlyMovesCounts() {
+        Optional<ExamFacets> patched = facets.patched(
+                exam("GII-ETSINF Informatica", 1, "Algebra"), exam("GTI-EPSA Telecom", 2, "Redes"));
+
+        assertThat(patched).isPresent();
+        assertThat(patched.get().getCounts())
+                .containsEntry(FacetKey.of(exam("GII-ETSINF Informatica", 1, "Algebra")), 1)
+                .containsEntry(FacetKey.of(exam("GTI-EPSA Telecom", 2, "Redes")), 2);
+        assertThat(patched.get().getBootstrap()).isEqualTo(facets.getBootstrap());
+    }
+
+    @Test
+    void newTupleNeedsARebuild() {
+        assertThat(facets.patched(null, exam("GII-ETSINF Informatica", 3, "Algebra"))).isEmpty();
+    }
+
+    @Test
+    void removingTheLastExamOfATupleNeedsARebuild() {
+        assertThat(facets.patched(exam("GTI-EPSA Telecom", 2, "Redes"), null)).isEmpty();
+        assertThat(facets.patched(exam("GII-ETSINF Informatica", 1, "Algebra"), null)).isPresent();
+    }
+
+    @Test
+    void patchedFacetsMatchTheFacetsOfTheWrittenExams() {
+        Random random = new Random(42);
+        List<ExamDTO> exams = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            exams.add(randomExam(random));
+        }
+        ExamFacets current = ExamFacets.fromExams(exams);
+
+        for (int write = 0; write < 2000; write++) {
+            int kind = random.nextInt(3);
+            ExamDTO removed = kind != 0 && !exams.isEmpty() ? exams.remove(random.nextInt(exams.size())) : null;
+            ExamDTO added = kind != 1 ? randomExam(random) : null;
+            if (added != null) {
+                exams.add(added);
+            }
+            ExamFacets rebuilt = ExamFacets.fromExams(exams);
+            current = current.patched(removed, added).orElse(rebuilt);
+
+            assertThat(current.getCounts()).as("write %d", write).isEqualTo(rebuilt.getCounts());
+            assertThat(current.getBootstrap()).as("write %d", write).isEqualTo(rebuilt.getBootstrap());
+        }
+    }
+
+    @Test
+    void scanRowsBecomeCounts() {
+        Map<FacetKey, Integer> counts = ExamFacets.countsFromRows(List.<Object[]>of(
+                new Object[]{"GII-ETSINF Informatica", "1", 1, "Algebra", "ALG", 2L},
+                new Object[]{"GTI-EPSA Telecom", "2", 2, "Redes", null, 1L}));
+
+        assertThat(ExamFacets.of(counts).getCounts()).isEqualTo(Map.of(
+                new FacetKey("GII-ETSINF Informatica", "1", 1, "Algebra", "ALG"), 2,
+                new FacetKey("GTI-EPSA Telecom", "2", 2, "Redes", null), 1));
+        assertThat(ExamFacets.of(counts).getSchools()).containsExactly("GII-ETSINF", "GTI-EPSA");
+    }
+
+    private static ExamDTO randomExam(Random random) {
+        return exam(random.nextBoolean() ? "GII-ETSINF Informatica" : "GTI-EPSA Telecom",
+                1 + random.nextInt(2), random.nextBoolean() ? "Algebra" : "Redes");
+    }
+
+    private static ExamDTO exam(String degree, int courseYear, String subjectName) {
+        return ExamDTO.builder()
+                .degree(degree)
+                .courseYear(courseYear)
+                .semester("1")
+                .subjectName(subjectName)
+                .subjectCode("S-" + subjectName)
+                .build();
+    }
+}
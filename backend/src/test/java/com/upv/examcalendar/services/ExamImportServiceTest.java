@@ -0,0 +1,67 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamDTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExamImportServiceTest {
+
+    @Test
+    void copyRowQuotesTextAndDerivesThePartitionKeys() {
+        ExamDTO exam = exam();
+
+        assertThat(copyRow(exam)).isEqualTo("2025-01-13,09:30,120,\"S1\",\"Redes, \"\"I\"\"\",\"RED\","
+                + "\"GII-ETSINF Informatica\",2,\"1\",\"1G 0.1\nAula\",\"\",\"gii-etsinf\",2024\n");
+    }
+
+    @Test
+    void copyRowLeavesNullsUnquoted() {
+        ExamDTO exam = exam();
+        exam.setAcronym(null);
+        exam.setComment(null);
+
+        // COPY reads an unquoted empty field as NULL and a quoted one as an empty string
+        assertThat(copyRow(exam)).contains(",\"Redes, \"\"I\"\"\",,\"GII-ETSINF Informatica\",2,")
+                .contains(",\"1G 0.1\nAula\",,\"gii-etsinf\",");
+    }
+
+    @Test
+    void copyRowReadsBackAsTheSameFields() throws IOException {
+        ExamCsvReader reader = new ExamCsvReader(new BufferedReader(new StringReader(copyRow(exam()))));
+
+        assertThat(reader.next()).containsExactly("2025-01-13", "09:30", "120", "S1", "Redes, \"I\"", "RED",
+                "GII-ETSINF Informatica", "2", "1", "1G 0.1\nAula", "", "gii-etsinf", "2024");
+        assertThat(reader.next()).isNull();
+    }
+
+    private static String copyRow(ExamDTO exam) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExamImportService.writeCopyRow(out, exam);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static ExamDTO exam() {
+        return ExamDTO.builder()
+                .examDay(LocalDate.of(2025, 1, 13))
+                .examHour(LocalTime.of(9, 30))
+                .durationMin(120)
+                .subjectCode("S1")
+                .subjectName("Redes, \"I\"")
+                .acronym("RED")
+                .degree("GII-ETSINF Informatica")
+                .courseYear(2)
+                .semester("1")
+                .examPlace("1G 0.1\nAula")
+                .comment("")
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.events.ExamChangeEvent;
+import com.upv.examcalendar.mappers.ExamMapper;
+import com.upv.examcalendar.repositories.EtsinfExamRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExamReadModelTest {
+
+    private ExamMapper examMapper;
+    private ExamReadModel readModel;
+
+    @BeforeEach
+    void setUp() {
+        examMapper = mock(ExamMapper.class);
+        readModel = new ExamReadModel(mock(EtsinfExamRepository.class), examMapper);
+        ReflectionTestUtils.setField(readModel, "enabled", true);
+    }
+
+    @Test
+    void olderUpdateDoesNotOverwriteANewerOne() {
+        database(exam(1L, 1, "A"));
+        readModel.current();
+
+        // The listeners of the second write ran first
+        readModel.onExamChange(ExamChangeEvent.updated(exam(1L, 2, "B"), exam(1L, 3, "C")));
+        readModel.onExamChange(ExamChangeEvent.updated(exam(1L, 1, "A"), exam(1L, 2, "B")));
+
+        assertThat(readModel.current().findById(1L)).map(ExamDTO::getSubjectCode).contains("C");
+    }
+
+    @Test
+    void deletedExamIsNotBroughtBackByAnOlderUpdate() {
+        database(exam(1L, 1, "A"));
+        readModel.current();
+
+        readModel.onExamChange(ExamChangeEvent.deleted(exam(1L, 2, "B")));
+        readModel.onExamChange(ExamChangeEvent.updated(exam(1L, 1, "A"), exam(1L, 2, "B")));
+
+        assertThat(readModel.current().findById(1L)).isEmpty();
+    }
+
+    @Test
+    void deletionBeforeTheFirstLoadIsRemembered() {
+        readModel.onExamChange(ExamChangeEvent.deleted(exam(1L, 2, "B")));
+        database();
+        readModel.current();
+
+        readModel.onExamChange(ExamChangeEvent.updated(exam(1L, 1, "A"), exam(1L, 2, "B")));
+
+        assertThat(readModel.current().size()).isZero();
+    }
+
+    @Test
+    void changesWithoutVersionsAreApplied() {
+        database(exam(1L, 1, "A"));
+        readModel.current();
+
+        readModel.onExamChange(ExamChangeEvent.updated(exam(1L, 1, "A"), exam(1L, null, "B")));
+
+        assertThat(readModel.current().findById(1L)).map(ExamDTO::getSubjectCode).contains("B");
+    }
+
+    private void database(ExamDTO... exams) {
+        when(examMapper.toDtoList(any())).thenReturn(new ArrayList<>(List.of(exams)));
+    }
+
+    private static ExamDTO exam(Long id, Long version, String subjectCode) {
+        return ExamDTO.builder()
+                .id(id)
+                .version(version)
+                .examDay(LocalDate.of(2025, 1, 13))
+                .subjectCode(subjectCode)
+                .degree("GII")
+                .build();
+    }
+
+    private static ExamDTO exam(Long id, long version, String subjectCode) {
+        return exam(id, Long.valueOf(version), subjectCode);
+    }
+}
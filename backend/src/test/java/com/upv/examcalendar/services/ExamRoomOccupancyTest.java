@@ -0,0 +1,148 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.dtos.RoomConflictDTO;
+import com.upv.examcalendar.dtos.RoomDTO;
+import com.upv.examcalendar.events.ExamChangeEvent;
+import com.upv.examcalendar.mappers.ExamMapper;
+import com.upv.examcalendar.repositories.EtsinfExamRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExamRoomOccupancyTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 1, 13);
+
+    private ExamMapper examMapper;
+    private ExamRows rows;
+    private ExamRoomOccupancy occupancy;
+
+    @BeforeEach
+    void setUp() {
+        examMapper = mock(ExamMapper.class);
+        rows = new ExamRows(mock(EtsinfExamRepository.class), examMapper);
+        occupancy = new ExamRoomOccupancy(rows);
+        occupancy.init();
+    }
+
+    @Test
+    void placesAreSplitIntoRooms() {
+        database(exam(1L, "S1", 9, 120, "Aula 3 y Aula 4"),
+                exam(2L, "S2", 12, 60, "1G 0.1, 1G 0.2"),
+                exam(3L, "S3", 15, 60, "1G 0.2; Sal\u00f3n de Actos / aula  3"));
+
+        assertThat(occupancy.findRooms())
+                .extracting(RoomDTO::getId, RoomDTO::getExamCount)
+                .containsExactly(tuple("1g 0.1", 1), tuple("1g 0.2", 2), tuple("aula 3", 2), tuple("aula 4", 1),
+                        tuple("salon de actos", 1));
+    }
+
+    @Test
+    void roomIdsFoldAccentsCaseAndSpacing() {
+        assertThat(ExamRoomOccupancy.roomId("  Sal\u00f3n  de Actos ")).isEqualTo("salon de actos");
+        assertThat(ExamRoomOccupancy.roomId("1G-0.1")).isEqualTo("1g 0.1");
+        assertThat(ExamRoomOccupancy.roomId(" - ")).isNull();
+    }
+
+    @Test
+    void occupantsAreTheExamsRunningAtTheTime() {
+        database(exam(1L, "S1", 9, 120, "Aula 3 y Aula 4"), exam(2L, "S2", 11, 60, "aula 4"));
+
+        assertThat(occupancy.findOccupants("AULA 4", DAY.atTime(10, 59))).extracting(ExamDTO::getId)
+                .containsExactly(1L);
+        // The first exam ends as the second starts
+        assertThat(occupancy.findOccupants("Aula 4", DAY.atTime(11, 0))).extracting(ExamDTO::getId)
+                .containsExactly(2L);
+        assertThat(occupancy.findOccupants("Aula 9", DAY.atTime(10, 0))).isEmpty();
+    }
+
+    @Test
+    void freeRoomsHaveNoOverlappingExam() {
+        database(exam(1L, "S1", 9, 120, "Aula 3 y Aula 4"), exam(2L, "S2", 12, 60, "Aula 5"));
+
+        assertThat(occupancy.findFreeRooms(DAY.atTime(11, 0), 60)).extracting(RoomDTO::getId)
+                .containsExactly("aula 3", "aula 4", "aula 5");
+        assertThat(occupancy.findFreeRooms(DAY.atTime(10, 30), 120)).extracting(RoomDTO::getId).isEmpty();
+    }
+
+    @Test
+    void doubleBookingIsReportedOnceFromTheEarlierExam() {
+        database(exam(2L, "S2", 10, 120, "Aula 3"),
+                exam(1L, "S1", 9, 120, "Aula 3, Aula 4"),
+                exam(3L, "S3", 9, 30, "aula 4"),
+                // The same sitting listed under another degree is not a double booking
+                exam(4L, "s1", 9, 120, "Aula 4"));
+
+        List<RoomConflictDTO> conflicts = occupancy.findDoubleBookings(null, null);
+
+        assertThat(conflicts)
+                .extracting(conflict -> conflict.getRoom().getId(), conflict -> conflict.getFirst().getId(),
+                        conflict -> conflict.getSecond().getId(), RoomConflictDTO::getOverlapMinutes)
+                .containsExactly(tuple("aula 4", 1L, 3L, 30L), tuple("aula 3", 1L, 2L, 60L),
+                        tuple("aula 4", 3L, 4L, 30L));
+    }
+
+    @Test
+    void doubleBookingsAreFilteredByTheDayOfTheEarlierExam() {
+        database(exam(1L, "S1", 9, 120, "Aula 3"), exam(2L, "S2", 10, 60, "Aula 3"),
+                exam(3L, "S3", 24 + 9, 120, "Aula 3"), exam(4L, "S4", 24 + 10, 60, "Aula 3"));
+
+        assertThat(occupancy.findDoubleBookings(DAY.plusDays(1), null))
+                .extracting(conflict -> conflict.getFirst().getId()).containsExactly(3L);
+        assertThat(occupancy.findDoubleBookings(null, DAY))
+                .extracting(conflict -> conflict.getFirst().getId()).containsExactly(1L);
+    }
+
+    @Test
+    void writesMoveExamsBetweenRooms() {
+        database(exam(1L, "S1", 9, 120, "Aula 3"), exam(2L, "S2", 9, 120, "Aula 3"));
+        assertThat(occupancy.findDoubleBookings(null, null)).hasSize(1);
+
+        ExamDTO moved = exam(2L, "S2", 9, 120, "Aula 4");
+        moved.setVersion(10L);
+        rows.onExamChange(ExamChangeEvent.updated(exam(2L, "S2", 9, 120, "Aula 3"), moved));
+
+        assertThat(occupancy.findDoubleBookings(null, null)).isEmpty();
+        assertThat(occupancy.findRooms()).extracting(RoomDTO::getId, RoomDTO::getExamCount)
+                .containsExactly(tuple("aula 3", 1), tuple("aula 4", 1));
+
+        ExamDTO deleted = exam(1L, "S1", 9, 120, "Aula 3");
+        deleted.setVersion(11L);
+        rows.onExamChange(ExamChangeEvent.deleted(deleted));
+        assertThat(occupancy.findRooms()).extracting(RoomDTO::getId).containsExactly("aula 4");
+    }
+
+    private void database(ExamDTO... exams) {
+        List<ExamDTO> loaded = new ArrayList<>(List.of(exams));
+        when(examMapper.toDtoList(any())).thenReturn(loaded);
+    }
+
+    /**
+     * Exam starting at the given hour counted from the first day
+     */
+    private static ExamDTO exam(Long id, String subjectCode, int hour, int durationMin, String place) {
+        return ExamDTO.builder()
+                .id(id)
+                .version(id)
+                .examDay(DAY.plusDays(hour / 24))
+                .examHour(LocalTime.of(hour % 24, 0))
+                .durationMin(durationMin)
+                .subjectCode(subjectCode)
+                .degree("ETSINF Degree")
+                .courseYear(1)
+                .semester("1")
+                .examPlace(place)
+                .build();
+    }
+}
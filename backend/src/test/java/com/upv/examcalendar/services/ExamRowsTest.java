@@ -0,0 +1,158 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.dtos.ExamFilter;
+import com.upv.examcalendar.events.ExamChangeEvent;
+import com.upv.examcalendar.mappers.ExamMapper;
+import com.upv.examcalendar.repositories.EtsinfExamRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExamRowsTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 1, 13);
+
+    private EtsinfExamRepository examRepository;
+    private ExamMapper examMapper;
+    private ExamRows rows;
+    private ExamConflictIndex conflictIndex;
+
+    @BeforeEach
+    void setUp() {
+        examRepository = mock(EtsinfExamRepository.class);
+        examMapper = mock(ExamMapper.class);
+        rows = new ExamRows(examRepository, examMapper);
+        conflictIndex = new ExamConflictIndex(rows);
+        conflictIndex.init();
+    }
+
+    @Test
+    void loadsOnceOnFirstRead() {
+        database(exam(1L, 9), exam(2L, 10));
+
+        assertThat(conflictIndex.findConflictsOf(1L)).extracting(ExamDTO::getId).containsExactly(2L);
+        assertThat(conflictIndex.findConflicts(new ExamFilter())).hasSize(1);
+        verify(examRepository).findAllForReadModel();
+    }
+
+    @Test
+    void committedWritesPatchTheIndexes() {
+        database(exam(1L, 9), exam(2L, 10));
+        conflictIndex.findConflicts(new ExamFilter());
+
+        rows.onExamChange(ExamChangeEvent.updated(exam(2L, 10), versioned(exam(2L, 15), 3)));
+        assertThat(conflictIndex.findConflicts(new ExamFilter())).isEmpty();
+
+        rows.onExamChange(ExamChangeEvent.created(versioned(exam(3L, 15), 4)));
+        assertThat(conflictIndex.findConflictsOf(3L)).extracting(ExamDTO::getId).containsExactly(2L);
+
+        rows.onExamChange(ExamChangeEvent.deleted(versioned(exam(2L, 15), 3)));
+        assertThat(conflictIndex.findConflicts(new ExamFilter())).isEmpty();
+        assertThat(rows.read(rows::size)).isEqualTo(2);
+    }
+
+    @Test
+    void changesOlderThanTheHeldVersionAreIgnored() {
+        database(exam(1L, 9), exam(2L, 10));
+        conflictIndex.findConflicts(new ExamFilter());
+
+        // The listeners of the second write ran first
+        rows.onExamChange(ExamChangeEvent.updated(versioned(exam(2L, 10), 5), versioned(exam(2L, 15), 7)));
+        rows.onExamChange(ExamChangeEvent.updated(exam(2L, 10), versioned(exam(2L, 10), 5)));
+        assertThat(conflictIndex.findConflicts(new ExamFilter())).isEmpty();
+
+        rows.onExamChange(ExamChangeEvent.deleted(versioned(exam(1L, 9), 8)));
+        rows.onExamChange(ExamChangeEvent.updated(exam(1L, 9), versioned(exam(1L, 10), 8)));
+        assertThat(rows.read(() -> rows.rowOf(1L))).isEqualTo(-1);
+        assertThat(rows.read(rows::size)).isEqualTo(1);
+    }
+
+    @Test
+    void deletionBeforeTheLoadKeepsAnOlderWriteOut() {
+        rows.onExamChange(ExamChangeEvent.deleted(versioned(exam(2L, 10), 6)));
+        database(exam(1L, 9));
+        conflictIndex.findConflicts(new ExamFilter());
+
+        rows.onExamChange(ExamChangeEvent.updated(exam(2L, 10), versioned(exam(2L, 10), 6)));
+        assertThat(conflictIndex.findConflicts(new ExamFilter())).isEmpty();
+        assertThat(rows.read(rows::size)).isEqualTo(1);
+    }
+
+    @Test
+    void writeCommittedWhileLoadingIsApplied() {
+        List<ExamDTO> loaded = List.of(exam(1L, 9), exam(2L, 10));
+        when(examMapper.toDtoList(any())).thenAnswer(invocation -> {
+            // Commits after the database was read, before the rows are swapped in
+            rows.onExamChange(ExamChangeEvent.updated(exam(2L, 10), versioned(exam(2L, 15), 3)));
+            return loaded;
+        });
+
+        assertThat(conflictIndex.findConflicts(new ExamFilter())).isEmpty();
+    }
+
+    @Test
+    void bulkChangeReloadsOnceForEveryIndex() {
+        database(exam(1L, 9), exam(2L, 10));
+        conflictIndex.findConflicts(new ExamFilter());
+
+        database(exam(1L, 9));
+        rows.onExamChange(ExamChangeEvent.bulk());
+
+        assertThat(conflictIndex.findConflicts(new ExamFilter())).isEmpty();
+        verify(examRepository, times(2)).findAllForReadModel();
+    }
+
+    @Test
+    void appendedRowsAreFoldedIntoTheColumns() {
+        database(exam(1L, 9));
+        conflictIndex.findConflicts(new ExamFilter());
+
+        for (long id = 2; id <= 2000; id++) {
+            rows.onExamChange(ExamChangeEvent.created(exam(id, 30 + (int) id * 3)));
+        }
+        rows.onExamChange(ExamChangeEvent.created(exam(3000L, 9)));
+
+        assertThat(rows.read(rows::size)).isEqualTo(2001);
+        assertThat(conflictIndex.findConflictsOf(3000L)).extracting(ExamDTO::getId).containsExactly(1L);
+        assertThat(rows.read(() -> rows.get(rows.rowOf(1500L)).getId())).isEqualTo(1500L);
+    }
+
+    private void database(ExamDTO... exams) {
+        List<ExamDTO> loaded = new ArrayList<>(List.of(exams));
+        when(examMapper.toDtoList(any())).thenReturn(loaded);
+    }
+
+    private static ExamDTO versioned(ExamDTO exam, long version) {
+        exam.setVersion(version);
+        return exam;
+    }
+
+    /**
+     * Two hour exam of its own subject in one cohort, starting at the given hour of a day
+     */
+    private static ExamDTO exam(Long id, int hour) {
+        return ExamDTO.builder()
+                .id(id)
+                .version(id)
+                .examDay(DAY.plusDays(hour / 24))
+                .examHour(LocalTime.of(hour % 24, 0))
+                .durationMin(120)
+                .subjectCode("S" + id)
+                .degree("ETSINF Degree")
+                .courseYear(1)
+                .semester("1")
+                .build();
+    }
+}
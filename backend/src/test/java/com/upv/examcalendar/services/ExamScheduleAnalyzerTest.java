@@ -0,0 +1,143 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamConflictDTO;
+import com.upv.examcalendar.dtos.ExamDTO;
+import com.upv.examcalendar.dtos.ExamGapDTO;
+import com.upv.examcalendar.dtos.ScheduleAnalysisDTO;
+import com.upv.examcalendar.mappers.ExamMapper;
+import com.upv.examcalendar.repositories.EtsinfExamRepository;
+import org.assertj.core.groups.Tuple;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExamScheduleAnalyzerTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 1, 13);
+
+    @Test
+    void examsThatOnlyTouchRestZeroMinutes() {
+        ScheduleAnalysisDTO analysis = analyze(exam(1L, "S1", 0, 9, 0, 120), exam(2L, "S2", 0, 11, 0, 120));
+
+        assertThat(analysis.getOverlaps()).isEmpty();
+        assertThat(gaps(analysis.getSameDay())).containsExactly(tuple(1L, 2L, 0L));
+        assertThat(gaps(List.of(analysis.getShortestGap()))).containsExactly(tuple(1L, 2L, 0L));
+    }
+
+    @Test
+    void finishedExamsLeaveTheRunningSet() {
+        ScheduleAnalysisDTO analysis = analyze(
+                exam(1L, "S1", 0, 9, 0, 180),
+                exam(2L, "S2", 0, 9, 30, 30),
+                exam(3L, "S3", 0, 11, 0, 30),
+                exam(4L, "S4", 0, 12, 0, 60));
+
+        assertThat(overlaps(analysis)).containsExactly(tuple(1L, 2L, 30L), tuple(1L, 3L, 30L));
+    }
+
+    @Test
+    void examsOfTheSameSubjectAreNotReported() {
+        ScheduleAnalysisDTO analysis = analyze(
+                exam(1L, "S1", 0, 9, 0, 120),
+                exam(2L, "s1", 0, 9, 0, 120),
+                exam(3L, "S2", 0, 10, 0, 120),
+                exam(4L, "S1", 0, 13, 0, 60));
+
+        assertThat(overlaps(analysis)).containsExactly(tuple(1L, 3L, 60L), tuple(2L, 3L, 60L));
+        assertThat(gaps(analysis.getSameDay())).containsExactly(tuple(3L, 4L, 60L));
+    }
+
+    @Test
+    void shortestGapIsTakenFromTheLatestEnd() {
+        ScheduleAnalysisDTO analysis = analyze(
+                // Exam 2 ends long before exam 1, so exam 3 rests after exam 1
+                exam(1L, "S1", 0, 9, 0, 300),
+                exam(2L, "S2", 0, 10, 0, 60),
+                exam(3L, "S3", 0, 15, 0, 60),
+                exam(4L, "S4", 1, 9, 0, 60),
+                exam(5L, "S5", 1, 10, 30, 60));
+
+        assertThat(gaps(List.of(analysis.getShortestGap()))).containsExactly(tuple(4L, 5L, 30L));
+        assertThat(gaps(analysis.getSameDay()))
+                .containsExactly(tuple(1L, 3L, 60L), tuple(2L, 3L, 240L), tuple(4L, 5L, 30L));
+
+        ScheduleAnalysisDTO firstDay = analyze(
+                exam(1L, "S1", 0, 9, 0, 300), exam(2L, "S2", 0, 10, 0, 60), exam(3L, "S3", 0, 15, 0, 60));
+        assertThat(gaps(List.of(firstDay.getShortestGap()))).containsExactly(tuple(1L, 3L, 60L));
+    }
+
+    @Test
+    void overlappingExamsHaveNoGap() {
+        ScheduleAnalysisDTO analysis = analyze(exam(1L, "S1", 0, 9, 0, 120), exam(2L, "S2", 0, 10, 0, 120));
+
+        assertThat(analysis.getShortestGap()).isNull();
+        assertThat(analysis.getSameDay()).isEmpty();
+    }
+
+    @Test
+    void examsAreSortedAndUnplacedOnesLeftOut() {
+        ExamDTO unplaced = exam(3L, "S3", 0, 9, 0, 60);
+        unplaced.setExamHour(null);
+
+        ScheduleAnalysisDTO analysis = analyze(List.of("S1", " s2 ", "S3", "S9"),
+                exam(2L, "S2", 1, 9, 0, 60), exam(1L, "S1", 0, 9, 0, 60), unplaced);
+
+        assertThat(analysis.getExams()).extracting(ExamDTO::getId).containsExactly(1L, 2L);
+        assertThat(analysis.getSubjectsWithoutExams()).containsExactly("s3", "s9");
+        assertThat(analysis.getSameDay()).isEmpty();
+    }
+
+    private static ScheduleAnalysisDTO analyze(ExamDTO... exams) {
+        List<String> codes = new ArrayList<>();
+        for (ExamDTO exam : exams) {
+            codes.add(exam.getSubjectCode());
+        }
+        return analyze(codes, exams);
+    }
+
+    private static ScheduleAnalysisDTO analyze(List<String> codes, ExamDTO... exams) {
+        EtsinfExamRepository examRepository = mock(EtsinfExamRepository.class);
+        ExamMapper examMapper = mock(ExamMapper.class);
+        when(examMapper.toDtoList(any())).thenReturn(new ArrayList<>(List.of(exams)));
+        ExamReadModel readModel = mock(ExamReadModel.class);
+        return new ExamScheduleAnalyzer(examRepository, examMapper, readModel).analyze(codes);
+    }
+
+    private static List<Tuple> overlaps(ScheduleAnalysisDTO analysis) {
+        List<Tuple> pairs = new ArrayList<>();
+        for (ExamConflictDTO overlap : analysis.getOverlaps()) {
+            pairs.add(tuple(overlap.getFirst().getId(), overlap.getSecond().getId(), overlap.getOverlapMinutes()));
+        }
+        return pairs;
+    }
+
+    private static List<Tuple> gaps(List<ExamGapDTO> gaps) {
+        List<Tuple> pairs = new ArrayList<>();
+        for (ExamGapDTO gap : gaps) {
+            pairs.add(tuple(gap.getFirst().getId(), gap.getSecond().getId(), gap.getGapMinutes()));
+        }
+        return pairs;
+    }
+
+    private static ExamDTO exam(Long id, String subjectCode, int day, int hour, int minute, int durationMin) {
+        return ExamDTO.builder()
+                .id(id)
+                .examDay(DAY.plusDays(day))
+                .examHour(LocalTime.of(hour, minute))
+                .durationMin(durationMin)
+                .subjectCode(subjectCode)
+                .degree("ETSINF Degree")
+                .courseYear(1)
+                .semester("1")
+                .build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamFilter;
+import com.upv.examcalendar.events.ExamChangeEvent;
+import com.upv.examcalendar.exceptions.BadRequestException;
+import com.upv.examcalendar.mappers.ExamMapper;
+import com.upv.examcalendar.repositories.EtsinfExamRepository;
+import com.upv.examcalendar.repositories.ExamPartitions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Which filters a bulk write accepts
+ */
+class ExamServiceBulkTest {
+
+    private EtsinfExamRepository examRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private ExamServiceImpl examService;
+
+    @BeforeEach
+    void setUp() {
+        examRepository = mock(EtsinfExamRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        examService = new ExamServiceImpl(examRepository, mock(ExamMapper.class), mock(ExamReadModel.class),
+                mock(ExamFacetCache.class), mock(ExamSearchIndex.class), mock(ExamConflictIndex.class),
+                mock(ExamFacetIndex.class), mock(ExamPartitions.class), eventPublisher);
+    }
+
+    @Test
+    void filterWithoutCriteriaIsRefused() {
+        assertThatThrownBy(() -> examService.deleteExams(new ExamFilter(), false))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("all=true");
+        assertThatThrownBy(() -> examService.shiftExams(new ExamFilter(), false, 1, 0))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> examService.changeExamPlace(new ExamFilter(), false, "1G 0.1"))
+                .isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(examRepository, eventPublisher);
+    }
+
+    @Test
+    void blankTextFilterIsRefusedEvenForAll() {
+        ExamFilter filter = ExamFilter.builder().subject(" ").build();
+
+        assertThatThrownBy(() -> examService.deleteExams(filter, false)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> examService.deleteExams(filter, true)).isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(examRepository, eventPublisher);
+    }
+
+    @Test
+    void allChangesEveryExam() {
+        when(examRepository.deleteMatching(any())).thenReturn(3);
+
+        assertThat(examService.deleteExams(new ExamFilter(), true)).isEqualTo(3);
+        verify(examRepository).deleteMatching(any());
+        ArgumentCaptor<ExamChangeEvent> event = ArgumentCaptor.forClass(ExamChangeEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().isBulk()).isTrue();
+    }
+
+    @Test
+    void filteredWriteRuns() {
+        when(examRepository.shiftMatching(any(), anyInt(), anyInt())).thenReturn(2);
+
+        assertThat(examService.shiftExams(ExamFilter.builder().degree("GII").build(), false, 7, 0)).isEqualTo(2);
+        verify(examRepository).shiftMatching(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void nothingChangedPublishesNoEvent() {
+        when(examRepository.updateExamPlaceMatching(any(), any())).thenReturn(0);
+
+        assertThat(examService.changeExamPlace(ExamFilter.builder().courseYear(2).build(), false, "1G 0.1")).isZero();
+        verifyNoInteractions(eventPublisher);
+    }
+}
@@ -0,0 +1,53 @@
+package com.upv.examcalendar.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExamTimelineTest {
+
+    @Test
+    void slotsThatOnlyTouchDoNotOverlap() {
+        ExamTimeline timeline = new ExamTimeline();
+        timeline.add(1L, 100, 200);
+
+        assertThat(timeline.overlapping(200, 300)).isEmpty();
+        assertThat(timeline.overlapping(0, 100)).isEmpty();
+        assertThat(timeline.overlapping(199, 300)).containsExactly(1L);
+        assertThat(timeline.overlapping(0, 101)).containsExactly(1L);
+    }
+
+    @Test
+    void longestSlotWidensTheLookup() {
+        ExamTimeline timeline = new ExamTimeline();
+        timeline.add(1L, 0, 600);
+        timeline.add(2L, 500, 530);
+        timeline.add(3L, 580, 590);
+
+        // Slot 1 starts far before the interval but still covers it
+        assertThat(timeline.overlapping(550, 560)).containsExactly(1L);
+        assertThat(timeline.overlapping(585, 700)).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(timeline.overlapping(600, 700)).isEmpty();
+    }
+
+    @Test
+    void removedSlotsAreNotFound() {
+        ExamTimeline timeline = new ExamTimeline();
+        timeline.add(1L, 0, 600);
+        timeline.add(2L, 0, 60);
+
+        timeline.remove(1L, 0);
+
+        assertThat(timeline.overlapping(30, 300)).containsExactly(2L);
+        timeline.remove(2L, 0);
+        assertThat(timeline.isEmpty()).isTrue();
+    }
+
+    @Test
+    void minutesCountFromTheEpoch() {
+        assertThat(ExamTimeline.minuteOf(LocalDate.of(1970, 1, 2), LocalTime.of(9, 30))).isEqualTo(24 * 60 + 9 * 60 + 30);
+    }
+}
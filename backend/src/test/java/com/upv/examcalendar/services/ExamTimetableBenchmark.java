@@ -0,0 +1,100 @@
+package com.upv.examcalendar.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Benchmark of {@link ExamTimetableSolver} on generated multi-school exam
+ * periods. For each instance size it runs the solver with one worker and
+ * with one worker per core for the same time, and logs the cost breakdown
+ * and search throughput of both. Instances are generated from a fixed seed:
+ * each school has degrees of four course years with six subjects per
+ * cohort, some of them shared with another degree of the same school, to be
+ * placed in three daily slots over three weeks and ten rooms per school.
+ * Its name keeps it out of the test run; run it, optionally with other school
+ * counts or time per run, with:
+ *
+ * <pre>
+ * mvn test -Dtest=ExamTimetableBenchmark -Dexam.timetable.benchmark.schools=1,3,6 \
+ *     -Dexam.timetable.benchmark.time-limit-ms=10000
+ * </pre>
+ */
+@Slf4j
+class ExamTimetableBenchmark {
+
+    private static final int DEGREES_PER_SCHOOL = 6;
+    private static final int COURSE_YEARS = 4;
+    private static final int SUBJECTS_PER_COHORT = 6;
+    private static final int SHARED_SUBJECT_PERCENT = 10;
+    private static final int DAYS = 15;
+    private static final int SLOTS_PER_DAY = 3;
+    private static final int ROOMS_PER_SCHOOL = 10;
+    private static final long SEED = 20240601L;
+
+    @Test
+    void singleAgainstParallelSearch() {
+        int[] schoolCounts = Arrays.stream(System.getProperty("exam.timetable.benchmark.schools", "1,3,6")
+                .split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+        long timeLimitMs = Long.getLong("exam.timetable.benchmark.time-limit-ms", 10000);
+        int cores = Runtime.getRuntime().availableProcessors();
+        CustomizableThreadFactory factory = new CustomizableThreadFactory("exam-timetable-benchmark-");
+        factory.setDaemon(true);
+        ExecutorService executor = Executors.newFixedThreadPool(cores, factory);
+        try {
+            for (int schools : schoolCounts) {
+                ExamTimetableSolver.Problem problem = generate(schools, new Random(SEED));
+                log.info("Timetable benchmark: {} schools, {} subjects, {} cohorts, {} timeslots, {} rooms",
+                        schools, problem.subjects(), problem.cohorts, problem.timeslots(), problem.rooms);
+                report("1 worker", ExamTimetableSolver.solve(problem, timeLimitMs, 1, SEED, executor));
+                report(cores + " workers", ExamTimetableSolver.solve(problem, timeLimitMs, cores, SEED, executor));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void report(String label, ExamTimetableSolver.Result result) {
+        ExamTimetableSolver.Solution best = result.best;
+        log.info("  {}: cost {} ({} clashes, {} room conflicts, {} same-day, {} next-day), "
+                        + "{} restarts, {} iterations/s", label, best.cost, best.clashes, best.roomConflicts,
+                best.sameDayPairs, best.nextDayPairs, result.restarts,
+                result.iterations * 1000 / Math.max(result.elapsedMs, 1));
+    }
+
+    /**
+     * Exam period of the given number of schools, one semester
+     */
+    static ExamTimetableSolver.Problem generate(int schools, Random random) {
+        List<int[]> subjects = new ArrayList<>();
+        int cohorts = 0;
+        for (int school = 0; school < schools; school++) {
+            int firstCohort = cohorts;
+            for (int degree = 0; degree < DEGREES_PER_SCHOOL; degree++) {
+                for (int year = 0; year < COURSE_YEARS; year++) {
+                    int cohort = cohorts++;
+                    for (int i = 0; i < SUBJECTS_PER_COHORT; i++) {
+                        Set<Integer> sitting = new LinkedHashSet<>();
+                        sitting.add(cohort);
+                        if (random.nextInt(100) < SHARED_SUBJECT_PERCENT) {
+                            // Same course year of another degree of the school
+                            sitting.add(firstCohort + random.nextInt(DEGREES_PER_SCHOOL) * COURSE_YEARS + year);
+                        }
+                        subjects.add(sitting.stream().mapToInt(Integer::intValue).toArray());
+                    }
+                }
+            }
+        }
+        return new ExamTimetableSolver.Problem(subjects.toArray(new int[0][]), cohorts, DAYS, SLOTS_PER_DAY,
+                schools * ROOMS_PER_SCHOOL);
+    }
+}
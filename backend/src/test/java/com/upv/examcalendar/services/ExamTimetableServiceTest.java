@@ -0,0 +1,97 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.TimetableRequestDTO;
+import com.upv.examcalendar.dtos.TimetableRequestDTO.SubjectEntry;
+import com.upv.examcalendar.dtos.TimetableResultDTO;
+import com.upv.examcalendar.exceptions.BadRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Request limits of the timetable planner
+ */
+class ExamTimetableServiceTest {
+
+    private ExamTimetableService timetableService;
+
+    @BeforeEach
+    void setUp() {
+        timetableService = new ExamTimetableService(mock(ExamImportService.class));
+        ReflectionTestUtils.setField(timetableService, "threads", 1);
+        ReflectionTestUtils.setField(timetableService, "defaultTimeLimitMs", 50L);
+        ReflectionTestUtils.setField(timetableService, "maxTimeLimitMs", 50L);
+        ReflectionTestUtils.setField(timetableService, "maxCells", 10_000L);
+        timetableService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        timetableService.shutdown();
+    }
+
+    @Test
+    void tooManyCohortsForTheTimeslotsAreRefused() {
+        // 101 cohorts over 100 timeslots is 10100 counters, above the 10000 allowed
+        TimetableRequestDTO request = request(101, 10, 10);
+
+        assertThatThrownBy(() -> timetableService.plan(request))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Too large to plan");
+    }
+
+    @Test
+    void tooManyRoomsForTheTimeslotsAreRefused() {
+        TimetableRequestDTO request = request(1, 10, 10);
+        request.setRooms(IntStream.range(0, 101).mapToObj(i -> "Room " + i).collect(Collectors.toList()));
+
+        assertThatThrownBy(() -> timetableService.plan(request)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void requestWithinTheLimitIsPlanned() {
+        TimetableResultDTO result = timetableService.plan(request(100, 10, 10));
+
+        assertThat(result.getExams()).hasSize(100);
+    }
+
+    @Test
+    void daysAndStartTimesAreBounded() {
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+        assertThat(validator.validate(request(1, 367, 1))).hasSize(1);
+        assertThat(validator.validate(request(1, 1, 49))).hasSize(1);
+        assertThat(validator.validate(request(1, 366, 48))).isEmpty();
+    }
+
+    /**
+     * One subject per cohort, each cohort in its own course year
+     */
+    private static TimetableRequestDTO request(int cohorts, int days, int startTimes) {
+        List<SubjectEntry> subjects = new ArrayList<>();
+        for (int i = 0; i < cohorts; i++) {
+            subjects.add(new SubjectEntry("S" + i, "Subject " + i, null, "Degree", i + 1, "1", 120));
+        }
+        TimetableRequestDTO request = new TimetableRequestDTO();
+        request.setSubjects(subjects);
+        request.setDays(IntStream.range(0, days).mapToObj(i -> LocalDate.of(2031, 1, 1).plusDays(i))
+                .collect(Collectors.toList()));
+        request.setStartTimes(IntStream.range(0, startTimes).mapToObj(i -> LocalTime.of(0, 0).plusMinutes(i * 30L))
+                .collect(Collectors.toList()));
+        return request;
+    }
+}
@@ -0,0 +1,83 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.services.ExamTimetableSolver.Problem;
+import com.upv.examcalendar.services.ExamTimetableSolver.Search;
+import com.upv.examcalendar.services.ExamTimetableSolver.Solution;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExamTimetableSolverTest {
+
+    @Test
+    void incrementalCostMatchesTheFullEvaluation() {
+        for (int rooms : new int[]{0, 3}) {
+            Problem problem = problem(40, 6, 5, 3, rooms, 3);
+            Search search = new Search(problem, new SplittableRandom(7));
+            search.randomStart();
+            assertThat(search.cost()).isEqualTo(search.evaluated().cost);
+
+            Random moves = new Random(11);
+            for (int move = 0; move < 20_000; move++) {
+                // Hot moves are mostly accepted, cold ones mostly undone
+                double temperature = moves.nextBoolean() ? 1e6 : 1e-3;
+                if (moves.nextInt(5) == 0) {
+                    search.trySwap(temperature);
+                } else {
+                    search.tryRelocate(temperature);
+                }
+                assertThat(search.cost()).as("rooms %d, move %d", rooms, move).isEqualTo(search.evaluated().cost);
+            }
+        }
+    }
+
+    @Test
+    void evaluationBreaksTheCostDown() {
+        // Two cohorts over 2 days of 2 slots; subject 0 is sat by both cohorts
+        Problem problem = new Problem(new int[][]{{0, 1}, {0}, {1}, {1}}, 2, 2, 2, 1);
+
+        Solution solution = ExamTimetableSolver.evaluate(problem, new int[]{0, 0, 1, 2}, new int[]{0, 0, 0, 0});
+
+        assertThat(solution.clashes).isEqualTo(1);
+        assertThat(solution.roomConflicts).isEqualTo(1);
+        assertThat(solution.sameDayPairs).isEqualTo(1);
+        assertThat(solution.nextDayPairs).isEqualTo(2);
+        assertThat(solution.cost).isEqualTo(ExamTimetableSolver.CLASH_WEIGHT + ExamTimetableSolver.ROOM_WEIGHT
+                + 2 * ExamTimetableSolver.SAME_DAY_WEIGHT + 2 * ExamTimetableSolver.NEXT_DAY_WEIGHT);
+    }
+
+    @Test
+    void solvesAFeasibleProblemWithoutClashes() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Problem problem = problem(20, 4, 10, 2, 2, 3);
+
+            Solution best = ExamTimetableSolver.solve(problem, 500, 2, 1, executor).best;
+
+            assertThat(best.clashes).isZero();
+            assertThat(best.roomConflicts).isZero();
+            assertThat(best.cost).isEqualTo(ExamTimetableSolver.evaluate(problem, best.timeslot, best.room).cost);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Subjects sat by one to maxCohortsPerSubject random cohorts
+     */
+    private static Problem problem(int subjects, int cohorts, int days, int slotsPerDay, int rooms,
+            int maxCohortsPerSubject) {
+        Random random = new Random(subjects * 31L + cohorts);
+        int[][] cohortsOfSubject = new int[subjects][];
+        for (int subject = 0; subject < subjects; subject++) {
+            int count = 1 + random.nextInt(maxCohortsPerSubject);
+            cohortsOfSubject[subject] = random.ints(0, cohorts).distinct().limit(count).toArray();
+        }
+        return new Problem(cohortsOfSubject, cohorts, days, slotsPerDay, rooms);
+    }
+}
@@ -0,0 +1,126 @@
+package com.upv.examcalendar.services;
+
+import com.upv.examcalendar.dtos.ExamDTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ICalendarWriterTest {
+
+    private static final Instant STAMP = Instant.parse("2025-01-02T10:15:30Z");
+
+    @Test
+    void writesOneEventPerPlacedExam() throws IOException {
+        ExamDTO unplaced = exam();
+        unplaced.setExamHour(null);
+
+        List<String> lines = unfolded(render(exam(), unplaced));
+
+        assertThat(lines.get(0)).isEqualTo("BEGIN:VCALENDAR");
+        assertThat(lines.get(lines.size() - 1)).isEqualTo("END:VCALENDAR");
+        assertThat(lines).filteredOn("BEGIN:VEVENT"::equals).hasSize(1);
+        assertThat(lines).contains(
+                "UID:exam-7@upv-exam-calendar",
+                "DTSTAMP:20250102T101530Z",
+                "DTSTART;TZID=Europe/Madrid:20250113T093000",
+                "DURATION:PT120M",
+                "SUMMARY:RED - Redes\\, I",
+                "LOCATION:1G 0.1\\; Aula");
+    }
+
+    @Test
+    void escapesTextValues() throws IOException {
+        ExamDTO exam = exam();
+        exam.setComment("Bring ID\r\nC:\\pen; pencil, eraser");
+
+        assertThat(unfolded(render(exam))).contains("DESCRIPTION:Redes\\, I (S1)\\nGII-ETSINF Informatica\\n"
+                + "Course 2\\, semester 1\\nBring ID\\nC:\\\\pen\\; pencil\\, eraser");
+    }
+
+    @Test
+    void foldsLongLinesAtOctetsWithoutSplittingCharacters() throws IOException {
+        ExamDTO exam = exam();
+        StringBuilder comment = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            comment.append("Examen de recuperaci\u00f3n \u00f1and\u00fa \u20ac ");
+        }
+        exam.setComment(comment.toString());
+
+        byte[] calendar = render(exam);
+
+        List<byte[]> physical = physicalLines(calendar);
+        assertThat(physical).allSatisfy(line -> {
+            assertThat(line.length).isLessThanOrEqualTo(75);
+            // Every line decodes on its own, so no character was split
+            assertThat(new String(line, StandardCharsets.UTF_8)).doesNotContain("\uFFFD");
+        });
+        assertThat(physical).anySatisfy(line -> assertThat(line.length).isGreaterThan(70));
+        assertThat(unfolded(calendar)).anySatisfy(line -> assertThat(line).endsWith("\\n" + comment));
+    }
+
+    @Test
+    void everyLineEndsWithCrlf() throws IOException {
+        String calendar = new String(render(exam()), StandardCharsets.UTF_8);
+
+        assertThat(calendar).endsWith("\r\n");
+        assertThat(calendar.replace("\r\n", "")).doesNotContain("\n", "\r");
+    }
+
+    private static byte[] render(ExamDTO... exams) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ICalendarWriter writer = new ICalendarWriter(out, STAMP);
+        writer.begin();
+        for (ExamDTO exam : exams) {
+            writer.event(exam);
+        }
+        writer.end();
+        return out.toByteArray();
+    }
+
+    private static List<byte[]> physicalLines(byte[] calendar) {
+        List<byte[]> lines = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i + 1 < calendar.length; i++) {
+            if (calendar[i] == '\r' && calendar[i + 1] == '\n') {
+                byte[] line = new byte[i - start];
+                System.arraycopy(calendar, start, line, 0, line.length);
+                lines.add(line);
+                start = i + 2;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Content lines, with continuation lines joined back
+     */
+    private static List<String> unfolded(byte[] calendar) {
+        String text = new String(calendar, StandardCharsets.UTF_8).replace("\r\n ", "");
+        return List.of(text.split("\r\n"));
+    }
+
+    private static ExamDTO exam() {
+        return ExamDTO.builder()
+                .id(7L)
+                .examDay(LocalDate.of(2025, 1, 13))
+                .examHour(LocalTime.of(9, 30))
+                .durationMin(120)
+                .subjectCode("S1")
+                .subjectName("Redes, I")
+                .acronym("RED")
+                .degree("GII-ETSINF Informatica")
+                .courseYear(2)
+                .semester("1")
+                .examPlace("1G 0.1; Aula")
+                .build();
+    }
+}
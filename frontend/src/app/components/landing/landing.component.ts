@@ -909,7 +909,12 @@ export class LandingComponent implements OnInit, OnDestroy {
   }
 
   exportToICal(): void {
-    this.showAlert('Exporting to iCal - feature coming soon!', 'success');
+    const url = this.examService.getCalendarExportUrl(this.examService.getSelectedFilters());
+    const link = document.createElement('a');
+    link.href = url;
+    link.download = 'upv-exams.ics';
+    link.click();
+    this.showAlert('Exporting exams to iCal', 'success');
   }
 
   showAlert(message: string, type: 'success' | 'error'): void {
@@ -14,6 +14,7 @@ export interface Exam {
     semester: number;
     examPlace?: string;
     comment?: string;
+    version?: number; // Row version, sent as If-Match when updating
 }
 
 export interface ExamDay {
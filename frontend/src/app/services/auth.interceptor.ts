@@ -0,0 +1,22 @@
+import { Injectable } from '@angular/core';
+import { HttpEvent, HttpHandler, HttpInterceptor, HttpRequest } from '@angular/common/http';
+import { Observable } from 'rxjs';
+import { AuthService } from './auth.service';
+
+/**
+ * Sends the login token with every API request, so the backend
+ * lets the administrator create, change and delete exams.
+ */
+@Injectable()
+export class AuthInterceptor implements HttpInterceptor {
+
+  constructor(private authService: AuthService) {}
+
+  intercept(request: HttpRequest<unknown>, next: HttpHandler): Observable<HttpEvent<unknown>> {
+    const authorization = this.authService.authorization;
+    if (!authorization || request.headers.has('Authorization')) {
+      return next.handle(request);
+    }
+    return next.handle(request.clone({ setHeaders: { Authorization: authorization } }));
+  }
+}
@@ -1,6 +1,6 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
-import { BehaviorSubject, Observable, tap } from 'rxjs';
+import { HttpClient, HttpResponse } from '@angular/common/http';
+import { BehaviorSubject, Observable, map, tap } from 'rxjs';
 import { User } from '../models/user.model';
 
 @Injectable({
@@ -29,10 +29,22 @@ export class AuthService {
     return !!this.userSubject.value;
   }
 
-  // Login
+  // Value of the Authorization header for API requests, if logged in
+  get authorization(): string | null {
+    return localStorage.getItem('authorization');
+  }
+
+  // Login; the Authorization header of the response carries the token
   login(email: string, password: string): Observable<User> {
-    return this.http.post<User>(`${this.apiUrl}/login`, { email, password })
+    return this.http.post<User>(`${this.apiUrl}/login`, { email, password }, { observe: 'response' })
       .pipe(
+        tap((response: HttpResponse<User>) => {
+          const authorization = response.headers.get('Authorization');
+          if (authorization) {
+            localStorage.setItem('authorization', authorization);
+          }
+        }),
+        map(response => response.body as User),
         tap(user => {
           localStorage.setItem('user', JSON.stringify(user));
           this.userSubject.next(user);
@@ -54,6 +66,7 @@ export class AuthService {
   // Logout
   logout(): void {
     localStorage.removeItem('user');
+    localStorage.removeItem('authorization');
     this.userSubject.next(null);
   }
 
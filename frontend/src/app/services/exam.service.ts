@@ -1,5 +1,5 @@
 import { Injectable } from '@angular/core';
-import { HttpClient, HttpParams, HttpErrorResponse } from '@angular/common/http';
+import { HttpClient, HttpHeaders, HttpParams, HttpErrorResponse } from '@angular/common/http';
 import { Observable, catchError, throwError, tap, map, of, retry, shareReplay, BehaviorSubject } from 'rxjs';
 import { Exam } from '../models/exam.model';
 import { environment } from 'src/environments/environment';
@@ -10,6 +10,94 @@ export interface SubjectDTO {
   acronym: string;
 }
 
+// All filter facets returned by the bootstrap endpoint in a single response
+export interface BootstrapData {
+  schools: string[];
+  degrees: string[];
+  degreesBySchool: { [school: string]: string[] };
+  semesters: string[];
+  courseYears: number[];
+  subjects: SubjectDTO[];
+}
+
+// Typeahead suggestion returned by the suggest endpoint
+export interface SuggestionDTO {
+  type: 'SUBJECT' | 'DEGREE';
+  name: string;
+  acronym: string | null;
+  examCount: number;
+}
+
+// Changes since a version, returned by the delta endpoint
+// With resync set, changed holds every exam and replaces the local copy
+export interface ExamDelta {
+  version: number;
+  resync: boolean;
+  changed: Exam[];
+  deleted: number[];
+}
+
+// Two exams and the minutes they overlap, or the rest between them
+export interface ExamOverlap {
+  first: Exam;
+  second: Exam;
+  overlapMinutes: number;
+}
+
+export interface ExamGap {
+  first: Exam;
+  second: Exam;
+  gapMinutes: number;
+}
+
+// Clash and rest analysis of a personal set of subjects
+export interface ScheduleAnalysis {
+  exams: Exam[];
+  subjectsWithoutExams: string[];
+  overlaps: ExamOverlap[];
+  sameDay: ExamGap[];
+  shortestGap: ExamGap | null;
+}
+
+// Compact exam shown in a month grid cell
+export interface ExamSummary {
+  id: number;
+  examHour: string;
+  durationMin: number;
+  subjectCode: string;
+  subjectName: string;
+  acronym: string;
+  degree: string;
+  examPlace: string;
+}
+
+export interface CalendarDay {
+  date: string;
+  inMonth: boolean;
+  examCount: number;
+  exams: ExamSummary[];
+}
+
+// Month grid of whole weeks (Monday first), including spill-over days of adjacent months
+export interface CalendarMonth {
+  year: number;
+  month: number;
+  gridStart: string;
+  gridEnd: string;
+  examCount: number;
+  days: CalendarDay[];
+}
+
+// Exams matching the filters, and per option the exams choosing it instead would give
+export interface FacetCounts {
+  total: number;
+  schools: { [school: string]: number };
+  degrees: { [degree: string]: number };
+  courseYears: { [courseYear: string]: number };
+  semesters: { [semester: string]: number };
+  subjects: { [subjectName: string]: number };
+}
+
 // Define filter interface for type safety
 export interface ExamFilters {
   school: string | null;
@@ -17,6 +105,8 @@ export interface ExamFilters {
   year: number | null;
   semester: string | null;
   subject: string | null;
+  /** Academic year by the calendar year it starts in (2024 for 2024-25) */
+  academicYear?: number | null;
 }
 
 /**
@@ -29,6 +119,7 @@ export class ExamService {
   private apiUrl = `${environment.apiUrl}/api/exams`;
 
   // Add cache properties for frequently accessed data
+  private cachedBootstrap$: Observable<BootstrapData> | null = null;
   private cachedExams$: Observable<Exam[]> | null = null;
   private cachedSemesters$: Observable<number[]> | null = null;
   private cachedCourseYears$: Observable<number[]> | null = null;
@@ -36,6 +127,10 @@ export class ExamService {
   private cachedDegrees$: Observable<string[]> | null = null;
   private cachedSchools$: { [key: string]: Observable<string[]> } = {};
 
+  // Local copy of every exam, kept across cache clears so a refresh only fetches the delta
+  private examsById: Map<number, Exam> | null = null;
+  private examsVersion = 0;
+
   // Replace direct object with BehaviorSubject for reactive updates
   private selectedFiltersSubject = new BehaviorSubject<ExamFilters>({
     school: 'ETSINF',
@@ -54,6 +149,7 @@ export class ExamService {
 
   /**
    * Get all exams - cached with deduplication
+   * After a cache clear only the exams changed since the last load are downloaded
    */
   getAllExams(): Observable<Exam[]> {
     console.log('Getting exams - may use cache if available');
@@ -63,10 +159,12 @@ export class ExamService {
       return this.cachedExams$;
     }
     
-    console.log('Fetching all exams from:', `${this.apiUrl}`);
-    this.cachedExams$ = this.http.get<Exam[]>(this.apiUrl)
+    const params = new HttpParams().set('since', this.examsById ? this.examsVersion.toString() : '0');
+    console.log('Fetching exam changes from:', `${this.apiUrl}/delta`, params.toString());
+    this.cachedExams$ = this.http.get<ExamDelta>(`${this.apiUrl}/delta`, { params })
       .pipe(
         retry(2), // Retry up to 2 times before failing
+        map(delta => this.applyDelta(delta)),
         tap(data => {
           console.log('Received exams data, count:', data.length);
           if (data.length === 0) {
@@ -90,6 +188,24 @@ export class ExamService {
     return this.cachedExams$;
   }
 
+  /**
+   * Apply a delta to the local copy and return every exam in chronological order
+   */
+  private applyDelta(delta: ExamDelta): Exam[] {
+    if (delta.resync || !this.examsById) {
+      this.examsById = new Map();
+    }
+    const exams = this.examsById;
+    delta.changed.forEach(exam => exams.set(exam.id!, exam));
+    delta.deleted.forEach(id => exams.delete(id));
+    this.examsVersion = delta.version;
+    console.log(`Applied exam delta: ${delta.changed.length} changed, ${delta.deleted.length} deleted,`
+      + ` resync: ${delta.resync}`);
+
+    return Array.from(exams.values()).sort((a, b) =>
+      a.examDay.localeCompare(b.examDay) || a.examHour.localeCompare(b.examHour) || (a.id! - b.id!));
+  }
+
   /**
    * Get a single exam by ID
    */
@@ -125,7 +241,9 @@ export class ExamService {
    */
   updateExam(id: number, exam: Exam): Observable<Exam> {
     console.log(`Updating exam with ID ${id}, data:`, exam);
-    return this.http.put<Exam>(`${this.apiUrl}/${id}`, exam)
+    // Only overwrite the exam if nobody changed it since it was loaded
+    const headers = exam.version != null ? new HttpHeaders({ 'If-Match': `"${exam.version}"` }) : undefined;
+    return this.http.put<Exam>(`${this.apiUrl}/${id}`, exam, { headers })
       .pipe(
         tap(data => console.log(`Updated exam data for ID ${id}:`, data)),
         catchError(error => {
@@ -266,6 +384,99 @@ export class ExamService {
       );
   }
 
+  /**
+   * Subjects and degrees with a word starting with the typed text, most exams first
+   */
+  suggest(query: string, limit: number = 10): Observable<SuggestionDTO[]> {
+    const params = new HttpParams().set('q', query).set('limit', limit.toString());
+    return this.http.get<SuggestionDTO[]>(`${this.apiUrl}/suggest`, { params })
+      .pipe(
+        catchError(error => {
+          console.error(`Error fetching suggestions for ${query}:`, error);
+          return this.handleError(error);
+        })
+      );
+  }
+
+  /**
+   * Overlaps, same-day exams and shortest rest for the selected subjects
+   */
+  analyzeSchedule(subjectCodes: string[]): Observable<ScheduleAnalysis> {
+    return this.http.post<ScheduleAnalysis>(`${this.apiUrl}/my-schedule/analysis`, { subjectCodes })
+      .pipe(
+        catchError(error => {
+          console.error('Error analysing schedule:', error);
+          return this.handleError(error);
+        })
+      );
+  }
+
+  /**
+   * Month grid with the exams of each day; month is 1-based
+   */
+  getCalendarMonth(year: number, month: number, filters?: Partial<ExamFilters>): Observable<CalendarMonth> {
+    const params = this.filterParams(filters);
+    return this.http.get<CalendarMonth>(`${this.apiUrl}/calendar/${year}/${month}`, { params })
+      .pipe(
+        catchError(error => {
+          console.error(`Error fetching calendar for ${year}-${month}:`, error);
+          return this.handleError(error);
+        })
+      );
+  }
+
+  /**
+   * Exam counts for the current filters and for every option of each filter
+   */
+  getFacetCounts(filters?: Partial<ExamFilters>): Observable<FacetCounts> {
+    const params = this.filterParams(filters);
+    return this.http.get<FacetCounts>(`${this.apiUrl}/facets/counts`, { params })
+      .pipe(
+        catchError(error => {
+          console.error('Error fetching facet counts:', error);
+          return this.handleError(error);
+        })
+      );
+  }
+
+  /**
+   * Query parameters of the filter endpoints for the selected filters
+   */
+  private filterParams(filters?: Partial<ExamFilters>): HttpParams {
+    let params = new HttpParams();
+    if (filters?.school) params = params.set('school', filters.school);
+    if (filters?.degree) params = params.set('degree', filters.degree);
+    if (filters?.year) params = params.set('courseYear', filters.year.toString());
+    if (filters?.semester) params = params.set('semester', filters.semester);
+    if (filters?.subject) params = params.set('subject', filters.subject);
+    if (filters?.academicYear) params = params.set('academicYear', filters.academicYear.toString());
+    return params;
+  }
+
+  /**
+   * Get every filter facet in one request - cached with deduplication
+   * The individual facet getters below are derived from this single response
+   */
+  getBootstrap(): Observable<BootstrapData> {
+    if (this.cachedBootstrap$) {
+      return this.cachedBootstrap$;
+    }
+
+    console.log('Fetching filter facets from:', `${this.apiUrl}/bootstrap`);
+    this.cachedBootstrap$ = this.http.get<BootstrapData>(`${this.apiUrl}/bootstrap`)
+      .pipe(
+        retry(2), // Retry up to 2 times before failing
+        catchError(error => {
+          console.error('Error fetching filter facets:', error);
+          this.cachedBootstrap$ = null; // Clear cache on error
+          return this.handleError(error);
+        }),
+        shareReplay(1)
+      );
+
+    return this.cachedBootstrap$;
+  }
+
   /**
    * Get all unique degrees - cached with deduplication
    * These are the actual degrees (former sub-degrees)
@@ -278,9 +489,9 @@ export class ExamService {
       return this.cachedDegrees$;
     }
     
-    console.log('Fetching all degrees from:', `${this.apiUrl}/degrees/distinct`);
-    this.cachedDegrees$ = this.http.get<string[]>(`${this.apiUrl}/degrees/distinct`)
+    this.cachedDegrees$ = this.getBootstrap()
       .pipe(
+        map(data => data.degrees),
         tap(data => console.log('Received degrees data, count:', data.length)),
         catchError(error => {
           console.error('Error fetching degrees:', error);
@@ -297,9 +508,9 @@ export class ExamService {
    * Get all unique schools (formerly degrees)
    */
   getAllSchools(): Observable<string[]> {
-    console.log('Fetching all schools from:', `${this.apiUrl}/schools/distinct`);
-    return this.http.get<string[]>(`${this.apiUrl}/schools/distinct`)
+    return this.getBootstrap()
       .pipe(
+        map(data => data.schools),
         tap(data => console.log('Received schools data:', data)),
         catchError(error => {
           console.error('Error fetching schools:', error);
@@ -319,10 +530,9 @@ export class ExamService {
       return this.cachedSemesters$;
     }
     
-    console.log('Fetching all semesters from:', `${this.apiUrl}/semesters/distinct`);
-    this.cachedSemesters$ = this.http.get<number[]>(`${this.apiUrl}/semesters/distinct`)
+    this.cachedSemesters$ = this.getBootstrap()
       .pipe(
-        retry(2), // Retry up to 2 times
+        map(data => data.semesters as any[]),
         tap(data => console.log('Received semesters data:', data)),
         catchError(error => {
           console.error('Error fetching semesters:', error);
@@ -348,10 +558,9 @@ export class ExamService {
       return this.cachedCourseYears$;
     }
     
-    console.log('Fetching all course years from:', `${this.apiUrl}/courseyears/distinct`);
-    this.cachedCourseYears$ = this.http.get<number[]>(`${this.apiUrl}/courseyears/distinct`)
+    this.cachedCourseYears$ = this.getBootstrap()
       .pipe(
-        retry(2), // Retry up to 2 times
+        map(data => data.courseYears),
         tap(data => console.log('Received course years data:', data)),
         catchError(error => {
           console.error('Error fetching course years:', error);
@@ -378,37 +587,9 @@ export class ExamService {
       return this.cachedSubjects$;
     }
     
-    console.log('Fetching all subjects with acronyms from:', `${this.apiUrl}/subjects/distinct`);
-    this.cachedSubjects$ = this.http.get<any>(`${this.apiUrl}/subjects/distinct`)
+    this.cachedSubjects$ = this.getBootstrap()
       .pipe(
-        retry(2), // Retry up to 2 times
-        map(response => {
-          console.log('Raw subjects response:', response);
-          
-          // Check if the response is already an array
-          if (Array.isArray(response)) {
-            console.log('Response is already an array, returning directly');
-            return response;
-          }
-          
-          // Check if the response has a data property that is an array
-          if (response && response.data && Array.isArray(response.data)) {
-            console.log('Response has data property that is an array, extracting it');
-            return response.data;
-          }
-          
-          // Try to handle other potential formats
-          if (typeof response === 'object') {
-            console.log('Response is an object, trying to extract values');
-            const values = Object.values(response);
-            if (Array.isArray(values[0])) {
-              return values[0];
-            }
-          }
-          
-          console.error('Unhandled response format:', response);
-          return []; // Return empty array as fallback
-        }),
+        map(data => data.subjects),
         tap(data => console.log('Processed subjects with acronyms data:', data)),
         catchError(error => {
           console.error('Error fetching subjects with acronyms:', error);
@@ -434,9 +615,9 @@ export class ExamService {
       return this.cachedSchools$[school];
     }
     
-    console.log(`Fetching degrees for school ${school} from:`, `${this.apiUrl}/degrees/bySchool/${school}`);
-    this.cachedSchools$[school] = this.http.get<string[]>(`${this.apiUrl}/degrees/bySchool/${school}`)
+    this.cachedSchools$[school] = this.getBootstrap()
       .pipe(
+        map(data => data.degreesBySchool[school] || []),
         tap(data => console.log(`Received degrees for school ${school}, count:`, data.length)),
         catchError(error => {
           console.error(`Error fetching degrees for school ${school}:`, error);
@@ -453,6 +634,7 @@ export class ExamService {
    * Clear all caches
    */
   clearCache(): void {
+    this.cachedBootstrap$ = null;
     this.cachedExams$ = null;
     this.cachedSemesters$ = null;
     this.cachedCourseYears$ = null;
@@ -619,6 +801,34 @@ export class ExamService {
     return updatedFilters;
   }
 
+  /**
+   * URL of the iCalendar feed for the given filters
+   * Can be downloaded once or added as a subscription in a calendar app
+   */
+  getCalendarExportUrl(filters: ExamFilters): string {
+    let params = new HttpParams();
+    if (filters.school) {
+      params = params.set('school', filters.school);
+    }
+    if (filters.degree) {
+      params = params.set('degree', filters.degree);
+    }
+    if (filters.year !== null) {
+      params = params.set('courseYear', filters.year.toString());
+    }
+    if (filters.semester) {
+      params = params.set('semester', filters.semester.toString());
+    }
+    if (filters.subject) {
+      params = params.set('subject', filters.subject);
+    }
+    if (filters.academicYear) {
+      params = params.set('academicYear', filters.academicYear.toString());
+    }
+    const query = params.toString();
+    return `${this.apiUrl}/calendar.ics${query ? '?' + query : ''}`;
+  }
+
   /**
    * Get filtered exams based on current filter state
    * This method will apply all active filters and return matching exams